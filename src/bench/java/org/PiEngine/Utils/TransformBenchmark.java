@@ -0,0 +1,151 @@
+package org.PiEngine.Utils;
+
+import org.PiEngine.GameObjects.Transform;
+import org.PiEngine.GameObjects.TransformPropagator;
+import org.PiEngine.GameObjects.TransformStore;
+import org.PiEngine.Math.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standalone benchmark comparing serial and parallel world-matrix propagation.
+ * Builds wide and deep hierarchies of several sizes, checks that the parallel result
+ * is bit-identical to the serial one and prints the average time per full update.
+ *
+ * Usage: gradlew transformBenchmark -Pargs="[threads] [threshold]"
+ */
+public class TransformBenchmark
+{
+    private static final int[] NODE_COUNTS = { 1_000, 10_000, 100_000, 1_000_000 };
+    private static final int WARMUP_RUNS = 5;
+    private static final int TIMED_RUNS = 20;
+
+    public static void main(String[] args)
+    {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int threshold = args.length > 1 ? Integer.parseInt(args[1]) : TransformPropagator.DEFAULT_THRESHOLD;
+
+        TransformPropagator serial = new TransformPropagator(1, threshold);
+        TransformPropagator parallel = new TransformPropagator(threads, threshold);
+
+        System.out.printf("threads=%d threshold=%d%n", threads, threshold);
+        System.out.printf("%-6s %-6s %10s %12s %12s %8s %s%n", "shape", "mode", "nodes", "serial(ms)", "parallel(ms)", "speedup", "identical");
+
+        for (String shape : new String[] { "wide", "deep" })
+        {
+            for (boolean useStore : new boolean[] { false, true })
+            {
+                for (int nodes : NODE_COUNTS)
+                {
+                    run(shape, useStore, nodes, serial, parallel);
+                }
+            }
+        }
+
+        serial.shutdown();
+        parallel.shutdown();
+    }
+
+    private static void run(String shape, boolean useStore, int nodes, TransformPropagator serial, TransformPropagator parallel)
+    {
+        // Both propagators walk the same hierarchy so allocation layout does not bias the comparison
+        List<Transform> list = new ArrayList<>();
+        Transform root = build(shape, nodes, list);
+
+        if (useStore)
+        {
+            new TransformStore(root);
+        }
+
+        // Every run rewrites the whole hierarchy and both timings end on the same root rotation
+        double serialMs = time(root, serial);
+        float[][] expected = new float[nodes][];
+        for (int i = 0; i < nodes; i++)
+        {
+            expected[i] = list.get(i).getWorldMatrix().elements.clone();
+        }
+        double parallelMs = time(root, parallel);
+
+        boolean identical = true;
+        for (int i = 0; i < nodes && identical; i++)
+        {
+            identical = Arrays.equals(expected[i], list.get(i).getWorldMatrix().elements);
+        }
+
+        System.out.printf("%-6s %-6s %10d %12.3f %12.3f %7.2fx %s%n",
+            shape, useStore ? "store" : "tree", nodes, serialMs, parallelMs, serialMs / parallelMs, identical);
+    }
+
+    /**
+     * Dirties the whole hierarchy by rotating the root and times a full update.
+     * @return Average milliseconds per update
+     */
+    private static double time(Transform root, TransformPropagator propagator)
+    {
+        Vector rotation = new Vector();
+        long total = 0;
+        for (int run = 0; run < WARMUP_RUNS + TIMED_RUNS; run++)
+        {
+            root.setLocalRotation(rotation.set(0, 0, run * 7.5f));
+            long start = System.nanoTime();
+            propagator.update(root);
+            if (run >= WARMUP_RUNS) total += System.nanoTime() - start;
+        }
+        return total / 1e6 / TIMED_RUNS;
+    }
+
+    /**
+     * Builds a deterministic hierarchy of the given shape.
+     * "wide": the root has many children, each with a handful of leaves.
+     * "deep": the root has chains of up to 512 nodes (kept bounded so the recursive serial walk fits on the stack).
+     */
+    private static Transform build(String shape, int nodes, List<Transform> out)
+    {
+        Random random = new Random(nodes);
+        Transform root = create(random, out);
+
+        if (shape.equals("wide"))
+        {
+            Transform group = null;
+            for (int i = 1; i < nodes; i++)
+            {
+                Transform t = create(random, out);
+                if (group == null || i % 8 == 0)
+                {
+                    root.addChild(t);
+                    group = t;
+                }
+                else
+                {
+                    group.addChild(t);
+                }
+            }
+        }
+        else
+        {
+            int chains = Math.max(16, nodes / 512);
+            Transform[] tails = new Transform[chains];
+            Arrays.fill(tails, root);
+            for (int i = 1; i < nodes; i++)
+            {
+                Transform t = create(random, out);
+                tails[i % chains].addChild(t);
+                tails[i % chains] = t;
+            }
+        }
+        return root;
+    }
+
+    private static Transform create(Random random, List<Transform> out)
+    {
+        Transform t = new Transform();
+        t.setLocalPosition(new Vector(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1, 0));
+        t.setLocalRotation(new Vector(0, 0, random.nextFloat() * 360));
+        t.setLocalScale(new Vector(0.99f + random.nextFloat() * 0.02f, 0.99f + random.nextFloat() * 0.02f, 1));
+        out.add(t);
+        return t;
+    }
+}
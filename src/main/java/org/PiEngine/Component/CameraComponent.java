@@ -14,6 +14,8 @@ public class CameraComponent extends Component
     public Float Far = 100.0f;
 
     private Camera camera;
+    private final Vector worldPosition = new Vector();
+    private final Vector worldRotation = new Vector();
 
     public CameraComponent() {
         this.camera = new Camera(1, Near, Far);
@@ -46,10 +48,9 @@ public class CameraComponent extends Component
      */
     @Override
     public void update() {
-        Vector pos = new Vector(gameObject.transform.getWorldPosition());
-        camera.setPosition(pos);
-        Vector rot = new Vector(gameObject.transform.getWorldRotation());
-        camera.setRotation(rot);
+        // Follow the interpolated position so cameras attached to fixed-step objects do not jitter
+        camera.setPosition(gameObject.transform.getRenderMatrix(Time.getFixedAlpha()).getTranslation(worldPosition));
+        camera.setRotation(gameObject.transform.getWorldRotation(worldRotation));
         camera.setPerspective(FOV, (float)1280/720, Near, Far);
         camera.updateProjectionMatrix();
     }
@@ -1,12 +1,14 @@
 package org.PiEngine.Component;
 
-import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.PiEngine.Core.Camera;
+import org.PiEngine.Core.Profiler;
 import org.PiEngine.GameObjects.*;
 import org.PiEngine.Manager.AssetManager;
+import org.PiEngine.Math.Bounds;
+import org.PiEngine.Math.Frustum;
 import org.PiEngine.Math.Vector;
 import org.PiEngine.Utils.ComponentFactory;
 import org.PiEngine.Utils.GUIDProvider;
@@ -23,13 +25,21 @@ import org.PiEngine.Engine.Scene;
  * Subclass this to create custom behaviors (e.g., physics, scripts, renderers).
  * Lifecycle methods are called by the engine automatically.
  */
-public abstract class Component
+public abstract class Component implements Handle.Target
 {
     /** Reference to the GameObject this component is attached to */
     public GameObject gameObject;
     public Transform transform;
     private int id;
 
+    /** Scratch box for frustum culling; rendering only happens on the GL thread */
+    private static final Bounds cullBounds = new Bounds();
+
+    private boolean destroyed = false;
+    private int generation = 0;                 // Bumped when the component is destroyed
+    private int validatedEpoch = -1;            // GameObject destroy epoch at the last updateFields() pass
+    private int validatedAssetVersion = -1;     // AssetManager version at the last updateFields() pass
+
     public Component()
     {
         id = IDGenerator.generateUniqueID();
@@ -65,12 +75,52 @@ public abstract class Component
      */
     public void render(Camera camera) {}
 
+    /**
+     * Computes the world-space box that render() draws into, so passes can skip the component
+     * when the box is outside the camera. Components without a fixed extent keep the default.
+     * @param out Box receiving the bounds
+     * @return True if out was set; false if the component is never culled
+     */
+    public boolean getWorldBounds(Bounds out)
+    {
+        return false;
+    }
+
+    /**
+     * Renders the component unless its world bounds are outside the frustum.
+     * Override together with render() when the bounds and the draw share work, such as the
+     * render matrix, so it is computed once.
+     * @param camera The camera to use for rendering
+     * @param frustum The camera frustum, or null to render regardless of bounds
+     */
+    public void renderCulled(Camera camera, Frustum frustum)
+    {
+        if (frustum != null && getWorldBounds(cullBounds) && !frustum.intersects(cullBounds)) return;
+        render(camera);
+    }
+
     /**
      * Called every frame after rendering, mainly for development tools or debugging purposes.
      * Example: Drawing wireframes, bounding boxes, or debug info.
      */
     public void debugRender() {}
 
+    /**
+     * Declares the types update() reads from other GameObjects or components.
+     * Returning non-null here or from getWrites() opts the class into the parallel update
+     * phase of UpdateScheduler. The default null keeps it on the serial hierarchy walk.
+     * Reading Transform.class is scheduled like writing it, because the getters fill matrix caches.
+     * @return Types read, or null if undeclared
+     */
+    public Class<?>[] getReads() { return null; }
+
+    /**
+     * Declares the types update() modifies on its own GameObject, besides this component itself.
+     * Use Transform.class for position, rotation or scale changes. See getReads().
+     * @return Types written, or null if undeclared
+     */
+    public Class<?>[] getWrites() { return null; }
+
 
     // A helper method to get the line number from the exception
     private String getLineNumber(Exception e)
@@ -95,6 +145,8 @@ public abstract class Component
      */
     final public void safeUpdate() 
     {
+        boolean profile = Profiler.isDetailed();
+        if (profile) Profiler.begin(getClass().getSimpleName());
         try 
         {
             update(); 
@@ -104,6 +156,7 @@ public abstract class Component
             String errorMessage = "Exception in update: " + e.getMessage() + " (" + getLineNumber(e) + ")";
             Console.errorClass(errorMessage, this.getClass().getSimpleName()+".java");
         }
+        if (profile) Profiler.end();
     }
 
     /**
@@ -127,6 +180,8 @@ public abstract class Component
      */
     final public void safeFixedUpdate() 
     {
+        boolean profile = Profiler.isDetailed();
+        if (profile) Profiler.begin(getClass().getSimpleName());
         try 
         {
             fixedUpdate(); 
@@ -136,19 +191,33 @@ public abstract class Component
             String errorMessage = "Exception in fixedUpdate: " + e.getMessage() + " (" + getLineNumber(e) + ")";
             Console.errorClass(errorMessage, this.getClass().getSimpleName()+".java");
         }
+        if (profile) Profiler.end();
     }
 
     final public void safeRender(Camera cam) 
     {
+        safeRender(cam, null);
+    }
+
+    /**
+     * Runs renderCulled() safely, catching and logging exceptions with line numbers.
+     * @param cam The camera to use for rendering
+     * @param frustum The camera frustum, or null to render regardless of bounds
+     */
+    final public void safeRender(Camera cam, Frustum frustum) 
+    {
+        boolean profile = Profiler.isDetailed();
+        if (profile) Profiler.begin(getClass().getSimpleName());
         try 
         {
-            render(cam); 
+            renderCulled(cam, frustum); 
         } 
         catch (Exception e) 
         {
             String errorMessage = "Exception in render: " + e.getMessage() + " (" + getLineNumber(e) + ")";
             Console.errorClass(errorMessage, this.getClass().getSimpleName()+".java");
         }
+        if (profile) Profiler.end();
     }
 
     /**
@@ -160,37 +229,33 @@ public abstract class Component
     {
         Map<String, Object> properties = new HashMap<>();
     
-        Field[] fields = this.getClass().getDeclaredFields();
-    
-        for (Field field : fields) 
+        for (ComponentMetadata.FieldInfo field : ComponentMetadata.of(this.getClass()).getDeclaredFields()) 
         {
-            field.setAccessible(true);
-            try {
-                Object value = field.get(this);
-                if (value instanceof GameObject) 
+            Object value = field.get(this);
+            switch (field.getKind())
+            {
+                case GAME_OBJECT ->
                 {
-                    value = GameObject.Location((GameObject)value);
+                    if (value != null) value = GameObject.Location((GameObject)value);
                 }
-                if (Component.class.isAssignableFrom(field.getType()))
+                case COMPONENT ->
                 {
-                    Component cmp = (Component)field.get(this);
-                    if(cmp != null)
-                    { 
-                        Object fieldValue = field.get(this);
-                        String str = GameObject.Location(cmp.gameObject) + "<" + fieldValue.getClass().getSimpleName() +">";
-                        value = str;
+                    Component cmp = (Component)value;
+                    if (cmp != null)
+                    {
+                        value = GameObject.Location(cmp.gameObject) + "<" + cmp.getClass().getSimpleName() +">";
                     }
                 }
-                else if (value instanceof GUIDProvider)
+                default ->
                 {
-                    value = ((GUIDProvider)value).getGUID();
+                    if (value instanceof GUIDProvider)
+                    {
+                        value = ((GUIDProvider)value).getGUID();
+                    }
                 }
-                
-    
-                properties.put(field.getName(), value);
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
             }
+    
+            properties.put(field.getName(), value);
         }
     
         return properties;
@@ -213,126 +278,108 @@ public abstract class Component
      */
     public void setComponentProperty(String propertyName, JsonElement propertyValue) 
     {
-        try 
+        ComponentMetadata.FieldInfo field = ComponentMetadata.of(this.getClass()).getDeclaredField(propertyName);
+        if (field == null)
         {
-            Field field = this.getClass().getDeclaredField(propertyName);
-            Object value = field.get(this);
-            field.setAccessible(true);
-
-            Class<?> fieldType = field.getType();
+            new NoSuchFieldException(propertyName).printStackTrace();
+            return;
+        }
 
-            if (fieldType == String.class) 
-            {
-                field.set(this, propertyValue.getAsString());
-            } 
-            else if (fieldType == Integer.class || fieldType == int.class) 
-            {
-                field.set(this, propertyValue.getAsInt());
-            } else if (fieldType == Float.class || fieldType == float.class) 
-            {
-                field.set(this, propertyValue.getAsFloat());
-            } 
-            else if (fieldType == Boolean.class || fieldType == boolean.class) 
-            {
-                field.set(this, propertyValue.getAsBoolean());
-            } 
-            else if (fieldType == Vector.class) 
-            {
-                JsonObject vectorObject = propertyValue.getAsJsonObject();
-                float x = vectorObject.get("x").getAsFloat();
-                float y = vectorObject.get("y").getAsFloat();
-                float z = vectorObject.get("z").getAsFloat();
-                field.set(this, new Vector(x, y, z));
-            } 
-            else if (fieldType == GameObject.class) 
-            {
-                String location = propertyValue.getAsString();
-                GameObject target = GameObject.findGameObject(location, Scene.getInstance().getRoot());
-                field.set(this, target);
-            } 
-            else if (Component.class.isAssignableFrom(field.getType()))
+        try 
+        {
+            switch (field.getKind())
             {
-                String full = propertyValue.getAsString();
-                int start = full.indexOf('<');
-                int end = full.indexOf('>');
-
-                String component = full.substring(start + 1, end);
-                String path = full.substring(0, start);
-
-                
-                GameObject target = GameObject.findGameObject(path, Scene.getInstance().getRoot());
-                Class<? extends Component> componentClass = ComponentFactory.GetClass(component);
-                if (componentClass != null && target != null) 
-                {    
-                    field.set(this, target.getComponent(componentClass));
+                case STRING -> field.set(this, propertyValue.getAsString());
+                case INT -> field.set(this, propertyValue.getAsInt());
+                case FLOAT -> field.set(this, propertyValue.getAsFloat());
+                case BOOLEAN -> field.set(this, propertyValue.getAsBoolean());
+                case VECTOR ->
+                {
+                    JsonObject vectorObject = propertyValue.getAsJsonObject();
+                    float x = vectorObject.get("x").getAsFloat();
+                    float y = vectorObject.get("y").getAsFloat();
+                    float z = vectorObject.get("z").getAsFloat();
+                    field.set(this, new Vector(x, y, z));
                 }
+                case GAME_OBJECT ->
+                {
+                    String location = propertyValue.getAsString();
+                    GameObject target = Scene.getInstance().findGameObject(location);
+                    field.set(this, target);
+                }
+                case COMPONENT ->
+                {
+                    String full = propertyValue.getAsString();
+                    int start = full.indexOf('<');
+                    int end = full.indexOf('>');
+
+                    String component = full.substring(start + 1, end);
+                    String path = full.substring(0, start);
+
+                    GameObject target = Scene.getInstance().findGameObject(path);
+                    Class<? extends Component> componentClass = ComponentFactory.GetClass(component);
+                    if (componentClass != null && target != null) 
+                    {    
+                        field.set(this, target.getComponent(componentClass));
+                    }
+                }
+                case ASSET -> field.set(this, AssetManager.get(propertyValue.getAsString()));
+                default -> {}
             }
-            if (GUIDProvider.class.isAssignableFrom(field.getType()))
-            {
-                value = AssetManager.get(propertyValue.getAsString());
-                field.set(this, value);
-            }
-
-        } catch (NoSuchFieldException | IllegalAccessException e) {
+        } 
+        catch (IllegalAccessException e) 
+        {
             e.printStackTrace();
         }
     }
 
     /**
-     * Updates fields in this component using reflection, clearing references to
-     * destroyed GameObjects and Components.
+     * Updates fields in this component using the cached field metadata, clearing references to
+     * destroyed GameObjects and Components and re-fetching assets.
+     * Returns immediately unless something was destroyed or an asset was loaded
+     * since the last call. Any destroy in the scene bumps the global destroy epoch, so every
+     * component rescans its reference fields once on its next call, and a plain reference field
+     * still points to a destroyed target until then. Code that must see a destroy immediately
+     * should hold a Handle and call get(), which checks the target generation in O(1).
      */
     final public void updateFields()
     {
-        Class<?> clazz = this.getClass();
-        while (clazz != null && clazz != Component.class)
+        int epoch = GameObject.getDestroyEpoch();
+        int assetVersion = AssetManager.getVersion();
+        if (epoch == validatedEpoch && assetVersion == validatedAssetVersion) return;
+
+        boolean assetsChanged = assetVersion != validatedAssetVersion;
+        validatedEpoch = epoch;
+        validatedAssetVersion = assetVersion;
+
+        for (ComponentMetadata.FieldInfo field : ComponentMetadata.of(this.getClass()).getReferenceFields())
         {
-            for (Field field : clazz.getDeclaredFields())
+            try
             {
-                field.setAccessible(true);
-                Class<?> fieldType = field.getType();
-                try
+                Object val = field.get(this);
+                if (val == null) continue;
+
+                switch (field.getKind())
                 {
-                    if (GameObject.class.isAssignableFrom(fieldType))
+                    case GAME_OBJECT ->
                     {
-                        GameObject val = (GameObject) field.get(this);
-                        if (val != null)
-                        {
-                            GameObject g = GameObject.findGameObject(val.Location, Scene.getInstance().getRoot());
-                            if (g == null)
-                            {
-                                field.set(this, null);
-                            }
-                        }
+                        if (((GameObject) val).isDestroyed()) field.set(this, null);
                     }
-                    else if (Component.class.isAssignableFrom(fieldType))
+                    case COMPONENT ->
                     {
-                        Component val = (Component) field.get(this);
-                        if (val != null && val.gameObject != null)
-                        {
-                            GameObject g = GameObject.findGameObject(val.gameObject.Location, Scene.getInstance().getRoot());
-                            if (g == null)
-                            {
-                                field.set(this, null); 
-                            }
-                        }
+                        if (((Component) val).isDestroyed()) field.set(this, null);
                     }
-                    else if (GUIDProvider.class.isAssignableFrom(field.getType()))
+                    case ASSET ->
                     {
-                        GUIDProvider val = (GUIDProvider) field.get(this);
-                        if(val != null)
-                        {
-                            Object guid = AssetManager.get(val.getGUID());
-                            field.set(this, guid);
-                        }
+                        if (assetsChanged) field.set(this, AssetManager.get(((GUIDProvider) val).getGUID()));
                     }
-                }
-                catch (IllegalAccessException e)
-                {
-                    e.printStackTrace();
+                    default -> {}
                 }
             }
-            clazz = clazz.getSuperclass();
+            catch (IllegalAccessException e)
+            {
+                e.printStackTrace();
+            }
         }
     }
 
@@ -361,6 +408,37 @@ public abstract class Component
         return id;
     }
 
+    /**
+     * Marks this component as destroyed so handles and reference fields pointing to it resolve to null.
+     * Called by GameObject when the component is removed or its owner is destroyed.
+     */
+    public final void markDestroyed()
+    {
+        if (destroyed) return;
+        destroyed = true;
+        generation++;
+        GameObject.onDestroyed();
+    }
+
+    /**
+     * Returns the generation checked by handles to this component. It changes when the component is destroyed.
+     * @return Generation counter
+     */
+    @Override
+    public int getGeneration()
+    {
+        return generation;
+    }
+
+    /**
+     * Returns whether this component, or the GameObject it belongs to, has been destroyed.
+     * @return True if destroyed
+     */
+    public boolean isDestroyed()
+    {
+        return destroyed || (gameObject != null && gameObject.isDestroyed());
+    }
+
     public void setId(int id) {
         this.id = id;
     }
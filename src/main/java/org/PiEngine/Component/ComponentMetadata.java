@@ -0,0 +1,316 @@
+package org.PiEngine.Component;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.PiEngine.Core.Camera;
+import org.PiEngine.GameObjects.GameObject;
+import org.PiEngine.Math.Vector;
+import org.PiEngine.Utils.GUIDProvider;
+
+/**
+ * Per-class field metadata for components, built once and reused by serialization,
+ * the inspector and reference fix-up.
+ * Each field gets a type code and MethodHandle accessors so callers do not repeat
+ * getDeclaredFields(), setAccessible() and reflective Field.get/set on every call.
+ * The cache is keyed by Class, so reloaded script classes get fresh entries;
+ * clear() drops everything when the script class loader is reset.
+ */
+public final class ComponentMetadata
+{
+    /** Classification of a field's type, resolved once per field */
+    public enum FieldKind
+    {
+        STRING, INT, FLOAT, BOOLEAN, VECTOR, GAME_OBJECT, COMPONENT, ASSET, OTHER;
+
+        static FieldKind of(Class<?> type)
+        {
+            if (type == String.class) return STRING;
+            if (type == Integer.class || type == int.class) return INT;
+            if (type == Float.class || type == float.class) return FLOAT;
+            if (type == Boolean.class || type == boolean.class) return BOOLEAN;
+            if (type == Vector.class) return VECTOR;
+            if (GameObject.class.isAssignableFrom(type)) return GAME_OBJECT;
+            if (Component.class.isAssignableFrom(type)) return COMPONENT;
+            if (GUIDProvider.class.isAssignableFrom(type)) return ASSET;
+            return OTHER;
+        }
+    }
+
+    /**
+     * A single field with precomputed kind and accessors.
+     */
+    public static final class FieldInfo
+    {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final Field field;
+        private final String name;
+        private final Class<?> type;
+        private final FieldKind kind;
+        private final MethodHandle getter;     // (Object target) -> Object
+        private final MethodHandle setter;     // (Object target, Object value) -> void, null if read-only
+
+        FieldInfo(Field field)
+        {
+            this.field = field;
+            this.name = field.getName();
+            this.type = field.getType();
+            this.kind = FieldKind.of(type);
+
+            field.setAccessible(true);
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            MethodHandle get;
+            try
+            {
+                get = lookup.unreflectGetter(field);
+                if (isStatic) get = MethodHandles.dropArguments(get, 0, Object.class);
+                get = get.asType(GETTER_TYPE);
+            }
+            catch (IllegalAccessException e)
+            {
+                throw new IllegalStateException("Cannot read field " + field, e);
+            }
+            this.getter = get;
+
+            MethodHandle set;
+            try
+            {
+                set = lookup.unreflectSetter(field);
+                if (isStatic) set = MethodHandles.dropArguments(set, 0, Object.class);
+                set = set.asType(SETTER_TYPE);
+            }
+            catch (IllegalAccessException e)
+            {
+                // Static final fields cannot be written
+                set = null;
+            }
+            this.setter = set;
+        }
+
+        /**
+         * Reads the field.
+         * @param target The component instance
+         * @return The field value
+         */
+        public Object get(Object target)
+        {
+            try
+            {
+                return (Object) getter.invokeExact(target);
+            }
+            catch (RuntimeException | Error e)
+            {
+                throw e;
+            }
+            catch (Throwable t)
+            {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        /**
+         * Writes the field.
+         * @param target The component instance
+         * @param value The new value
+         * @throws IllegalAccessException If the field is read-only
+         */
+        public void set(Object target, Object value) throws IllegalAccessException
+        {
+            if (setter == null)
+            {
+                throw new IllegalAccessException("Field is read-only: " + name);
+            }
+            try
+            {
+                setter.invokeExact(target, value);
+            }
+            catch (RuntimeException | Error e)
+            {
+                throw e;
+            }
+            catch (Throwable t)
+            {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public Class<?> getType()
+        {
+            return type;
+        }
+
+        public FieldKind getKind()
+        {
+            return kind;
+        }
+
+        public Field getField()
+        {
+            return field;
+        }
+    }
+
+    private static final Map<Class<?>, ComponentMetadata> cache = new ConcurrentHashMap<>();
+
+    private final List<FieldInfo> declaredFields;       // Declared on the class itself (serialization)
+    private final Map<String, FieldInfo> declaredByName;
+    private final List<FieldInfo> referenceFields;      // GameObject/Component/asset fields up to Component
+    private final List<FieldInfo> inspectableFields;    // Public fields shown in the inspector
+    private final boolean rendersItself;                // Overrides Component.render(Camera)
+    private final boolean updatesItself;                // Overrides Component.update()
+
+    private ComponentMetadata(Class<?> clazz)
+    {
+        List<FieldInfo> declared = new ArrayList<>();
+        Map<String, FieldInfo> byName = new HashMap<>();
+        for (Field field : clazz.getDeclaredFields())
+        {
+            FieldInfo info = new FieldInfo(field);
+            declared.add(info);
+            byName.put(info.getName(), info);
+        }
+
+        List<FieldInfo> references = new ArrayList<>();
+        for (Class<?> c = clazz; c != null && c != Component.class; c = c.getSuperclass())
+        {
+            List<FieldInfo> fields = c == clazz ? declared : infos(c.getDeclaredFields());
+            for (FieldInfo info : fields)
+            {
+                FieldKind kind = info.getKind();
+                if (kind == FieldKind.GAME_OBJECT || kind == FieldKind.COMPONENT || kind == FieldKind.ASSET)
+                {
+                    references.add(info);
+                }
+            }
+        }
+
+        List<FieldInfo> inspectable = new ArrayList<>();
+        for (Field field : clazz.getFields())
+        {
+            String name = field.getName();
+            if (name.equals("gameObject") || name.equals("transform")) continue;
+            FieldInfo info = field.getDeclaringClass() == clazz ? byName.get(name) : new FieldInfo(field);
+            inspectable.add(info);
+        }
+
+        this.declaredFields = Collections.unmodifiableList(declared);
+        this.declaredByName = byName;
+        this.referenceFields = Collections.unmodifiableList(references);
+        this.inspectableFields = Collections.unmodifiableList(inspectable);
+        this.rendersItself = overrides(clazz, "render", Camera.class);
+        this.updatesItself = overrides(clazz, "update");
+    }
+
+    private static boolean overrides(Class<?> clazz, String name, Class<?>... parameters)
+    {
+        try
+        {
+            return clazz.getMethod(name, parameters).getDeclaringClass() != Component.class;
+        }
+        catch (NoSuchMethodException e)
+        {
+            return false;
+        }
+    }
+
+    private static List<FieldInfo> infos(Field[] fields)
+    {
+        List<FieldInfo> list = new ArrayList<>(fields.length);
+        for (Field field : fields)
+        {
+            list.add(new FieldInfo(field));
+        }
+        return list;
+    }
+
+    /**
+     * Returns the metadata for a component class, building it on first use.
+     * @param clazz The component class
+     * @return Cached metadata
+     */
+    public static ComponentMetadata of(Class<?> clazz)
+    {
+        return cache.computeIfAbsent(clazz, ComponentMetadata::new);
+    }
+
+    /**
+     * Drops all cached metadata. Called when script classes are reloaded.
+     */
+    public static void clear()
+    {
+        cache.clear();
+    }
+
+    /**
+     * Returns the fields declared directly on the class, in declaration order.
+     * @return Declared fields
+     */
+    public List<FieldInfo> getDeclaredFields()
+    {
+        return declaredFields;
+    }
+
+    /**
+     * Looks up a declared field by name.
+     * @param name The field name
+     * @return The field, or null if the class declares no such field
+     */
+    public FieldInfo getDeclaredField(String name)
+    {
+        return declaredByName.get(name);
+    }
+
+    /**
+     * Returns every GameObject, Component and asset field of the class and its superclasses below Component.
+     * @return Reference fields
+     */
+    public List<FieldInfo> getReferenceFields()
+    {
+        return referenceFields;
+    }
+
+    /**
+     * Returns the public fields shown in the inspector, excluding gameObject and transform.
+     * @return Inspectable fields
+     */
+    public List<FieldInfo> getInspectableFields()
+    {
+        return inspectableFields;
+    }
+
+    /**
+     * Returns whether the class overrides render(Camera). Render passes only need to visit these.
+     * @return True if instances draw something
+     */
+    public boolean rendersItself()
+    {
+        return rendersItself;
+    }
+
+    /**
+     * Returns whether the class overrides update(). Other components have nothing to run per frame.
+     * @return True if instances update
+     */
+    public boolean updatesItself()
+    {
+        return updatesItself;
+    }
+}
@@ -29,12 +29,24 @@ public class Movement extends Component
     public boolean useRun1 = true;
 
     @Override
-    public void update()
+    public void start()
     {
-        int xInput = (Input.isKeyDown(GLFW_KEY_D) || Input.isKeyDown(GLFW_KEY_RIGHT)) ? 1 :
-                     (Input.isKeyDown(GLFW_KEY_A) || Input.isKeyDown(GLFW_KEY_LEFT)) ? -1 : 0;
+        // Moved in fixedUpdate(), rendered between the last two steps
+        transform.setInterpolated(true);
+    }
 
-        Vector move = new Vector(xInput, 0, 0).scale(speed * Time.deltaTime);
+    private static int horizontalInput()
+    {
+        return (Input.isKeyDown(GLFW_KEY_D) || Input.isKeyDown(GLFW_KEY_RIGHT)) ? 1 :
+               (Input.isKeyDown(GLFW_KEY_A) || Input.isKeyDown(GLFW_KEY_LEFT)) ? -1 : 0;
+    }
+
+    @Override
+    public void fixedUpdate()
+    {
+        int xInput = horizontalInput();
+
+        Vector move = new Vector(xInput, 0, 0).scale(speed * Time.fixedDeltaTime);
         Vector position = transform.getWorldPosition();
 
         // Floor check
@@ -52,14 +64,19 @@ public class Movement extends Component
         }
         else
         {
-            velocityY += gravity * Time.deltaTime;
+            velocityY += gravity * Time.fixedDeltaTime;
             isGrounded = false;
         }
 
-        move.y = velocityY * Time.deltaTime;
+        move.y = velocityY * Time.fixedDeltaTime;
         transform.setWorldPosition(position.add(move));
+    }
+
+    @Override
+    public void update()
+    {
+        int xInput = horizontalInput();
 
-        
         if (Renderer != null)
         {
             
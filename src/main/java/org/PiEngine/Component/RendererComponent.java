@@ -1,6 +1,5 @@
 package org.PiEngine.Component;
 
-import org.PiEngine.Main;
 import org.PiEngine.Core.*;
 import org.PiEngine.Math.*;
 import org.PiEngine.Render.*;
@@ -11,87 +10,61 @@ public class RendererComponent extends Component
     public boolean FlipX = false;
     public boolean FlipY = false;
 
-    public Mesh mesh;
     public float size = 2.5f;
 
+    /** Custom sprite shader, or null for the default one (see SpriteBatch) */
     Shader shader;
     public Vector Color;
     public Texture texture;
 
+    /** Scratch box for frustum culling; rendering only happens on the GL thread */
+    private static final Bounds cullBounds = new Bounds();
+
     @Override
     public void start()
     {
         Color = new Vector(1, 1, 1);
-        updateMesh();
-        shader = new Shader(
-            Main.ResourceFolder + "Shaders/Camera/Default.vert",
-            Main.ResourceFolder + "Shaders/Camera/Sprite.frag",
-            null
-        );
     }
 
     @Override
-    public void update()
+    public boolean getWorldBounds(Bounds out)
     {
-        updateMesh();
+        if (!Render || texture == null) return false;
+        out.setTransformedQuad(transform.getRenderMatrix(Time.getFixedAlpha()), size * 0.5f);
+        return true;
     }
 
-    private void updateMesh()
+    @Override
+    public void render(Camera camera)
     {
-        float x = 0;
-        float y = 0;
-        float z = 0;
-        float h = size * 0.5f;
-
-        // Determine UV coordinates based on FlipX and FlipY
-        float u0 = FlipX ? 1f : 0f;
-        float u1 = FlipX ? 0f : 1f;
-        float v0 = FlipY ? 1f : 0f;
-        float v1 = FlipY ? 0f : 1f;
-
-        float[] updatedVertices = {
-            x - h, y - h, z,     u0, v0,
-            x + h, y - h, z,     u1, v0,
-            x + h, y + h, z,     u1, v1,
-
-            x - h, y - h, z,     u0, v0,
-            x + h, y + h, z,     u1, v1,
-            x - h, y + h, z,     u0, v1
-        };
-
-        if (mesh == null)
-        {
-            mesh = new Mesh(updatedVertices);
-        }
-        else
-        {
-            mesh.updateVertices(updatedVertices);
-        }
+        if (!Render || texture == null) return;
+        draw(transform.getRenderMatrix(Time.getFixedAlpha()));
     }
 
     @Override
-    public void render(Camera camera)
+    public void renderCulled(Camera camera, Frustum frustum)
     {
         if (!Render || texture == null) return;
 
-        texture.bind();
-        shader.use();
-
-        Matrix4 viewProj = Matrix4.multiply(camera.getProjectionMatrix(), camera.getViewMatrix());
-        Matrix4 modelMatrix = transform.getWorldMatrix();
-
-        shader.setUniformMat4("u_ViewProj", viewProj, false);
-        shader.setUniformMat4("u_ModelMatrix", modelMatrix, false);
-        shader.setUniformVec3("u_Color", Color);
-        shader.setUniform1f("u_Time", Time.Time);
-        shader.setUniform1f("u_Texture", texture.getTextureID());
-
-        mesh.render();
+        // One render matrix for both the bounds test and the draw
+        Matrix4 model = transform.getRenderMatrix(Time.getFixedAlpha());
+        if (frustum != null && !frustum.intersects(cullBounds.setTransformedQuad(model, size * 0.5f))) return;
+        draw(model);
     }
 
-    @Override
-    public void onDestroy()
+    private void draw(Matrix4 model)
     {
-        mesh.dispose();
+        SpriteBatch batch = SpriteBatch.getActive();
+        if (batch != null)
+        {
+            batch.draw(texture, model, size, FlipX, FlipY, Color, shader, SpriteBatch.BlendMode.ALPHA);
+            return;
+        }
+
+        // Outside a batching pass: draw this sprite through the shared instanced batch
+        batch = SpriteBatch.getShared();
+        batch.begin();
+        batch.draw(texture, model, size, FlipX, FlipY, Color, shader, SpriteBatch.BlendMode.ALPHA);
+        batch.end();
     }
 }
@@ -3,6 +3,9 @@ package org.PiEngine.Core;
 import org.PiEngine.Math.Vector;
 import org.PiEngine.Render.Shader;
 import org.PiEngine.Math.Matrix4;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
 
 import static org.lwjgl.opengl.GL30.*;
 
@@ -18,9 +21,13 @@ public class Camera
     /** Rotation of the camera (pitch, yaw, roll) */
     private Vector rotation;
     /** View matrix (world-to-camera transformation) */
-    private Matrix4 viewMatrix;
+    private final Matrix4 viewMatrix = Matrix4.identity();
     /** Projection matrix (camera-to-clip transformation) */
-    private Matrix4 projectionMatrix;
+    private final Matrix4 projectionMatrix = Matrix4.identity();
+    /** Scratch matrix reused while rebuilding the view matrix */
+    private final Matrix4 scratch = new Matrix4();
+    /** Direct buffer reused for legacy matrix uploads */
+    private static final FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
 
     /** Field of view (in degrees) */
     private float fov;
@@ -100,11 +107,11 @@ public class Camera
     {
         if (isOrthographic)
         {
-            this.projectionMatrix = Matrix4.orthographic(orthoLeft, orthoRight, orthoBottom, orthoTop, nearPlane, farPlane);
+            projectionMatrix.setOrthographic(orthoLeft, orthoRight, orthoBottom, orthoTop, nearPlane, farPlane);
         }
         else
         {
-            this.projectionMatrix = Matrix4.perspective(fov, aspectRatio, nearPlane, farPlane);
+            projectionMatrix.setPerspective(fov, aspectRatio, nearPlane, farPlane);
         }
     }
 
@@ -113,15 +120,11 @@ public class Camera
      */
     public void updateViewMatrix() 
     {
-
-        Matrix4 rotationMatrix = Matrix4.identity()
-            .multiply(Matrix4.rotate(-rotation.z, new Vector(0, 0, 1)))
-            .multiply(Matrix4.rotate(-rotation.x, new Vector(1, 0, 0))) 
-            .multiply(Matrix4.rotate(-rotation.y, new Vector(0, 1, 0)));
-    
-        Matrix4 translationMatrix = Matrix4.translate(-position.x, -position.y, -position.z);
-    
-        this.viewMatrix = rotationMatrix.multiply(translationMatrix);
+        // view = Rz * Rx * Ry * T(-position), built in place
+        viewMatrix.setRotate(-rotation.z, 0, 0, 1);
+        Matrix4.multiply(viewMatrix, scratch.setRotate(-rotation.x, 1, 0, 0), viewMatrix);
+        Matrix4.multiply(viewMatrix, scratch.setRotate(-rotation.y, 0, 1, 0), viewMatrix);
+        Matrix4.multiply(viewMatrix, scratch.setTranslate(-position.x, -position.y, -position.z), viewMatrix);
     }
     
     /**
@@ -187,11 +190,11 @@ public class Camera
     {
         // Projection matrix
         glMatrixMode(GL_PROJECTION);
-        glLoadMatrixf(projectionMatrix.toFloatBuffer());
+        glLoadMatrixf(projectionMatrix.storeColumnMajor(matrixBuffer));
         
         // View matrix (aka modelview in legacy OpenGL)
         glMatrixMode(GL_MODELVIEW);
-        glLoadMatrixf(viewMatrix.toFloatBuffer());
+        glLoadMatrixf(viewMatrix.storeColumnMajor(matrixBuffer));
     }
 
     /**
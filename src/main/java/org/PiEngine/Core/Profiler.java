@@ -0,0 +1,342 @@
+package org.PiEngine.Core;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A scoped CPU profiler. Code is instrumented with paired calls:
+ * <pre>
+ *     Profiler.begin("Scene.update");
+ *     ...
+ *     Profiler.end();
+ * </pre>
+ * Scopes nest. Every thread records into its own preallocated ring buffer, so recording takes no
+ * locks and allocates nothing; once a ring is full, the oldest scopes are overwritten.
+ * <p>
+ * Main loop phases are always recorded while the profiler is enabled. Per-GameObject and
+ * per-component scopes are only recorded in detailed mode, as they add a scope for every object.
+ * <p>
+ * frame() marks frame boundaries. The scopes of the last finished frame can be read with
+ * getLastFrame(), and everything still in the rings can be written as a Chrome trace
+ * (chrome://tracing or ui.perfetto.dev) with exportChromeTrace().
+ * Readers may see partially written scopes of threads that are running; read between frames.
+ */
+public final class Profiler
+{
+    /** Scopes kept per thread */
+    public static final int CAPACITY = 1 << 16;
+    /** Frame boundaries kept */
+    public static final int FRAME_HISTORY = 256;
+    /** Deeper scopes are not recorded */
+    public static final int MAX_DEPTH = 64;
+
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * A recorded scope, as returned by getLastFrame().
+     */
+    public static final class Event
+    {
+        public final String name;
+        public final String thread;
+        public final int threadIndex;
+        /** Start in nanoseconds, relative to the start of the frame */
+        public final long start;
+        public final long duration;
+        public final int depth;
+
+        Event(String name, String thread, int threadIndex, long start, long duration, int depth)
+        {
+            this.name = name;
+            this.thread = thread;
+            this.threadIndex = threadIndex;
+            this.start = start;
+            this.duration = duration;
+            this.depth = depth;
+        }
+    }
+
+    /** Ring buffer of one thread; only that thread writes to it */
+    private static final class Buffer
+    {
+        final WeakReference<Thread> thread;     // Does not keep a finished thread alive
+        final String threadName;
+        final int index;
+
+        final String[] names = new String[CAPACITY];
+        final long[] starts = new long[CAPACITY];
+        final long[] ends = new long[CAPACITY];
+        final byte[] depths = new byte[CAPACITY];
+
+        /** Sequence number of the next scope; slot = sequence & MASK */
+        volatile long head = 0;
+
+        final long[] stack = new long[MAX_DEPTH];
+        int depth = 0;
+
+        Buffer(Thread thread, int index)
+        {
+            this.thread = new WeakReference<>(thread);
+            this.threadName = thread.getName();
+            this.index = index;
+        }
+
+        /** Whether the owning thread has finished, so nothing is written here anymore */
+        boolean isRetired()
+        {
+            Thread owner = thread.get();
+            return owner == null || !owner.isAlive();
+        }
+    }
+
+    private static final List<Buffer> buffers = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger nextThreadIndex = new AtomicInteger();
+    private static final ThreadLocal<Buffer> local = ThreadLocal.withInitial(() ->
+    {
+        Buffer buffer = new Buffer(Thread.currentThread(), nextThreadIndex.getAndIncrement());
+        buffers.add(buffer);
+        return buffer;
+    });
+
+    private static final long[] frameStarts = new long[FRAME_HISTORY];
+    private static long frameCount = 0;
+
+    private static boolean enabled = true;
+    private static boolean detailed = false;
+
+    private Profiler() {}
+
+    /**
+     * Opens a scope on the calling thread.
+     * @param name Name of the scope; should be a constant or an existing string, as it is kept by reference
+     */
+    public static void begin(String name)
+    {
+        if (!enabled) return;
+        Buffer buffer = local.get();
+        if (buffer.depth >= MAX_DEPTH)
+        {
+            buffer.depth++;
+            return;
+        }
+
+        long sequence = buffer.head;
+        int slot = (int) (sequence & MASK);
+        buffer.names[slot] = name;
+        buffer.depths[slot] = (byte) buffer.depth;
+        buffer.ends[slot] = 0;
+        buffer.starts[slot] = System.nanoTime();
+        buffer.stack[buffer.depth++] = sequence;
+        buffer.head = sequence + 1;
+    }
+
+    /**
+     * Closes the innermost open scope of the calling thread.
+     */
+    public static void end()
+    {
+        if (!enabled) return;
+        Buffer buffer = local.get();
+        if (buffer.depth == 0) return;          // Enabled while the scope was open
+
+        buffer.depth--;
+        if (buffer.depth >= MAX_DEPTH) return;
+
+        long sequence = buffer.stack[buffer.depth];
+        if (buffer.head - sequence > CAPACITY) return;    // Overwritten while open
+        buffer.ends[(int) (sequence & MASK)] = System.nanoTime();
+    }
+
+    /**
+     * Marks the start of a new frame. Call once per frame on the main thread, outside any scope.
+     * Also drops the ring buffers of threads that have finished, such as retired pool workers.
+     */
+    public static void frame()
+    {
+        frameStarts[(int) (frameCount % FRAME_HISTORY)] = System.nanoTime();
+        frameCount++;
+        buffers.removeIf(Buffer::isRetired);
+    }
+
+    /**
+     * Enables or disables recording. Change it between frames.
+     * @param value The new state
+     */
+    public static void setEnabled(boolean value)
+    {
+        enabled = value;
+        if (!value)
+        {
+            for (Buffer buffer : buffers) buffer.depth = 0;
+        }
+    }
+
+    /**
+     * Whether scopes are recorded.
+     * @return True if enabled
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the per-GameObject and per-component scopes.
+     * @param value The new state
+     */
+    public static void setDetailed(boolean value)
+    {
+        detailed = value;
+    }
+
+    /**
+     * Whether per-GameObject and per-component scopes should be recorded.
+     * Instrumented hot spots check this before calling begin().
+     * @return True if enabled and detailed
+     */
+    public static boolean isDetailed()
+    {
+        return enabled && detailed;
+    }
+
+    /**
+     * Gets the duration of the last finished frame.
+     * @return Nanoseconds, or 0 before the second frame
+     */
+    public static long getLastFrameDuration()
+    {
+        if (frameCount < 2) return 0;
+        return frameStart(frameCount - 1) - frameStart(frameCount - 2);
+    }
+
+    /**
+     * Collects the scopes of all threads that started in the last finished frame.
+     * @return Events ordered by thread, then by start
+     */
+    public static List<Event> getLastFrame()
+    {
+        List<Event> events = new ArrayList<>();
+        if (frameCount < 2) return events;
+
+        long from = frameStart(frameCount - 2);
+        long to = frameStart(frameCount - 1);
+        for (Buffer buffer : buffers)
+        {
+            long head = buffer.head;
+            long first = Math.max(0, head - CAPACITY);
+
+            // Walk back to the first scope of the frame, then forward in start order
+            long sequence = head;
+            while (sequence > first && buffer.starts[(int) ((sequence - 1) & MASK)] >= from) sequence--;
+            for (; sequence < head; sequence++)
+            {
+                int slot = (int) (sequence & MASK);
+                long start = buffer.starts[slot];
+                long end = buffer.ends[slot];
+                if (start >= to) break;
+                if (end == 0) continue;
+                events.add(new Event(buffer.names[slot], buffer.threadName, buffer.index,
+                    start - from, end - start, buffer.depths[slot]));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Writes every finished scope still held in the ring buffers as a Chrome trace-event JSON file,
+     * with an instant event at each frame boundary.
+     * @param path The output file
+     * @return Number of scopes written
+     * @throws IOException If the file cannot be written
+     */
+    public static int exportChromeTrace(Path path) throws IOException
+    {
+        long origin = Long.MAX_VALUE;
+        for (Buffer buffer : buffers)
+        {
+            long head = buffer.head;
+            long first = Math.max(0, head - CAPACITY);
+            if (head > first) origin = Math.min(origin, buffer.starts[(int) (first & MASK)]);
+        }
+        if (origin == Long.MAX_VALUE) origin = System.nanoTime();
+
+        int written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8))
+        {
+            out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+            boolean firstEvent = true;
+
+            for (Buffer buffer : buffers)
+            {
+                firstEvent = separator(out, firstEvent);
+                out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + buffer.index
+                    + ",\"args\":{\"name\":\"" + escape(buffer.threadName) + "\"}}");
+
+                long head = buffer.head;
+                for (long sequence = Math.max(0, head - CAPACITY); sequence < head; sequence++)
+                {
+                    int slot = (int) (sequence & MASK);
+                    long start = buffer.starts[slot];
+                    long end = buffer.ends[slot];
+                    if (end == 0 || start < origin) continue;
+
+                    firstEvent = separator(out, firstEvent);
+                    out.write("{\"name\":\"" + escape(buffer.names[slot]) + "\",\"cat\":\"PiEngine\",\"ph\":\"X\",\"ts\":"
+                        + micros(start - origin) + ",\"dur\":" + micros(end - start)
+                        + ",\"pid\":1,\"tid\":" + buffer.index + "}");
+                    written++;
+                }
+            }
+
+            for (long frame = Math.max(0, frameCount - FRAME_HISTORY); frame < frameCount; frame++)
+            {
+                long start = frameStart(frame);
+                if (start < origin) continue;
+                firstEvent = separator(out, firstEvent);
+                out.write("{\"name\":\"Frame " + frame + "\",\"ph\":\"i\",\"s\":\"g\",\"ts\":"
+                    + micros(start - origin) + ",\"pid\":1,\"tid\":0}");
+            }
+            out.write("\n]}\n");
+        }
+        return written;
+    }
+
+    private static long frameStart(long frame)
+    {
+        return frameStarts[(int) (frame % FRAME_HISTORY)];
+    }
+
+    private static boolean separator(BufferedWriter out, boolean first) throws IOException
+    {
+        if (!first) out.write(",\n");
+        return false;
+    }
+
+    private static String micros(long nanos)
+    {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+    }
+
+    private static String escape(String text)
+    {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -25,6 +25,12 @@ public class Time
     /** Accumulated time since the last fixed update. */
     public static float fixedTime = 0.0f;
 
+    /** Maximum number of fixed updates per frame; a larger backlog is dropped to avoid falling further behind. */
+    public static int maxFixedStepsPerFrame = 5;
+
+    /** Position of the current frame between the last two fixed updates, in [0, 1]. Used to interpolate rendering. */
+    public static float fixedAlpha = 1.0f;
+
     private static double lastTime;
 
     // --- Frame timing history for ImGui graphs ---
@@ -61,6 +67,7 @@ public class Time
         lastTime = currentTime;
 
         fixedTime += deltaTime;
+        fixedAlpha = 1.0f;      // Set again by the scene after it ran the fixed updates
         Time += unscaledDeltaTime;
 
 
@@ -123,6 +130,28 @@ public class Time
         return fixedDeltaTime;
     }
 
+    /**
+     * Sets how many fixed updates run per second of game time, independent of the frame rate.
+     * @param stepsPerSecond The simulation rate in Hz
+     */
+    public static void setFixedRate(float stepsPerSecond)
+    {
+        if (stepsPerSecond <= 0)
+        {
+            throw new IllegalArgumentException("Fixed rate must be positive: " + stepsPerSecond);
+        }
+        fixedDeltaTime = 1f / stepsPerSecond;
+    }
+
+    /**
+     * Returns how far the current frame is between the last two fixed updates.
+     * @return Interpolation factor in [0, 1]
+     */
+    public static float getFixedAlpha()
+    {
+        return fixedAlpha;
+    }
+
     /**
      * Returns the current time scale multiplier.
      * @return The time scale
@@ -186,6 +215,15 @@ public class Time
         fixedTime -= fixedDeltaTime;
     }
 
+    /**
+     * Drops every whole fixed step still waiting in the accumulator, keeping the remainder.
+     * Used when the simulation cannot keep up with real time.
+     */
+    public static void dropFixedBacklog()
+    {
+        fixedTime %= fixedDeltaTime;
+    }
+
     /**
      * Checks whether enough time has accumulated to process a fixed update.
      *
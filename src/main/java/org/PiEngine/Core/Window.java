@@ -1,5 +1,6 @@
 package org.PiEngine.Core;
 
+import org.PiEngine.Render.GLState;
 import org.lwjgl.opengl.GL;
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL11.*;
@@ -34,7 +35,7 @@ public class Window
         glfwMakeContextCurrent(window);
         GL.createCapabilities();
         glfwSwapInterval(1);
-        glViewport(0, 0, width, height);
+        GLState.viewport(0, 0, width, height);
     }
 
     /**
@@ -0,0 +1,135 @@
+package org.PiEngine.ECS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All entities that have exactly the same set of data component types.
+ * Entities are stored in fixed-size chunks; every chunk keeps one array per field
+ * of every type, so a system walks contiguous primitive arrays.
+ */
+public final class Archetype
+{
+    private final long mask;
+    private final DataType[] types;            // Sorted by type id
+    private final int[] firstColumn;           // Indexed by type id, -1 if the type is not part of this archetype
+    private final boolean[] intColumns;        // Column kind per column
+    private final int chunkCapacity;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int entityCount = 0;
+
+    Archetype(long mask, List<DataType> typeList, int chunkCapacity)
+    {
+        this.mask = mask;
+        this.types = typeList.toArray(new DataType[0]);
+        this.chunkCapacity = chunkCapacity;
+        this.firstColumn = new int[DataType.MAX_TYPES];
+        Arrays.fill(firstColumn, -1);
+
+        int columns = 0;
+        for (DataType t : types)
+        {
+            firstColumn[t.getId()] = columns;
+            columns += t.getFieldCount();
+        }
+        this.intColumns = new boolean[columns];
+        for (DataType t : types)
+        {
+            for (int f = 0; f < t.getFieldCount(); f++)
+            {
+                intColumns[firstColumn[t.getId()] + f] = t.isIntField(f);
+            }
+        }
+    }
+
+    /**
+     * Returns the bitmask of data types in this archetype.
+     * @return Type mask
+     */
+    public long getMask()
+    {
+        return mask;
+    }
+
+    /**
+     * Returns whether this archetype contains the given type.
+     * @param type The data type
+     * @return True if present
+     */
+    public boolean has(DataType type)
+    {
+        return (mask & type.getBit()) != 0;
+    }
+
+    /**
+     * Returns the chunks of this archetype. Empty chunks at the end are kept for reuse.
+     * @return Read-only chunk list
+     */
+    public List<Chunk> getChunks()
+    {
+        return Collections.unmodifiableList(chunks);
+    }
+
+    DataType[] getTypes()
+    {
+        return types;
+    }
+
+    int getFirstColumn(DataType type)
+    {
+        return firstColumn[type.getId()];
+    }
+
+    int getColumnCount()
+    {
+        return intColumns.length;
+    }
+
+    boolean isIntColumn(int column)
+    {
+        return intColumns[column];
+    }
+
+    /**
+     * Returns the chunk that receives the next entity, allocating one if needed.
+     * Entities are kept packed: every chunk before the last used one is full.
+     */
+    Chunk chunkWithSpace()
+    {
+        int c = entityCount / chunkCapacity;
+        if (c == chunks.size())
+        {
+            chunks.add(new Chunk(this, c, chunkCapacity));
+        }
+        return chunks.get(c);
+    }
+
+    /**
+     * Returns the chunk holding the last entity, or null if the archetype is empty.
+     */
+    Chunk lastFilledChunk()
+    {
+        return entityCount == 0 ? null : chunks.get((entityCount - 1) / chunkCapacity);
+    }
+
+    void added()
+    {
+        entityCount++;
+    }
+
+    void removed()
+    {
+        entityCount--;
+    }
+
+    /**
+     * Returns the number of entities in this archetype.
+     * @return Entity count
+     */
+    public int getEntityCount()
+    {
+        return entityCount;
+    }
+}
@@ -0,0 +1,151 @@
+package org.PiEngine.ECS;
+
+/**
+ * A fixed-capacity block of entities of one archetype, stored as one array per field.
+ * Systems receive chunks and loop over rows 0 .. size() - 1:
+ * <pre>
+ * float[] px = chunk.floats(Position.class, "x");
+ * float[] vx = chunk.floats(Velocity.class, "x");
+ * for (int i = 0; i &lt; chunk.size(); i++) px[i] += vx[i] * dt;
+ * </pre>
+ */
+public final class Chunk
+{
+    private final Archetype archetype;
+    private final int index;               // Position in the archetype's chunk list
+    private final long[] entities;
+    private final Object[] columns;        // float[] or int[] per field
+    private int size = 0;
+
+    Chunk(Archetype archetype, int index, int capacity)
+    {
+        this.archetype = archetype;
+        this.index = index;
+        this.entities = new long[capacity];
+        this.columns = new Object[archetype.getColumnCount()];
+        for (int c = 0; c < columns.length; c++)
+        {
+            columns[c] = archetype.isIntColumn(c) ? new int[capacity] : new float[capacity];
+        }
+    }
+
+    /**
+     * Returns the number of entities in this chunk.
+     * @return Row count
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the archetype this chunk belongs to.
+     * @return The archetype
+     */
+    public Archetype getArchetype()
+    {
+        return archetype;
+    }
+
+    /**
+     * Returns the entity stored in a row.
+     * @param row The row
+     * @return The entity id
+     */
+    public long entity(int row)
+    {
+        return entities[row];
+    }
+
+    /**
+     * Returns whether this chunk stores the given data type.
+     * @param type The DataComponent class
+     * @return True if present
+     */
+    public boolean has(Class<? extends DataComponent> type)
+    {
+        return archetype.has(DataType.of(type));
+    }
+
+    /**
+     * Returns the float column of a field. Only rows below size() are valid.
+     * @param type The DataComponent class
+     * @param field The field name
+     * @return The column array
+     */
+    public float[] floats(Class<? extends DataComponent> type, String field)
+    {
+        return (float[]) columns[column(type, field)];
+    }
+
+    /**
+     * Returns the int column of a field. Only rows below size() are valid.
+     * @param type The DataComponent class
+     * @param field The field name
+     * @return The column array
+     */
+    public int[] ints(Class<? extends DataComponent> type, String field)
+    {
+        return (int[]) columns[column(type, field)];
+    }
+
+    private int column(Class<? extends DataComponent> type, String field)
+    {
+        DataType dataType = DataType.of(type);
+        int first = archetype.getFirstColumn(dataType);
+        if (first < 0)
+        {
+            throw new IllegalArgumentException("Chunk has no " + type.getSimpleName());
+        }
+        return first + dataType.fieldIndex(field);
+    }
+
+    // ----------------------------
+    // Storage (used by EntityWorld)
+    // ----------------------------
+
+    int getIndex()
+    {
+        return index;
+    }
+
+    Object[] getColumns()
+    {
+        return columns;
+    }
+
+    int add(long entity)
+    {
+        entities[size] = entity;
+        return size++;
+    }
+
+    void setEntity(int row, long entity)
+    {
+        entities[row] = entity;
+    }
+
+    void shrink()
+    {
+        size--;
+    }
+
+    /**
+     * Copies every column of one row into a row of another chunk of the same archetype.
+     */
+    void copyRowTo(int row, Chunk dest, int destRow)
+    {
+        copyColumns(this, row, dest, destRow, 0, columns.length, 0);
+    }
+
+    static void copyColumns(Chunk src, int srcRow, Chunk dest, int destRow, int srcFirst, int count, int destFirst)
+    {
+        for (int c = 0; c < count; c++)
+        {
+            Object from = src.columns[srcFirst + c];
+            Object to = dest.columns[destFirst + c];
+            if (from instanceof float[]) ((float[]) to)[destRow] = ((float[]) from)[srcRow];
+            else ((int[]) to)[destRow] = ((int[]) from)[srcRow];
+        }
+    }
+}
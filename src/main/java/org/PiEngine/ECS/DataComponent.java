@@ -0,0 +1,19 @@
+package org.PiEngine.ECS;
+
+/**
+ * Marker for plain-data component types stored in an EntityWorld.
+ * Implementations hold only public float and int fields and need a public no-arg constructor.
+ * Values are copied into per-field arrays when added to an entity, so systems can
+ * iterate them in tight loops instead of calling virtual methods per object.
+ * <p>
+ * Example:
+ * <pre>
+ * public class Velocity implements DataComponent
+ * {
+ *     public float x, y;
+ * }
+ * </pre>
+ */
+public interface DataComponent
+{
+}
@@ -0,0 +1,225 @@
+package org.PiEngine.ECS;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column layout of a DataComponent class: one float or int column per public field.
+ * Built once per class and identified by a small id used in archetype bitmasks.
+ * <p>
+ * Ids are keyed by class name, so a script class reloaded by a new class loader keeps its id:
+ * stored entities still match the queries of reloaded systems and no id is used up.
+ * The reloaded class must keep the same fields; otherwise the stored columns would not fit.
+ */
+public final class DataType
+{
+    /** Maximum number of distinct data types, limited by the 64-bit archetype mask */
+    public static final int MAX_TYPES = 64;
+
+    private static final Map<String, DataType> types = new ConcurrentHashMap<>();     // By class name
+    private static final DataType[] byId = new DataType[MAX_TYPES];
+    private static int nextId = 0;
+
+    private final int id;
+    private volatile Class<? extends DataComponent> type;    // Replaced (after fields) when the script class is reloaded
+    private Field[] fields;
+    private final String[] names;
+    private final boolean[] isInt;
+
+    private DataType(int id, Class<? extends DataComponent> type)
+    {
+        this.id = id;
+        this.type = type;
+        this.fields = columnsOf(type);
+        this.names = new String[fields.length];
+        this.isInt = new boolean[fields.length];
+        for (int i = 0; i < fields.length; i++)
+        {
+            names[i] = fields[i].getName();
+            isInt[i] = fields[i].getType() == int.class;
+        }
+    }
+
+    /**
+     * Returns the layout of a data component class, registering it on first use.
+     * @param type The DataComponent class
+     * @return Its DataType
+     */
+    public static DataType of(Class<? extends DataComponent> type)
+    {
+        DataType existing = types.get(type.getName());
+        if (existing != null && existing.type == type) return existing;
+
+        synchronized (types)
+        {
+            existing = types.get(type.getName());
+            if (existing != null)
+            {
+                if (existing.type != type) existing.rebind(type);
+                return existing;
+            }
+            if (nextId >= MAX_TYPES)
+            {
+                throw new IllegalStateException("Too many data component types (max " + MAX_TYPES + ")");
+            }
+            DataType created = new DataType(nextId++, type);
+            byId[created.id] = created;
+            types.put(type.getName(), created);
+            return created;
+        }
+    }
+
+    private static Field[] columnsOf(Class<? extends DataComponent> type)
+    {
+        List<Field> list = new ArrayList<>();
+        for (Field field : type.getFields())
+        {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            Class<?> t = field.getType();
+            if (t != float.class && t != int.class)
+            {
+                throw new IllegalArgumentException(type.getSimpleName() + "." + field.getName() + " must be float or int");
+            }
+            list.add(field);
+        }
+        return list.toArray(new Field[0]);
+    }
+
+    /**
+     * Switches this layout to a reloaded version of its class, keeping the id.
+     * @param reloaded Class with the same name loaded by a newer class loader
+     */
+    private void rebind(Class<? extends DataComponent> reloaded)
+    {
+        Field[] reloadedFields = columnsOf(reloaded);
+        String[] reloadedNames = new String[reloadedFields.length];
+        boolean[] reloadedInt = new boolean[reloadedFields.length];
+        for (int i = 0; i < reloadedFields.length; i++)
+        {
+            reloadedNames[i] = reloadedFields[i].getName();
+            reloadedInt[i] = reloadedFields[i].getType() == int.class;
+        }
+        if (!Arrays.equals(names, reloadedNames) || !Arrays.equals(isInt, reloadedInt))
+        {
+            throw new IllegalStateException(reloaded.getSimpleName()
+                + " changed its fields; reload the scene to use the new layout");
+        }
+        this.fields = reloadedFields;
+        this.type = reloaded;
+    }
+
+    /**
+     * Builds the archetype mask for a set of data component classes.
+     * @param classes The classes
+     * @return Bitmask with one bit per type id
+     */
+    @SafeVarargs
+    public static long maskOf(Class<? extends DataComponent>... classes)
+    {
+        long mask = 0;
+        for (Class<? extends DataComponent> c : classes)
+        {
+            mask |= 1L << of(c).id;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the type registered under an id.
+     * @param id The type id
+     * @return The DataType, or null if unused
+     */
+    static DataType byId(int id)
+    {
+        return byId[id];
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public long getBit()
+    {
+        return 1L << id;
+    }
+
+    public Class<? extends DataComponent> getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the number of columns (fields) of this type.
+     * @return Field count
+     */
+    public int getFieldCount()
+    {
+        return fields.length;
+    }
+
+    /**
+     * Returns the index of a field by name.
+     * @param name The field name
+     * @return Field index
+     */
+    public int fieldIndex(String name)
+    {
+        for (int i = 0; i < names.length; i++)
+        {
+            if (names[i].equals(name)) return i;
+        }
+        throw new IllegalArgumentException(type.getSimpleName() + " has no field " + name);
+    }
+
+    boolean isIntField(int field)
+    {
+        return isInt[field];
+    }
+
+    /**
+     * Copies the field values of a component instance into one row of the columns.
+     */
+    void write(DataComponent value, Object[] columns, int firstColumn, int row)
+    {
+        try
+        {
+            for (int f = 0; f < fields.length; f++)
+            {
+                if (isInt[f]) ((int[]) columns[firstColumn + f])[row] = fields[f].getInt(value);
+                else ((float[]) columns[firstColumn + f])[row] = fields[f].getFloat(value);
+            }
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates a component instance holding the values of one row.
+     */
+    <T extends DataComponent> T read(Object[] columns, int firstColumn, int row)
+    {
+        try
+        {
+            @SuppressWarnings("unchecked")
+            T value = (T) type.getDeclaredConstructor().newInstance();
+            for (int f = 0; f < fields.length; f++)
+            {
+                if (isInt[f]) fields[f].setInt(value, ((int[]) columns[firstColumn + f])[row]);
+                else fields[f].setFloat(value, ((float[]) columns[firstColumn + f])[row]);
+            }
+            return value;
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Cannot create " + type.getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.PiEngine.ECS;
+
+import org.PiEngine.Engine.Console;
+
+/**
+ * Base class for data-oriented systems.
+ * A system declares the data types it needs and is called once per matching chunk,
+ * where it loops over the chunk's column arrays. Systems can be compiled and hot-loaded
+ * as scripts just like Components, and run every frame after the GameObject update.
+ * <p>
+ * Example:
+ * <pre>
+ * public class MoveSystem extends EntitySystem
+ * {
+ *     public MoveSystem() { super(Position.class, Velocity.class); }
+ *
+ *     public void update(Chunk chunk, float dt)
+ *     {
+ *         float[] px = chunk.floats(Position.class, "x"), vx = chunk.floats(Velocity.class, "x");
+ *         for (int i = 0; i &lt; chunk.size(); i++) px[i] += vx[i] * dt;
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class EntitySystem
+{
+    private long all;
+    private long none = 0;
+    private long reads = 0;
+    private long writes = 0;
+    private boolean declared = false;
+    private Query query;
+    private EntityWorld world;
+
+    /** Disabled systems are skipped by EntityWorld.update() */
+    public boolean enabled = true;
+
+    /**
+     * Creates a system that runs on every entity having all of the given types.
+     * @param required The required DataComponent classes
+     */
+    @SafeVarargs
+    protected EntitySystem(Class<? extends DataComponent>... required)
+    {
+        this.all = DataType.maskOf(required);
+    }
+
+    /**
+     * Skips entities that have any of the given types. Call from the constructor.
+     * @param excluded The excluded DataComponent classes
+     */
+    @SafeVarargs
+    protected final void exclude(Class<? extends DataComponent>... excluded)
+    {
+        none |= DataType.maskOf(excluded);
+    }
+
+    /**
+     * Declares data types this system only reads. Call from the constructor.
+     * Declaring access (reads or writes) lets EntityWorld run the system in parallel with
+     * non-conflicting systems and split its chunks across threads; the system must then
+     * only touch the declared types and only the rows of the chunk it is given.
+     * The required types count as read.
+     * @param types The DataComponent classes read
+     */
+    @SafeVarargs
+    protected final void reads(Class<? extends DataComponent>... types)
+    {
+        reads |= DataType.maskOf(types);
+        declared = true;
+    }
+
+    /**
+     * Declares data types this system writes. Call from the constructor. See reads().
+     * @param types The DataComponent classes written
+     */
+    @SafeVarargs
+    protected final void writes(Class<? extends DataComponent>... types)
+    {
+        writes |= DataType.maskOf(types);
+        declared = true;
+    }
+
+    /**
+     * Called once after the system was added to a world.
+     */
+    public void onCreate() {}
+
+    /**
+     * Called once when the system is removed or replaced by a reloaded version.
+     */
+    public void onDestroy() {}
+
+    /**
+     * Called once per frame before the chunks are processed.
+     * @param deltaTime Frame time in seconds
+     */
+    public void beforeUpdate(float deltaTime) {}
+
+    /**
+     * Processes one chunk of matching entities.
+     * @param chunk The chunk to process
+     * @param deltaTime Frame time in seconds
+     */
+    public abstract void update(Chunk chunk, float deltaTime);
+
+    /**
+     * Returns the world this system runs in.
+     * @return The EntityWorld, or null before it was added
+     */
+    public EntityWorld getWorld()
+    {
+        return world;
+    }
+
+    /**
+     * Returns the query of matching entities.
+     * @return The query, or null before the system was added
+     */
+    public Query getQuery()
+    {
+        return query;
+    }
+
+    long getAllMask()
+    {
+        return all;
+    }
+
+    long getNoneMask()
+    {
+        return none;
+    }
+
+    /**
+     * Returns whether the system declared its data access.
+     * Undeclared systems run alone, in installation order.
+     * @return True if reads() or writes() was called
+     */
+    public boolean isDeclared()
+    {
+        return declared;
+    }
+
+    /**
+     * Returns whether this system and another may not run at the same time.
+     * Undeclared systems conflict with every system.
+     */
+    boolean conflictsWith(EntitySystem other)
+    {
+        if (!declared || !other.declared) return true;
+        long readsA = reads | all;
+        long readsB = other.reads | other.all;
+        return (writes & (readsB | other.writes)) != 0 || (other.writes & readsA) != 0;
+    }
+
+    void attach(EntityWorld world, Query query)
+    {
+        this.world = world;
+        this.query = query;
+    }
+
+    /**
+     * Runs the system on every matching chunk, logging exceptions instead of propagating them.
+     */
+    final void safeRun(float deltaTime)
+    {
+        if (safeBeforeUpdate(deltaTime))
+        {
+            query.forEachChunk(chunk -> safeUpdate(chunk, deltaTime));
+        }
+    }
+
+    /**
+     * Runs beforeUpdate(), logging exceptions instead of propagating them.
+     * @return False if it threw and the chunks should be skipped
+     */
+    final boolean safeBeforeUpdate(float deltaTime)
+    {
+        try
+        {
+            beforeUpdate(deltaTime);
+            return true;
+        }
+        catch (Exception e)
+        {
+            report(e);
+            return false;
+        }
+    }
+
+    /**
+     * Runs update() on one chunk, logging exceptions instead of propagating them.
+     */
+    final void safeUpdate(Chunk chunk, float deltaTime)
+    {
+        try
+        {
+            update(chunk, deltaTime);
+        }
+        catch (Exception e)
+        {
+            report(e);
+        }
+    }
+
+    private void report(Exception e)
+    {
+        Console.errorClass("Exception in system update: " + e.getMessage(), getClass().getSimpleName() + ".java");
+    }
+}
@@ -0,0 +1,576 @@
+package org.PiEngine.ECS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.PiEngine.Engine.Console;
+
+/**
+ * Archetype-based storage for lightweight entities made of plain-data components,
+ * plus the systems that process them.
+ * Entities are 64-bit ids (generation in the high 32 bits, slot in the low 32 bits),
+ * so ids of destroyed entities never resolve to a newer entity in the same slot.
+ * Lives next to the GameObject hierarchy: classic Components keep working unchanged
+ * while large simulations can move into systems.
+ */
+public class EntityWorld
+{
+    /** Default number of entities per chunk */
+    public static final int DEFAULT_CHUNK_CAPACITY = 1024;
+
+    private final int chunkCapacity;
+
+    private final Map<Long, Archetype> archetypes = new HashMap<>();
+    private final List<Archetype> archetypeList = new ArrayList<>();
+    private final List<Query> queries = new ArrayList<>();
+    private final List<EntitySystem> systems = new ArrayList<>();
+
+    // Per entity slot
+    private int[] generations = new int[256];
+    private Chunk[] chunkOf = new Chunk[256];
+    private int[] rowOf = new int[256];
+    private int[] freeSlots = new int[256];
+    private int freeCount = 0;
+    private int nextSlot = 0;
+    private int entityCount = 0;
+
+    private boolean iterating = false;
+
+    /**
+     * Creates a world with the default chunk capacity.
+     */
+    public EntityWorld()
+    {
+        this(DEFAULT_CHUNK_CAPACITY);
+    }
+
+    /**
+     * Creates a world.
+     * @param chunkCapacity Number of entities per chunk
+     */
+    public EntityWorld(int chunkCapacity)
+    {
+        this.chunkCapacity = Math.max(1, chunkCapacity);
+    }
+
+    // ----------------------------
+    // Entities
+    // ----------------------------
+
+    /**
+     * Creates an entity with the given data components.
+     * @param components Initial component values, at most one per type
+     * @return The new entity id
+     */
+    public long create(DataComponent... components)
+    {
+        checkNotIterating();
+
+        long mask = 0;
+        for (DataComponent c : components)
+        {
+            mask |= DataType.of(c.getClass()).getBit();
+        }
+
+        int slot = allocateSlot();
+        long entity = ((long) generations[slot] << 32) | slot;
+
+        Archetype archetype = archetype(mask);
+        Chunk chunk = archetype.chunkWithSpace();
+        int row = chunk.add(entity);
+        archetype.added();
+        chunkOf[slot] = chunk;
+        rowOf[slot] = row;
+
+        for (DataComponent c : components)
+        {
+            DataType type = DataType.of(c.getClass());
+            type.write(c, chunk.getColumns(), archetype.getFirstColumn(type), row);
+        }
+
+        entityCount++;
+        return entity;
+    }
+
+    /**
+     * Destroys an entity. Ids of destroyed entities are ignored by every method.
+     * @param entity The entity id
+     */
+    public void destroy(long entity)
+    {
+        checkNotIterating();
+        if (!isAlive(entity)) return;
+
+        int slot = slotOf(entity);
+        removeRow(chunkOf[slot], rowOf[slot]);
+        chunkOf[slot] = null;
+        generations[slot]++;
+        freeSlots[freeCount++] = slot;
+        entityCount--;
+    }
+
+    /**
+     * Returns whether the entity exists.
+     * @param entity The entity id
+     * @return True if alive
+     */
+    public boolean isAlive(long entity)
+    {
+        int slot = slotOf(entity);
+        return slot >= 0 && slot < nextSlot && chunkOf[slot] != null && generations[slot] == (int) (entity >>> 32);
+    }
+
+    /**
+     * Returns whether the entity has a data component of the given type.
+     * @param entity The entity id
+     * @param type The DataComponent class
+     * @return True if present
+     */
+    public boolean has(long entity, Class<? extends DataComponent> type)
+    {
+        return isAlive(entity) && chunkOf[slotOf(entity)].getArchetype().has(DataType.of(type));
+    }
+
+    /**
+     * Reads a copy of a data component of an entity.
+     * @param entity The entity id
+     * @param type The DataComponent class
+     * @param <T> The component type
+     * @return A new instance with the stored values, or null if absent
+     */
+    public <T extends DataComponent> T get(long entity, Class<T> type)
+    {
+        if (!has(entity, type)) return null;
+        int slot = slotOf(entity);
+        Chunk chunk = chunkOf[slot];
+        DataType dataType = DataType.of(type);
+        return dataType.read(chunk.getColumns(), chunk.getArchetype().getFirstColumn(dataType), rowOf[slot]);
+    }
+
+    /**
+     * Writes a data component to an entity, adding the type if the entity does not have it yet.
+     * Adding a new type moves the entity to another archetype and is not allowed while systems run.
+     * @param entity The entity id
+     * @param value The component value
+     */
+    public void set(long entity, DataComponent value)
+    {
+        if (!isAlive(entity)) return;
+
+        DataType type = DataType.of(value.getClass());
+        int slot = slotOf(entity);
+        Archetype current = chunkOf[slot].getArchetype();
+        if (!current.has(type))
+        {
+            checkNotIterating();
+            move(slot, archetype(current.getMask() | type.getBit()));
+        }
+        Chunk chunk = chunkOf[slot];
+        type.write(value, chunk.getColumns(), chunk.getArchetype().getFirstColumn(type), rowOf[slot]);
+    }
+
+    /**
+     * Removes a data component type from an entity.
+     * @param entity The entity id
+     * @param type The DataComponent class
+     */
+    public void remove(long entity, Class<? extends DataComponent> type)
+    {
+        if (!has(entity, type)) return;
+        checkNotIterating();
+
+        int slot = slotOf(entity);
+        Archetype current = chunkOf[slot].getArchetype();
+        move(slot, archetype(current.getMask() & ~DataType.of(type).getBit()));
+    }
+
+    /**
+     * Returns the number of living entities.
+     * @return Entity count
+     */
+    public int getEntityCount()
+    {
+        return entityCount;
+    }
+
+    /**
+     * Destroys every entity. Systems stay installed.
+     */
+    public void clear()
+    {
+        checkNotIterating();
+        for (int slot = 0; slot < nextSlot; slot++)
+        {
+            if (chunkOf[slot] != null)
+            {
+                destroy(((long) generations[slot] << 32) | slot);
+            }
+        }
+    }
+
+    private static int slotOf(long entity)
+    {
+        return (int) entity;
+    }
+
+    private int allocateSlot()
+    {
+        if (freeCount > 0)
+        {
+            return freeSlots[--freeCount];
+        }
+        if (nextSlot == generations.length)
+        {
+            int capacity = generations.length * 2;
+            generations = Arrays.copyOf(generations, capacity);
+            chunkOf = Arrays.copyOf(chunkOf, capacity);
+            rowOf = Arrays.copyOf(rowOf, capacity);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+        }
+        return nextSlot++;
+    }
+
+    /**
+     * Moves an entity to another archetype, copying the columns both archetypes share.
+     */
+    private void move(int slot, Archetype target)
+    {
+        Chunk from = chunkOf[slot];
+        int fromRow = rowOf[slot];
+        Archetype source = from.getArchetype();
+
+        Chunk to = target.chunkWithSpace();
+        int toRow = to.add(from.entity(fromRow));
+        target.added();
+
+        for (DataType type : target.getTypes())
+        {
+            if (source.has(type))
+            {
+                Chunk.copyColumns(from, fromRow, to, toRow,
+                    source.getFirstColumn(type), type.getFieldCount(), target.getFirstColumn(type));
+            }
+        }
+
+        removeRow(from, fromRow);
+        chunkOf[slot] = to;
+        rowOf[slot] = toRow;
+    }
+
+    /**
+     * Removes a row by moving the archetype's last entity into it.
+     */
+    private void removeRow(Chunk chunk, int row)
+    {
+        Archetype archetype = chunk.getArchetype();
+        Chunk last = archetype.lastFilledChunk();
+        int lastRow = last.size() - 1;
+
+        if (last != chunk || lastRow != row)
+        {
+            last.copyRowTo(lastRow, chunk, row);
+            long moved = last.entity(lastRow);
+            chunk.setEntity(row, moved);
+            chunkOf[slotOf(moved)] = chunk;
+            rowOf[slotOf(moved)] = row;
+        }
+        last.shrink();
+        archetype.removed();
+    }
+
+    // ----------------------------
+    // Archetypes and queries
+    // ----------------------------
+
+    private Archetype archetype(long mask)
+    {
+        Archetype archetype = archetypes.get(mask);
+        if (archetype == null)
+        {
+            List<DataType> types = new ArrayList<>();
+            for (int id = 0; id < DataType.MAX_TYPES; id++)
+            {
+                if ((mask & (1L << id)) != 0) types.add(DataType.byId(id));
+            }
+            archetype = new Archetype(mask, types, chunkCapacity);
+            archetypes.put(mask, archetype);
+            archetypeList.add(archetype);
+
+            for (Query query : queries)
+            {
+                if (query.matches(archetype)) query.addArchetype(archetype);
+            }
+        }
+        return archetype;
+    }
+
+    /**
+     * Returns a cached query for entities having all of the given types.
+     * @param required The required DataComponent classes
+     * @return The query
+     */
+    @SafeVarargs
+    public final Query query(Class<? extends DataComponent>... required)
+    {
+        return query(DataType.maskOf(required), 0);
+    }
+
+    /**
+     * Returns a cached query by type masks.
+     * @param all Mask of required types
+     * @param none Mask of excluded types
+     * @return The query
+     */
+    public Query query(long all, long none)
+    {
+        // Worlds hold a handful of queries, a linear scan is cheaper than hashing two masks
+        for (Query query : queries)
+        {
+            if (query.getAll() == all && query.getNone() == none) return query;
+        }
+
+        Query query = new Query(all, none);
+        for (Archetype archetype : archetypeList)
+        {
+            if (query.matches(archetype)) query.addArchetype(archetype);
+        }
+        queries.add(query);
+        return query;
+    }
+
+    /**
+     * Returns all archetypes created so far.
+     * @return Read-only archetype list
+     */
+    public List<Archetype> getArchetypes()
+    {
+        return Collections.unmodifiableList(archetypeList);
+    }
+
+    // ----------------------------
+    // Systems
+    // ----------------------------
+
+    /**
+     * Adds a system. If a system of a class with the same name is already installed
+     * (e.g. an older version of a reloaded script) it is replaced in place.
+     * @param system The system to add
+     */
+    public void addSystem(EntitySystem system)
+    {
+        checkNotIterating();
+        system.attach(this, query(system.getAllMask(), system.getNoneMask()));
+
+        String name = system.getClass().getName();
+        for (int i = 0; i < systems.size(); i++)
+        {
+            EntitySystem existing = systems.get(i);
+            if (existing.getClass().getName().equals(name))
+            {
+                existing.onDestroy();
+                systems.set(i, system);
+                system.onCreate();
+                Console.log("Reloaded system: " + system.getClass().getSimpleName());
+                return;
+            }
+        }
+        systems.add(system);
+        system.onCreate();
+    }
+
+    /**
+     * Removes a system.
+     * @param system The system to remove
+     */
+    public void removeSystem(EntitySystem system)
+    {
+        checkNotIterating();
+        if (systems.remove(system))
+        {
+            system.onDestroy();
+        }
+    }
+
+    /**
+     * Returns the installed systems in execution order.
+     * @return Read-only system list
+     */
+    public List<EntitySystem> getSystems()
+    {
+        return Collections.unmodifiableList(systems);
+    }
+
+    /**
+     * Runs every enabled system over its matching chunks, in installation order.
+     * Creating, destroying or restructuring entities from inside a system is not allowed.
+     * @param deltaTime Frame time in seconds
+     */
+    public void update(float deltaTime)
+    {
+        update(deltaTime, null);
+    }
+
+    /**
+     * Runs every enabled system over its matching chunks, using the pool for systems that declared
+     * their data access. Each system is placed in the first stage after every earlier system it
+     * conflicts with, so conflicting systems keep their installation order and the result equals
+     * the serial run. Systems of one stage run concurrently and split their chunks across threads;
+     * undeclared systems always get a stage of their own and run on the calling thread.
+     * @param deltaTime Frame time in seconds
+     * @param pool Worker pool, or null to run serially
+     */
+    public void update(float deltaTime, ForkJoinPool pool)
+    {
+        iterating = true;
+        try
+        {
+            if (pool == null || pool.getParallelism() == 1)
+            {
+                for (int i = 0; i < systems.size(); i++)
+                {
+                    EntitySystem system = systems.get(i);
+                    if (system.enabled)
+                    {
+                        system.safeRun(deltaTime);
+                    }
+                }
+            }
+            else
+            {
+                for (List<EntitySystem> stage : buildStages())
+                {
+                    if (stage.size() == 1 && !stage.get(0).isDeclared())
+                    {
+                        // Undeclared systems may touch anything, so they stay on the caller like in the serial run
+                        stage.get(0).safeRun(deltaTime);
+                        continue;
+                    }
+                    pool.invoke(new StageTask(stage, deltaTime));
+                }
+            }
+        }
+        finally
+        {
+            iterating = false;
+        }
+    }
+
+    /**
+     * Groups the enabled systems into stages that can each run concurrently.
+     */
+    private List<List<EntitySystem>> buildStages()
+    {
+        List<EntitySystem> enabled = new ArrayList<>();
+        for (EntitySystem system : systems)
+        {
+            if (system.enabled) enabled.add(system);
+        }
+
+        int[] stageOf = new int[enabled.size()];
+        List<List<EntitySystem>> stages = new ArrayList<>();
+        for (int i = 0; i < enabled.size(); i++)
+        {
+            EntitySystem system = enabled.get(i);
+            int stage = 0;
+            for (int j = 0; j < i; j++)
+            {
+                if (stageOf[j] >= stage && system.conflictsWith(enabled.get(j)))
+                {
+                    stage = stageOf[j] + 1;
+                }
+            }
+            stageOf[i] = stage;
+            if (stage == stages.size()) stages.add(new ArrayList<>());
+            stages.get(stage).add(system);
+        }
+        return stages;
+    }
+
+    /**
+     * Runs the systems of one stage concurrently.
+     */
+    private static final class StageTask extends RecursiveAction
+    {
+        private final List<EntitySystem> stage;
+        private final float deltaTime;
+
+        StageTask(List<EntitySystem> stage, float deltaTime)
+        {
+            this.stage = stage;
+            this.deltaTime = deltaTime;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (stage.size() == 1)
+            {
+                runSystem(stage.get(0), deltaTime);
+                return;
+            }
+            List<RecursiveAction> tasks = new ArrayList<>(stage.size());
+            for (EntitySystem system : stage)
+            {
+                tasks.add(new RecursiveAction()
+                {
+                    @Override
+                    protected void compute()
+                    {
+                        runSystem(system, deltaTime);
+                    }
+                });
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Runs one system, splitting the chunks of a declared system into one task each.
+     * Must be called from inside the pool.
+     */
+    private static void runSystem(EntitySystem system, float deltaTime)
+    {
+        if (!system.isDeclared())
+        {
+            system.safeRun(deltaTime);
+            return;
+        }
+        if (!system.safeBeforeUpdate(deltaTime)) return;
+
+        List<Chunk> chunks = new ArrayList<>();
+        system.getQuery().collectChunks(chunks);
+        if (chunks.size() <= 1)
+        {
+            for (Chunk chunk : chunks) system.safeUpdate(chunk, deltaTime);
+            return;
+        }
+
+        List<RecursiveAction> tasks = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks)
+        {
+            tasks.add(new RecursiveAction()
+            {
+                @Override
+                protected void compute()
+                {
+                    system.safeUpdate(chunk, deltaTime);
+                }
+            });
+        }
+        RecursiveAction.invokeAll(tasks);
+    }
+
+    private void checkNotIterating()
+    {
+        if (iterating)
+        {
+            throw new IllegalStateException("Entities cannot be created, destroyed or restructured while systems are running");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.PiEngine.ECS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A cached set of archetypes that contain all required and none of the excluded data types.
+ * The world adds newly created archetypes to every matching query, so iterating a query
+ * never scans archetypes that cannot match.
+ */
+public final class Query
+{
+    private final long all;
+    private final long none;
+    private final List<Archetype> archetypes = new ArrayList<>();
+
+    Query(long all, long none)
+    {
+        this.all = all;
+        this.none = none;
+    }
+
+    boolean matches(Archetype archetype)
+    {
+        long mask = archetype.getMask();
+        return (mask & all) == all && (mask & none) == 0;
+    }
+
+    void addArchetype(Archetype archetype)
+    {
+        archetypes.add(archetype);
+    }
+
+    long getAll()
+    {
+        return all;
+    }
+
+    long getNone()
+    {
+        return none;
+    }
+
+    /**
+     * Calls the action for every non-empty chunk that matches this query.
+     * @param action The action to run per chunk
+     */
+    public void forEachChunk(Consumer<Chunk> action)
+    {
+        for (int a = 0; a < archetypes.size(); a++)
+        {
+            Archetype archetype = archetypes.get(a);
+            if (archetype.getEntityCount() == 0) continue;
+            List<Chunk> chunks = archetype.getChunks();
+            for (int c = 0; c < chunks.size(); c++)
+            {
+                Chunk chunk = chunks.get(c);
+                if (chunk.size() == 0) break;     // Chunks are packed, the rest are empty
+                action.accept(chunk);
+            }
+        }
+    }
+
+    /**
+     * Appends every non-empty matching chunk to the list, in forEachChunk() order.
+     */
+    void collectChunks(List<Chunk> out)
+    {
+        forEachChunk(out::add);
+    }
+
+    /**
+     * Returns the number of entities that match this query.
+     * @return Entity count
+     */
+    public int count()
+    {
+        int total = 0;
+        for (Archetype archetype : archetypes)
+        {
+            total += archetype.getEntityCount();
+        }
+        return total;
+    }
+}
@@ -3,12 +3,12 @@ package org.PiEngine.Editor;
 import imgui.ImGui;
 
 import org.PiEngine.Component.Component;
+import org.PiEngine.Component.ComponentMetadata;
 import org.PiEngine.Editor.Serialization.*;
 import org.PiEngine.GameObjects.GameObject;
 import org.PiEngine.Math.Vector;
 import org.PiEngine.Render.Texture;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
@@ -57,15 +57,10 @@ public class ComponentPropertyBlock {
      * @param c The component to edit
      */
     public void drawComponentFields(Component c) {
-        Field[] fields = c.getClass().getFields(); // Only public fields
-
-        for (Field field : fields) {
+        // Public fields only, without gameObject/transform; cached per class
+        for (ComponentMetadata.FieldInfo field : ComponentMetadata.of(c.getClass()).getInspectableFields()) {
             String fieldName = field.getName();
             Class<?> fieldType = field.getType();
-            // Skip non-editable or internal references
-            if (fieldName.equals("gameObject") || fieldName.equals("transform")) {
-                continue;
-            }
 
             for (Map.Entry<Class<?>, Class<?>> entry : fieldTypeMap.entrySet()) {
                 
@@ -79,18 +74,13 @@ public class ComponentPropertyBlock {
                         Object fieldHandler = FieldClass.getConstructor(String.class, String.class).newInstance(field.getName(), field.getName());
                         
 
-                        Supplier<Object> supplier = () -> {
-                            try {
-                                return field.get(c);
-                            } catch (IllegalAccessException e) {
-                                e.printStackTrace();
-                                return null;
-                            }
-                        };
+                        Supplier<Object> supplier = () -> field.get(c);
                         
                         Consumer<Object> consumer = newVal -> {
                             try {
                                 field.set(c, newVal);
+                                // The edit may change the component's extent (e.g. a sprite size)
+                                if (c.gameObject != null) c.gameObject.markBoundsDirty();
                             } catch (IllegalAccessException e) {
                                 ImGui.text("Cannot modify: " + field.getName());
                             }
@@ -108,14 +98,7 @@ public class ComponentPropertyBlock {
                     else if (Component.class.isAssignableFrom(fieldType) && handlerClass == Component.class)
                     {
                         Object fieldHandler = new ComponentField(fieldName, fieldName, fieldType);
-                        Supplier<Component> supplier = () -> {
-                            try {
-                                return (Component) field.get(c);
-                            } catch (IllegalAccessException e) {
-                                e.printStackTrace();
-                                return null;
-                            }
-                        };
+                        Supplier<Component> supplier = () -> (Component) field.get(c);
 
                         Consumer<Component> consumer = newVal -> {
                             try {
@@ -143,6 +126,8 @@ public class ComponentPropertyBlock {
                         Consumer<Object> consumer = newVal -> {
                             try {
                                 field.set(c, newVal);
+                                // The edit may change the component's extent (e.g. a sprite size)
+                                if (c.gameObject != null) c.gameObject.markBoundsDirty();
                             } catch (IllegalAccessException e) {
                                 ImGui.text("Cannot modify: " + field.getName());
                             }
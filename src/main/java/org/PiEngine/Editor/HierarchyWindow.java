@@ -12,7 +12,6 @@ import imgui.type.ImBoolean;
 import imgui.type.ImString;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Iterator;
 
@@ -30,9 +29,7 @@ public class HierarchyWindow extends EditorWindow {
     private ImString renameBuffer = new ImString(64);
     private boolean renameFieldFocused = false;
 
-    private final List<GameObject> toRemove = new ArrayList<>();
     private final List<InspectorWindow> windowsToAdd = new ArrayList<>();
-    private final List<List<GameObject>> toReparent = new ArrayList<>();
 
     public static int count = 0;
 
@@ -55,25 +52,13 @@ public class HierarchyWindow extends EditorWindow {
     }
 
     /**
-     * Called every frame to update hierarchy logic and handle reparenting.
+     * Called every frame to update hierarchy logic.
+     * Structural edits go through the scene command buffer and are applied at its next sync point.
      */
     public void onUpdate()
     {
         root = Scene.getInstance().getRoot();
         setCustomTheme();
-
-        Iterator<List<GameObject>> reparentIterator = toReparent.iterator();
-        while (reparentIterator.hasNext())
-        {
-            List<GameObject> pair = reparentIterator.next();
-            if (pair.size() == 2)
-            {
-                GameObject child = pair.get(0);
-                GameObject parent = pair.get(1);
-                child.reparentTo(parent);
-            }
-            reparentIterator.remove(); // clear after processing
-        }
         
         Iterator<InspectorWindow> addIterator = windowsToAdd.iterator();
         while (addIterator.hasNext())
@@ -82,12 +67,6 @@ public class HierarchyWindow extends EditorWindow {
             Editor.get().addWindow(win);
             addIterator.remove(); // remove from pending list
         }
-
-        for (GameObject gameObject : toRemove) 
-        {
-            GameObject.destroy(gameObject);    
-        }
-        toRemove.clear();
     }
 
     /**
@@ -142,8 +121,7 @@ public class HierarchyWindow extends EditorWindow {
             nodeOpen = ImGui.treeNodeEx(obj.Name + " (Root)", flags);
             if (ImGui.beginPopupContextItem(obj.Name)) {    
                 if (ImGui.menuItem("Add Object")) {
-                    GameObject newChild = new GameObject("NewGameObject");
-                    obj.addChild(newChild);
+                    Scene.getInstance().getCommands().instantiate(new GameObject("NewGameObject"), obj);
                 }
                 ImGui.endPopup();
             }
@@ -153,8 +131,7 @@ public class HierarchyWindow extends EditorWindow {
                 if (payloadObj instanceof GameObject) {
                     GameObject draggedObj = (GameObject) payloadObj;
                     if (draggedObj != obj) {
-                        toReparent.add(Arrays.asList(draggedObj, obj)); 
-                        System.out.println(toReparent);
+                        Scene.getInstance().getCommands().reparent(draggedObj, obj);
                     }
                 }
                 ImGui.endDragDropTarget();
@@ -165,7 +142,7 @@ public class HierarchyWindow extends EditorWindow {
         else if (renamingObject == obj) {
             ImGui.setNextItemWidth(200);
             if (ImGui.inputText("##rename", renameBuffer, ImGuiInputTextFlags.EnterReturnsTrue | ImGuiInputTextFlags.AutoSelectAll)) {
-                obj.Name = renameBuffer.get().trim();
+                obj.setName(renameBuffer.get().trim());
                 renamingObject = null;
                 renameFieldFocused = false;
             }
@@ -173,7 +150,7 @@ public class HierarchyWindow extends EditorWindow {
             if (ImGui.isItemActive()) {
                 renameFieldFocused = true;
             } else if (renameFieldFocused && !ImGui.isItemHovered()) {
-                obj.Name = renameBuffer.get().trim(); // Commit rename on blur
+                obj.setName(renameBuffer.get().trim()); // Commit rename on blur
                 renamingObject = null;
                 renameFieldFocused = false;
             }
@@ -208,7 +185,7 @@ public class HierarchyWindow extends EditorWindow {
             }
 
             if ((ImGui.isItemHovered() && ImGui.isKeyPressed(ImGuiKey.Delete) )) {
-                toRemove.add(obj);
+                Scene.getInstance().getCommands().destroy(obj);
                 if (renamingObject == obj) {
                     renamingObject = null;
                     renameFieldFocused = false;
@@ -228,7 +205,7 @@ public class HierarchyWindow extends EditorWindow {
                 if (payloadObj instanceof GameObject) {
                     GameObject draggedObj = (GameObject) payloadObj;
                     if (draggedObj != obj) {
-                        toReparent.add(Arrays.asList(draggedObj, obj)); // Reparent dragged object to the drop target
+                        Scene.getInstance().getCommands().reparent(draggedObj, obj); // Reparent dragged object to the drop target
                     }
                 }
                 ImGui.endDragDropTarget();
@@ -244,11 +221,10 @@ public class HierarchyWindow extends EditorWindow {
                 }
                 
                 if (ImGui.menuItem("Add Object")) {
-                    GameObject newChild = new GameObject("NewGameObject");
-                    obj.addChild(newChild);
+                    Scene.getInstance().getCommands().instantiate(new GameObject("NewGameObject"), obj);
                 }
                 if (ImGui.menuItem("Remove")) {
-                    toRemove.add(obj);
+                    Scene.getInstance().getCommands().destroy(obj);
                     if (renamingObject == obj) {
                         renamingObject = null;
                         renameFieldFocused = false;
@@ -119,6 +119,10 @@ public class NavigationWindow extends EditorWindow
             {
                 Editor.getInstance().queueAddWindow(new PerfomanceWindow());
             }
+            if (ImGui.menuItem("Profiler"))
+            {
+                Editor.getInstance().queueAddWindow(new ProfilerWindow());
+            }
             if (ImGui.menuItem("Hierarchy"))
             {
                  Editor.getInstance().queueAddWindow(new HierarchyWindow());
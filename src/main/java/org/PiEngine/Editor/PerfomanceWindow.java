@@ -4,6 +4,8 @@ import imgui.ImGui;
 import org.PiEngine.Core.*;
 import imgui.ImVec2;
 import imgui.type.ImBoolean;
+import org.PiEngine.Engine.Scene;
+import org.PiEngine.GameObjects.SceneSpatialIndex;
 
 public class PerfomanceWindow extends EditorWindow
 {
@@ -60,6 +62,12 @@ public class PerfomanceWindow extends EditorWindow
 
         ImGui.separator();
 
+        SceneSpatialIndex spatial = Scene.getInstance().getSpatialIndex();
+        ImGui.text("Spatial index: " + spatial.size() + " objects, " + spatial.getLastRefreshedCount() + " refreshed, "
+            + spatial.getLastMovedCount() + " reinserted");
+
+        ImGui.separator();
+
         ImGui.text("Memory Usage:");
         ImGui.text("Used Memory: " + (usedMemory / (1024 * 1024)) + " MB");
         ImGui.text("Allocated Memory: " + (totalMemory / (1024 * 1024)) + " MB");
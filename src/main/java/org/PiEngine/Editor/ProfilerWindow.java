@@ -0,0 +1,172 @@
+package org.PiEngine.Editor;
+
+import imgui.ImDrawList;
+import imgui.ImGui;
+import imgui.type.ImBoolean;
+
+import org.PiEngine.Core.Profiler;
+import org.PiEngine.Engine.Console;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Shows the Profiler scopes of one frame as a timeline: one lane per thread, one row per
+ * nesting depth, bar width proportional to duration. Can hold the slowest frame and export
+ * the recorded scopes as a Chrome trace.
+ */
+public class ProfilerWindow extends EditorWindow
+{
+    public static int count = 0;
+
+    private static final float ROW_HEIGHT = 18f;
+
+    private final ImBoolean paused = new ImBoolean(false);
+    private final ImBoolean holdSlowest = new ImBoolean(false);
+
+    private List<Profiler.Event> events = new ArrayList<>();
+    private long frameDuration = 0;
+
+    /**
+     * Constructs a new ProfilerWindow.
+     */
+    public ProfilerWindow()
+    {
+        super("Profiler");
+        id = count++;
+    }
+
+    /**
+     * Renders the controls and the timeline of the shown frame.
+     */
+    @Override
+    public void onRender()
+    {
+        ImBoolean isOpen = new ImBoolean(true);
+        if (!ImGui.begin(name + "##" + id, isOpen))
+        {
+            ImGui.end();
+            return;
+        }
+
+        if (!isOpen.get())
+        {
+            Editor.get().queueRemoveWindow(this);
+        }
+
+        if (ImGui.checkbox("Enabled", Profiler.isEnabled()))
+        {
+            Profiler.setEnabled(!Profiler.isEnabled());
+        }
+        ImGui.sameLine();
+        if (ImGui.checkbox("Objects and components", Profiler.isDetailed()))
+        {
+            Profiler.setDetailed(!Profiler.isDetailed());
+        }
+        ImGui.sameLine();
+        ImGui.checkbox("Pause", paused);
+        ImGui.sameLine();
+        if (ImGui.checkbox("Hold slowest frame", holdSlowest))
+        {
+            frameDuration = 0;
+        }
+        ImGui.sameLine();
+        if (ImGui.button("Export Chrome Trace"))
+        {
+            exportTrace();
+        }
+
+        if (!paused.get())
+        {
+            long duration = Profiler.getLastFrameDuration();
+            if (!holdSlowest.get() || duration > frameDuration)
+            {
+                events = Profiler.getLastFrame();
+                frameDuration = duration;
+            }
+        }
+
+        ImGui.text(String.format("Frame: %.3f ms, %d scopes", frameDuration / 1_000_000.0, events.size()));
+        ImGui.separator();
+        drawTimeline();
+
+        ImGui.end();
+    }
+
+    /**
+     * Draws the bars of the shown frame, one lane per thread.
+     */
+    private void drawTimeline()
+    {
+        if (events.isEmpty() || frameDuration <= 0)
+        {
+            ImGui.textDisabled("No scopes recorded");
+            return;
+        }
+
+        ImDrawList drawList = ImGui.getWindowDrawList();
+        float width = Math.max(1f, ImGui.getContentRegionAvailX());
+        float scale = width / frameDuration;
+
+        int lane = -1;
+        int laneDepth = 0;
+        float laneTop = ImGui.getCursorScreenPosY();
+        float left = ImGui.getCursorScreenPosX();
+        int barColor = ImGui.getColorU32(0.25f, 0.5f, 0.8f, 1f);
+        int hoverColor = ImGui.getColorU32(0.4f, 0.7f, 1f, 1f);
+        int textColor = ImGui.getColorU32(1f, 1f, 1f, 1f);
+
+        for (Profiler.Event event : events)
+        {
+            if (event.threadIndex != lane)
+            {
+                // New thread: start a lane below the previous one
+                if (lane != -1) laneTop += (laneDepth + 1) * ROW_HEIGHT + ROW_HEIGHT;
+                lane = event.threadIndex;
+                laneDepth = 0;
+                drawList.addText(left, laneTop, textColor, event.thread);
+            }
+            laneDepth = Math.max(laneDepth, event.depth + 1);
+
+            float x0 = left + event.start * scale;
+            float x1 = Math.max(x0 + 1f, left + (event.start + event.duration) * scale);
+            float y0 = laneTop + (event.depth + 1) * ROW_HEIGHT;
+            float y1 = y0 + ROW_HEIGHT - 2f;
+
+            boolean hovered = ImGui.isMouseHoveringRect(x0, y0, x1, y1);
+            drawList.addRectFilled(x0, y0, x1, y1, hovered ? hoverColor : barColor);
+            if (x1 - x0 > ImGui.calcTextSize(event.name).x + 4f)
+            {
+                drawList.addText(x0 + 2f, y0 + 1f, textColor, event.name);
+            }
+            if (hovered)
+            {
+                ImGui.setTooltip(String.format("%s\n%.3f ms (starts at %.3f ms)",
+                    event.name, event.duration / 1_000_000.0, event.start / 1_000_000.0));
+            }
+        }
+
+        laneTop += (laneDepth + 1) * ROW_HEIGHT;
+        ImGui.dummy(width, laneTop - ImGui.getCursorScreenPosY());
+    }
+
+    private void exportTrace()
+    {
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path path = Paths.get("profile-" + stamp + ".json");
+        try
+        {
+            int scopes = Profiler.exportChromeTrace(path);
+            Console.log("Exported " + scopes + " profiler scopes to " + path.toAbsolutePath());
+        }
+        catch (IOException e)
+        {
+            Console.error("Failed to export profiler trace: " + e.getMessage());
+        }
+    }
+}
@@ -8,6 +8,7 @@ import imgui.type.ImBoolean;
 import imgui.type.ImInt;
 import imgui.extension.imnodes.ImNodes;
 
+import org.PiEngine.Render.PassTimer;
 import org.PiEngine.Render.Renderer;
 import org.PiEngine.Render.RenderPass;
 
@@ -26,6 +27,7 @@ public class RenderGraphEditorWindow extends EditorWindow
     private final Map<Integer, LinkInfo> linkMap    = new HashMap<>();
 
     private int nextId = 1000;
+    private boolean previewing = false;     // Holds a Renderer.beginPreview() for the node previews
 
     private static class LinkInfo
     {
@@ -55,6 +57,10 @@ public class RenderGraphEditorWindow extends EditorWindow
         // Register any passes that already exist
         renderer.getPasses().keySet().forEach(this::registerPass);
         onCreate();
+
+        // Node previews show every output, so none may be reused by a later pass
+        renderer.beginPreview();
+        previewing = true;
     }
 
     /**
@@ -72,6 +78,14 @@ public class RenderGraphEditorWindow extends EditorWindow
     {
         // Destroy it when the window is torn down
         ImNodes.destroyContext();
+        endPreview();
+    }
+
+    private void endPreview()
+    {
+        if (!previewing) return;
+        renderer.endPreview();
+        previewing = false;
     }
 
     private void registerPass(String name)
@@ -141,6 +155,7 @@ public class RenderGraphEditorWindow extends EditorWindow
         if (!isOpen.get())
         {
             Editor.get().queueRemoveWindow(this);
+            endPreview();
         }
         ImNodes.beginNodeEditor();
 
@@ -157,7 +172,9 @@ public class RenderGraphEditorWindow extends EditorWindow
             List<Integer> inputs = inputPinIds.get(passName);
             int outputId = outputPinIds.get(passName);
 
-            long previewTex = renderer.getPasses().get(passName).getOutputTexture();
+            RenderPass pass = renderer.getPasses().get(passName);
+            boolean scheduled = renderer.getSchedule().contains(pass);
+            long previewTex = pass.getOutputTexture();
 
             ImNodes.beginNode(nodeId);
 
@@ -188,14 +205,32 @@ public class RenderGraphEditorWindow extends EditorWindow
                 ImGui.text("Output");
             ImNodes.endOutputAttribute();
 
-            ImGui.image(
-                previewTex,
-                new ImVec2(192, 108),
-                new ImVec2(0, 1),
-                new ImVec2(1, 0),
-                new ImVec4(1, 1, 1, 1),
-                new ImVec4(0, 0, 0, 0)
-            );
+            if (scheduled)
+            {
+                ImGui.image(
+                    previewTex,
+                    new ImVec2(192, 108),
+                    new ImVec2(0, 1),
+                    new ImVec2(1, 0),
+                    new ImVec4(1, 1, 1, 1),
+                    new ImVec4(0, 0, 0, 0)
+                );
+            }
+            else
+            {
+                // Culled passes have no target
+                ImGui.textDisabled("No preview");
+            }
+
+            PassTimer timer = renderer.getPassTimer(passName);
+            if (timer != null && scheduled)
+            {
+                ImGui.text(String.format("CPU %.2f ms  GPU %.2f ms", timer.getCpu().getAverage(), timer.getGpu().getAverage()));
+            }
+            else
+            {
+                ImGui.textDisabled("Not scheduled");
+            }
 
             ImNodes.endNode();
         }
@@ -10,6 +10,10 @@ import org.PiEngine.Core.LayerManager;
 import org.PiEngine.Engine.Console;
 import org.PiEngine.Render.RenderPass;
 import org.PiEngine.Render.RenderPassFactory;
+import org.PiEngine.Render.GLState;
+import org.PiEngine.Render.PassTimer;
+import org.PiEngine.Render.StreamingBuffer;
+import org.PiEngine.Render.Passes.GeometryPass;
 
 import java.util.*;
 
@@ -52,6 +56,24 @@ public class RendererInspector extends EditorWindow
             Editor.get().queueRemoveWindow(this);
         }
 
+        ImGui.text("Streaming: " + StreamingBuffer.getBytesUploaded() / 1024 + " KB in "
+            + StreamingBuffer.getUploads() + " uploads, " + StreamingBuffer.getStallsAvoided()
+            + " stalls avoided, " + StreamingBuffer.getOrphans() + " orphans");
+        ImGui.text("GL state: " + GLState.getIssuedCalls() + " calls issued, "
+            + GLState.getElidedCalls() + " elided");
+        long targetMemory = renderer.getTargetMemory();
+        ImGui.text("Render targets: " + renderer.getTargetCount() + " using " + targetMemory / (1024 * 1024)
+            + " MB, saved " + Math.max(0, renderer.getUnpooledTargetMemory() - targetMemory) / (1024 * 1024) + " MB");
+
+        float cpuTotal = 0, gpuTotal = 0;
+        for (PassTimer timer : renderer.getPassTimings().values())
+        {
+            cpuTotal += timer.getCpu().getAverage();
+            gpuTotal += timer.getGpu().getAverage();
+        }
+        ImGui.text(String.format("Passes: %.2f ms CPU, %.2f ms GPU (average)", cpuTotal, gpuTotal));
+        ImGui.separator();
+
         ImGui.text("Render Passes:");
         ImGui.separator();
 
@@ -146,6 +168,27 @@ public class RendererInspector extends EditorWindow
                     ImGui.endCombo();
                 }
 
+                if (pass instanceof GeometryPass)
+                {
+                    GeometryPass geometry = (GeometryPass) pass;
+                    if (ImGui.checkbox("Frustum culling", geometry.isCulling()))
+                    {
+                        geometry.setCulling(!geometry.isCulling());
+                    }
+                    ImGui.text("Culled: " + geometry.getCulledCount() + " of " + geometry.getTestedCount() + " objects");
+                }
+
+                // Timing, in milliseconds over the last frames
+                PassTimer timer = renderer.getPassTimer(pass.getName());
+                if (timer != null)
+                {
+                    PassTimer.Stats cpu = timer.getCpu();
+                    PassTimer.Stats gpu = timer.getGpu();
+                    ImGui.text(String.format("CPU  avg %.3f  p95 %.3f  max %.3f ms", cpu.getAverage(), cpu.getPercentile(95), cpu.getMax()));
+                    ImGui.text(String.format("GPU  avg %.3f  p95 %.3f  max %.3f ms", gpu.getAverage(), gpu.getPercentile(95), gpu.getMax()));
+                    ImGui.plotLines("GPU ms", gpu.getHistory(), gpu.getCount());
+                }
+
 
             }
 
@@ -47,7 +47,7 @@ public class TextureField extends SerializeField<Texture>
         ImGui.inputText(label, new ImString(displayName), ImGuiInputTextFlags.ReadOnly);
         
         if (value != null) {
-            ImGui.image(value.getTextureID(), 64, 64, 0, 1, 1 , 0);
+            ImGui.image(value.getTextureID(), 64, 64, value.getU0(), value.getV1(), value.getU1(), value.getV0());
         }
 
         
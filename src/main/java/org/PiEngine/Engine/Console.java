@@ -55,7 +55,7 @@ public class Console
      * @param type The message type
      * @param caller The caller info
      */
-    private static void addMessage(String time, String message, String type, String caller)
+    private static synchronized void addMessage(String time, String message, String type, String caller)
     {
         if (messages.size() >= MAX_MESSAGES)
         {
@@ -6,10 +6,15 @@ import org.PiEngine.GameObjects.*;
 
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import org.PiEngine.Main;
+import org.PiEngine.ECS.EntityWorld;
 import org.PiEngine.Component.*;
 import org.PiEngine.Editor.*;
+import org.PiEngine.Manager.ShaderManager;
 import org.PiEngine.Render.*;
 import org.PiEngine.Render.Passes.*;
 
@@ -20,6 +25,12 @@ public class Scene implements Serializable
     private static Scene instance;
 
     private GameObject root;
+    private TransformStore transformStore;
+    private TransformPropagator transformPropagator;
+    private UpdateScheduler updateScheduler;
+    private final GameObjectIndex gameObjectIndex = new GameObjectIndex();
+    private final EntityWorld entityWorld = new EntityWorld();
+    private final SceneCommandBuffer commands = new SceneCommandBuffer();
     private Camera editorCamera;
     private GameObject GameCamera;
     
@@ -68,7 +79,7 @@ public class Scene implements Serializable
         editorCamera.updateViewMatrix();
 
         // Root GameObject
-        root = new GameObject(Name);
+        setRoot(new GameObject(Name));
         GameObject cameraObject = new GameObject("Main Camera");
         GameCamera = cameraObject;
         root.addChild(cameraObject);
@@ -86,28 +97,28 @@ public class Scene implements Serializable
         editor.queueAddWindow(new FileWindow());
 
         // Setup Renderers
-        Shader DefaultShader = new Shader
+        Shader DefaultShader = ShaderManager.get().acquire
         (
             Main.ResourceFolder + "Shaders/Camera/Default.vert",
             Main.ResourceFolder + "Shaders/Camera/Default.frag",
             null
         );
 
-        Shader CRTShader = new Shader
+        Shader CRTShader = ShaderManager.get().acquire
         (
             Main.ResourceFolder + "Shaders/PostProcess/SCREEN.vert",
             Main.ResourceFolder + "Shaders/PostProcess/CRT.frag",
             null
         );
 
-        Shader BloomShader = new Shader
+        Shader BloomShader = ShaderManager.get().acquire
         (
             Main.ResourceFolder + "Shaders/PostProcess/SCREEN.vert",
             Main.ResourceFolder + "Shaders/PostProcess/BLUR.frag",
             null
         );
 
-        Shader FinalShader = new Shader
+        Shader FinalShader = ShaderManager.get().acquire
         (
             Main.ResourceFolder + "Shaders/PostProcess/SCREEN.vert",
             Main.ResourceFolder +"Shaders/PostProcess/FINAL.frag",
@@ -137,6 +148,12 @@ public class Scene implements Serializable
         gameRenderer.addPass(finalPP);
 
         gameRenderer.setFinalPass("FINAL");
+
+        // Every pass retained its own reference
+        ShaderManager.get().release(DefaultShader);
+        ShaderManager.get().release(CRTShader);
+        ShaderManager.get().release(BloomShader);
+        ShaderManager.get().release(FinalShader);
         gameRenderer.connect("Geometry", "CRT", 0);
         gameRenderer.connect("Box", "BLUR", 0);
         // gameRenderer.connect("BLUR", "CRT", 1);
@@ -163,7 +180,61 @@ public class Scene implements Serializable
     public void update()
     {   
         editorCamera.updateViewMatrix();
-        root.update();
+        Profiler.begin("Scene.fixedUpdate");
+        fixedUpdate();
+        Profiler.end();
+        Profiler.begin("Scene.updateComponents");
+        if (updateScheduler != null)
+        {
+            updateScheduler.update(root);
+            entityWorld.update(Time.deltaTime, updateScheduler.getPool());
+        }
+        else
+        {
+            root.update();
+            entityWorld.update(Time.deltaTime);
+        }
+        Profiler.end();
+        commands.playback();
+        Profiler.begin("Scene.updateTransforms");
+        if (transformPropagator != null)
+        {
+            transformPropagator.update(root.transform);
+        }
+        else
+        {
+            root.transform.updateMatrix();
+        }
+        Profiler.end();
+    }
+
+    /**
+     * Runs as many fixed updates as the accumulated game time allows, at most
+     * Time.maxFixedStepsPerFrame, then sets the interpolation factor for rendering.
+     * Components see Time.deltaTime == Time.fixedDeltaTime during fixed updates.
+     */
+    private void fixedUpdate()
+    {
+        float frameDeltaTime = Time.deltaTime;
+        Time.deltaTime = Time.fixedDeltaTime;
+
+        int steps = 0;
+        while (Time.shouldRunFixedUpdate() && steps < Time.maxFixedStepsPerFrame)
+        {
+            gameObjectIndex.saveInterpolationStates();
+            root.fixedUpdate();
+            commands.playback();
+            Time.consumeFixedDeltaTime();
+            steps++;
+        }
+        if (Time.shouldRunFixedUpdate())
+        {
+            // Too slow to catch up, drop the backlog instead of spiralling
+            Time.dropFixedBacklog();
+        }
+
+        Time.deltaTime = frameDeltaTime;
+        Time.fixedAlpha = Math.min(1.0f, Time.fixedTime / Time.fixedDeltaTime);
     }
 
     /**
@@ -171,7 +242,14 @@ public class Scene implements Serializable
      */
     public void render()
     {
+        // Second sync point, also reached while the simulation is paused (editor changes)
+        commands.playback();
+        Profiler.begin("Scene.refreshSpatialIndex");
+        gameObjectIndex.getSpatialIndex().refresh();
+        Profiler.end();
+        Profiler.begin("Scene.renderSceneView");
         sceneRenderer.renderPipeline(editorCamera, root);
+        Profiler.end();
         editorSceneWindow.setFrameBuffer(sceneRenderer.getFinalFramebuffer());
 
         GameObject cameraObj = GameCamera;
@@ -180,7 +258,9 @@ public class Scene implements Serializable
             CameraComponent gameCam = cameraObj.getComponent(CameraComponent.class);
             if (gameCam != null)
             {
+                Profiler.begin("Scene.renderGameView");
                 gameRenderer.renderPipeline(gameCam.getCamera(), root);
+                Profiler.end();
                 gameSceneWindow.setFrameBuffer(gameRenderer.getFinalFramebuffer());
             }
         }
@@ -274,10 +354,186 @@ public class Scene implements Serializable
 
     /**
      * Sets the root game object.
+     * Pending commands and the entities of the previous scene are dropped; installed systems stay.
      * @param root The root GameObject
      */
     public void setRoot(GameObject root) {
+        commands.clear();
+        entityWorld.clear();
         this.root = root;
+        gameObjectIndex.setRoot(root);
+        if (transformStore != null)
+        {
+            transformStore.setRoot(root.transform);
+        }
+    }
+
+    /**
+     * Enables or disables the structure-of-arrays transform store for this scene.
+     * When enabled, all transforms below the root become handles into one contiguous store
+     * and world matrices are updated in a single linear pass.
+     * @param enabled True to use the transform store
+     */
+    public void setUseTransformStore(boolean enabled)
+    {
+        if (enabled && transformStore == null)
+        {
+            transformStore = new TransformStore(root != null ? root.transform : null);
+        }
+        else if (!enabled && transformStore != null)
+        {
+            transformStore.clear();
+            transformStore = null;
+        }
+    }
+
+    /**
+     * Sets how many threads propagate world matrices each frame.
+     * The value is clamped to the number of available processors;
+     * 1 or less (or a single-core machine) restores the serial walk.
+     * @param parallelism Maximum number of worker threads
+     */
+    public void setTransformParallelism(int parallelism)
+    {
+        parallelism = Math.min(parallelism, Runtime.getRuntime().availableProcessors());
+        if (transformPropagator != null)
+        {
+            transformPropagator.shutdown();
+            transformPropagator = null;
+        }
+        if (parallelism > 1)
+        {
+            transformPropagator = new TransformPropagator(parallelism);
+        }
+    }
+
+    /**
+     * Sets how many threads run component and system updates each frame.
+     * Only components and systems that declare their data access leave the main thread.
+     * A value of 1 or less restores the serial walk.
+     * @param parallelism Maximum number of worker threads
+     */
+    public void setUpdateParallelism(int parallelism)
+    {
+        if (updateScheduler != null)
+        {
+            updateScheduler.shutdown();
+            updateScheduler = null;
+        }
+        if (parallelism > 1)
+        {
+            updateScheduler = new UpdateScheduler(parallelism);
+        }
+    }
+
+    /**
+     * Gets the parallel update scheduler.
+     * @return The UpdateScheduler, or null when updates run serially
+     */
+    public UpdateScheduler getUpdateScheduler() {
+        return updateScheduler;
+    }
+
+    /**
+     * Gets the command buffer for deferred structural changes.
+     * Commands are applied after the update phase and before rendering.
+     * @return The SceneCommandBuffer
+     */
+    public SceneCommandBuffer getCommands() {
+        return commands;
+    }
+
+    /**
+     * Gets the entity world holding data-oriented entities and systems of this scene.
+     * @return The EntityWorld
+     */
+    public EntityWorld getEntityWorld() {
+        return entityWorld;
+    }
+
+    /**
+     * Gets the ID and path index of this scene.
+     * @return The GameObjectIndex covering every object below the root
+     */
+    public GameObjectIndex getGameObjectIndex() {
+        return gameObjectIndex;
+    }
+
+    /**
+     * Gets the spatial index of this scene, for box, radius, ray and nearest queries.
+     * @return The SceneSpatialIndex covering every object below the root
+     */
+    public SceneSpatialIndex getSpatialIndex() {
+        return gameObjectIndex.getSpatialIndex();
+    }
+
+    /**
+     * Finds a GameObject in this scene by its unique ID.
+     * @param id The ID
+     * @return The GameObject, or null if not found
+     */
+    public GameObject findGameObject(int id) {
+        return gameObjectIndex.findById(id);
+    }
+
+    /**
+     * Finds a GameObject in this scene by its hierarchical path.
+     * @param path The path string, e.g. "/Scene/Main Camera"
+     * @return The GameObject, or null if not found
+     */
+    public GameObject findGameObject(String path) {
+        return gameObjectIndex.findByPath(path);
+    }
+
+    /**
+     * Returns every component of the given type in this scene, without walking the hierarchy.
+     * @param type The component class or interface
+     * @param <T> The component type
+     * @return List of matching components
+     */
+    public <T> List<T> query(Class<T> type) {
+        return gameObjectIndex.getComponentRegistry().query(type);
+    }
+
+    /**
+     * Returns every component of the given type on the given layers.
+     * @param type The component class or interface
+     * @param layerMask Layer bitmask, -1 for all layers
+     * @param <T> The component type
+     * @return List of matching components
+     */
+    public <T> List<T> query(Class<T> type, int layerMask) {
+        return gameObjectIndex.getComponentRegistry().query(type, layerMask);
+    }
+
+    /**
+     * Calls the action for every component of the given type in this scene.
+     * @param type The component class or interface
+     * @param action The action to run
+     * @param <T> The component type
+     */
+    public <T> void forEach(Class<T> type, Consumer<? super T> action) {
+        gameObjectIndex.getComponentRegistry().forEach(type, action);
+    }
+
+    /**
+     * Calls the action for every GameObject in this scene that has both component types.
+     * @param typeA The first component type
+     * @param typeB The second component type
+     * @param action The action to run
+     * @param <A> The first type
+     * @param <B> The second type
+     */
+    public <A, B> void forEach(Class<A> typeA, Class<B> typeB, BiConsumer<? super A, ? super B> action) {
+        gameObjectIndex.getComponentRegistry().forEach(typeA, typeB, action);
+    }
+
+    /**
+     * Gets the transform store of this scene.
+     * @return The TransformStore, or null when transforms manage their own matrices
+     */
+    public TransformStore getTransformStore() {
+        return transformStore;
     }
 
     /**
@@ -60,10 +60,9 @@ public class SceneDeserializerJSON {
             }
         }
 
-        Scene.getInstance().setGameCamera(GameObject.findGameObject(GameCamPath, Scene.getInstance().getRoot()));
+        scene.setGameCamera(scene.findGameObject(GameCamPath));
 
         deferredComponentMap.clear();
-        scene.getRoot().UpdateLocation();
         return scene;
     }
 
@@ -0,0 +1,411 @@
+package org.PiEngine.GameObjects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.PiEngine.Component.Component;
+import org.PiEngine.Component.ComponentMetadata;
+
+/**
+ * Scene-wide registry of components grouped by concrete class.
+ * Every class has a dense list that is kept in sync as components are added, removed
+ * or their GameObjects enter and leave the scene, so queries iterate only the
+ * components of the requested type instead of recursing through the hierarchy.
+ * Queries for a base class or interface visit the lists of every matching concrete class.
+ * Two-type queries look the second type up in a per-GameObject map that is built on first use
+ * and then updated for the one GameObject whose components change.
+ * forEachRenderer() visits components in the order scene.render() would, using the hierarchy
+ * order of the owning GameObjectIndex.
+ * Adding or removing components while a query is running is not supported.
+ */
+public class ComponentRegistry
+{
+    /** Dense list of one concrete class with O(1) swap-remove */
+    private static final class TypeList
+    {
+        final List<Component> items = new ArrayList<>();
+        final Map<Component, Integer> slots = new IdentityHashMap<>();
+
+        void add(Component c)
+        {
+            if (slots.containsKey(c)) return;
+            slots.put(c, items.size());
+            items.add(c);
+        }
+
+        void remove(Component c)
+        {
+            Integer slot = slots.remove(c);
+            if (slot == null) return;
+            Component last = items.remove(items.size() - 1);
+            if (last != c)
+            {
+                items.set(slot, last);
+                slots.put(last, slot);
+            }
+        }
+    }
+
+    private final Map<Class<?>, TypeList> byClass = new HashMap<>();
+    private final Map<Class<?>, List<TypeList>> matches = new HashMap<>();   // Query type -> matching concrete lists
+    private final Map<Class<?>, Map<GameObject, Component>> firstByObject = new HashMap<>();   // Query type -> first match per GameObject
+    private List<TypeList> renderLists;          // Lists of classes that override render(), null until queried
+    private final List<Component> renderOrder = new ArrayList<>();   // Renderers in hierarchy order
+    private boolean renderOrderStale = true;
+    private int renderOrderVersion = -1;         // Hierarchy order version renderOrder was sorted with
+    private final GameObjectIndex owner;
+    private int count = 0;
+
+    /**
+     * Creates an empty registry.
+     * @param owner The index whose hierarchy order forEachRenderer() follows
+     */
+    ComponentRegistry(GameObjectIndex owner)
+    {
+        this.owner = owner;
+    }
+
+    // ----------------------------
+    // Registration (called by GameObjectIndex and GameObject)
+    // ----------------------------
+
+    void add(Component c)
+    {
+        TypeList list = byClass.get(c.getClass());
+        if (list == null)
+        {
+            list = new TypeList();
+            byClass.put(c.getClass(), list);
+            matches.clear();        // A new concrete class may match existing query types
+            renderLists = null;
+        }
+        int before = list.items.size();
+        list.add(c);
+        if (list.items.size() == before) return;
+        count++;
+        if (ComponentMetadata.of(c.getClass()).rendersItself()) renderOrderStale = true;
+
+        for (Map.Entry<Class<?>, Map<GameObject, Component>> entry : firstByObject.entrySet())
+        {
+            if (!entry.getKey().isInstance(c)) continue;
+            Map<GameObject, Component> first = entry.getValue();
+            Component previous = first.get(c.gameObject);
+            if (previous == null || comesBefore(c, previous)) first.put(c.gameObject, c);
+        }
+    }
+
+    void remove(Component c)
+    {
+        TypeList list = byClass.get(c.getClass());
+        if (list == null) return;
+        int before = list.items.size();
+        list.remove(c);
+        if (list.items.size() == before) return;
+        count--;
+        if (ComponentMetadata.of(c.getClass()).rendersItself()) renderOrderStale = true;
+
+        for (Map.Entry<Class<?>, Map<GameObject, Component>> entry : firstByObject.entrySet())
+        {
+            Map<GameObject, Component> first = entry.getValue();
+            if (first.get(c.gameObject) != c) continue;
+            Component next = firstRegistered(c.gameObject, entry.getKey());
+            if (next != null) first.put(c.gameObject, next);
+            else first.remove(c.gameObject);
+        }
+    }
+
+    /**
+     * Returns the first component of the type in the object's component list that is still registered.
+     */
+    private Component firstRegistered(GameObject obj, Class<?> type)
+    {
+        for (Component c : obj.getComponents())
+        {
+            if (!type.isInstance(c)) continue;
+            TypeList list = byClass.get(c.getClass());
+            if (list != null && list.slots.containsKey(c)) return c;
+        }
+        return null;
+    }
+
+    void addAll(GameObject obj)
+    {
+        for (Component c : obj.getComponents())
+        {
+            add(c);
+        }
+    }
+
+    void removeAll(GameObject obj)
+    {
+        for (Component c : obj.getComponents())
+        {
+            remove(c);
+        }
+    }
+
+    /**
+     * Removes every component from the registry.
+     */
+    public void clear()
+    {
+        byClass.clear();
+        matches.clear();
+        firstByObject.clear();
+        renderLists = null;
+        renderOrder.clear();
+        renderOrderStale = true;
+        count = 0;
+    }
+
+    /**
+     * Returns the number of registered components.
+     * @return Component count
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    // ----------------------------
+    // Queries
+    // ----------------------------
+
+    private List<TypeList> listsFor(Class<?> type)
+    {
+        List<TypeList> lists = matches.get(type);
+        if (lists == null)
+        {
+            lists = new ArrayList<>();
+            for (Map.Entry<Class<?>, TypeList> entry : byClass.entrySet())
+            {
+                if (type.isAssignableFrom(entry.getKey()))
+                {
+                    lists.add(entry.getValue());
+                }
+            }
+            matches.put(type, lists);
+        }
+        return lists;
+    }
+
+    /**
+     * Returns how many registered components are instances of the given type.
+     * @param type The component class or interface
+     * @return Matching component count
+     */
+    public int count(Class<?> type)
+    {
+        int total = 0;
+        for (TypeList list : listsFor(type))
+        {
+            total += list.items.size();
+        }
+        return total;
+    }
+
+    /**
+     * Calls the action for every registered component of the given type.
+     * @param type The component class or interface
+     * @param action The action to run
+     * @param <T> The component type
+     */
+    public <T> void forEach(Class<T> type, Consumer<? super T> action)
+    {
+        forEach(type, -1, action);
+    }
+
+    /**
+     * Calls the action for every registered component of the given type whose GameObject
+     * is on one of the layers in the mask.
+     * @param type The component class or interface
+     * @param layerMask Layer bitmask, -1 for all layers
+     * @param action The action to run
+     * @param <T> The component type
+     */
+    public <T> void forEach(Class<T> type, int layerMask, Consumer<? super T> action)
+    {
+        for (TypeList list : listsFor(type))
+        {
+            List<Component> items = list.items;
+            for (int i = 0; i < items.size(); i++)
+            {
+                Component c = items.get(i);
+                if (layerMask == -1 || (c.gameObject.getLayerBit() & layerMask) != 0)
+                {
+                    action.accept(type.cast(c));
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the action for every registered component whose class overrides render(),
+     * skipping GameObjects that are not on one of the layers in the mask.
+     * Components are visited in the order scene.render() would visit them: depth-first through the
+     * hierarchy, then by position in the component list. The ordered list is only re-sorted after
+     * a renderer was added or removed or the hierarchy changed.
+     * @param layerMask Layer bitmask, -1 for all layers
+     * @param action The action to run
+     */
+    public void forEachRenderer(int layerMask, Consumer<? super Component> action)
+    {
+        owner.ensureOrder();
+        if (renderOrderStale || renderOrderVersion != owner.getOrderVersion())
+        {
+            sortRenderers();
+        }
+
+        for (int i = 0; i < renderOrder.size(); i++)
+        {
+            Component c = renderOrder.get(i);
+            if (layerMask == -1 || (c.gameObject.getLayerBit() & layerMask) != 0)
+            {
+                action.accept(c);
+            }
+        }
+    }
+
+    private void sortRenderers()
+    {
+        if (renderLists == null)
+        {
+            renderLists = new ArrayList<>();
+            for (Map.Entry<Class<?>, TypeList> entry : byClass.entrySet())
+            {
+                if (ComponentMetadata.of(entry.getKey()).rendersItself())
+                {
+                    renderLists.add(entry.getValue());
+                }
+            }
+        }
+
+        renderOrder.clear();
+        for (TypeList list : renderLists)
+        {
+            renderOrder.addAll(list.items);
+        }
+        renderOrder.sort(ComponentRegistry::compareHierarchy);
+        renderOrderStale = false;
+        renderOrderVersion = owner.getOrderVersion();
+    }
+
+    private static int compareHierarchy(Component a, Component b)
+    {
+        if (a == b) return 0;
+        int order = Integer.compare(a.gameObject.getHierarchyOrder(), b.gameObject.getHierarchyOrder());
+        if (order != 0) return order;
+        return comesBefore(a, b) ? -1 : 1;
+    }
+
+    /**
+     * Calls the action for every GameObject that has components of both types,
+     * passing the first component of each type.
+     * Iterates the smaller of the two sets and looks up the other type in a per-GameObject map.
+     * @param typeA The first component type
+     * @param typeB The second component type
+     * @param action The action to run
+     * @param <A> The first type
+     * @param <B> The second type
+     */
+    public <A, B> void forEach(Class<A> typeA, Class<B> typeB, BiConsumer<? super A, ? super B> action)
+    {
+        boolean aSmaller = count(typeA) <= count(typeB);
+        Class<?> driver = aSmaller ? typeA : typeB;
+        Class<?> other = aSmaller ? typeB : typeA;
+        Map<GameObject, Component> firstDriver = firstByObject(driver);
+        Map<GameObject, Component> firstOther = firstByObject(other);
+
+        for (TypeList list : listsFor(driver))
+        {
+            List<Component> items = list.items;
+            for (int i = 0; i < items.size(); i++)
+            {
+                Component c = items.get(i);
+                if (c != firstDriver.get(c.gameObject)) continue;   // One call per GameObject
+                Component match = firstOther.get(c.gameObject);
+                if (match == null) continue;
+                if (aSmaller) action.accept(typeA.cast(c), typeB.cast(match));
+                else action.accept(typeA.cast(match), typeB.cast(c));
+            }
+        }
+    }
+
+    /**
+     * Maps every GameObject with a component of the type to the first such component in its
+     * component list, as GameObject.getComponent() would return.
+     */
+    private Map<GameObject, Component> firstByObject(Class<?> type)
+    {
+        Map<GameObject, Component> first = firstByObject.get(type);
+        if (first != null) return first;
+
+        first = new IdentityHashMap<>();
+        for (TypeList list : listsFor(type))
+        {
+            for (Component c : list.items)
+            {
+                Component previous = first.putIfAbsent(c.gameObject, c);
+                if (previous != null && comesBefore(c, previous))
+                {
+                    first.put(c.gameObject, c);
+                }
+            }
+        }
+        firstByObject.put(type, first);
+        return first;
+    }
+
+    private static boolean comesBefore(Component a, Component b)
+    {
+        for (Component c : a.gameObject.getComponents())
+        {
+            if (c == a) return true;
+            if (c == b) return false;
+        }
+        return false;
+    }
+
+    /**
+     * Collects every registered component of the given type into a new list.
+     * @param type The component class or interface
+     * @param <T> The component type
+     * @return List of matching components
+     */
+    public <T> List<T> query(Class<T> type)
+    {
+        return query(type, -1);
+    }
+
+    /**
+     * Collects every registered component of the given type on the given layers into a new list.
+     * @param type The component class or interface
+     * @param layerMask Layer bitmask, -1 for all layers
+     * @param <T> The component type
+     * @return List of matching components
+     */
+    public <T> List<T> query(Class<T> type, int layerMask)
+    {
+        List<T> result = new ArrayList<>(count(type));
+        forEach(type, layerMask, result::add);
+        return result;
+    }
+
+    /**
+     * Returns a read-only live view of the components of exactly one concrete class.
+     * Does not include subclasses; use query() or forEach() for those.
+     * @param type The concrete component class
+     * @return Dense list of components of that class
+     */
+    public List<Component> getExact(Class<? extends Component> type)
+    {
+        TypeList list = byClass.get(type);
+        return list == null ? Collections.emptyList() : Collections.unmodifiableList(list.items);
+    }
+}
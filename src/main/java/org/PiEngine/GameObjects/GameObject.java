@@ -4,24 +4,45 @@ package org.PiEngine.GameObjects;
 import org.PiEngine.Component.Component;
 import org.PiEngine.Core.Camera;
 import org.PiEngine.Core.LayerManager;
+import org.PiEngine.Core.Profiler;
 import org.PiEngine.Math.*;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 
-public class GameObject
+public class GameObject implements Handle.Target
 {
+    /**
+     * Incremented whenever a GameObject or Component is destroyed. Written on the main thread
+     * only, read by UpdateScheduler workers through Component.updateFields().
+     */
+    private static volatile int destroyEpoch = 0;
+
     /** The name of the GameObject */
     public String Name;
     /** The Transform component for position, rotation, scale */
     public Transform transform;
     /** Unique identifier for this GameObject */
     private int id;
-    /** Hierarchical path of this GameObject */
-    public String Location; 
+    /** Cached hierarchical path of this GameObject, rebuilt lazily after renames and reparenting */
+    private String location;
+    /** Scene index this GameObject is registered in, or null */
+    private GameObjectIndex index;
+    /** Depth-first position below the index root, assigned by GameObjectIndex.ensureOrder() */
+    private int hierarchyOrder;
+    /** True once destroy() has run on this GameObject */
+    private boolean destroyed = false;
+    /** Bumped when this GameObject is destroyed so handles to it resolve to null */
+    private int generation = 0;
     /** Layer bitmask for rendering and filtering */
     private int layer = LayerManager.getLayerBit("Layer0");
 
@@ -35,7 +56,6 @@ public class GameObject
         this.transform = new Transform();
         this.transform.setGameObject(this);
         id = IDGenerator.generateUniqueID();
-        Location = Location(this);
     }
 
     /**
@@ -45,8 +65,11 @@ public class GameObject
     public void addChild(GameObject child)
     {
         this.transform.addChild(child.transform);
-        child.Location = Location(child);
-        // System.out.println(child.Name + " " + child.Location);
+        child.invalidateLocation();
+        if (index != null)
+        {
+            index.add(child);
+        }
     }
 
     /** Holds all components attached to this GameObject */
@@ -62,9 +85,24 @@ public class GameObject
         component.gameObject = this;
         component.transform = this.transform;
         components.add(component);    
+        if (index != null)
+        {
+            index.getComponentRegistry().add(component);
+            markBoundsDirty();
+        }
         component.safeStart();          
     }
 
+    /**
+     * Recomputes the box of this GameObject in the scene's spatial index at the next refresh.
+     * Moves are picked up automatically; call this after changing a component's extent,
+     * e.g. a sprite size, without moving the transform.
+     */
+    public void markBoundsDirty()
+    {
+        transform.queueBoundsRefresh();
+    }
+
     /**
      * Retrieves the first component of the specified type attached to this GameObject.
      * Uses Java generics to return the correct type. Returns null if not found.
@@ -112,6 +150,9 @@ public class GameObject
      */
     public void update()
     {
+        boolean profile = Profiler.isDetailed();
+        if (profile) Profiler.begin(Name);
+
         // Update all components attached to this GameObject
         for (Component c : components)
         {
@@ -119,6 +160,7 @@ public class GameObject
             c.safeUpdate();
             
         }
+        if (profile) Profiler.end();
 
         // Recursively update all child GameObjects
         for (Transform childTransform : transform.getChildren())
@@ -137,6 +179,18 @@ public class GameObject
      * @param layerMask The layer mask for rendering
      */
     public void render(Camera camera, int layerMask)
+    {
+        render(camera, layerMask, null);
+    }
+
+    /**
+     * Renders this GameObject and its children, skipping components whose world bounds are
+     * outside the frustum. Components without bounds are always rendered.
+     * @param camera The camera to render with
+     * @param layerMask The layer mask for rendering
+     * @param frustum The camera frustum, or null to render everything
+     */
+    public void render(Camera camera, int layerMask, Frustum frustum)
     {
         // Render all components attached to this GameObject
         if(camera.canRenderLayer(layer))
@@ -145,7 +199,7 @@ public class GameObject
             {
                 if((layer & layerMask) > 0)
                 {
-                    c.safeRender(camera);
+                    c.safeRender(camera, frustum);
                 }
             }
         }
@@ -156,7 +210,7 @@ public class GameObject
             GameObject child = childTransform.getGameObject();
             if (child != null)
             {
-                child.render(camera, layerMask);
+                child.render(camera, layerMask, frustum);
             }
         }
     }
@@ -186,21 +240,79 @@ public class GameObject
     }
 
     /**
-     * Recursively updates the Location string for this GameObject and all children.
+     * Drops the cached Location strings of this GameObject and all children
+     * and re-registers their paths in the scene index.
+     * Call this after changing Name directly instead of through setName().
      */
     public void UpdateLocation()
     {
+        GameObjectIndex current = index;
+        if (current != null)
+        {
+            current.remove(this);
+        }
+        invalidateLocation();
+        if (current != null)
+        {
+            current.add(this);
+        }
+    }
+
+    /**
+     * Returns the hierarchical path of this GameObject, e.g. "/Scene/Player".
+     * The string is cached and only rebuilt after a rename or reparent.
+     * @return The path string
+     */
+    public String getLocation()
+    {
+        if (location == null)
+        {
+            Transform parent = transform.getParent();
+            GameObject parentObj = parent != null ? parent.getGameObject() : null;
+            location = parentObj == null ? "/" + Name : parentObj.getLocation() + "/" + Name;
+        }
+        return location;
+    }
+
+    /**
+     * Returns the cached path without computing it.
+     * @return The cached path, or null if not built yet
+     */
+    String getCachedLocation()
+    {
+        return location;
+    }
+
+    /**
+     * Clears the cached path of this GameObject and all children.
+     */
+    private void invalidateLocation()
+    {
+        location = null;
+        if (transform == null || transform.getChildren() == null) return;
         for (Transform childTransform : transform.getChildren())
         {
             GameObject child = childTransform.getGameObject();
-            if (child != null)
+            if (child != null && child.location != null)
             {
-                child.UpdateLocation();
-                child.Location = GameObject.Location(child);
+                child.invalidateLocation();
             }
         }
     }
 
+    /**
+     * Called by Transform when this object was removed from its parent.
+     * Unregisters the subtree from the scene index and drops the cached paths.
+     */
+    void onDetachedFromParent()
+    {
+        if (index != null)
+        {
+            index.remove(this);
+        }
+        invalidateLocation();
+    }
+
     /**
      * Returns the hierarchical path of the GameObject in the scene tree.
      * @param gb The GameObject
@@ -208,18 +320,24 @@ public class GameObject
      */
     public static String Location(GameObject gb)
     {
-        if(gb.transform.getParent() == null) return "/" + gb.Name; 
-        return Location(gb.transform.getParent().getGameObject()) + "/" + gb.Name; 
+        return gb.getLocation();
     }
 
     /**
-     * Finds a GameObject by its path, recursively searching the hierarchy.
+     * Finds a GameObject by its path.
+     * Uses the scene index when the root is indexed, otherwise searches the hierarchy.
      * @param path The path string
      * @param root The root GameObject to search from
      * @return The found GameObject, or null if not found
      */
     public static GameObject findGameObject(String path, GameObject root)
     {
+        if (root == null) return null;
+        if (root.index != null && root.index.getRoot() == root)
+        {
+            return root.index.findByPath(path);
+        }
+
         // Trim leading slash and split path
         if (path.startsWith("/"))
         {
@@ -257,11 +375,28 @@ public class GameObject
 
     /**
      * Finds a GameObject by its path using an iterative approach.
+     * Uses the scene index when the root is indexed.
      * @param path The path string
      * @param root The root GameObject to search from
      * @return The found GameObject, or null if not found
      */
     public static GameObject findGameObjectItrative(String path, GameObject root)
+    {
+        if (root == null) return null;
+        if (root.index != null && root.index.getRoot() == root)
+        {
+            return root.index.findByPath(path);
+        }
+        return walkPath(path, root);
+    }
+
+    /**
+     * Resolves a path by walking the children level by level, without using the index.
+     * @param path The path string
+     * @param root The root GameObject to search from
+     * @return The found GameObject, or null if not found
+     */
+    static GameObject walkPath(String path, GameObject root)
     {
         String[] parts = path.startsWith("/") ? path.substring(1).split("/") : path.split("/");
 
@@ -356,7 +491,6 @@ public class GameObject
         this.transform.setWorldPosition(gpos);
         this.transform.setWorldRotation(grot);
         this.transform.setWorldScale(gscl);
-        this.Location = Location(this);
     }
 
     private void reparentToChild()
@@ -455,7 +589,15 @@ public class GameObject
      */
     public void removeComponent(Component cmp)
     {
-        components.remove(cmp);
+        if (components.remove(cmp))
+        {
+            if (index != null)
+            {
+                index.getComponentRegistry().remove(cmp);
+                markBoundsDirty();
+            }
+            cmp.markDestroyed();
+        }
     }
 
     /**
@@ -464,27 +606,116 @@ public class GameObject
      */
     public static void destroy(GameObject thisGb)
     {
-        Collection<Transform> children = thisGb.transform.getChildren();
-        if (children != null)
+        destroyAll(Collections.singletonList(thisGb));
+    }
+
+    /**
+     * Destroys several GameObjects and their children at once.
+     * Objects below another destroyed object are handled with their ancestor, siblings are detached
+     * with one pass over their parent's child list, and every detached subtree is removed from the
+     * scene index once instead of once per descendant.
+     * @param objects The GameObjects to destroy
+     */
+    public static void destroyAll(Collection<GameObject> objects)
+    {
+        Set<GameObject> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (GameObject obj : objects)
         {
-            for (Transform childTransform : new ArrayList<>(children))
+            if (obj != null && !obj.destroyed) selected.add(obj);
+        }
+        if (selected.isEmpty()) return;
+
+        // Keep only the topmost selected objects, grouped by parent
+        Map<Transform, List<Transform>> byParent = new IdentityHashMap<>();
+        List<GameObject> tops = new ArrayList<>();
+        for (GameObject obj : selected)
+        {
+            boolean covered = false;
+            for (Transform t = obj.transform.getParent(); t != null && !covered; t = t.getParent())
             {
-                GameObject child = childTransform.getGameObject();
-                if (child != null)
-                {
-                    destroy(child);
-                }
+                covered = selected.contains(t.getGameObject());
+            }
+            if (covered) continue;
+
+            tops.add(obj);
+            Transform parent = obj.transform.getParent();
+            if (parent != null)
+            {
+                byParent.computeIfAbsent(parent, k -> new ArrayList<>()).add(obj.transform);
             }
+            else if (obj.index != null)
+            {
+                obj.index.remove(obj);
+            }
+        }
+
+        for (Map.Entry<Transform, List<Transform>> entry : byParent.entrySet())
+        {
+            entry.getKey().removeChildren(entry.getValue());
         }
-        Transform parent = thisGb.transform.getParent();
-        if (parent != null)
+
+        Deque<GameObject> stack = new ArrayDeque<>();
+        for (GameObject top : tops)
         {
-            parent.removeChild(thisGb.transform);
+            stack.push(top);
+            while (!stack.isEmpty())
+            {
+                GameObject obj = stack.pop();
+                for (Transform childTransform : obj.transform.getChildren())
+                {
+                    GameObject child = childTransform.getGameObject();
+                    if (child != null) stack.push(child);
+                }
+                for (Component c : obj.components)
+                {
+                    c.markDestroyed();
+                }
+                obj.components.clear();
+                obj.transform.destroy();
+                obj.destroyed = true;
+                obj.generation++;
+            }
         }
-        thisGb.components.clear();
-        thisGb.transform.destroy();
-        if(children != null) children.clear();
-        children = null; 
+        onDestroyed();
+    }
+
+    /**
+     * Returns whether this GameObject has been destroyed.
+     * References to a destroyed GameObject should be treated as null.
+     * @return True if destroyed
+     */
+    public boolean isDestroyed()
+    {
+        return destroyed;
+    }
+
+    /**
+     * Returns the generation checked by handles to this GameObject. It changes when the object is destroyed.
+     * @return Generation counter
+     */
+    @Override
+    public int getGeneration()
+    {
+        return generation;
+    }
+
+    /**
+     * Returns a counter that changes every time any GameObject or Component is destroyed.
+     * Code that caches references can compare it to skip revalidation when nothing died.
+     * @return Destruction epoch
+     */
+    public static int getDestroyEpoch()
+    {
+        return destroyEpoch;
+    }
+
+    /**
+     * Records that a GameObject or Component was destroyed. Called by GameObject and Component
+     * on the main thread.
+     */
+    public static void onDestroyed()
+    {
+        destroyEpoch++;
     }
 
     /**
@@ -504,11 +735,12 @@ public class GameObject
     }
 
     /**
-     * Sets the name of this GameObject.
+     * Sets the name of this GameObject and updates the cached paths of its subtree.
      * @param name The new name
      */
     public void setName(String name) {
         Name = name;
+        UpdateLocation();
     }
 
     /**
@@ -532,7 +764,45 @@ public class GameObject
      * @param id The new ID
      */
     public void setId(int id) {
+        int oldId = this.id;
         this.id = id;
+        if (index != null)
+        {
+            index.changeId(this, oldId);
+        }
+    }
+
+    /**
+     * Gets the scene index this GameObject is registered in.
+     * @return The index, or null if the object is not part of an indexed scene
+     */
+    public GameObjectIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets the scene index. Called by GameObjectIndex while (un)registering.
+     * @param index The owning index
+     */
+    void setIndex(GameObjectIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Gets the depth-first position of this GameObject in its index, as last assigned by
+     * GameObjectIndex.ensureOrder(). Objects with a lower value render first in scene.render().
+     * @return The hierarchy order
+     */
+    int getHierarchyOrder() {
+        return hierarchyOrder;
+    }
+
+    /**
+     * Sets the hierarchy order. Called by GameObjectIndex.
+     * @param order The depth-first position
+     */
+    void setHierarchyOrder(int order) {
+        this.hierarchyOrder = order;
     }
 
     /**
@@ -556,7 +826,16 @@ public class GameObject
      * @param components The new list of components
      */
     public void setComponents(List<Component> components) {
+        if (index != null)
+        {
+            index.getComponentRegistry().removeAll(this);
+        }
         this.components = components;
+        if (index != null)
+        {
+            index.getComponentRegistry().addAll(this);
+            markBoundsDirty();
+        }
     }
 
     /**
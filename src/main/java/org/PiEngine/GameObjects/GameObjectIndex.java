@@ -0,0 +1,298 @@
+package org.PiEngine.GameObjects;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Scene-wide lookup table from IDs and hierarchical paths to GameObjects.
+ * Every GameObject below the root is registered when its subtree is attached and
+ * unregistered when it is detached, so lookups do not have to walk the hierarchy.
+ * GameObjects keep a reference to the index they belong to and report renames,
+ * ID changes and reparenting to it.
+ * <p>
+ * Paths that resolved to nothing are remembered until the next registration, so repeated
+ * lookups of a missing path do not walk the scene again.
+ * <p>
+ * The index also numbers the GameObjects in depth-first hierarchy order, the order scene.render()
+ * visits them, so draw lists gathered from the registry or the spatial index can be sorted back
+ * into it. Any hierarchy change marks the numbering stale; ensureOrder() renumbers in one walk.
+ */
+public class GameObjectIndex
+{
+    /** Remembered misses are dropped beyond this count, so lookups of generated paths cannot grow it forever */
+    private static final int MAX_MISSING_PATHS = 1024;
+
+    private GameObject root;
+    private final Map<Integer, GameObject> byId = new HashMap<>();
+    private final Map<String, GameObject> byPath = new HashMap<>();
+    private final Set<String> missingPaths = new HashSet<>();
+    private final List<Transform> interpolated = new ArrayList<>();     // Registered transforms with setInterpolated(true)
+    private final ComponentRegistry components = new ComponentRegistry(this);
+    private final SceneSpatialIndex spatial = new SceneSpatialIndex(this, interpolated);
+    private boolean orderStale = true;
+    private int orderVersion = 0;       // Bumped every time the hierarchy order is renumbered
+
+    /**
+     * Creates an empty index.
+     */
+    public GameObjectIndex()
+    {
+    }
+
+    /**
+     * Replaces the indexed hierarchy and registers every GameObject below the new root.
+     * @param root The new root GameObject, or null to empty the index
+     */
+    public void setRoot(GameObject root)
+    {
+        clear();
+        this.root = root;
+        if (root != null)
+        {
+            add(root);
+        }
+    }
+
+    /**
+     * Returns the root of the indexed hierarchy.
+     * @return The root GameObject
+     */
+    public GameObject getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * Unregisters every GameObject and empties the index.
+     */
+    public void clear()
+    {
+        for (GameObject obj : byId.values())
+        {
+            if (obj.getIndex() == this) obj.setIndex(null);
+        }
+        byId.clear();
+        byPath.clear();
+        missingPaths.clear();
+        interpolated.clear();
+        components.clear();
+        spatial.clear();
+        root = null;
+        orderStale = true;
+    }
+
+    /**
+     * Returns the registry of components attached to the indexed GameObjects.
+     * @return The component registry
+     */
+    public ComponentRegistry getComponentRegistry()
+    {
+        return components;
+    }
+
+    /**
+     * Returns the spatial index of the GameObjects below the root.
+     * @return The spatial index
+     */
+    public SceneSpatialIndex getSpatialIndex()
+    {
+        return spatial;
+    }
+
+    /**
+     * Saves the interpolation state of every interpolated transform below the root,
+     * without walking the rest of the hierarchy. Called by the scene before each fixed step.
+     */
+    public void saveInterpolationStates()
+    {
+        for (int i = 0; i < interpolated.size(); i++)
+        {
+            interpolated.get(i).saveInterpolationState();
+        }
+    }
+
+    /**
+     * Renumbers the registered GameObjects in depth-first hierarchy order if the hierarchy
+     * changed since the last call.
+     */
+    public void ensureOrder()
+    {
+        if (!orderStale) return;
+        orderStale = false;
+        orderVersion++;
+        if (root == null) return;
+
+        int order = 0;
+        Deque<GameObject> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty())
+        {
+            GameObject obj = stack.pop();
+            obj.setHierarchyOrder(order++);
+            pushChildren(stack, obj);
+        }
+    }
+
+    /**
+     * Returns a counter that changes every time ensureOrder() renumbers the hierarchy.
+     * @return Order version
+     */
+    public int getOrderVersion()
+    {
+        return orderVersion;
+    }
+
+    /**
+     * Marks the hierarchy order as stale. Called when a child list changes.
+     */
+    void invalidateOrder()
+    {
+        orderStale = true;
+    }
+
+    /**
+     * Returns the number of registered GameObjects.
+     * @return Entry count
+     */
+    public int size()
+    {
+        return byId.size();
+    }
+
+    // ----------------------------
+    // Lookup
+    // ----------------------------
+
+    /**
+     * Finds a GameObject by its unique ID.
+     * @param id The ID
+     * @return The GameObject, or null if not registered
+     */
+    public GameObject findById(int id)
+    {
+        return byId.get(id);
+    }
+
+    /**
+     * Finds a GameObject by its hierarchical path, e.g. "/Scene/Player/Gun".
+     * When several siblings share a name the first one in hierarchy order wins,
+     * matching GameObject.findGameObjectItrative().
+     * @param path The path string, with or without the leading slash
+     * @return The GameObject, or null if no object has that path
+     */
+    public GameObject findByPath(String path)
+    {
+        if (path == null || root == null) return null;
+        if (!path.startsWith("/")) path = "/" + path;
+
+        GameObject hit = byPath.get(path);
+        if (hit != null) return hit;
+        if (missingPaths.contains(path)) return null;
+
+        // Misses fall back to a walk, so a duplicate name whose first entry was removed is still found
+        GameObject found = GameObject.walkPath(path, root);
+        if (found != null)
+        {
+            byPath.put(path, found);
+        }
+        else
+        {
+            if (missingPaths.size() >= MAX_MISSING_PATHS) missingPaths.clear();
+            missingPaths.add(path);
+        }
+        return found;
+    }
+
+    // ----------------------------
+    // Registration (called by GameObject)
+    // ----------------------------
+
+    /**
+     * Registers a GameObject and its whole subtree.
+     * @param subtree The subtree root
+     */
+    void add(GameObject subtree)
+    {
+        // Renames and reparents also register through here, so any remembered miss may now resolve
+        missingPaths.clear();
+        orderStale = true;
+
+        Deque<GameObject> stack = new ArrayDeque<>();
+        stack.push(subtree);
+        while (!stack.isEmpty())
+        {
+            GameObject obj = stack.pop();
+            obj.setIndex(this);
+            byId.put(obj.getId(), obj);
+            byPath.putIfAbsent(obj.getLocation(), obj);
+            components.addAll(obj);
+            if (obj.transform != null && obj.transform.isInterpolated()) interpolated.add(obj.transform);
+            if (obj != root) spatial.add(obj);
+            pushChildren(stack, obj);
+        }
+    }
+
+    /**
+     * Unregisters a GameObject and its whole subtree.
+     * Uses the cached paths, so call this before the paths are invalidated.
+     * @param subtree The subtree root
+     */
+    void remove(GameObject subtree)
+    {
+        orderStale = true;
+        Deque<GameObject> stack = new ArrayDeque<>();
+        stack.push(subtree);
+        while (!stack.isEmpty())
+        {
+            GameObject obj = stack.pop();
+            byId.remove(obj.getId(), obj);
+            String path = obj.getCachedLocation();
+            if (path != null) byPath.remove(path, obj);
+            components.removeAll(obj);
+            if (obj.transform != null && obj.transform.isInterpolated()) interpolated.remove(obj.transform);
+            spatial.remove(obj);
+            obj.setIndex(null);
+            pushChildren(stack, obj);
+        }
+    }
+
+    /**
+     * Starts or stops tracking a registered transform whose interpolation was toggled.
+     * @param transform The transform
+     * @param enabled True if it is now interpolated
+     */
+    void setInterpolated(Transform transform, boolean enabled)
+    {
+        if (enabled) interpolated.add(transform);
+        else interpolated.remove(transform);
+    }
+
+    /**
+     * Moves a registered GameObject to a new ID key.
+     * @param obj The GameObject
+     * @param oldId The ID it was registered under
+     */
+    void changeId(GameObject obj, int oldId)
+    {
+        byId.remove(oldId, obj);
+        byId.put(obj.getId(), obj);
+    }
+
+    private static void pushChildren(Deque<GameObject> stack, GameObject obj)
+    {
+        if (obj.transform == null || obj.transform.getChildren() == null) return;
+        // Push in reverse so siblings are visited in list order and the first duplicate wins
+        List<Transform> children = obj.transform.getChildren();
+        for (int i = children.size() - 1; i >= 0; i--)
+        {
+            GameObject go = children.get(i).getGameObject();
+            if (go != null) stack.push(go);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.PiEngine.GameObjects;
+
+/**
+ * Weak, generation-checked reference to a GameObject or Component.
+ * A handle remembers the generation of its target when it is created; once the target
+ * is destroyed its generation changes and get() returns null in O(1), without searching the scene
+ * and without waiting for Component.updateFields().
+ * @param <T> The referenced type
+ */
+public final class Handle<T extends Handle.Target>
+{
+    /**
+     * Implemented by objects that can be referenced through a Handle.
+     */
+    public interface Target
+    {
+        /**
+         * Returns the current generation. It changes when the object is destroyed.
+         * @return Generation counter
+         */
+        int getGeneration();
+    }
+
+    private T target;
+    private final int generation;
+
+    private Handle(T target)
+    {
+        this.target = target;
+        this.generation = target != null ? target.getGeneration() : 0;
+    }
+
+    /**
+     * Creates a handle to the given target.
+     * @param target The referenced object, may be null
+     * @param <T> The referenced type
+     * @return A new handle
+     */
+    public static <T extends Target> Handle<T> of(T target)
+    {
+        return new Handle<>(target);
+    }
+
+    /**
+     * Returns the target, or null if it has been destroyed since the handle was created.
+     * @return The live target or null
+     */
+    public T get()
+    {
+        if (target != null && target.getGeneration() != generation)
+        {
+            target = null;
+        }
+        return target;
+    }
+
+    /**
+     * Returns whether the target is still alive.
+     * @return True if get() would return a non-null value
+     */
+    public boolean isAlive()
+    {
+        return get() != null;
+    }
+}
@@ -0,0 +1,173 @@
+package org.PiEngine.GameObjects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.PiEngine.Component.Component;
+
+/**
+ * Records structural changes to the scene graph and applies them later at a sync point.
+ * Components, systems and editor windows can create, destroy and reparent objects or add and
+ * remove components while the hierarchy is being iterated; nothing changes until playback().
+ * Commands are applied in the order they were recorded. Consecutive destroys are applied
+ * as one batch (see GameObject.destroyAll()), and commands targeting an object that has been
+ * destroyed in the meantime are skipped.
+ */
+public class SceneCommandBuffer
+{
+    private enum Op
+    {
+        INSTANTIATE, DESTROY, REPARENT, ADD_COMPONENT, REMOVE_COMPONENT
+    }
+
+    private static final class Command
+    {
+        final Op op;
+        final GameObject target;
+        final GameObject other;
+        final Component component;
+
+        Command(Op op, GameObject target, GameObject other, Component component)
+        {
+            this.op = op;
+            this.target = target;
+            this.other = other;
+            this.component = component;
+        }
+    }
+
+    private List<Command> commands = new ArrayList<>();
+    private List<Command> playing = new ArrayList<>();
+    private final List<GameObject> destroyBatch = new ArrayList<>();
+
+    /**
+     * Adds a GameObject under a parent at the next playback.
+     * The object can be configured right away; it joins the scene when the command is applied.
+     * @param obj The new GameObject
+     * @param parent The parent GameObject
+     * @return obj, for chaining
+     */
+    public GameObject instantiate(GameObject obj, GameObject parent)
+    {
+        commands.add(new Command(Op.INSTANTIATE, obj, parent, null));
+        return obj;
+    }
+
+    /**
+     * Destroys a GameObject and its children at the next playback.
+     * @param obj The GameObject to destroy
+     */
+    public void destroy(GameObject obj)
+    {
+        commands.add(new Command(Op.DESTROY, obj, null, null));
+    }
+
+    /**
+     * Moves a GameObject under a new parent at the next playback, keeping its world transform.
+     * @param obj The GameObject to move
+     * @param newParent The new parent GameObject
+     */
+    public void reparent(GameObject obj, GameObject newParent)
+    {
+        commands.add(new Command(Op.REPARENT, obj, newParent, null));
+    }
+
+    /**
+     * Attaches a component at the next playback.
+     * @param obj The GameObject
+     * @param component The component to add
+     */
+    public void addComponent(GameObject obj, Component component)
+    {
+        commands.add(new Command(Op.ADD_COMPONENT, obj, null, component));
+    }
+
+    /**
+     * Removes a component at the next playback.
+     * @param obj The GameObject
+     * @param component The component to remove
+     */
+    public void removeComponent(GameObject obj, Component component)
+    {
+        commands.add(new Command(Op.REMOVE_COMPONENT, obj, null, component));
+    }
+
+    /**
+     * Returns the number of commands waiting for playback.
+     * @return Pending command count
+     */
+    public int size()
+    {
+        return commands.size();
+    }
+
+    /**
+     * Drops every pending command.
+     */
+    public void clear()
+    {
+        commands.clear();
+    }
+
+    /**
+     * Applies every recorded command in order. Must not run while the hierarchy is iterated.
+     * Commands recorded during playback (e.g. from start()) are applied in the same call.
+     */
+    public void playback()
+    {
+        while (!commands.isEmpty())
+        {
+            // Swap so commands recorded while applying go to a fresh list
+            List<Command> batch = commands;
+            commands = playing;
+            playing = batch;
+
+            for (Command command : batch)
+            {
+                if (command.op == Op.DESTROY)
+                {
+                    destroyBatch.add(command.target);
+                    continue;
+                }
+                flushDestroys();
+                apply(command);
+            }
+            flushDestroys();
+            batch.clear();
+        }
+    }
+
+    private void flushDestroys()
+    {
+        if (destroyBatch.isEmpty()) return;
+        GameObject.destroyAll(destroyBatch);
+        destroyBatch.clear();
+    }
+
+    private static void apply(Command command)
+    {
+        GameObject target = command.target;
+        if (target == null || target.isDestroyed()) return;
+
+        switch (command.op)
+        {
+            case INSTANTIATE ->
+            {
+                if (command.other != null && !command.other.isDestroyed())
+                {
+                    command.other.addChild(target);
+                }
+            }
+            case REPARENT ->
+            {
+                if (command.other != null && !command.other.isDestroyed() && command.other != target)
+                {
+                    target.reparentTo(command.other);
+                }
+            }
+            case ADD_COMPONENT -> target.addComponent(command.component);
+            case REMOVE_COMPONENT -> target.removeComponent(command.component);
+            default -> {}
+        }
+    }
+}
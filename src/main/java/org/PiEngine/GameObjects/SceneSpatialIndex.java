@@ -0,0 +1,367 @@
+package org.PiEngine.GameObjects;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.PiEngine.Component.Component;
+import org.PiEngine.Component.ComponentMetadata;
+import org.PiEngine.Math.Bounds;
+import org.PiEngine.Math.Frustum;
+import org.PiEngine.Math.Vector;
+import org.PiEngine.Spatial.DynamicAABBTree;
+import org.PiEngine.Spatial.SpatialGrid;
+import org.PiEngine.Spatial.SpatialIndex;
+
+/**
+ * Scene-wide spatial index of the GameObjects below the root, kept by the GameObjectIndex.
+ * The box of a GameObject is the union of its components' world bounds (see
+ * Component.getWorldBounds()), or its world position if no component has bounds.
+ * <p>
+ * refresh() runs once per frame, before rendering, and only recomputes the boxes that may have
+ * changed: subtrees whose transform moved since the last refresh (reported by Transform.markDirty()
+ * and reparenting), objects whose components changed (GameObject.markBoundsDirty()), interpolated
+ * branches, which render between fixed steps, and objects drawing without bounds. The structure
+ * itself only changes when an object has moved out of its fat box (tree) or into other cells (grid).
+ * Queries see the positions of the last refresh.
+ * <p>
+ * Uses a DynamicAABBTree by default; useGrid() switches to a SpatialGrid for dense 2D levels.
+ * Main thread only, except that transforms may report moves from update worker threads.
+ */
+public class SceneSpatialIndex
+{
+    private static final Comparator<GameObject> BY_HIERARCHY = Comparator.comparingInt(GameObject::getHierarchyOrder);
+
+    /** Entry of one indexed object */
+    private static final class Proxy
+    {
+        int id;                 // Handle in the structure
+        int refreshed = -1;     // Refresh count when the box was last computed
+    }
+
+    private SpatialIndex<GameObject> index = new DynamicAABBTree<>();
+    private final Map<GameObject, Proxy> proxies = new IdentityHashMap<>();
+    /** Objects drawing something without bounds; frustum queries always return them */
+    private final Set<GameObject> unbounded = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Transforms reported since the last refresh; filled from update worker threads too */
+    private List<Transform> queued = new ArrayList<>();
+    private List<Transform> processing = new ArrayList<>();
+    /** Interpolated transforms below the root, kept by the GameObjectIndex */
+    private final List<Transform> interpolated;
+    private final GameObjectIndex owner;
+    private int refreshCount = 0;
+
+    private final Bounds bounds = new Bounds();
+    private final Bounds componentBounds = new Bounds();
+    private final Bounds queryBounds = new Bounds();
+    private final Vector position = new Vector();
+    private final Deque<Transform> stack = new ArrayDeque<>();
+    private final List<GameObject> recheck = new ArrayList<>();
+    private int lastMoved = 0;
+    private int lastRefreshed = 0;
+
+    /**
+     * Creates an empty index.
+     * @param owner The index whose hierarchy order queryFrustum() follows
+     * @param interpolated Live list of the interpolated transforms, refreshed every frame
+     */
+    SceneSpatialIndex(GameObjectIndex owner, List<Transform> interpolated)
+    {
+        this.owner = owner;
+        this.interpolated = interpolated;
+    }
+
+    /**
+     * Switches to a dynamic AABB tree and reinserts every object.
+     * @param margin Distance an object can move before its leaf is reinserted
+     */
+    public void useTree(float margin)
+    {
+        rebuild(new DynamicAABBTree<>(margin));
+    }
+
+    /**
+     * Switches to a uniform grid over the XY plane and reinserts every object.
+     * @param cellSize Edge length of a cell, about the size of a typical object
+     */
+    public void useGrid(float cellSize)
+    {
+        rebuild(new SpatialGrid<>(cellSize));
+    }
+
+    /**
+     * Gets the structure in use.
+     * @return The DynamicAABBTree or SpatialGrid
+     */
+    public SpatialIndex<GameObject> getIndex()
+    {
+        return index;
+    }
+
+    private void rebuild(SpatialIndex<GameObject> replacement)
+    {
+        index = replacement;
+        for (Map.Entry<GameObject, Proxy> entry : proxies.entrySet())
+        {
+            entry.getValue().id = index.insert(computeBounds(entry.getKey()), entry.getKey());
+        }
+    }
+
+    // ----------------------------
+    // Registration (called by GameObjectIndex)
+    // ----------------------------
+
+    void add(GameObject obj)
+    {
+        if (proxies.containsKey(obj)) return;
+        Proxy proxy = new Proxy();
+        proxy.id = index.insert(computeBounds(obj), obj);
+        proxies.put(obj, proxy);
+        // Components are often set up after registration (e.g. while loading); look again at the next refresh
+        obj.transform.queueBoundsRefresh();
+    }
+
+    void remove(GameObject obj)
+    {
+        Proxy proxy = proxies.remove(obj);
+        if (proxy != null) index.remove(proxy.id);
+        unbounded.remove(obj);
+    }
+
+    void clear()
+    {
+        synchronized (this)
+        {
+            for (Transform t : queued) t.clearBoundsRefresh();
+            queued.clear();
+        }
+        proxies.clear();
+        unbounded.clear();
+        index.clear();
+    }
+
+    /**
+     * Queues a transform whose subtree changed. Called once per refresh by Transform.
+     * @param transform The transform that moved
+     */
+    void queue(Transform transform)
+    {
+        synchronized (this)
+        {
+            queued.add(transform);
+        }
+    }
+
+    // ----------------------------
+    // Update
+    // ----------------------------
+
+    /**
+     * Brings the boxes of the changed objects up to date with their transforms and components.
+     */
+    public void refresh()
+    {
+        List<Transform> batch;
+        synchronized (this)
+        {
+            batch = queued;
+            queued = processing;
+            processing = batch;
+        }
+
+        refreshCount++;
+        lastMoved = 0;
+        lastRefreshed = 0;
+        for (int i = 0; i < batch.size(); i++)
+        {
+            Transform t = batch.get(i);
+            t.clearBoundsRefresh();
+            refreshSubtree(t);
+        }
+        batch.clear();
+
+        for (int i = 0; i < interpolated.size(); i++)
+        {
+            refreshSubtree(interpolated.get(i));
+        }
+
+        // Objects drawing without bounds may have gained them, e.g. once a texture is loaded
+        recheck.addAll(unbounded);
+        for (int i = 0; i < recheck.size(); i++)
+        {
+            GameObject obj = recheck.get(i);
+            refreshObject(obj, proxies.get(obj));
+        }
+        recheck.clear();
+    }
+
+    private void refreshSubtree(Transform top)
+    {
+        stack.push(top);
+        while (!stack.isEmpty())
+        {
+            Transform t = stack.pop();
+            List<Transform> children = t.getChildren();
+            GameObject obj = t.getGameObject();
+            if (children == null || obj == null) continue;      // Destroyed
+
+            // Already refreshed by an earlier subtree of this pass, descendants included
+            Proxy proxy = proxies.get(obj);
+            if (proxy != null && proxy.refreshed == refreshCount) continue;
+            refreshObject(obj, proxy);
+            for (int i = 0; i < children.size(); i++) stack.push(children.get(i));
+        }
+    }
+
+    private void refreshObject(GameObject obj, Proxy proxy)
+    {
+        if (proxy == null || proxy.refreshed == refreshCount) return;
+
+        proxy.refreshed = refreshCount;
+        lastRefreshed++;
+        if (index.update(proxy.id, computeBounds(obj))) lastMoved++;
+    }
+
+    private Bounds computeBounds(GameObject obj)
+    {
+        boolean any = false;
+        boolean drawsUnbounded = false;
+        for (Component c : obj.getComponents())
+        {
+            if (!c.getWorldBounds(componentBounds))
+            {
+                drawsUnbounded |= ComponentMetadata.of(c.getClass()).rendersItself();
+                continue;
+            }
+            if (any) bounds.include(componentBounds);
+            else bounds.set(componentBounds);
+            any = true;
+        }
+        if (drawsUnbounded) unbounded.add(obj);
+        else unbounded.remove(obj);
+        if (!any)
+        {
+            obj.transform.getWorldPosition(position);
+            bounds.set(position.x, position.y, position.z, 0, 0, 0);
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns how many objects changed the structure in the last refresh.
+     * @return Moved object count
+     */
+    public int getLastMovedCount()
+    {
+        return lastMoved;
+    }
+
+    /**
+     * Returns how many boxes were recomputed in the last refresh.
+     * @return Refreshed object count
+     */
+    public int getLastRefreshedCount()
+    {
+        return lastRefreshed;
+    }
+
+    /**
+     * Returns the number of indexed objects.
+     * @return Object count
+     */
+    public int size()
+    {
+        return proxies.size();
+    }
+
+    // ----------------------------
+    // Queries
+    // ----------------------------
+
+    /**
+     * Finds the objects whose boxes overlap a box.
+     * @param box The query box
+     * @param out List receiving the objects
+     * @return out
+     */
+    public List<GameObject> queryBox(Bounds box, List<GameObject> out)
+    {
+        index.queryBox(box, out);
+        return out;
+    }
+
+    /**
+     * Finds the objects a camera may see: those whose boxes overlap the box around the frustum,
+     * plus the objects that draw without bounds. Sorted in depth-first hierarchy order, so drawing
+     * them submits in the same order as scene.render(); callers still test each component against
+     * the frustum planes.
+     * @param frustum The camera frustum
+     * @param out List receiving the objects
+     * @return out
+     */
+    public List<GameObject> queryFrustum(Frustum frustum, List<GameObject> out)
+    {
+        int start = out.size();
+        index.queryBox(frustum.getBounds(queryBounds), out);
+        out.addAll(unbounded);
+        owner.ensureOrder();
+        out.subList(start, out.size()).sort(BY_HIERARCHY);
+
+        // An unbounded object may also have been found by its box
+        int kept = start;
+        for (int i = start; i < out.size(); i++)
+        {
+            GameObject obj = out.get(i);
+            if (kept == start || out.get(kept - 1) != obj) out.set(kept++, obj);
+        }
+        out.subList(kept, out.size()).clear();
+        return out;
+    }
+
+    /**
+     * Finds the objects within a distance of a point.
+     * @param center The point
+     * @param radius The distance
+     * @param out List receiving the objects
+     * @return out
+     */
+    public List<GameObject> queryRadius(Vector center, float radius, List<GameObject> out)
+    {
+        index.queryRadius(center, radius, out);
+        return out;
+    }
+
+    /**
+     * Finds the objects a ray passes through, nearest first, e.g. for picking.
+     * @param origin Start of the ray
+     * @param direction Direction of the ray
+     * @param maxDistance Length of the ray, or Float.POSITIVE_INFINITY
+     * @param out List receiving the objects
+     * @return out
+     */
+    public List<GameObject> queryRay(Vector origin, Vector direction, float maxDistance, List<GameObject> out)
+    {
+        index.queryRay(origin, direction, maxDistance, out);
+        return out;
+    }
+
+    /**
+     * Finds the k objects closest to a point, nearest first.
+     * @param point The point
+     * @param k Maximum number of objects
+     * @param out List receiving the objects
+     * @return out
+     */
+    public List<GameObject> queryNearest(Vector point, int k, List<GameObject> out)
+    {
+        index.queryNearest(point, k, out);
+        return out;
+    }
+}
@@ -3,7 +3,11 @@ package org.PiEngine.GameObjects;
 import org.PiEngine.Math.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a transform in a hierarchical scene graph.
@@ -18,8 +22,26 @@ public class Transform
 
     private Transform parent;             // Reference to the parent transform
     private List<Transform> childrens;    // List of child transforms
+    private Matrix4 localMatrix;          // Cached local transformation matrix
     private Matrix4 transformMatrix;      // Cached world transformation matrix
 
+    private boolean localDirty = true;    // Local matrix must be rebuilt from position/rotation/scale
+    private boolean worldDirty = true;    // World matrix must be rebuilt (implies every descendant is dirty too)
+    private boolean childDirty = false;   // Some descendant has a dirty world matrix
+    private int subtreeSize = 1;          // Number of transforms in this subtree, used to split parallel work
+    private boolean boundsQueued = false; // Reported to the spatial index since its last refresh
+
+    private Interpolation interpolation;  // Previous simulation state, null unless interpolated
+    private boolean interpolatedChain;    // This transform or an ancestor is interpolated
+    private Matrix4 followMatrix;         // Render matrix when only an ancestor is interpolated
+
+    private TransformStore store;         // Optional SoA store this transform is a handle into
+    private int storeIndex = -1;          // Slot of this transform inside the store
+
+    // Per-thread temporaries for world-to-local conversions
+    private static final ThreadLocal<Matrix4> INVERSE_SCRATCH = ThreadLocal.withInitial(Matrix4::new);
+    private static final ThreadLocal<Vector> VECTOR_SCRATCH = ThreadLocal.withInitial(Vector::new);
+
     private GameObject gameObject;        // Reference to owning GameObject
 
     /**
@@ -32,6 +54,7 @@ public class Transform
         rotation = new Vector(0, 0, 0);
         scale = new Vector(1, 1, 1);
         childrens = new ArrayList<>();
+        localMatrix = Matrix4.identity();
         transformMatrix = Matrix4.identity();
     }
 
@@ -47,6 +70,11 @@ public class Transform
     {
         childrens.add(child);
         child.parent = this;
+        adjustSubtreeSize(child.subtreeSize);
+        invalidateStores(child);
+        child.markWorldDirty();
+        child.refreshInterpolatedChain();
+        child.queueBoundsRefresh();
     }
 
     /**
@@ -55,9 +83,49 @@ public class Transform
      */
     public void removeChild(Transform child)
     {
-        childrens.remove(child);
+        if (childrens.remove(child))
+        {
+            adjustSubtreeSize(-child.subtreeSize);
+        }
         child.parent = null;
-        child.gameObject.Location = GameObject.Location(child.gameObject);
+        invalidateStores(child);
+        child.markWorldDirty();
+        child.refreshInterpolatedChain();
+        if (child.gameObject != null)
+        {
+            child.gameObject.onDetachedFromParent();
+        }
+    }
+
+    /**
+     * Removes several children in one pass over the child list.
+     * Used for batched destroys; every transform in the collection must be a child of this one.
+     * @param removed The child Transforms to remove
+     */
+    void removeChildren(Collection<Transform> removed)
+    {
+        Set<Transform> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(removed);
+
+        int removedSize = 0;
+        for (Transform child : childrens)
+        {
+            if (set.contains(child)) removedSize += child.subtreeSize;
+        }
+        childrens.removeIf(set::contains);
+        adjustSubtreeSize(-removedSize);
+
+        for (Transform child : set)
+        {
+            child.parent = null;
+            invalidateStores(child);
+            child.markWorldDirty();
+            child.refreshInterpolatedChain();
+            if (child.gameObject != null)
+            {
+                child.gameObject.onDetachedFromParent();
+            }
+        }
     }
 
     /**
@@ -114,12 +182,13 @@ public class Transform
     // ----------------------------
 
     /**
-     * Sets the local position.
+     * Sets the local position (the values are copied).
      * @param pos The new local position
      */
     public void setLocalPosition(Vector pos)
     {
-        this.position = pos;
+        this.position.set(pos);
+        markDirty();
     }
 
     /**
@@ -128,16 +197,18 @@ public class Transform
      */
     public void setLocalRotation(Vector rot)
     {
-        this.rotation = new Vector(rot);
+        this.rotation.set(rot);
+        markDirty();
     }
 
     /**
-     * Sets the local scale.
+     * Sets the local scale (the values are copied).
      * @param scale The new local scale
      */
     public void setLocalScale(Vector scale)
     {
-        this.scale = scale;
+        this.scale.set(scale);
+        markDirty();
     }
 
     // ----------------------------
@@ -146,46 +217,57 @@ public class Transform
 
     /**
      * Returns the transformation matrix built from position, rotation, and scale.
-     * @return Local transformation Matrix4
+     * The matrix is cached and only rebuilt (in place) after the local values change.
+     * Rotation values are wrapped into [0, 360) when the matrix is rebuilt.
+     * @return Local transformation Matrix4 (shared, do not modify)
      */
     public Matrix4 getLocalMatrix() 
     {
-        // Normalize rotation values to range [-360, 360]
-        
-        rotation = wrapRotation(rotation);
-        // Translation matrix
-        Vector normalizedRotation = new Vector(
-            wrapAngle(rotation.x),
-            wrapAngle(rotation.y),
-            wrapAngle(rotation.z)
-        );
-        Matrix4 translation = Matrix4.translate(position);
-    
-        // Rotation matrices for each axis
-        Matrix4 rotationX = Matrix4.rotate(normalizedRotation.x, new Vector(1, 0, 0));
-        Matrix4 rotationY = Matrix4.rotate(normalizedRotation.y, new Vector(0, 1, 0));
-        Matrix4 rotationZ = Matrix4.rotate(normalizedRotation.z, new Vector(0, 0, 1));
-    
-        // Scale matrix
-        Matrix4 scaleMatrix = Matrix4.scale(scale);
-    
-        // Combine translation, rotation, and scale
-        Matrix4 rotationMatrix = Matrix4.multiply(rotationZ, Matrix4.multiply(rotationY, rotationX));
-        return Matrix4.multiply(translation, Matrix4.multiply(rotationMatrix, scaleMatrix));
+        if (localDirty)
+        {
+            // Normalize rotation values to range [0, 360)
+            rotation.x = wrapAngle(rotation.x);
+            rotation.y = wrapAngle(rotation.y);
+            rotation.z = wrapAngle(rotation.z);
+
+            // translation * Rz * Ry * Rx * scale
+            localMatrix.setTRS(position, rotation, scale);
+            localDirty = false;
+        }
+        return localMatrix;
     }
 
     /**
-     * Returns the world transformation matrix by combining with parent transforms recursively.
-     * @return World transformation Matrix4
+     * Returns the world transformation matrix (parent world * local).
+     * The matrix is cached and only rebuilt when this transform or one of its parents changed.
+     * @return World transformation Matrix4 (shared, do not modify)
      */
     public Matrix4 getWorldMatrix()
     {
-        Matrix4 local = getLocalMatrix();
-        if (parent != null)
+        if (store != null)
         {
-            return Matrix4.multiply(parent.getWorldMatrix(), local);
+            // Rebuilding the slot order may detach this transform
+            store.ensureStructure();
         }
-        return local;
+        if (store != null)
+        {
+            store.copyWorldMatrix(storeIndex, transformMatrix.elements);
+            return transformMatrix;
+        }
+        if (worldDirty)
+        {
+            Matrix4 local = getLocalMatrix();
+            if (parent != null)
+            {
+                Matrix4.multiply(parent.getWorldMatrix(), local, transformMatrix);
+            }
+            else
+            {
+                transformMatrix.set(local);
+            }
+            worldDirty = false;
+        }
+        return transformMatrix;
     }
 
     /**
@@ -198,16 +280,37 @@ public class Transform
     }
 
     /**
-     * Gets the rotation in world space by recursively adding parent rotations.
+     * Writes the position in world space into dest without allocating.
+     * @param dest Vector receiving the world position
+     * @return dest
+     */
+    public Vector getWorldPosition(Vector dest)
+    {
+        return getWorldMatrix().getTranslation(dest);
+    }
+
+    /**
+     * Gets the rotation in world space by adding parent rotations.
      * @return World rotation vector
      */
     public Vector getWorldRotation()
     {
-        if (parent != null)
+        return getWorldRotation(new Vector());
+    }
+
+    /**
+     * Writes the rotation in world space into dest without allocating.
+     * @param dest Vector receiving the world rotation
+     * @return dest
+     */
+    public Vector getWorldRotation(Vector dest)
+    {
+        dest.set(rotation);
+        for (Transform p = parent; p != null; p = p.parent)
         {
-            return parent.getWorldRotation().add(this.rotation);
+            dest.addLocal(p.rotation);
         }
-        return new Vector(rotation);
+        return dest;
     }
 
     /**
@@ -216,17 +319,22 @@ public class Transform
      */
     public Vector getWorldScale()
     {
-        if (parent == null)
+        return getWorldScale(new Vector());
+    }
+
+    /**
+     * Writes the scale in world space into dest without allocating.
+     * @param dest Vector receiving the world scale
+     * @return dest
+     */
+    public Vector getWorldScale(Vector dest)
+    {
+        dest.set(scale);
+        for (Transform p = parent; p != null; p = p.parent)
         {
-            return new Vector(scale);
+            dest.set(dest.x * p.scale.x, dest.y * p.scale.y, dest.z * p.scale.z);
         }
-
-        Vector parentScale = parent.getWorldScale();
-        return new Vector(
-            parentScale.x * scale.x,
-            parentScale.y * scale.y,
-            parentScale.z * scale.z
-        );
+        return dest;
     }
 
     // ----------------------------
@@ -241,15 +349,14 @@ public class Transform
     {
         if (parent == null)
         {
-            this.position = worldPos;
+            this.position.set(worldPos);
         }
         else
         {
-            Matrix4 inverseParent = Matrix4.invert(parent.getWorldMatrix());
-            Matrix4 worldMat = Matrix4.translate(worldPos);
-            Matrix4 localMat = Matrix4.multiply(inverseParent, worldMat);
-            this.position = localMat.getTranslation();
+            Matrix4 inverseParent = parent.getWorldMatrix().invertAffineInto(INVERSE_SCRATCH.get());
+            inverseParent.multiply(worldPos, this.position);
         }
+        markDirty();
     }
 
     /**
@@ -261,13 +368,14 @@ public class Transform
     {
         if (parent == null)
         {
-            this.rotation = new Vector(worldRot);
+            this.rotation.set(worldRot);
         }
         else
         {
-            Vector parentWorldRot = parent.getWorldRotation();
-            this.rotation = worldRot.sub(parentWorldRot);
+            Vector parentWorldRot = parent.getWorldRotation(VECTOR_SCRATCH.get());
+            worldRot.sub(parentWorldRot, this.rotation);
         }
+        markDirty();
     }
 
     /**
@@ -278,17 +386,18 @@ public class Transform
     {
         if (parent == null)
         {
-            this.scale = new Vector(worldScale);
+            this.scale.set(worldScale);
         }
         else
         {
-            Vector parentScale = parent.getWorldScale();
-            this.scale = new Vector(
+            Vector parentScale = parent.getWorldScale(VECTOR_SCRATCH.get());
+            this.scale.set(
                 worldScale.x / parentScale.x,
                 worldScale.y / parentScale.y,
                 worldScale.z / parentScale.z
             );
         }
+        markDirty();
     }
 
     // ----------------------------
@@ -301,21 +410,309 @@ public class Transform
      */
     public Matrix4 getMatrix()
     {
+        if (store != null)
+        {
+            return getWorldMatrix();
+        }
         return transformMatrix;
     }
 
     /**
      * Recursively updates this transform and all child transforms.
+     * Only branches that contain dirty transforms are visited.
      */
     public void updateMatrix()
     {
-        transformMatrix = getWorldMatrix();
+        if (store != null)
+        {
+            store.updateWorldMatrices();
+            return;
+        }
+        if (!updateSelf()) return;
         for (Transform child : childrens)
         {
             child.updateMatrix();
         }
     }
 
+    /**
+     * Rebuilds this world matrix only and consumes the child-dirty flag.
+     * Used by updateMatrix() and TransformPropagator; the parent must already be up to date.
+     * @return True if some child still needs to be visited
+     */
+    boolean updateSelf()
+    {
+        getWorldMatrix();
+        if (!childDirty) return false;
+        childDirty = false;
+        return true;
+    }
+
+    // ----------------------------
+    // Interpolation
+    // ----------------------------
+
+    /** Local values of the previous fixed step, used to smooth rendering between steps */
+    private static final class Interpolation
+    {
+        final Vector position = new Vector();
+        final Vector rotation = new Vector();
+        final Vector scale = new Vector(1, 1, 1);
+        final Matrix4 local = new Matrix4();
+        final Matrix4 render = new Matrix4();
+        boolean saved = false;
+    }
+
+    /**
+     * Enables rendering this transform between the last two fixed steps.
+     * Use it for objects moved in fixedUpdate(); children follow the interpolated parent.
+     * @param interpolated True to interpolate
+     */
+    public void setInterpolated(boolean interpolated)
+    {
+        if (interpolated == (interpolation != null)) return;
+        interpolation = interpolated ? new Interpolation() : null;
+        refreshInterpolatedChain();
+
+        GameObjectIndex index = gameObject != null ? gameObject.getIndex() : null;
+        if (index != null) index.setInterpolated(this, interpolated);
+    }
+
+    /**
+     * Returns whether this transform is interpolated.
+     * @return True if setInterpolated(true) was called
+     */
+    public boolean isInterpolated()
+    {
+        return interpolation != null;
+    }
+
+    /**
+     * Records the current local values as the previous simulation state. Called before each
+     * fixed step for the interpolated transforms tracked by GameObjectIndex.
+     */
+    public void saveInterpolationState()
+    {
+        if (interpolation == null) return;
+        interpolation.position.set(position);
+        interpolation.rotation.set(rotation);
+        interpolation.scale.set(scale);
+        interpolation.saved = true;
+    }
+
+    /**
+     * Returns the matrix to render with: the world matrix, or, inside an interpolated branch,
+     * the world matrix blended between the previous and the current fixed step.
+     * @param alpha Blend factor in [0, 1], usually Time.getFixedAlpha()
+     * @return Render Matrix4 (shared, do not modify)
+     */
+    public Matrix4 getRenderMatrix(float alpha)
+    {
+        if (!interpolatedChain) return getWorldMatrix();
+
+        Matrix4 parentMatrix = parent != null ? parent.getRenderMatrix(alpha) : null;
+        Interpolation state = interpolation;
+        if (state == null || !state.saved)
+        {
+            if (parentMatrix == null || parentMatrix == parent.getWorldMatrix()) return getWorldMatrix();
+            // Not interpolated itself, but follows an interpolated ancestor
+            if (followMatrix == null) followMatrix = new Matrix4();
+            return Matrix4.multiply(parentMatrix, getLocalMatrix(), followMatrix);
+        }
+
+        Vector p = state.position, r = state.rotation, s = state.scale;
+        Matrix4.setTRS(state.local.elements, 0,
+            p.x + (position.x - p.x) * alpha,
+            p.y + (position.y - p.y) * alpha,
+            p.z + (position.z - p.z) * alpha,
+            wrapAngle(r.x + angleDelta(r.x, rotation.x) * alpha),
+            wrapAngle(r.y + angleDelta(r.y, rotation.y) * alpha),
+            wrapAngle(r.z + angleDelta(r.z, rotation.z) * alpha),
+            s.x + (scale.x - s.x) * alpha,
+            s.y + (scale.y - s.y) * alpha,
+            s.z + (scale.z - s.z) * alpha);
+
+        if (parentMatrix == null) return state.render.set(state.local);
+        return Matrix4.multiply(parentMatrix, state.local, state.render);
+    }
+
+    /** Shortest signed difference between two angles in degrees */
+    private static float angleDelta(float from, float to)
+    {
+        float d = (to - from) % 360.0f;
+        if (d > 180.0f) d -= 360.0f;
+        if (d < -180.0f) d += 360.0f;
+        return d;
+    }
+
+    private void refreshInterpolatedChain()
+    {
+        boolean chain = interpolation != null || (parent != null && parent.interpolatedChain);
+        if (chain == interpolatedChain) return;
+        interpolatedChain = chain;
+        for (Transform child : childrens)
+        {
+            child.refreshInterpolatedChain();
+        }
+    }
+
+    /**
+     * Returns whether this transform or one of its descendants has a stale world matrix.
+     * @return True if updateMatrix() would do any work
+     */
+    boolean needsUpdate()
+    {
+        return worldDirty || childDirty;
+    }
+
+    /**
+     * Marks the local matrix as changed and invalidates the world matrices of this subtree.
+     * Call this after modifying the vectors returned by the local getters in place.
+     */
+    public void markDirty()
+    {
+        localDirty = true;
+        queueBoundsRefresh();
+        if (store != null)
+        {
+            // Rebuilding the slot order may detach this transform
+            store.ensureStructure();
+        }
+        if (store != null)
+        {
+            store.setLocal(storeIndex, position, rotation, scale);
+            return;
+        }
+        markWorldDirty();
+    }
+
+    /**
+     * Invalidates the world matrix of this transform and all of its descendants,
+     * and flags the ancestors so updateMatrix() can find the dirty branch.
+     * Stops early on a subtree that is already dirty.
+     */
+    private void markWorldDirty()
+    {
+        if (!worldDirty)
+        {
+            worldDirty = true;
+            childDirty = !childrens.isEmpty();
+            for (Transform child : childrens)
+            {
+                child.markWorldDirty();
+            }
+        }
+        for (Transform p = parent; p != null && !p.childDirty; p = p.parent)
+        {
+            p.childDirty = true;
+        }
+    }
+
+    /**
+     * Reports this subtree to the spatial index of the scene, at most once until its next refresh.
+     * Safe to call from update worker threads.
+     */
+    void queueBoundsRefresh()
+    {
+        if (boundsQueued || gameObject == null) return;
+        GameObjectIndex index = gameObject.getIndex();
+        if (index == null) return;
+        boundsQueued = true;
+        index.getSpatialIndex().queue(this);
+    }
+
+    /** Called by the spatial index once the queued subtree has been refreshed */
+    void clearBoundsRefresh()
+    {
+        boundsQueued = false;
+    }
+
+    /** Adds delta to the subtree size of this transform and all of its ancestors */
+    private void adjustSubtreeSize(int delta)
+    {
+        for (Transform p = this; p != null; p = p.parent)
+        {
+            p.subtreeSize += delta;
+        }
+    }
+
+    /**
+     * Returns the number of transforms in this subtree, including this one.
+     * @return Subtree size
+     */
+    public int getSubtreeSize()
+    {
+        return subtreeSize;
+    }
+
+    /**
+     * Flags the slot order of the stores involved in a hierarchy change, and the hierarchy order
+     * of the scene index, as stale.
+     * @param child The child being added or removed
+     */
+    private void invalidateStores(Transform child)
+    {
+        if (store != null) store.invalidateStructure();
+        if (child.store != null && child.store != store) child.store.invalidateStructure();
+
+        GameObjectIndex index = gameObject != null ? gameObject.getIndex() : null;
+        if (index != null) index.invalidateOrder();
+    }
+
+    // ----------------------------
+    // Transform Store
+    // ----------------------------
+
+    /**
+     * Binds this transform to a slot of a TransformStore. Called by the store while rebuilding.
+     * @param store The owning store
+     * @param index The slot index
+     */
+    void attachToStore(TransformStore store, int index)
+    {
+        this.store = store;
+        this.storeIndex = index;
+    }
+
+    /**
+     * Unbinds this transform from its store. The world matrix is computed locally again.
+     */
+    void detachFromStore()
+    {
+        store = null;
+        storeIndex = -1;
+        localDirty = true;
+        worldDirty = true;
+        childDirty = !childrens.isEmpty();
+    }
+
+    /**
+     * Returns the TransformStore this transform is a handle into.
+     * @return The store, or null when the transform manages its own matrices
+     */
+    public TransformStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Returns the slot of this transform inside its store.
+     * @return Slot index, or -1 when not stored
+     */
+    public int getStoreIndex()
+    {
+        return storeIndex;
+    }
+
+    /**
+     * Returns whether the world matrix needs to be rebuilt.
+     * @return True if the cached world matrix is stale
+     */
+    public boolean isDirty()
+    {
+        return worldDirty;
+    }
+
     // ----------------------------
     // GameObject Reference
     // ----------------------------
@@ -343,6 +740,11 @@ public class Transform
     // ----------------------------
 
 
+    /**
+     * Returns a copy of the rotation with every angle wrapped into [0, 360).
+     * @param rotation The rotation to wrap
+     * @return Wrapped rotation vector
+     */
     public static Vector wrapRotation(Vector rotation)
     {
         return new Vector(
@@ -380,12 +782,18 @@ public class Transform
      */
     public void destroy()
     {
+        if (store != null)
+        {
+            store.invalidateStructure();
+            store = null;
+        }
         position = null;              
         rotation = null;              
         scale = null;                 
         parent = null; 
         if(childrens != null) childrens.clear();
         childrens = null;    
+        localMatrix = null;
         transformMatrix = null;     
         gameObject = null;       
     }
@@ -0,0 +1,193 @@
+package org.PiEngine.GameObjects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates world matrices of a transform hierarchy on a fork-join pool.
+ * The hierarchy is split into subtree tasks: subtrees at or above the threshold get their own task,
+ * smaller sibling subtrees are grouped into chunks of roughly threshold nodes.
+ * Every node is still computed from its already finished parent with the same math as
+ * Transform.updateMatrix(), so the results are bit-identical to the serial path.
+ */
+public class TransformPropagator
+{
+    /** Default minimum number of nodes a task should cover */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Creates a propagator with the default split threshold.
+     * @param parallelism Maximum number of worker threads
+     */
+    public TransformPropagator(int parallelism)
+    {
+        this(parallelism, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a propagator.
+     * @param parallelism Maximum number of worker threads
+     * @param threshold Minimum number of nodes a task should cover before work is split off
+     */
+    public TransformPropagator(int parallelism, int threshold)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.threshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Updates every stale world matrix below the given root.
+     * Small hierarchies fall back to the serial walk.
+     * @param root The root Transform
+     */
+    public void update(Transform root)
+    {
+        if (root == null) return;
+
+        TransformStore store = root.getStore();
+        if (store != null)
+        {
+            store.updateWorldMatrices(pool, threshold);
+            return;
+        }
+
+        if (pool.getParallelism() == 1 || root.getSubtreeSize() < threshold)
+        {
+            root.updateMatrix();
+            return;
+        }
+        pool.invoke(new NodeTask(root));
+    }
+
+    /**
+     * Returns the maximum number of worker threads.
+     * @return Parallelism of the pool
+     */
+    public int getParallelism()
+    {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Returns the split threshold.
+     * @return Minimum number of nodes per task
+     */
+    public int getThreshold()
+    {
+        return threshold;
+    }
+
+    /**
+     * Stops the worker threads. The propagator must not be used afterwards.
+     */
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    /**
+     * Updates one node, then splits its dirty children into subtree tasks and chunks.
+     */
+    private final class NodeTask extends RecursiveAction
+    {
+        private final Transform node;
+
+        NodeTask(Transform node)
+        {
+            this.node = node;
+        }
+
+        @Override
+        protected void compute()
+        {
+            Transform current = node;
+            while (current.updateSelf())
+            {
+                List<Transform> children = current.getChildren();
+                List<RecursiveAction> tasks = new ArrayList<>();
+                int chunkStart = 0;
+                int chunkSize = 0;
+
+                for (int i = 0; i < children.size(); i++)
+                {
+                    Transform child = children.get(i);
+                    int size = child.getSubtreeSize();
+
+                    if (size >= threshold)
+                    {
+                        // Close the pending chunk so it does not include this child
+                        if (chunkSize > 0) tasks.add(new ChunkTask(children, chunkStart, i));
+                        if (child.needsUpdate()) tasks.add(new NodeTask(child));
+                        chunkStart = i + 1;
+                        chunkSize = 0;
+                        continue;
+                    }
+
+                    chunkSize += size;
+                    if (chunkSize >= threshold)
+                    {
+                        tasks.add(new ChunkTask(children, chunkStart, i + 1));
+                        chunkStart = i + 1;
+                        chunkSize = 0;
+                    }
+                }
+
+                if (tasks.isEmpty())
+                {
+                    updateSerial(children, chunkStart, children.size());
+                    return;
+                }
+                if (chunkSize > 0) tasks.add(new ChunkTask(children, chunkStart, children.size()));
+
+                // A single large subtree (e.g. a long chain) is continued here instead of forking
+                if (tasks.size() == 1 && tasks.get(0) instanceof NodeTask)
+                {
+                    current = ((NodeTask) tasks.get(0)).node;
+                    continue;
+                }
+                invokeAll(tasks);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Updates a run of small sibling subtrees serially.
+     */
+    private static final class ChunkTask extends RecursiveAction
+    {
+        private final List<Transform> siblings;
+        private final int start;
+        private final int end;
+
+        ChunkTask(List<Transform> siblings, int start, int end)
+        {
+            this.siblings = siblings;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            updateSerial(siblings, start, end);
+        }
+    }
+
+    private static void updateSerial(List<Transform> siblings, int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            siblings.get(i).updateMatrix();
+        }
+    }
+}
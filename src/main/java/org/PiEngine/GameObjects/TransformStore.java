@@ -0,0 +1,485 @@
+package org.PiEngine.GameObjects;
+
+import org.PiEngine.Math.Matrix4;
+import org.PiEngine.Math.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Structure-of-arrays storage for a whole transform hierarchy.
+ * Local position/rotation/scale and world matrices live in contiguous float arrays,
+ * with slots kept in depth-first order so every parent comes before its children
+ * and every subtree occupies one contiguous range of slots.
+ * Transforms attached to a store act as handles: their setters write through to
+ * the arrays and their world matrices are read back from them.
+ * <p>
+ * Any hierarchy change (adding, removing or reparenting a transform) flags the whole slot order
+ * as stale, and the next access rebuilds it in one O(N) pass over the hierarchy. The store suits
+ * scenes whose structure is mostly static; spawning or destroying objects every frame pays a full
+ * re-layout each time.
+ */
+public class TransformStore
+{
+    /** Floats per slot in the local TRS array (position, rotation, scale) */
+    public static final int TRS_STRIDE = 9;
+    /** Floats per slot in the world matrix array */
+    public static final int MATRIX_STRIDE = 16;
+
+    private Transform root;                 // Root of the stored hierarchy
+    private int count = 0;                  // Number of used slots
+
+    private float[] trs = new float[0];     // Local TRS per slot
+    private float[] world = new float[0];   // World matrix per slot (same layout as Matrix4.elements)
+    private int[] parents = new int[0];     // Parent slot per slot, -1 for the root
+    private int[] subtreeEnd = new int[0];  // Exclusive end of the subtree range per slot
+    private boolean[] dirty = new boolean[0];
+    private Transform[] handles = new Transform[0];
+
+    private boolean structureDirty = true;  // Slot order must be rebuilt from the hierarchy
+    private boolean anyDirty = false;       // At least one world matrix is stale
+
+    /**
+     * Creates a store for the hierarchy below the given root and attaches every transform in it.
+     * @param root The root Transform of the hierarchy
+     */
+    public TransformStore(Transform root)
+    {
+        this.root = root;
+        rebuild();
+    }
+
+    // ----------------------------
+    // Structure
+    // ----------------------------
+
+    /**
+     * Flags the slot order as stale. The next access rebuilds it from the hierarchy.
+     */
+    public void invalidateStructure()
+    {
+        structureDirty = true;
+    }
+
+    /**
+     * Rebuilds the depth-first slot order if the hierarchy changed since the last build.
+     */
+    public void ensureStructure()
+    {
+        if (structureDirty)
+        {
+            rebuild();
+        }
+    }
+
+    /**
+     * Walks the hierarchy depth-first and refills all arrays.
+     * Transforms that are no longer reachable from the root are detached.
+     */
+    private void rebuild()
+    {
+        Transform[] previous = Arrays.copyOf(handles, count);
+
+        int total = root != null ? root.getSubtreeSize() : 0;
+        ensureCapacity(total);
+
+        count = 0;
+        if (root != null)
+        {
+            // Explicit stack so deep hierarchies do not overflow the call stack
+            Transform[] stack = new Transform[Math.max(total, 1)];
+            int[] stackParent = new int[Math.max(total, 1)];
+            int top = 0;
+            stack[top] = root;
+            stackParent[top] = -1;
+            top++;
+
+            while (top > 0)
+            {
+                top--;
+                Transform t = stack[top];
+                int parentSlot = stackParent[top];
+                int slot = count++;
+
+                handles[slot] = t;
+                parents[slot] = parentSlot;
+                dirty[slot] = true;
+                writeLocal(slot, t.getLocalPosition(), t.getLocalRotation(), t.getLocalScale());
+                t.attachToStore(this, slot);
+
+                // Push children in reverse so they come out in list order
+                List<Transform> children = t.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--)
+                {
+                    stack[top] = children.get(i);
+                    stackParent[top] = slot;
+                    top++;
+                }
+            }
+        }
+
+        computeSubtreeEnds();
+
+        Arrays.fill(handles, count, handles.length, null);
+
+        for (Transform t : previous)
+        {
+            if (t != null && t.getStore() == this && !isStored(t))
+            {
+                t.detachFromStore();
+            }
+        }
+
+        structureDirty = false;
+        anyDirty = count > 0;
+    }
+
+    /**
+     * Computes the exclusive end slot of every subtree.
+     * Walks backwards so children are finished before their parents.
+     */
+    private void computeSubtreeEnds()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            subtreeEnd[i] = i + 1;
+        }
+        for (int i = count - 1; i > 0; i--)
+        {
+            int p = parents[i];
+            if (subtreeEnd[i] > subtreeEnd[p])
+            {
+                subtreeEnd[p] = subtreeEnd[i];
+            }
+        }
+    }
+
+    private boolean isStored(Transform t)
+    {
+        int slot = t.getStoreIndex();
+        return slot >= 0 && slot < count && handles[slot] == t;
+    }
+
+    private void ensureCapacity(int slots)
+    {
+        if (handles.length >= slots) return;
+        int capacity = Math.max(slots, handles.length * 2);
+        trs = Arrays.copyOf(trs, capacity * TRS_STRIDE);
+        world = Arrays.copyOf(world, capacity * MATRIX_STRIDE);
+        parents = Arrays.copyOf(parents, capacity);
+        subtreeEnd = Arrays.copyOf(subtreeEnd, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+    }
+
+    // ----------------------------
+    // Local values
+    // ----------------------------
+
+    /**
+     * Writes the local TRS of a slot and invalidates the world matrices of its subtree.
+     * @param slot The slot index
+     * @param position Local position
+     * @param rotation Local rotation in degrees
+     * @param scale Local scale
+     */
+    public void setLocal(int slot, Vector position, Vector rotation, Vector scale)
+    {
+        ensureStructure();
+        writeLocal(slot, position, rotation, scale);
+        if (!dirty[slot])
+        {
+            Arrays.fill(dirty, slot, subtreeEnd[slot], true);
+        }
+        anyDirty = true;
+    }
+
+    private void writeLocal(int slot, Vector position, Vector rotation, Vector scale)
+    {
+        int o = slot * TRS_STRIDE;
+        trs[o]     = position.x;
+        trs[o + 1] = position.y;
+        trs[o + 2] = position.z;
+        trs[o + 3] = rotation.x;
+        trs[o + 4] = rotation.y;
+        trs[o + 5] = rotation.z;
+        trs[o + 6] = scale.x;
+        trs[o + 7] = scale.y;
+        trs[o + 8] = scale.z;
+    }
+
+    // ----------------------------
+    // World matrices
+    // ----------------------------
+
+    /**
+     * Recomputes every stale world matrix in one linear pass over the slots.
+     * Parents always precede their children, so a single forward pass is enough.
+     */
+    public void updateWorldMatrices()
+    {
+        ensureStructure();
+        if (!anyDirty) return;
+
+        updateRange(0, count);
+        anyDirty = false;
+    }
+
+    /**
+     * Recomputes every stale world matrix on a fork-join pool.
+     * Subtrees are contiguous slot ranges, so each task walks its range linearly
+     * once the parent slot is done; small sibling subtrees are merged into one range.
+     * Produces the same values as updateWorldMatrices().
+     * @param pool The pool to run on
+     * @param threshold Minimum number of slots a task should cover
+     */
+    public void updateWorldMatrices(ForkJoinPool pool, int threshold)
+    {
+        ensureStructure();
+        if (!anyDirty) return;
+
+        if (count < threshold || pool.getParallelism() == 1)
+        {
+            updateWorldMatrices();
+            return;
+        }
+        pool.invoke(new SubtreeTask(0, Math.max(1, threshold)));
+        anyDirty = false;
+    }
+
+    private void updateRange(int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            if (dirty[i])
+            {
+                computeWorld(i);
+                dirty[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Computes one slot, then splits the child subtrees below it into tasks.
+     */
+    private final class SubtreeTask extends RecursiveAction
+    {
+        private final int slot;
+        private final int threshold;
+
+        SubtreeTask(int slot, int threshold)
+        {
+            this.slot = slot;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute()
+        {
+            int current = slot;
+            while (true)
+            {
+                updateRange(current, current + 1);
+
+                int end = subtreeEnd[current];
+                List<RecursiveAction> tasks = new ArrayList<>();
+                int chunkStart = current + 1;
+                int child = current + 1;
+
+                while (child < end)
+                {
+                    int childEnd = subtreeEnd[child];
+                    if (childEnd - child >= threshold)
+                    {
+                        // Close the pending run of small siblings before the large subtree
+                        if (chunkStart < child) tasks.add(new RangeTask(chunkStart, child));
+                        tasks.add(new SubtreeTask(child, threshold));
+                        chunkStart = childEnd;
+                    }
+                    else if (childEnd - chunkStart >= threshold)
+                    {
+                        tasks.add(new RangeTask(chunkStart, childEnd));
+                        chunkStart = childEnd;
+                    }
+                    child = childEnd;
+                }
+
+                if (tasks.isEmpty())
+                {
+                    updateRange(chunkStart, end);
+                    return;
+                }
+                if (chunkStart < end) tasks.add(new RangeTask(chunkStart, end));
+
+                // A single large subtree (e.g. a long chain) is continued here instead of forking
+                if (tasks.size() == 1 && tasks.get(0) instanceof SubtreeTask)
+                {
+                    current = ((SubtreeTask) tasks.get(0)).slot;
+                    continue;
+                }
+                invokeAll(tasks);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Walks a range of whole sibling subtrees whose parent is already up to date.
+     */
+    private final class RangeTask extends RecursiveAction
+    {
+        private final int start;
+        private final int end;
+
+        RangeTask(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            updateRange(start, end);
+        }
+    }
+
+    /**
+     * Copies the world matrix of a slot into the destination array,
+     * recomputing it (and any stale ancestors) first if needed.
+     * @param slot The slot index
+     * @param dest Destination array of at least 16 floats
+     */
+    public void copyWorldMatrix(int slot, float[] dest)
+    {
+        ensureStructure();
+        resolve(slot);
+        System.arraycopy(world, slot * MATRIX_STRIDE, dest, 0, MATRIX_STRIDE);
+    }
+
+    private void resolve(int slot)
+    {
+        if (!dirty[slot]) return;
+        int p = parents[slot];
+        if (p >= 0) resolve(p);
+        computeWorld(slot);
+        dirty[slot] = false;
+    }
+
+    /**
+     * Builds the local matrix T * Rz * Ry * Rx * S of a slot in place and multiplies it with the parent world matrix.
+     * Uses the same Matrix4 routines as Transform, so both paths produce identical matrices.
+     */
+    private void computeWorld(int slot)
+    {
+        int t = slot * TRS_STRIDE;
+        int w = slot * MATRIX_STRIDE;
+        int p = parents[slot];
+
+        Matrix4.setTRS(world, w,
+            trs[t], trs[t + 1], trs[t + 2],
+            wrapAngle(trs[t + 3]), wrapAngle(trs[t + 4]), wrapAngle(trs[t + 5]),
+            trs[t + 6], trs[t + 7], trs[t + 8]);
+
+        if (p >= 0)
+        {
+            Matrix4.multiply(world, p * MATRIX_STRIDE, world, w, world, w);
+        }
+    }
+
+    private static float wrapAngle(float angle)
+    {
+        angle = angle % 360.0f;
+        if (angle < 0)
+        {
+            angle += 360.0f;
+        }
+        return angle;
+    }
+
+    // ----------------------------
+    // Accessors
+    // ----------------------------
+
+    /**
+     * Detaches every transform and empties the store.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            if (handles[i] != null && handles[i].getStore() == this)
+            {
+                handles[i].detachFromStore();
+            }
+            handles[i] = null;
+        }
+        count = 0;
+        root = null;
+        structureDirty = false;
+        anyDirty = false;
+    }
+
+    /**
+     * Replaces the root of the stored hierarchy and rebuilds all slots.
+     * @param root The new root Transform
+     */
+    public void setRoot(Transform root)
+    {
+        clear();
+        this.root = root;
+        rebuild();
+    }
+
+    /**
+     * Returns the root of the stored hierarchy.
+     * @return The root Transform
+     */
+    public Transform getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * Returns the number of transforms in the store.
+     * @return Slot count
+     */
+    public int size()
+    {
+        ensureStructure();
+        return count;
+    }
+
+    /**
+     * Returns the transform stored in a slot.
+     * @param slot The slot index
+     * @return The Transform handle
+     */
+    public Transform getTransform(int slot)
+    {
+        return handles[slot];
+    }
+
+    /**
+     * Returns the parent slot of a slot.
+     * @param slot The slot index
+     * @return Parent slot, or -1 for the root
+     */
+    public int getParentIndex(int slot)
+    {
+        return parents[slot];
+    }
+
+    /**
+     * Returns the raw world matrix array. Slot i occupies [i * 16, i * 16 + 16).
+     * Call updateWorldMatrices() first to make sure the values are current.
+     * @return World matrix array
+     */
+    public float[] getWorldArray()
+    {
+        return world;
+    }
+}
@@ -0,0 +1,387 @@
+package org.PiEngine.GameObjects;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.PiEngine.Component.Component;
+import org.PiEngine.Component.ComponentMetadata;
+import org.PiEngine.Core.Profiler;
+
+/**
+ * Runs the per-frame component updates, moving components that declare their data access
+ * (Component.getReads() / getWrites()) onto a fork-join pool.
+ * <p>
+ * The hierarchy is walked exactly like GameObject.update(). Declared components are collected
+ * into a segment in walk order. An undeclared component that overrides update() may touch
+ * anything, so it is a barrier: the segment collected so far is run first, then the component
+ * runs in place, then collection continues. Undeclared components without update() only get
+ * their reference fields checked and do not end a segment.
+ * <p>
+ * Within a segment the declared classes are grouped: two classes that write something the other
+ * reads or writes end up in the same group, and a group runs its components serially in walk
+ * order. Separate groups touch disjoint data and run concurrently. Reading Transform or GameObject
+ * counts as writing it: the Transform getters rebuild cached local and world matrices of the
+ * object and its parents, so two readers could recompute the same matrix at once. A group made of
+ * a single class that does not read what it writes, and does not touch Transform or GameObject
+ * (which are shared through the hierarchy), additionally splits its components into chunks of
+ * threshold size.
+ * Segments no larger than the threshold simply run in walk order on the calling thread.
+ * The outcome is the same as GameObject.update() on one thread, as long as the declarations hold.
+ * <p>
+ * Declared components must only modify themselves and the declared types on their own
+ * GameObject, and must not add or remove components or GameObjects.
+ */
+public class UpdateScheduler
+{
+    /** Default minimum number of components a parallel task should cover */
+    public static final int DEFAULT_THRESHOLD = 256;
+
+    /** Declared access of one component class, resolved from its first instance */
+    private static final class Access
+    {
+        final Class<?>[] reads;
+        final Class<?>[] writes;
+        final boolean independent;     // Instances can update concurrently
+
+        Access(Class<?> type, Class<?>[] reads, Class<?>[] writes)
+        {
+            this.reads = reads != null ? reads : new Class<?>[0];
+            List<Class<?>> w = new ArrayList<>();
+            if (writes != null) w.addAll(List.of(writes));
+            w.add(type);        // A component always writes itself
+
+            // Reading a transform fills its matrix caches (and those of its parents), so it is a write
+            for (Class<?> t : this.reads)
+            {
+                if (isShared(t)) w.add(t);
+            }
+            this.writes = w.toArray(new Class<?>[0]);
+
+            boolean shared = false;
+            for (Class<?> t : this.writes)
+            {
+                if (isShared(t)) shared = true;
+            }
+            this.independent = !shared && !intersects(this.writes, this.reads);
+        }
+
+        private static boolean isShared(Class<?> t)
+        {
+            return overlaps(t, Transform.class) || overlaps(t, GameObject.class);
+        }
+
+        boolean conflictsWith(Access other)
+        {
+            return intersects(writes, other.reads) || intersects(writes, other.writes)
+                || intersects(other.writes, reads);
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private final Map<Class<?>, Access> accessByClass = new HashMap<>();     // null value = undeclared
+    private final List<Component> declared = new ArrayList<>();              // Current segment, walk order
+    private final List<Class<?>> declaredClasses = new ArrayList<>();        // First-appearance order in the segment
+
+    /**
+     * Creates a scheduler with the default split threshold.
+     * @param parallelism Maximum number of worker threads
+     */
+    public UpdateScheduler(int parallelism)
+    {
+        this(parallelism, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a scheduler.
+     * @param parallelism Maximum number of worker threads
+     * @param threshold Minimum number of components a task should cover before work is split off
+     */
+    public UpdateScheduler(int parallelism, int threshold)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.threshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Updates every component below the given root.
+     * @param root The root GameObject
+     */
+    public void update(GameObject root)
+    {
+        if (root == null) return;
+
+        declared.clear();
+        declaredClasses.clear();
+        walk(root);
+        flush();
+    }
+
+    /**
+     * Runs the declared components collected so far and starts a new segment.
+     */
+    private void flush()
+    {
+        if (declared.isEmpty()) return;
+        if (declared.size() <= threshold || pool.getParallelism() == 1)
+        {
+            new RangeTask(declared, 0, declared.size()).run();
+        }
+        else
+        {
+            runGroups();
+        }
+        declared.clear();
+        declaredClasses.clear();
+    }
+
+    private void runGroups()
+    {
+        List<List<Component>> groups = buildGroups();
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (List<Component> group : groups)
+        {
+            Access access = accessByClass.get(group.get(0).getClass());
+            boolean single = true;
+            for (int i = 1; i < group.size() && single; i++)
+            {
+                single = group.get(i).getClass() == group.get(0).getClass();
+            }
+
+            if (single && access.independent && group.size() > threshold)
+            {
+                for (int start = 0; start < group.size(); start += threshold)
+                {
+                    tasks.add(new RangeTask(group, start, Math.min(group.size(), start + threshold)));
+                }
+            }
+            else
+            {
+                tasks.add(new RangeTask(group, 0, group.size()));
+            }
+        }
+
+        if (tasks.size() == 1)
+        {
+            ((RangeTask) tasks.get(0)).run();
+            return;
+        }
+        Profiler.begin("UpdateScheduler.parallel");
+        pool.invoke(new RecursiveAction()
+        {
+            @Override
+            protected void compute()
+            {
+                invokeAll(tasks);
+            }
+        });
+        Profiler.end();
+    }
+
+    /**
+     * Returns the maximum number of worker threads.
+     * @return Parallelism of the pool
+     */
+    public int getParallelism()
+    {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Returns the worker pool, e.g. for EntityWorld.update().
+     * @return The fork-join pool
+     */
+    public ForkJoinPool getPool()
+    {
+        return pool;
+    }
+
+    /**
+     * Forgets the cached access declarations. Call when script classes are reloaded.
+     */
+    public void clearCache()
+    {
+        accessByClass.clear();
+    }
+
+    /**
+     * Stops the worker threads. The scheduler must not be used afterwards.
+     */
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    /**
+     * Same traversal as GameObject.update(), deferring declared components to the current segment.
+     */
+    private void walk(GameObject obj)
+    {
+        boolean profile = Profiler.isDetailed();
+        if (profile) Profiler.begin(obj.Name);
+
+        for (Component c : obj.getComponents())
+        {
+            Access access = accessOf(c);
+            if (access != null)
+            {
+                if (!declaredClasses.contains(c.getClass()))
+                {
+                    declaredClasses.add(c.getClass());
+                }
+                declared.add(c);
+            }
+            else if (ComponentMetadata.of(c.getClass()).updatesItself())
+            {
+                // Barrier: everything before this component in walk order must have run
+                flush();
+                c.updateFields();
+                c.safeUpdate();
+            }
+            else
+            {
+                c.updateFields();
+            }
+        }
+        if (profile) Profiler.end();
+
+        for (Transform childTransform : obj.transform.getChildren())
+        {
+            GameObject child = childTransform.getGameObject();
+            if (child != null)
+            {
+                walk(child);
+            }
+        }
+    }
+
+    private Access accessOf(Component c)
+    {
+        Class<?> type = c.getClass();
+        if (accessByClass.containsKey(type)) return accessByClass.get(type);
+
+        Class<?>[] reads = c.getReads();
+        Class<?>[] writes = c.getWrites();
+        Access access = (reads == null && writes == null) ? null : new Access(type, reads, writes);
+        accessByClass.put(type, access);
+        return access;
+    }
+
+    /**
+     * Merges conflicting classes and splits the declared components by group, keeping walk order.
+     */
+    private List<List<Component>> buildGroups()
+    {
+        int n = declaredClasses.size();
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+
+        for (int i = 0; i < n; i++)
+        {
+            Access a = accessByClass.get(declaredClasses.get(i));
+            for (int j = i + 1; j < n; j++)
+            {
+                if (a.conflictsWith(accessByClass.get(declaredClasses.get(j))))
+                {
+                    parent[find(parent, j)] = find(parent, i);
+                }
+            }
+        }
+
+        Map<Class<?>, List<Component>> listOf = new IdentityHashMap<>();
+        List<List<Component>> groups = new ArrayList<>();
+        List<Component>[] byRoot = newLists(n);
+        for (int i = 0; i < n; i++)
+        {
+            int r = find(parent, i);
+            if (byRoot[r] == null)
+            {
+                byRoot[r] = new ArrayList<>();
+                groups.add(byRoot[r]);
+            }
+            listOf.put(declaredClasses.get(i), byRoot[r]);
+        }
+
+        for (Component c : declared)
+        {
+            listOf.get(c.getClass()).add(c);
+        }
+        return groups;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Component>[] newLists(int n)
+    {
+        return (List<Component>[]) new List<?>[n];
+    }
+
+    private static int find(int[] parent, int i)
+    {
+        while (parent[i] != i)
+        {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static boolean overlaps(Class<?> a, Class<?> b)
+    {
+        return a.isAssignableFrom(b) || b.isAssignableFrom(a);
+    }
+
+    private static boolean intersects(Class<?>[] a, Class<?>[] b)
+    {
+        for (Class<?> x : a)
+        {
+            for (Class<?> y : b)
+            {
+                if (overlaps(x, y)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates a range of components serially.
+     */
+    private static final class RangeTask extends RecursiveAction
+    {
+        private final List<Component> components;
+        private final int start;
+        private final int end;
+
+        RangeTask(List<Component> components, int start, int end)
+        {
+            this.components = components;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            run();
+        }
+
+        void run()
+        {
+            for (int i = start; i < end; i++)
+            {
+                Component c = components.get(i);
+                c.updateFields();
+                c.safeUpdate();
+            }
+        }
+    }
+}
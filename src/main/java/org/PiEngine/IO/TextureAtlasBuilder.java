@@ -0,0 +1,322 @@
+package org.PiEngine.IO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.PiEngine.Engine.Console;
+import org.PiEngine.Render.Texture;
+import org.PiEngine.Render.TextureAtlas;
+import org.PiEngine.Utils.GUID;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.stb.STBImageWrite;
+
+/**
+ * Packs the small images of a folder into shared atlas pages at import time.
+ * Each image keeps the GUID of its source path and becomes a region of a page, so sprites
+ * that switch frames or sit next to each other keep drawing from the same GL texture.
+ * <p>
+ * The packed pages and a manifest are cached on disk. The cache is keyed by a hash of the
+ * source paths and contents, and is rebuilt only when an image is added, removed or changed.
+ */
+public class TextureAtlasBuilder
+{
+    /** Edge length of an atlas page in pixels */
+    public static final int PAGE_SIZE = 1024;
+    /** Images with a larger width or height stay standalone textures */
+    public static final int MAX_IMAGE_SIZE = 256;
+
+    /** Border around each image, filled with its edge pixels so filtering never reads a neighbor */
+    private static final int PADDING = 1;
+    private static final int FORMAT_VERSION = 1;
+    private static final String MANIFEST = "atlas.txt";
+
+    /** A source image and its place in the atlas */
+    private static final class Source
+    {
+        final Path path;
+        final String guid;
+        int[] pixels;
+        int width, height;
+        int page, x, y;
+
+        Source(Path path)
+        {
+            this.path = path;
+            this.guid = GUID.generateGUIDFromPath(path.toString());
+        }
+    }
+
+    /** Packing state of one page */
+    private static final class Page
+    {
+        final int[] pixels = new int[PAGE_SIZE * PAGE_SIZE];
+        int cursorX, cursorY, shelfHeight;
+    }
+
+    /**
+     * Loads the atlas for the images below a folder from the cache, or packs and caches it.
+     * Must be called on the GL thread.
+     * @param sourceFolder Folder with the source .png images (searched recursively)
+     * @param cacheFolder Folder for the packed pages and the manifest
+     * @return The atlas; empty if the folder holds no packable images
+     */
+    public static TextureAtlas buildOrLoad(Path sourceFolder, Path cacheFolder) throws IOException
+    {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(sourceFolder))
+        {
+            files = walk.filter(Files::isRegularFile)
+                .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".png"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        String key = hashSources(files);
+        TextureAtlas cached = loadCache(cacheFolder, key);
+        if (cached != null)
+        {
+            return cached;
+        }
+        return pack(files, cacheFolder, key);
+    }
+
+    private static String hashSources(List<Path> files) throws IOException
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((FORMAT_VERSION + ":" + PAGE_SIZE + ":" + MAX_IMAGE_SIZE + ":" + PADDING).getBytes(StandardCharsets.UTF_8));
+            for (Path file : files)
+            {
+                digest.update(file.toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(Files.readAllBytes(file));
+            }
+
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest())
+            {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reads the cached atlas if it was built from the same sources.
+     * @return The atlas, or null if the cache is missing, stale or unreadable
+     */
+    private static TextureAtlas loadCache(Path cacheFolder, String key)
+    {
+        Path manifest = cacheFolder.resolve(MANIFEST);
+        if (!Files.exists(manifest)) return null;
+
+        TextureAtlas atlas = new TextureAtlas();
+        try
+        {
+            List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+            if (lines.size() < 2 || !lines.get(0).equals("key " + key)) return null;
+
+            int pageCount = Integer.parseInt(lines.get(1).substring("pages ".length()));
+            for (int i = 0; i < pageCount; i++)
+            {
+                Path pagePath = cacheFolder.resolve(pageFileName(i));
+                if (!Files.exists(pagePath))
+                {
+                    atlas.dispose();
+                    return null;
+                }
+                Texture page = TextureLoader.loadTexture(pagePath.toString(), GL11.GL_NEAREST, GL11.GL_NEAREST);
+                if (page == null)
+                {
+                    atlas.dispose();
+                    return null;
+                }
+                atlas.addPage(page);
+            }
+
+            for (int i = 2; i < lines.size(); i++)
+            {
+                String[] parts = lines.get(i).trim().split(" ");
+                if (parts.length != 6) continue;
+                atlas.addRegion(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), Integer.parseInt(parts[5]));
+            }
+        }
+        catch (Exception e)
+        {
+            Console.warning("Ignoring unreadable texture atlas cache: " + e.getMessage());
+            atlas.dispose();
+            return null;
+        }
+        return atlas;
+    }
+
+    private static TextureAtlas pack(List<Path> files, Path cacheFolder, String key)
+    {
+        List<Source> sources = new ArrayList<>();
+        int[] size = new int[2];
+        for (Path file : files)
+        {
+            Source source = new Source(file);
+            source.pixels = TextureLoader.loadPixels(file.toString(), size);
+            if (source.pixels == null) continue;
+            source.width = size[0];
+            source.height = size[1];
+            if (source.width > MAX_IMAGE_SIZE || source.height > MAX_IMAGE_SIZE) continue;
+            sources.add(source);
+        }
+
+        // Tallest first keeps shelves tight; the path breaks ties so the layout is reproducible
+        sources.sort(Comparator.comparingInt((Source s) -> -s.height)
+            .thenComparingInt(s -> -s.width)
+            .thenComparing(s -> s.path.toString()));
+
+        List<Page> pages = new ArrayList<>();
+        for (Source source : sources)
+        {
+            place(pages, source);
+        }
+
+        TextureAtlas atlas = new TextureAtlas();
+        int[] pageHeights = new int[pages.size()];
+        for (int i = 0; i < pages.size(); i++)
+        {
+            Page page = pages.get(i);
+            pageHeights[i] = usedHeight(page);
+            atlas.addPage(new Texture(Arrays.copyOf(page.pixels, PAGE_SIZE * pageHeights[i]), PAGE_SIZE, pageHeights[i], GL11.GL_NEAREST, GL11.GL_NEAREST));
+        }
+        for (Source source : sources)
+        {
+            atlas.addRegion(source.guid, source.page, source.x, source.y, source.width, source.height);
+        }
+
+        try
+        {
+            writeCache(cacheFolder, key, pages, pageHeights, sources);
+        }
+        catch (IOException e)
+        {
+            Console.warning("Could not write texture atlas cache: " + e.getMessage());
+        }
+
+        Console.log("Packed " + sources.size() + " sprites into " + pages.size() + " atlas page(s)");
+        return atlas;
+    }
+
+    /**
+     * Places an image on the first shelf with room, opening shelves and pages as needed,
+     * and copies its pixels with an extruded border.
+     */
+    private static void place(List<Page> pages, Source source)
+    {
+        int cellWidth = source.width + 2 * PADDING;
+        int cellHeight = source.height + 2 * PADDING;
+
+        Page page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        if (page != null && page.cursorX + cellWidth > PAGE_SIZE)
+        {
+            page.cursorY += page.shelfHeight;
+            page.cursorX = 0;
+            page.shelfHeight = 0;
+        }
+        if (page == null || page.cursorY + cellHeight > PAGE_SIZE)
+        {
+            page = new Page();
+            pages.add(page);
+        }
+
+        source.page = pages.size() - 1;
+        source.x = page.cursorX + PADDING;
+        source.y = page.cursorY + PADDING;
+        page.cursorX += cellWidth;
+        page.shelfHeight = Math.max(page.shelfHeight, cellHeight);
+
+        for (int py = -PADDING; py < source.height + PADDING; py++)
+        {
+            int sy = Math.min(Math.max(py, 0), source.height - 1);
+            int row = (source.y + py) * PAGE_SIZE + source.x;
+            for (int px = -PADDING; px < source.width + PADDING; px++)
+            {
+                int sx = Math.min(Math.max(px, 0), source.width - 1);
+                page.pixels[row + px] = source.pixels[sy * source.width + sx];
+            }
+        }
+        source.pixels = null;
+    }
+
+    /**
+     * Height of the page rounded up to a power of two, so a mostly empty last page stays small.
+     */
+    private static int usedHeight(Page page)
+    {
+        int used = page.cursorY + page.shelfHeight;
+        int height = 1;
+        while (height < used) height <<= 1;
+        return Math.min(height, PAGE_SIZE);
+    }
+
+    private static void writeCache(Path cacheFolder, String key, List<Page> pages, int[] pageHeights,
+                                   List<Source> sources) throws IOException
+    {
+        Files.createDirectories(cacheFolder);
+
+        // Pages are stored top row first, like any other image
+        STBImageWrite.stbi_flip_vertically_on_write(true);
+        for (int i = 0; i < pages.size(); i++)
+        {
+            int[] pixels = pages.get(i).pixels;
+            int height = pageHeights[i];
+            ByteBuffer rgba = BufferUtils.createByteBuffer(PAGE_SIZE * height * 4);
+            for (int p = 0; p < PAGE_SIZE * height; p++)
+            {
+                int pixel = pixels[p];
+                rgba.put((byte) ((pixel >> 16) & 0xFF));
+                rgba.put((byte) ((pixel >> 8) & 0xFF));
+                rgba.put((byte) (pixel & 0xFF));
+                rgba.put((byte) ((pixel >> 24) & 0xFF));
+            }
+            rgba.flip();
+
+            String pagePath = cacheFolder.resolve(pageFileName(i)).toString();
+            if (!STBImageWrite.stbi_write_png(pagePath, PAGE_SIZE, height, 4, rgba, PAGE_SIZE * 4))
+            {
+                throw new IOException("Failed to write " + pagePath);
+            }
+        }
+        STBImageWrite.stbi_flip_vertically_on_write(false);
+
+        // Manifest last, so an interrupted write leaves no valid cache behind
+        StringBuilder manifest = new StringBuilder();
+        manifest.append("key ").append(key).append('\n');
+        manifest.append("pages ").append(pages.size()).append('\n');
+        for (Source source : sources)
+        {
+            manifest.append(source.guid).append(' ').append(source.page).append(' ')
+                .append(source.x).append(' ').append(source.y).append(' ')
+                .append(source.width).append(' ').append(source.height).append('\n');
+        }
+        Files.writeString(cacheFolder.resolve(MANIFEST), manifest.toString(), StandardCharsets.UTF_8);
+    }
+
+    private static String pageFileName(int index)
+    {
+        return "page" + index + ".png";
+    }
+}
@@ -11,6 +11,23 @@ import java.nio.IntBuffer;
 public class TextureLoader
 {
     public static Texture loadTexture(String path, int minFilter, int magFilter)
+    {
+        int[] size = new int[2];
+        int[] pixels = loadPixels(path, size);
+        if (pixels == null)
+        {
+            return null;
+        }
+        return new Texture(pixels, size[0], size[1], minFilter, magFilter);
+    }
+
+    /**
+     * Loads an image as packed ARGB pixels, bottom row first.
+     * @param path Path to the image file
+     * @param size Receives the width and height
+     * @return The pixels, or null if the image could not be loaded
+     */
+    public static int[] loadPixels(String path, int[] size)
     {
         // Let STB flip the image for you (so origin ends up bottom-left)
         STBImage.stbi_set_flip_vertically_on_load(true);
@@ -49,7 +66,9 @@ public class TextureLoader
             }
 
             STBImage.stbi_image_free(image);
-            return new Texture(pixels, width, height, minFilter, magFilter);
+            size[0] = width;
+            size[1] = height;
+            return pixels;
         }
     }
 }
@@ -15,6 +15,9 @@ import org.PiEngine.Core.*;
 import org.PiEngine.Editor.Editor;
 import org.PiEngine.Engine.Scene;
 import org.PiEngine.Manager.AssetManager;
+import org.PiEngine.Manager.ShaderManager;
+import org.PiEngine.Render.GLState;
+import org.PiEngine.Render.StreamingBuffer;
 import org.PiEngine.Scripting.CompileScripts;
 
 
@@ -42,7 +45,7 @@ public class Main
         glfwMakeContextCurrent(window);
         GL.createCapabilities();
         
-        glViewport(0, 0, width, height);
+        GLState.viewport(0, 0, width, height);
         
         ImGui.createContext();
         ImGuiIO io = ImGui.getIO();
@@ -76,14 +79,23 @@ public class Main
         
         while (!glfwWindowShouldClose(window))
         {
+            Profiler.frame();
+
+            // The editor UI changes GL state behind the cache's back
+            GLState.invalidate();
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-            glEnable(GL_CULL_FACE);          
-            glCullFace(GL_BACK);             
-            glFrontFace(GL_CCW);            
+            GLState.setCullFace(true);
+            GLState.cullFace(GL_BACK);
+            GLState.frontFace(GL_CCW);
 
+            Profiler.begin("AssetManager.processAssetQueue");
             AssetManager.processAssetQueue();
+            ShaderManager.get().update();
+            Profiler.end();
             Time.update();
+            Profiler.begin("Input.update");
             Input.update();
+            Profiler.end();
 
             if(Input.isKeyPressed(GLFW_KEY_SPACE)) 
             {
@@ -92,14 +104,26 @@ public class Main
 
             if(isLoop)
             {
+                Profiler.begin("Scene.update");
                 Scene.getInstance().update();
+                Profiler.end();
             }
+            Profiler.begin("Scene.render");
             Scene.getInstance().render();
+            Profiler.end();
             
+            Profiler.begin("Editor.update");
             Editor.getInstance().update();
+            Profiler.end();
             
+            Profiler.begin("SwapBuffers");
             glfwSwapBuffers(window);
+            Profiler.end();
+            StreamingBuffer.endFrame();
+            GLState.endFrame();
+            Profiler.begin("PollEvents");
             glfwPollEvents();
+            Profiler.end();
         }
 
         ImGui.destroyContext();
@@ -39,6 +39,7 @@ public abstract class AssetManager implements Runnable
 
     protected static final Map<String, Object> resources = new HashMap<>();
     private static final LinkedBlockingDeque<QueuedAsset> generalAssetQueue = new LinkedBlockingDeque<>();
+    private static volatile int version = 0;
 
 
     private static class QueuedAsset
@@ -74,7 +75,7 @@ public abstract class AssetManager implements Runnable
                                 case TEXTURE -> generalAssetQueue.offer(new QueuedAsset(type, filePath.toString())); 
                                 case JAVA -> generalAssetQueue.addFirst(new QueuedAsset(type, filePath.toString()));
                                 case CLASS -> {generalAssetQueue.addLast(new QueuedAsset(type, filePath.toString()));}
-                                case SHADER -> {} 
+                                case SHADER -> generalAssetQueue.offer(new QueuedAsset(type, filePath.toString()));
                                 case FONT -> {} 
                                 case SCENE -> {} 
                                 case UNKNOWN -> {}
@@ -97,6 +98,7 @@ public abstract class AssetManager implements Runnable
     public static void processAssetQueue()
     {
         boolean isclass = true;
+        boolean systemsChanged = false;
         while (!generalAssetQueue.isEmpty())
         {
             QueuedAsset asset = generalAssetQueue.poll();
@@ -111,7 +113,11 @@ public abstract class AssetManager implements Runnable
                 {
                     try
                     {
-                        CompileScripts.getInstance().compileScript(new File(asset.path));
+                        File source = new File(asset.path);
+                        if (CompileScripts.getInstance().compileScript(source) && isSystemScript(source))
+                        {
+                            systemsChanged = true;
+                        }
                     }
                     catch (Exception e)
                     {
@@ -123,10 +129,20 @@ public abstract class AssetManager implements Runnable
                 case CLASS ->
                 {
                     isclass = false;
-                    ScriptLoader.getInstance().loadComponentScript(new File(asset.path));
+                    File classFile = new File(asset.path);
+                    if (isSystemScript(classFile))
+                    {
+                        // Installed together below, so every system is (re)created once per batch
+                        systemsChanged = true;
+                    }
+                    else
+                    {
+                        ScriptLoader.getInstance().loadComponentScript(classFile);
+                    }
                 }
 
-                case SHADER -> {}//ShaderManager.get().load(Paths.get(asset.path), guid);
+                case SHADER ->
+                    ShaderManager.get().load(Paths.get(asset.path), guid);
 
                 case FONT -> {}
                     // FontManager.get().load(Paths.get(asset.path), guid);
@@ -142,6 +158,16 @@ public abstract class AssetManager implements Runnable
         {    
             ScriptLoader.getInstance().loadComponentFolder("Compiled");
         }
+        if (systemsChanged)
+        {
+            ScriptLoader.getInstance().loadSystemScripts(CompileScripts.getInstance().getSystemsOutputFolder().getPath());
+        }
+    }
+
+    private static boolean isSystemScript(File file)
+    {
+        File parent = file.getParentFile();
+        return parent != null && parent.getName().equals(ScriptLoader.SYSTEMS_FOLDER);
     }
 
     protected String getExtension(String filename)
@@ -158,5 +184,16 @@ public abstract class AssetManager implements Runnable
     public static void put(String guid, Object asset)
     {
         resources.put(guid, asset);
+        version++;
+    }
+
+    /**
+     * Returns a counter that changes every time an asset is added or replaced.
+     * Holders of asset references only need to re-fetch them when it changed.
+     * @return Asset version
+     */
+    public static int getVersion()
+    {
+        return version;
     }
 }
@@ -0,0 +1,232 @@
+package org.PiEngine.Manager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.PiEngine.Engine.Console;
+import org.PiEngine.Render.Shader;
+import org.PiEngine.Utils.GUID;
+
+/**
+ * Singleton class that manages shader programs in the Pi-Engine.
+ * Programs are shared by source set: acquiring the same vertex/fragment/geometry files twice
+ * returns the same Shader, keyed by the GUIDs of the source paths. Each acquire() or retain()
+ * must be matched by a release(); the program is deleted when the last user releases it.
+ * Render passes and sprite batches retain the shader they are given and release it on dispose().
+ * Source files found by the AssetManager are registered by GUID, and update() reloads
+ * programs whose sources changed on disk.
+ */
+public class ShaderManager
+{
+    /** Singleton instance */
+    private static ShaderManager instance;
+
+    /** Minimum time between two checks of the source files for changes */
+    public static final long RELOAD_CHECK_INTERVAL_MS = 500;
+
+    /** A shared program and the state needed to reload it */
+    private static final class Entry
+    {
+        final String key;
+        final Shader shader;
+        final Path[] sources;
+        final long[] modified;
+        int refCount;
+
+        Entry(String key, Shader shader, Path[] sources)
+        {
+            this.key = key;
+            this.shader = shader;
+            this.sources = sources;
+            this.modified = new long[sources.length];
+            for (int i = 0; i < sources.length; i++)
+            {
+                modified[i] = lastModified(sources[i]);
+            }
+        }
+    }
+
+    /** Shared programs mapped by source set key */
+    private final Map<String, Entry> programs = new HashMap<>();
+    /** Reverse lookup for release() */
+    private final Map<Shader, Entry> byShader = new IdentityHashMap<>();
+    /** Shader source files mapped by GUID */
+    private final Map<String, Path> sources = new HashMap<>();
+
+    private long lastCheck = 0;
+
+    /** Private constructor for singleton pattern */
+    private ShaderManager()
+    {
+    }
+
+    /**
+     * Gets or creates the ShaderManager instance.
+     * @return The singleton ShaderManager instance
+     */
+    public static ShaderManager get()
+    {
+        if (instance == null)
+        {
+            instance = new ShaderManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the program for a set of shader files, compiling it on first use.
+     * Must be called on the GL thread.
+     * @param vertexPath Path to vertex shader file
+     * @param fragmentPath Path to fragment shader file
+     * @param geometryPath Path to geometry shader file (optional)
+     * @return The shared Shader
+     */
+    public Shader acquire(String vertexPath, String fragmentPath, String geometryPath)
+    {
+        String key = guidOf(vertexPath) + "|" + guidOf(fragmentPath) + "|" + guidOf(geometryPath);
+
+        Entry entry = programs.get(key);
+        if (entry == null)
+        {
+            Shader shader = new Shader(vertexPath, fragmentPath, geometryPath);
+            entry = new Entry(key, shader, pathsOf(vertexPath, fragmentPath, geometryPath));
+            programs.put(key, entry);
+            byShader.put(shader, entry);
+        }
+        entry.refCount++;
+        return entry.shader;
+    }
+
+    /**
+     * Adds a reference to a program acquired from this manager, for an additional owner.
+     * Shaders not created here are returned unchanged.
+     * @param shader The shader to retain, or null
+     * @return The same shader
+     */
+    public Shader retain(Shader shader)
+    {
+        Entry entry = byShader.get(shader);
+        if (entry != null) entry.refCount++;
+        return shader;
+    }
+
+    /**
+     * Gives up one reference to a program acquired from this manager.
+     * The program is deleted once nobody uses it. Shaders not created here are ignored.
+     * @param shader The shader to release
+     */
+    public void release(Shader shader)
+    {
+        Entry entry = byShader.get(shader);
+        if (entry == null) return;
+
+        if (--entry.refCount <= 0)
+        {
+            programs.remove(entry.key);
+            byShader.remove(shader);
+            shader.delete();
+        }
+    }
+
+    /**
+     * Registers a shader source file so programs can refer to it by GUID.
+     * @param filePath Path to the shader source file
+     * @param guid GUID to associate with the file
+     */
+    public void load(Path filePath, String guid)
+    {
+        if (sources.containsKey(guid))
+        {
+            return;
+        }
+        sources.put(guid, filePath);
+        AssetManager.put(guid, filePath);
+    }
+
+    /**
+     * Gets a registered shader source file by its GUID.
+     * @param guid GUID of the source file
+     * @return The path, or null if not found
+     */
+    public Path getSourcePath(String guid)
+    {
+        return sources.get(guid);
+    }
+
+    /**
+     * Returns the number of live programs.
+     * @return Program count
+     */
+    public int getProgramCount()
+    {
+        return programs.size();
+    }
+
+    /**
+     * Reloads programs whose source files changed since they were built.
+     * Checks at most every RELOAD_CHECK_INTERVAL_MS; call once per frame on the GL thread.
+     */
+    public void update()
+    {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck < RELOAD_CHECK_INTERVAL_MS) return;
+        lastCheck = now;
+
+        for (Entry entry : programs.values())
+        {
+            boolean changed = false;
+            for (int i = 0; i < entry.sources.length; i++)
+            {
+                long time = lastModified(entry.sources[i]);
+                if (time != entry.modified[i])
+                {
+                    entry.modified[i] = time;
+                    changed = true;
+                }
+            }
+
+            if (changed && entry.shader.reload())
+            {
+                Console.log("Reloaded shader: " + entry.shader.getFragmentPath());
+            }
+        }
+    }
+
+    private static String guidOf(String path)
+    {
+        return (path == null || path.isEmpty()) ? "-" : GUID.generateGUIDFromPath(path);
+    }
+
+    private static Path[] pathsOf(String... paths)
+    {
+        int count = 0;
+        for (String path : paths)
+        {
+            if (path != null && !path.isEmpty()) count++;
+        }
+
+        Path[] result = new Path[count];
+        int i = 0;
+        for (String path : paths)
+        {
+            if (path != null && !path.isEmpty()) result[i++] = Paths.get(path);
+        }
+        return result;
+    }
+
+    private static long lastModified(Path path)
+    {
+        try
+        {
+            return Files.getLastModifiedTime(path).toMillis();
+        }
+        catch (Exception e)
+        {
+            return 0;       // Missing while an editor saves; picked up on a later check
+        }
+    }
+}
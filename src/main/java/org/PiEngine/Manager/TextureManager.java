@@ -1,16 +1,23 @@
 package org.PiEngine.Manager;
 
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.PiEngine.Main;
+import org.PiEngine.Engine.Console;
+import org.PiEngine.IO.TextureAtlasBuilder;
 import org.PiEngine.IO.TextureLoader;
 import org.PiEngine.Render.Texture;
+import org.PiEngine.Render.TextureAtlas;
 import org.lwjgl.opengl.GL11;
 
 /**
  * Singleton class that manages texture resources in the Pi-Engine.
  * Handles loading, caching, and providing access to texture assets.
+ * Small images in the Sprites folder are served as regions of shared atlas pages
+ * (see TextureAtlasBuilder); everything else is loaded as a standalone texture.
  */
 public class TextureManager
 {
@@ -20,6 +27,14 @@ public class TextureManager
     /** Cache of loaded textures mapped by GUID */
     private final Map<String, Texture> textures = new HashMap<>();
 
+    /** Folder whose images are packed into the atlas */
+    public static final String ATLAS_SOURCE_FOLDER = "Sprites";
+    /** Folder holding the packed atlas cache */
+    public static final String ATLAS_CACHE_FOLDER = "Compiled/Atlas";
+
+    /** Packed sprites, built on the first load */
+    private TextureAtlas atlas;
+
     /** Private constructor for singleton pattern */
     private TextureManager()
     {
@@ -49,8 +64,13 @@ public class TextureManager
         {
             return;
         }
-        Texture texture = TextureLoader.loadTexture(filePath.toString(), GL11.GL_NEAREST, GL11.GL_NEAREST);
-        texture.setGUID(guid);
+        Texture texture = getAtlas().getRegion(guid);
+        if (texture == null)
+        {
+            texture = TextureLoader.loadTexture(filePath.toString(), GL11.GL_NEAREST, GL11.GL_NEAREST);
+            if (texture == null) return;
+            texture.setGUID(guid);
+        }
         textures.put(guid, texture);
         AssetManager.put(guid, texture);
     }
@@ -64,4 +84,28 @@ public class TextureManager
     {
         return textures.get(guid);
     }
+
+    /**
+     * Gets the sprite atlas, packing or loading it from the cache on first use.
+     * Must be called on the GL thread.
+     * @return The atlas; empty if it could not be built
+     */
+    public TextureAtlas getAtlas()
+    {
+        if (atlas == null)
+        {
+            try
+            {
+                atlas = TextureAtlasBuilder.buildOrLoad(
+                    Paths.get(Main.ResourceFolder).normalize().resolve(ATLAS_SOURCE_FOLDER),
+                    Paths.get(ATLAS_CACHE_FOLDER));
+            }
+            catch (Exception e)
+            {
+                Console.error("Failed to build texture atlas: " + e.getMessage());
+                atlas = new TextureAtlas();
+            }
+        }
+        return atlas;
+    }
 }
@@ -0,0 +1,264 @@
+package org.PiEngine.Math;
+
+/**
+ * An axis-aligned bounding box in world space, stored as center and half extents.
+ */
+public class Bounds
+{
+    /** Center of the box */
+    public float centerX, centerY, centerZ;
+    /** Half size of the box along each axis */
+    public float extentX, extentY, extentZ;
+
+    /**
+     * Sets the box from its center and half extents.
+     * @param centerX Center x
+     * @param centerY Center y
+     * @param centerZ Center z
+     * @param extentX Half size along x
+     * @param extentY Half size along y
+     * @param extentZ Half size along z
+     * @return This box
+     */
+    public Bounds set(float centerX, float centerY, float centerZ, float extentX, float extentY, float extentZ)
+    {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.extentX = extentX;
+        this.extentY = extentY;
+        this.extentZ = extentZ;
+        return this;
+    }
+
+    /**
+     * Copies another box.
+     * @param other The box to copy
+     * @return This box
+     */
+    public Bounds set(Bounds other)
+    {
+        return set(other.centerX, other.centerY, other.centerZ, other.extentX, other.extentY, other.extentZ);
+    }
+
+    /**
+     * Sets the box from its corners.
+     * @param minX Smallest x
+     * @param minY Smallest y
+     * @param minZ Smallest z
+     * @param maxX Largest x
+     * @param maxY Largest y
+     * @param maxZ Largest z
+     * @return This box
+     */
+    public Bounds setMinMax(float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+    {
+        return set((minX + maxX) * 0.5f, (minY + maxY) * 0.5f, (minZ + maxZ) * 0.5f,
+            (maxX - minX) * 0.5f, (maxY - minY) * 0.5f, (maxZ - minZ) * 0.5f);
+    }
+
+    /**
+     * Sets the box to the smallest box enclosing two boxes. Either may be this box.
+     * @param a First box
+     * @param b Second box
+     * @return This box
+     */
+    public Bounds setUnion(Bounds a, Bounds b)
+    {
+        return setMinMax(
+            Math.min(a.getMinX(), b.getMinX()), Math.min(a.getMinY(), b.getMinY()), Math.min(a.getMinZ(), b.getMinZ()),
+            Math.max(a.getMaxX(), b.getMaxX()), Math.max(a.getMaxY(), b.getMaxY()), Math.max(a.getMaxZ(), b.getMaxZ()));
+    }
+
+    /**
+     * Grows the box to also enclose another box.
+     * @param other The box to include
+     * @return This box
+     */
+    public Bounds include(Bounds other)
+    {
+        return setUnion(this, other);
+    }
+
+    /**
+     * Grows the box by a margin on every side.
+     * @param margin Distance added to each half extent
+     * @return This box
+     */
+    public Bounds expand(float margin)
+    {
+        extentX += margin;
+        extentY += margin;
+        extentZ += margin;
+        return this;
+    }
+
+    /**
+     * Smallest x inside the box.
+     * @return Min corner x
+     */
+    public float getMinX()
+    {
+        return centerX - extentX;
+    }
+
+    /**
+     * Smallest y inside the box.
+     * @return Min corner y
+     */
+    public float getMinY()
+    {
+        return centerY - extentY;
+    }
+
+    /**
+     * Smallest z inside the box.
+     * @return Min corner z
+     */
+    public float getMinZ()
+    {
+        return centerZ - extentZ;
+    }
+
+    /**
+     * Largest x inside the box.
+     * @return Max corner x
+     */
+    public float getMaxX()
+    {
+        return centerX + extentX;
+    }
+
+    /**
+     * Largest y inside the box.
+     * @return Max corner y
+     */
+    public float getMaxY()
+    {
+        return centerY + extentY;
+    }
+
+    /**
+     * Largest z inside the box.
+     * @return Max corner z
+     */
+    public float getMaxZ()
+    {
+        return centerZ + extentZ;
+    }
+
+
+    /**
+     * Sum of the half extents. Grows with the size of the box like its surface area, but stays
+     * meaningful for flat boxes, so it is used as the cost of a box when building trees.
+     * @return Sum of the half extents
+     */
+    public float getExtentSum()
+    {
+        return extentX + extentY + extentZ;
+    }
+
+    /**
+     * Tests whether another box lies completely inside this one.
+     * @param other The other box
+     * @return True if other is contained
+     */
+    public boolean contains(Bounds other)
+    {
+        return Math.abs(other.centerX - centerX) + other.extentX <= extentX
+            && Math.abs(other.centerY - centerY) + other.extentY <= extentY
+            && Math.abs(other.centerZ - centerZ) + other.extentZ <= extentZ;
+    }
+
+    /**
+     * Tests whether two boxes overlap. Touching boxes overlap.
+     * @param other The other box
+     * @return True if the boxes overlap
+     */
+    public boolean intersects(Bounds other)
+    {
+        return Math.abs(other.centerX - centerX) <= extentX + other.extentX
+            && Math.abs(other.centerY - centerY) <= extentY + other.extentY
+            && Math.abs(other.centerZ - centerZ) <= extentZ + other.extentZ;
+    }
+
+    /**
+     * Squared distance from a point to the box; 0 if the point is inside.
+     * @param x Point x
+     * @param y Point y
+     * @param z Point z
+     * @return Squared distance
+     */
+    public float distanceSquared(float x, float y, float z)
+    {
+        float dx = Math.max(0, Math.abs(x - centerX) - extentX);
+        float dy = Math.max(0, Math.abs(y - centerY) - extentY);
+        float dz = Math.max(0, Math.abs(z - centerZ) - extentZ);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Intersects a ray with the box.
+     * @param ox Ray origin x
+     * @param oy Ray origin y
+     * @param oz Ray origin z
+     * @param dx Ray direction x
+     * @param dy Ray direction y
+     * @param dz Ray direction z
+     * @param maxDistance Largest ray parameter to accept
+     * @return Ray parameter where the ray enters the box (0 if it starts inside), or -1 if it misses
+     */
+    public float intersectRay(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance)
+    {
+        float near = 0;
+        float far = maxDistance;
+        for (int axis = 0; axis < 3; axis++)
+        {
+            float o = axis == 0 ? ox : axis == 1 ? oy : oz;
+            float d = axis == 0 ? dx : axis == 1 ? dy : dz;
+            float c = axis == 0 ? centerX : axis == 1 ? centerY : centerZ;
+            float e = axis == 0 ? extentX : axis == 1 ? extentY : extentZ;
+            if (Math.abs(d) < 1e-12f)
+            {
+                // Parallel to this slab: inside it everywhere or nowhere
+                if (o < c - e || o > c + e) return -1;
+                continue;
+            }
+            float t0 = (c - e - o) / d;
+            float t1 = (c + e - o) / d;
+            if (t0 > t1) { float t = t0; t0 = t1; t1 = t; }
+            near = Math.max(near, t0);
+            far = Math.min(far, t1);
+            if (near > far) return -1;
+        }
+        return near;
+    }
+
+    /**
+     * Sets the box to enclose a transformed square in the local XY plane, centered on the origin,
+     * like a sprite quad.
+     * @param model World matrix of the quad
+     * @param halfSize Half the edge length of the quad in local units
+     * @return This box
+     */
+    public Bounds setTransformedQuad(Matrix4 model, float halfSize)
+    {
+        float[] m = model.elements;
+        float h = Math.abs(halfSize);
+        return set(m[3], m[7], m[11],
+            h * (Math.abs(m[0]) + Math.abs(m[1])),
+            h * (Math.abs(m[4]) + Math.abs(m[5])),
+            h * (Math.abs(m[8]) + Math.abs(m[9])));
+    }
+
+    /**
+     * Returns a readable description of the box.
+     * @return The box as text
+     */
+    @Override
+    public String toString()
+    {
+        return "Bounds(center=" + centerX + ", " + centerY + ", " + centerZ
+            + " extent=" + extentX + ", " + extentY + ", " + extentZ + ")";
+    }
+}
@@ -0,0 +1,116 @@
+package org.PiEngine.Math;
+
+/**
+ * The six clip planes of a camera, extracted from its view-projection matrix.
+ * Works for orthographic and perspective projections alike.
+ * <p>
+ * Counts the boxes tested and culled since the last resetCounters(), for statistics.
+ */
+public class Frustum
+{
+    // a, b, c, d per plane: left, right, bottom, top, near, far
+    private final float[] planes = new float[24];
+    private final Matrix4 inverse = new Matrix4();      // Clip space to world, for getBounds()
+
+    private int tested = 0;
+    private int culled = 0;
+
+    /**
+     * Extracts the planes from a view-projection matrix (clip = viewProj * world).
+     * @param viewProj The combined projection * view matrix
+     * @return This frustum
+     */
+    public Frustum set(Matrix4 viewProj)
+    {
+        float[] m = viewProj.elements;
+        for (int axis = 0; axis < 3; axis++)
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                float w = m[12 + i];
+                float v = m[axis * 4 + i];
+                planes[axis * 8 + i] = w + v;        // -w <= v
+                planes[axis * 8 + 4 + i] = w - v;    //  v <= w
+            }
+        }
+        Matrix4.invert(viewProj, inverse);
+        return this;
+    }
+
+    /**
+     * Computes the world-space box around the frustum from the eight corners of clip space.
+     * Meant for broad-phase queries; intersects() remains the exact test.
+     * @param out Box receiving the bounds
+     * @return out
+     */
+    public Bounds getBounds(Bounds out)
+    {
+        float[] m = inverse.elements;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int corner = 0; corner < 8; corner++)
+        {
+            float x = (corner & 1) == 0 ? -1 : 1;
+            float y = (corner & 2) == 0 ? -1 : 1;
+            float z = (corner & 4) == 0 ? -1 : 1;
+            float w = m[12] * x + m[13] * y + m[14] * z + m[15];
+            float wx = (m[0] * x + m[1] * y + m[2] * z + m[3]) / w;
+            float wy = (m[4] * x + m[5] * y + m[6] * z + m[7]) / w;
+            float wz = (m[8] * x + m[9] * y + m[10] * z + m[11]) / w;
+            minX = Math.min(minX, wx); maxX = Math.max(maxX, wx);
+            minY = Math.min(minY, wy); maxY = Math.max(maxY, wy);
+            minZ = Math.min(minZ, wz); maxZ = Math.max(maxZ, wz);
+        }
+        return out.setMinMax(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Tests whether a box is at least partly inside the frustum, and counts the result.
+     * @param bounds The world-space box
+     * @return False only if the box is entirely outside one of the planes
+     */
+    public boolean intersects(Bounds bounds)
+    {
+        tested++;
+        for (int p = 0; p < 24; p += 4)
+        {
+            float a = planes[p], b = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+            // Signed distance of the center against the projected radius of the box
+            float distance = a * bounds.centerX + b * bounds.centerY + c * bounds.centerZ + d;
+            float radius = Math.abs(a) * bounds.extentX + Math.abs(b) * bounds.extentY + Math.abs(c) * bounds.extentZ;
+            if (distance + radius < 0)
+            {
+                culled++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Clears the test counters.
+     */
+    public void resetCounters()
+    {
+        tested = 0;
+        culled = 0;
+    }
+
+    /**
+     * Returns the number of boxes tested since the last reset.
+     * @return Tested count
+     */
+    public int getTested()
+    {
+        return tested;
+    }
+
+    /**
+     * Returns the number of boxes found outside since the last reset.
+     * @return Culled count
+     */
+    public int getCulled()
+    {
+        return culled;
+    }
+}
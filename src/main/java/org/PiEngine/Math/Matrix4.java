@@ -28,13 +28,32 @@ public class Matrix4
      */
     public static Matrix4 identity() 
     {
-        Matrix4 result = new Matrix4();
-        for (int i = 0; i < 16; i++) result.elements[i] = 0;
-        result.elements[0 + 0 * 4] = 1.0f;
-        result.elements[1 + 1 * 4] = 1.0f;
-        result.elements[2 + 2 * 4] = 1.0f;
-        result.elements[3 + 3 * 4] = 1.0f;
-        return result;
+        return new Matrix4().setIdentity();
+    }
+
+    /**
+     * Resets this matrix to identity in place.
+     * @return This matrix
+     */
+    public Matrix4 setIdentity()
+    {
+        for (int i = 0; i < 16; i++) elements[i] = 0;
+        elements[0 + 0 * 4] = 1.0f;
+        elements[1 + 1 * 4] = 1.0f;
+        elements[2 + 2 * 4] = 1.0f;
+        elements[3 + 3 * 4] = 1.0f;
+        return this;
+    }
+
+    /**
+     * Copies the values of another matrix into this one.
+     * @param other Matrix to copy from
+     * @return This matrix
+     */
+    public Matrix4 set(Matrix4 other)
+    {
+        System.arraycopy(other.elements, 0, elements, 0, 16);
+        return this;
     }
 
     /**
@@ -46,20 +65,52 @@ public class Matrix4
      */
     public static Matrix4 multiply(Matrix4 a, Matrix4 b) 
     {
-        Matrix4 result = new Matrix4();
-        for (int row = 0; row < 4; row++) 
+        return multiply(a, b, new Matrix4());
+    }
+
+    /**
+     * Multiplies two matrices and writes the result into dest without allocating.
+     * dest may be the same object as a or b.
+     * @param a First matrix (left operand)
+     * @param b Second matrix (right operand)
+     * @param dest Matrix receiving a * b
+     * @return dest
+     */
+    public static Matrix4 multiply(Matrix4 a, Matrix4 b, Matrix4 dest)
+    {
+        multiply(a.elements, 0, b.elements, 0, dest.elements, 0);
+        return dest;
+    }
+
+    /**
+     * Multiplies two matrices stored in flat arrays (same layout as elements) into a destination array.
+     * The destination range may overlap either source range.
+     * @param a Left operand array
+     * @param aOff Offset of the left matrix
+     * @param b Right operand array
+     * @param bOff Offset of the right matrix
+     * @param dest Destination array
+     * @param destOff Offset of the destination matrix
+     */
+    public static void multiply(float[] a, int aOff, float[] b, int bOff, float[] dest, int destOff)
+    {
+        float b00 = b[bOff],      b01 = b[bOff + 1],  b02 = b[bOff + 2],  b03 = b[bOff + 3];
+        float b10 = b[bOff + 4],  b11 = b[bOff + 5],  b12 = b[bOff + 6],  b13 = b[bOff + 7];
+        float b20 = b[bOff + 8],  b21 = b[bOff + 9],  b22 = b[bOff + 10], b23 = b[bOff + 11];
+        float b30 = b[bOff + 12], b31 = b[bOff + 13], b32 = b[bOff + 14], b33 = b[bOff + 15];
+
+        for (int row = 0; row < 4; row++)
         {
-            for (int col = 0; col < 4; col++) 
-            {
-                float sum = 0;
-                for (int i = 0; i < 4; i++) 
-                {
-                    sum += a.elements[i + row * 4] * b.elements[col + i * 4];
-                }
-                result.elements[col + row * 4] = sum;
-            }
+            int r = row * 4;
+            float a0 = a[aOff + r];
+            float a1 = a[aOff + r + 1];
+            float a2 = a[aOff + r + 2];
+            float a3 = a[aOff + r + 3];
+            dest[destOff + r]     = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+            dest[destOff + r + 1] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+            dest[destOff + r + 2] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+            dest[destOff + r + 3] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
         }
-        return result;
     }
 
     /**
@@ -108,11 +159,23 @@ public class Matrix4
      */
     public static Matrix4 translate(Vector vector) 
     {
-        Matrix4 result = identity();
-        result.elements[3 + 0 * 4] = (float) vector.x;
-        result.elements[3 + 1 * 4] = (float) vector.y;
-        result.elements[3 + 2 * 4] = (float) vector.z;
-        return result;
+        return new Matrix4().setTranslate(vector.x, vector.y, vector.z);
+    }
+
+    /**
+     * Turns this matrix into a translation matrix in place.
+     * @param x X translation
+     * @param y Y translation
+     * @param z Z translation
+     * @return This matrix
+     */
+    public Matrix4 setTranslate(float x, float y, float z)
+    {
+        setIdentity();
+        elements[3 + 0 * 4] = x;
+        elements[3 + 1 * 4] = y;
+        elements[3 + 2 * 4] = z;
+        return this;
     }
 
     /**
@@ -124,7 +187,7 @@ public class Matrix4
      */
     public static Matrix4 translate(float x, float y, float z) 
     {
-        return translate(new Vector(x, y, z));
+        return new Matrix4().setTranslate(x, y, z);
     }
 
     /**
@@ -134,11 +197,23 @@ public class Matrix4
      */
     public static Matrix4 scale(Vector vector) 
     {
-        Matrix4 result = identity();
-        result.elements[0 + 0 * 4] = (float) vector.x;
-        result.elements[1 + 1 * 4] = (float) vector.y;
-        result.elements[2 + 2 * 4] = (float) vector.z;
-        return result;
+        return new Matrix4().setScale(vector.x, vector.y, vector.z);
+    }
+
+    /**
+     * Turns this matrix into a scale matrix in place.
+     * @param x X scale factor
+     * @param y Y scale factor
+     * @param z Z scale factor
+     * @return This matrix
+     */
+    public Matrix4 setScale(float x, float y, float z)
+    {
+        setIdentity();
+        elements[0 + 0 * 4] = x;
+        elements[1 + 1 * 4] = y;
+        elements[2 + 2 * 4] = z;
+        return this;
     }
 
     /**
@@ -150,7 +225,7 @@ public class Matrix4
      */
     public static Matrix4 scale(float x, float y, float z) 
     {
-        return scale(new Vector(x, y, z));
+        return new Matrix4().setScale(x, y, z);
     }
 
     /**
@@ -162,30 +237,103 @@ public class Matrix4
      */
     public static Matrix4 rotate(float angleDeg, Vector axis) 
     {
-        Matrix4 result = identity();
+        return new Matrix4().setRotate(angleDeg, axis.x, axis.y, axis.z);
+    }
+
+    /**
+     * Turns this matrix into a rotation matrix in place (Rodrigues' rotation formula).
+     * @param angleDeg Rotation angle in degrees
+     * @param x Rotation axis X (axis should be normalized)
+     * @param y Rotation axis Y
+     * @param z Rotation axis Z
+     * @return This matrix
+     */
+    public Matrix4 setRotate(float angleDeg, float x, float y, float z)
+    {
+        setIdentity();
 
         float rad = (float) Math.toRadians(angleDeg);
         float cos = (float) Math.cos(rad);
         float sin = (float) Math.sin(rad);
         float omc = 1.0f - cos;
 
-        float x = (float) axis.x;
-        float y = (float) axis.y;
-        float z = (float) axis.z;
+        elements[0 + 0 * 4] = cos + x * x * omc;
+        elements[0 + 1 * 4] = y * x * omc + z * sin;
+        elements[0 + 2 * 4] = z * x * omc - y * sin;
 
-        result.elements[0 + 0 * 4] = cos + x * x * omc;
-        result.elements[0 + 1 * 4] = y * x * omc + z * sin;
-        result.elements[0 + 2 * 4] = z * x * omc - y * sin;
+        elements[1 + 0 * 4] = x * y * omc - z * sin;
+        elements[1 + 1 * 4] = cos + y * y * omc;
+        elements[1 + 2 * 4] = z * y * omc + x * sin;
 
-        result.elements[1 + 0 * 4] = x * y * omc - z * sin;
-        result.elements[1 + 1 * 4] = cos + y * y * omc;
-        result.elements[1 + 2 * 4] = z * y * omc + x * sin;
+        elements[2 + 0 * 4] = x * z * omc + y * sin;
+        elements[2 + 1 * 4] = y * z * omc - x * sin;
+        elements[2 + 2 * 4] = cos + z * z * omc;
 
-        result.elements[2 + 0 * 4] = x * z * omc + y * sin;
-        result.elements[2 + 1 * 4] = y * z * omc - x * sin;
-        result.elements[2 + 2 * 4] = cos + z * z * omc;
+        return this;
+    }
 
-        return result;
+    /**
+     * Sets this matrix to translation * rotation * scale in place,
+     * where rotation is Rz * Ry * Rx built from Euler angles in degrees.
+     * @param pos Translation
+     * @param rotEuler Euler rotation in degrees
+     * @param scale Scale factors
+     * @return This matrix
+     */
+    public Matrix4 setTRS(Vector pos, Vector rotEuler, Vector scale)
+    {
+        setTRS(elements, 0,
+            pos.x, pos.y, pos.z,
+            rotEuler.x, rotEuler.y, rotEuler.z,
+            scale.x, scale.y, scale.z);
+        return this;
+    }
+
+    /**
+     * Writes translation * Rz * Ry * Rx * scale into a flat array (same layout as elements).
+     * @param dest Destination array
+     * @param off Offset of the destination matrix
+     * @param px Translation X
+     * @param py Translation Y
+     * @param pz Translation Z
+     * @param rxDeg Rotation around X in degrees
+     * @param ryDeg Rotation around Y in degrees
+     * @param rzDeg Rotation around Z in degrees
+     * @param sx Scale X
+     * @param sy Scale Y
+     * @param sz Scale Z
+     */
+    public static void setTRS(float[] dest, int off,
+                              float px, float py, float pz,
+                              float rxDeg, float ryDeg, float rzDeg,
+                              float sx, float sy, float sz)
+    {
+        float rx = (float) Math.toRadians(rxDeg);
+        float ry = (float) Math.toRadians(ryDeg);
+        float rz = (float) Math.toRadians(rzDeg);
+        float cx = (float) Math.cos(rx), snx = (float) Math.sin(rx);
+        float cy = (float) Math.cos(ry), sny = (float) Math.sin(ry);
+        float cz = (float) Math.cos(rz), snz = (float) Math.sin(rz);
+
+        dest[off]      = cz * cy * sx;
+        dest[off + 1]  = (cz * sny * snx - snz * cx) * sy;
+        dest[off + 2]  = (cz * sny * cx + snz * snx) * sz;
+        dest[off + 3]  = px;
+
+        dest[off + 4]  = snz * cy * sx;
+        dest[off + 5]  = (snz * sny * snx + cz * cx) * sy;
+        dest[off + 6]  = (snz * sny * cx - cz * snx) * sz;
+        dest[off + 7]  = py;
+
+        dest[off + 8]  = -sny * sx;
+        dest[off + 9]  = cy * snx * sy;
+        dest[off + 10] = cy * cx * sz;
+        dest[off + 11] = pz;
+
+        dest[off + 12] = 0;
+        dest[off + 13] = 0;
+        dest[off + 14] = 0;
+        dest[off + 15] = 1;
     }
 
     /**
@@ -198,19 +346,32 @@ public class Matrix4
      */
     public static Matrix4 perspective(float fov, float aspect, float near, float far) 
     {
-        Matrix4 result = new Matrix4();
+        return new Matrix4().setPerspective(fov, aspect, near, far);
+    }
+
+    /**
+     * Turns this matrix into a perspective projection matrix in place.
+     * @param fov Field of view in degrees
+     * @param aspect Aspect ratio (width/height)
+     * @param near Near clipping plane distance
+     * @param far Far clipping plane distance
+     * @return This matrix
+     */
+    public Matrix4 setPerspective(float fov, float aspect, float near, float far)
+    {
+        for (int i = 0; i < 16; i++) elements[i] = 0;
 
         float tanFOV = (float) Math.tan(Math.toRadians(fov / 2.0f));
         float range = far - near;
 
-        result.elements[0 + 0 * 4] = 1.0f / (aspect * tanFOV);
-        result.elements[1 + 1 * 4] = 1.0f / tanFOV;
-        result.elements[2 + 2 * 4] = -(far + near) / range;
-        result.elements[2 + 3 * 4] = -1.0f;
-        result.elements[3 + 2 * 4] = -(2 * far * near) / range;
-        result.elements[3 + 3 * 4] = 0.0f;
+        elements[0 + 0 * 4] = 1.0f / (aspect * tanFOV);
+        elements[1 + 1 * 4] = 1.0f / tanFOV;
+        elements[2 + 2 * 4] = -(far + near) / range;
+        elements[2 + 3 * 4] = -1.0f;
+        elements[3 + 2 * 4] = -(2 * far * near) / range;
+        elements[3 + 3 * 4] = 0.0f;
 
-        return result;
+        return this;
     }
 
     /**
@@ -225,17 +386,32 @@ public class Matrix4
      */
     public static Matrix4 orthographic(float left, float right, float bottom, float top, float near, float far) 
     {
-        Matrix4 result = identity();
+        return new Matrix4().setOrthographic(left, right, bottom, top, near, far);
+    }
 
-        result.elements[0 + 0 * 4] = 2f / (right - left);
-        result.elements[1 + 1 * 4] = 2f / (top - bottom);
-        result.elements[2 + 2 * 4] = -2f / (far - near);
+    /**
+     * Turns this matrix into an orthographic projection matrix in place.
+     * @param left Left plane coordinate
+     * @param right Right plane coordinate
+     * @param bottom Bottom plane coordinate
+     * @param top Top plane coordinate
+     * @param near Near plane distance
+     * @param far Far plane distance
+     * @return This matrix
+     */
+    public Matrix4 setOrthographic(float left, float right, float bottom, float top, float near, float far)
+    {
+        setIdentity();
 
-        result.elements[3 + 0 * 4] = -(right + left) / (right - left);
-        result.elements[3 + 1 * 4] = -(top + bottom) / (top - bottom);
-        result.elements[3 + 2 * 4] = -(far + near) / (far - near);
+        elements[0 + 0 * 4] = 2f / (right - left);
+        elements[1 + 1 * 4] = 2f / (top - bottom);
+        elements[2 + 2 * 4] = -2f / (far - near);
 
-        return result;
+        elements[3 + 0 * 4] = -(right + left) / (right - left);
+        elements[3 + 1 * 4] = -(top + bottom) / (top - bottom);
+        elements[3 + 2 * 4] = -(far + near) / (far - near);
+
+        return this;
     }
 
     /**
@@ -245,6 +421,18 @@ public class Matrix4
      * @return Transformed vector
      */
     public Vector multiply(Vector v) 
+    {
+        return multiply(v, new Vector());
+    }
+
+    /**
+     * Multiplies this matrix with a vector (assuming w=1) and writes the result into dest.
+     * Performs a perspective divide if w ≠ 1. dest may be the same object as v.
+     * @param v Vector to transform
+     * @param dest Vector receiving the result
+     * @return dest
+     */
+    public Vector multiply(Vector v, Vector dest)
     {
         float x = v.x, y = v.y, z = v.z, w = 1.0f;
 
@@ -259,7 +447,7 @@ public class Matrix4
             nz /= nw;
         }
 
-        return new Vector(nx, ny, nz);
+        return dest.set(nx, ny, nz);
     }
 
     /**
@@ -278,7 +466,17 @@ public class Matrix4
      */
     public Vector getTranslation()
     {
-        return new Vector
+        return getTranslation(new Vector());
+    }
+
+    /**
+     * Writes the translation component of this matrix into dest.
+     * @param dest Vector receiving the position
+     * @return dest
+     */
+    public Vector getTranslation(Vector dest)
+    {
+        return dest.set
         (
             elements[3 + 0 * 4],
             elements[3 + 1 * 4],
@@ -308,21 +506,32 @@ public class Matrix4
 
     /**
      * Creates an OpenGL-compatible FloatBuffer containing matrix elements.
+     * Allocates a new direct buffer on every call; prefer storeColumnMajor() in per-frame code.
      * @return FloatBuffer ready for use with OpenGL
      */
     public FloatBuffer toFloatBuffer()
     {
         FloatBuffer buffer = BufferUtils.createFloatBuffer(16);
+        storeColumnMajor(buffer);
+        return buffer;
+    }
 
+    /**
+     * Writes the matrix in column-major order into the buffer, starting at its current position.
+     * The buffer position is left unchanged, so it can be passed straight to OpenGL.
+     * @param buffer Buffer with at least 16 remaining floats
+     * @return The same buffer
+     */
+    public FloatBuffer storeColumnMajor(FloatBuffer buffer)
+    {
+        int pos = buffer.position();
         for (int col = 0; col < 4; col++)
         {
             for (int row = 0; row < 4; row++)
             {
-                buffer.put(elements[row * 4 + col]);
+                buffer.put(pos + col * 4 + row, elements[row * 4 + col]);
             }
         }
-
-        buffer.flip();
         return buffer;
     }
 
@@ -334,8 +543,72 @@ public class Matrix4
      */
     public static Matrix4 invert(Matrix4 m) 
     {
-        float[] inv = new float[16];
+        return invert(m, new Matrix4());
+    }
+
+    /**
+     * Calculates the inverse of this matrix into dest.
+     * Writes identity if the matrix is not invertible.
+     * @param dest Matrix receiving the inverse
+     * @return dest
+     */
+    public Matrix4 invertInto(Matrix4 dest)
+    {
+        return invert(this, dest);
+    }
+
+    /**
+     * Calculates the inverse of an affine matrix (rotation/scale plus translation, last row 0 0 0 1) into dest.
+     * Cheaper than the general inverse. Writes identity if the matrix is not invertible.
+     * dest may be the same object as this matrix.
+     * @param dest Matrix receiving the inverse
+     * @return dest
+     */
+    public Matrix4 invertAffineInto(Matrix4 dest)
+    {
+        float[] m = elements;
+        float m00 = m[0], m01 = m[1], m02 = m[2],  tx = m[3];
+        float m10 = m[4], m11 = m[5], m12 = m[6],  ty = m[7];
+        float m20 = m[8], m21 = m[9], m22 = m[10], tz = m[11];
+
+        float c00 = m11 * m22 - m12 * m21;
+        float c01 = m12 * m20 - m10 * m22;
+        float c02 = m10 * m21 - m11 * m20;
+
+        float det = m00 * c00 + m01 * c01 + m02 * c02;
+        if (det == 0) return dest.setIdentity();
+        float invDet = 1.0f / det;
+
+        float i00 = c00 * invDet;
+        float i01 = (m02 * m21 - m01 * m22) * invDet;
+        float i02 = (m01 * m12 - m02 * m11) * invDet;
+        float i10 = c01 * invDet;
+        float i11 = (m00 * m22 - m02 * m20) * invDet;
+        float i12 = (m02 * m10 - m00 * m12) * invDet;
+        float i20 = c02 * invDet;
+        float i21 = (m01 * m20 - m00 * m21) * invDet;
+        float i22 = (m00 * m11 - m01 * m10) * invDet;
+
+        float[] d = dest.elements;
+        d[0]  = i00; d[1]  = i01; d[2]  = i02; d[3]  = -(i00 * tx + i01 * ty + i02 * tz);
+        d[4]  = i10; d[5]  = i11; d[6]  = i12; d[7]  = -(i10 * tx + i11 * ty + i12 * tz);
+        d[8]  = i20; d[9]  = i21; d[10] = i22; d[11] = -(i20 * tx + i21 * ty + i22 * tz);
+        d[12] = 0;   d[13] = 0;   d[14] = 0;   d[15] = 1;
+        return dest;
+    }
+
+    /**
+     * Calculates the inverse of a matrix into dest.
+     * Writes identity if the matrix is not invertible.
+     * dest may be the same object as m (a temporary array is used in that case).
+     * @param m Matrix to invert
+     * @param dest Matrix receiving the inverse
+     * @return dest
+     */
+    public static Matrix4 invert(Matrix4 m, Matrix4 dest)
+    {
         float[] mat = m.elements;
+        float[] inv = (dest == m) ? new float[16] : dest.elements;
 
         inv[0] = mat[5]  * mat[10] * mat[15] - 
                 mat[5]  * mat[11] * mat[14] - 
@@ -450,15 +723,14 @@ public class Matrix4
                 mat[8]  * mat[2]  * mat[5];
 
         float det = mat[0] * inv[0] + mat[1] * inv[4] + mat[2] * inv[8] + mat[3] * inv[12];
-        if (det == 0) return identity();
+        if (det == 0) return dest.setIdentity();
 
         det = 1.0f / det;
 
-        Matrix4 result = new Matrix4();
         for (int i = 0; i < 16; i++)
-            result.elements[i] = inv[i] * det;
+            dest.elements[i] = inv[i] * det;
 
-        return result;
+        return dest;
     }
     
     
@@ -104,6 +104,30 @@ public class Vector
         return new Vector(x + operand.x, y + operand.y, z + operand.z);
     }
 
+    /**
+     * Adds another vector to this one and writes the sum into dest
+     * @param operand Vector to add
+     * @param dest Vector receiving the sum (may be this or operand)
+     * @return dest
+     */
+    public Vector add(Vector operand, Vector dest)
+    {
+        return dest.set(x + operand.x, y + operand.y, z + operand.z);
+    }
+
+    /**
+     * Adds another vector to this one in place
+     * @param operand Vector to add
+     * @return This vector
+     */
+    public Vector addLocal(Vector operand)
+    {
+        x += operand.x;
+        y += operand.y;
+        z += operand.z;
+        return this;
+    }
+
     /**
      * Subtracts another vector from this one
      * @param operand Vector to subtract
@@ -114,6 +138,30 @@ public class Vector
         return new Vector(x - operand.x, y - operand.y, z - operand.z);
     }
 
+    /**
+     * Subtracts another vector from this one and writes the difference into dest
+     * @param operand Vector to subtract
+     * @param dest Vector receiving the difference (may be this or operand)
+     * @return dest
+     */
+    public Vector sub(Vector operand, Vector dest)
+    {
+        return dest.set(x - operand.x, y - operand.y, z - operand.z);
+    }
+
+    /**
+     * Subtracts another vector from this one in place
+     * @param operand Vector to subtract
+     * @return This vector
+     */
+    public Vector subLocal(Vector operand)
+    {
+        x -= operand.x;
+        y -= operand.y;
+        z -= operand.z;
+        return this;
+    }
+
     /**
      * Calculates the dot product with another vector.
      * The dot product represents the cosine of the angle between vectors multiplied by their magnitudes.
@@ -150,6 +198,30 @@ public class Vector
         return new Vector(x * scalar, y * scalar, z * scalar);
     }
 
+    /**
+     * Multiplies the vector by a scalar value and writes the result into dest
+     * @param scalar Value to multiply by
+     * @param dest Vector receiving the result (may be this)
+     * @return dest
+     */
+    public Vector scale(float scalar, Vector dest)
+    {
+        return dest.set(x * scalar, y * scalar, z * scalar);
+    }
+
+    /**
+     * Multiplies the vector by a scalar value in place
+     * @param scalar Value to multiply by
+     * @return This vector
+     */
+    public Vector scaleLocal(float scalar)
+    {
+        x *= scalar;
+        y *= scalar;
+        z *= scalar;
+        return this;
+    }
+
     /**
      * Transforms the vector by a 4x4 matrix
      * @param matrix Transform matrix to apply
@@ -210,6 +282,19 @@ public class Vector
         return new Vector(x, y, z);
     }
 
+    /**
+     * Linearly interpolates between two vectors and writes the result into dest
+     * @param a Start vector
+     * @param b End vector
+     * @param t Interpolation factor (0 to 1)
+     * @param dest Vector receiving the result (may be a or b)
+     * @return dest
+     */
+    public static Vector lerp(Vector a, Vector b, float t, Vector dest)
+    {
+        return dest.set(MathF.lerp(a.x, b.x, t), MathF.lerp(a.y, b.y, t), MathF.lerp(a.z, b.z, t));
+    }
+
     /**
      * Returns a string representation of the vector
      * @return String in format "Vector(x, y, z)"
@@ -221,14 +306,37 @@ public class Vector
     }
 
     /**
-     * Sets this vector's components from another vector
+     * Sets this vector's components from another vector. Same as set(Vector)
      * @param v Source vector
      */
     public void SetVector(Vector v)
     {
-        x = v.x;
-        y = v.y;
-        z = v.z;
+        set(v);
+    }
+
+    /**
+     * Sets this vector's components
+     * @param x New X value
+     * @param y New Y value
+     * @param z New Z value
+     * @return This vector
+     */
+    public Vector set(float x, float y, float z)
+    {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    /**
+     * Sets this vector's components from another vector
+     * @param v Source vector
+     * @return This vector
+     */
+    public Vector set(Vector v)
+    {
+        return set(v.x, v.y, v.z);
     }
 
     /**
@@ -0,0 +1,147 @@
+package org.PiEngine.Render;
+
+import java.nio.FloatBuffer;
+
+import org.PiEngine.Core.Camera;
+import org.PiEngine.Math.Matrix4;
+import org.lwjgl.BufferUtils;
+
+import static org.lwjgl.opengl.GL31.*;
+
+/**
+ * Uniform buffer holding the data shared by every program while one camera renders.
+ * Shaders read it through the std140 block
+ * <pre>
+ * layout(std140) uniform CameraData
+ * {
+ *     mat4 u_ViewProj;
+ *     vec2 u_Resolution;
+ *     float u_Time;
+ * };
+ * </pre>
+ * which Shader binds to BINDING after linking. Renderer updates the buffer once per camera
+ * per frame, so passes and components no longer set these uniforms themselves.
+ * Programs that still declare them as plain uniforms get them copied in by Shader.use().
+ */
+public class CameraUniforms
+{
+    /** Name of the uniform block in GLSL */
+    public static final String BLOCK_NAME = "CameraData";
+    /** Uniform buffer binding point of the block */
+    public static final int BINDING = 0;
+
+    private static final int FLOATS = 20;                // mat4 + vec2 + float, padded to 16 bytes
+
+    private static CameraUniforms instance;
+
+    private final int ubo;
+    private final FloatBuffer data = BufferUtils.createFloatBuffer(FLOATS);
+    private final Matrix4 viewProj = new Matrix4();
+    private float width;
+    private float height;
+    private float time;
+    private int version = 0;                             // Bumped by every update()
+
+    private CameraUniforms()
+    {
+        ubo = glGenBuffers();
+        glBindBuffer(GL_UNIFORM_BUFFER, ubo);
+        glBufferData(GL_UNIFORM_BUFFER, (long) FLOATS * Float.BYTES, GL_DYNAMIC_DRAW);
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+        glBindBufferBase(GL_UNIFORM_BUFFER, BINDING, ubo);
+    }
+
+    /**
+     * Gets or creates the camera uniform buffer. Requires a current GL context.
+     * @return The shared CameraUniforms instance
+     */
+    public static CameraUniforms get()
+    {
+        if (instance == null)
+        {
+            instance = new CameraUniforms();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the camera uniform buffer if it was already created, without touching GL.
+     * @return The shared instance, or null before the first get()
+     */
+    public static CameraUniforms current()
+    {
+        return instance;
+    }
+
+    /**
+     * Uploads the data of a camera.
+     * @param camera The camera about to render
+     * @param width Width of the render target in pixels
+     * @param height Height of the render target in pixels
+     * @param time Elapsed time in seconds
+     */
+    public void update(Camera camera, float width, float height, float time)
+    {
+        Matrix4.multiply(camera.getProjectionMatrix(), camera.getViewMatrix(), viewProj);
+        viewProj.storeColumnMajor(data);
+        data.put(16, width);
+        data.put(17, height);
+        data.put(18, time);
+        this.width = width;
+        this.height = height;
+        this.time = time;
+        version++;
+
+        glBindBuffer(GL_UNIFORM_BUFFER, ubo);
+        glBufferSubData(GL_UNIFORM_BUFFER, 0, data);
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+
+        // Another buffer may have been bound to the binding point in the meantime
+        glBindBufferBase(GL_UNIFORM_BUFFER, BINDING, ubo);
+    }
+
+    /**
+     * Returns the view-projection matrix of the last update.
+     * @return The matrix; must not be modified
+     */
+    public Matrix4 getViewProj()
+    {
+        return viewProj;
+    }
+
+    /**
+     * Returns the render target width of the last update.
+     * @return Width in pixels
+     */
+    public float getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Returns the render target height of the last update.
+     * @return Height in pixels
+     */
+    public float getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Returns the elapsed time of the last update.
+     * @return Time in seconds
+     */
+    public float getTime()
+    {
+        return time;
+    }
+
+    /**
+     * Returns a counter that changes with every update, so programs can skip unchanged uploads.
+     * @return Update count
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+}
@@ -3,7 +3,7 @@ package org.PiEngine.Render;
 import static org.lwjgl.opengl.GL32.*;
 
 /**
- * Represents an OpenGL framebuffer with a color texture and a depth renderbuffer.
+ * Represents an OpenGL framebuffer with a color texture and an optional depth renderbuffer.
  * Used for offscreen rendering and post-processing effects.
  */
 public class Framebuffer
@@ -12,16 +12,29 @@ public class Framebuffer
     private int colorTexture;
     private int depthRenderbuffer;
     private int width, height;
+    private final boolean hasDepth;
 
     /**
-     * Creates a new framebuffer with specified dimensions.
+     * Creates a new framebuffer with specified dimensions and a depth buffer.
      * @param width The framebuffer width
      * @param height The framebuffer height
      */
     public Framebuffer(int width, int height)
+    {
+        this(width, height, true);
+    }
+
+    /**
+     * Creates a new framebuffer with specified dimensions.
+     * @param width The framebuffer width
+     * @param height The framebuffer height
+     * @param depth Whether to attach a depth renderbuffer
+     */
+    public Framebuffer(int width, int height, boolean depth)
     {
         this.width = width;
         this.height = height;
+        this.hasDepth = depth;
         createFramebuffer();
     }
 
@@ -30,7 +43,7 @@ public class Framebuffer
      */
     public void bind()
     {
-        glBindFramebuffer(GL_FRAMEBUFFER, fboId);
+        GLState.bindFramebuffer(fboId);
     }
 
     /**
@@ -38,7 +51,7 @@ public class Framebuffer
      */
     public void unbind()
     {
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        GLState.bindFramebuffer(0);
     }
 
     /**
@@ -68,6 +81,25 @@ public class Framebuffer
         return height;
     }
 
+    /**
+     * Checks whether the framebuffer has a depth attachment.
+     * @return True if a depth renderbuffer is attached
+     */
+    public boolean hasDepth()
+    {
+        return hasDepth;
+    }
+
+    /**
+     * Estimates the GPU memory used by the attachments.
+     * @return Size in bytes (RGBA8 color, plus 4 bytes per pixel for depth)
+     */
+    public long getMemoryBytes()
+    {
+        long pixels = (long) width * height;
+        return pixels * 4 + (hasDepth ? pixels * 4 : 0);
+    }
+
     /**
      * Resizes the framebuffer and its attachments.
      * @param newWidth The new width
@@ -81,30 +113,34 @@ public class Framebuffer
         this.height = newHeight;
 
         // Delete old attachments
+        GLState.onTextureDeleted(colorTexture);
         glDeleteTextures(colorTexture);
-        glDeleteRenderbuffers(depthRenderbuffer);
+        if (hasDepth) glDeleteRenderbuffers(depthRenderbuffer);
 
         // Recreate with new dimensions
-        glBindFramebuffer(GL_FRAMEBUFFER, fboId);
+        GLState.bindFramebuffer(fboId);
 
         colorTexture = glGenTextures();
-        glBindTexture(GL_TEXTURE_2D, colorTexture);
+        GLState.bindTexture(colorTexture);
         glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, 0);
         glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
         glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
         glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_TEXTURE_2D, colorTexture, 0);
 
-        depthRenderbuffer = glGenRenderbuffers();
-        glBindRenderbuffer(GL_RENDERBUFFER, depthRenderbuffer);
-        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT, width, height);
-        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, depthRenderbuffer);
+        if (hasDepth)
+        {
+            depthRenderbuffer = glGenRenderbuffers();
+            glBindRenderbuffer(GL_RENDERBUFFER, depthRenderbuffer);
+            glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT, width, height);
+            glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, depthRenderbuffer);
+        }
 
         if (glCheckFramebufferStatus(GL_FRAMEBUFFER) != GL_FRAMEBUFFER_COMPLETE)
         {
             throw new RuntimeException("Resized framebuffer is incomplete!");
         }
 
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        GLState.bindFramebuffer(0);
     }
 
     /**
@@ -113,26 +149,29 @@ public class Framebuffer
     private void createFramebuffer()
     {
         fboId = glGenFramebuffers();
-        glBindFramebuffer(GL_FRAMEBUFFER, fboId);
+        GLState.bindFramebuffer(fboId);
 
         colorTexture = glGenTextures();
-        glBindTexture(GL_TEXTURE_2D, colorTexture);
+        GLState.bindTexture(colorTexture);
         glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, 0);
         glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
         glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
         glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_TEXTURE_2D, colorTexture, 0);
 
-        depthRenderbuffer = glGenRenderbuffers();
-        glBindRenderbuffer(GL_RENDERBUFFER, depthRenderbuffer);
-        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT, width, height);
-        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, depthRenderbuffer);
+        if (hasDepth)
+        {
+            depthRenderbuffer = glGenRenderbuffers();
+            glBindRenderbuffer(GL_RENDERBUFFER, depthRenderbuffer);
+            glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT, width, height);
+            glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, depthRenderbuffer);
+        }
 
         if (glCheckFramebufferStatus(GL_FRAMEBUFFER) != GL_FRAMEBUFFER_COMPLETE)
         {
             throw new RuntimeException("Framebuffer is incomplete!");
         }
 
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        GLState.bindFramebuffer(0);
     }
 
     /**
@@ -140,9 +179,11 @@ public class Framebuffer
      */
     public void dispose()
     {
+        GLState.onFramebufferDeleted(fboId);
+        GLState.onTextureDeleted(colorTexture);
         glDeleteFramebuffers(fboId);
         glDeleteTextures(colorTexture);
-        glDeleteRenderbuffers(depthRenderbuffer);
+        if (hasDepth) glDeleteRenderbuffers(depthRenderbuffer);
     }
 
 }
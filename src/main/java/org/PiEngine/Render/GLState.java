@@ -0,0 +1,310 @@
+package org.PiEngine.Render;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * Shadows the OpenGL state the engine changes most often and skips calls that would not change it:
+ * bound program, textures per unit, vertex array, framebuffer, blend / depth / cull state and viewport.
+ * All engine code must change this state through GLState, or call invalidate() afterwards,
+ * otherwise the shadow goes stale. GL thread only.
+ * <p>
+ * Issued and elided calls are counted per frame (see endFrame()).
+ */
+public final class GLState
+{
+    private static final int UNKNOWN = -1;
+    private static final int MAX_UNITS = 32;
+
+    private static int program = UNKNOWN;
+    private static int activeUnit = UNKNOWN;
+    private static final int[] textures = new int[MAX_UNITS];
+    private static int vertexArray = UNKNOWN;
+    private static int framebuffer = UNKNOWN;
+
+    // Capabilities: UNKNOWN, 0 or 1
+    private static int blend = UNKNOWN;
+    private static int depthTest = UNKNOWN;
+    private static int depthMask = UNKNOWN;
+    private static int cullFace = UNKNOWN;
+
+    private static int blendSrc = UNKNOWN, blendDst = UNKNOWN;
+    private static int cullMode = UNKNOWN;
+    private static int frontFace = UNKNOWN;
+    private static int viewportX = UNKNOWN, viewportY = UNKNOWN, viewportWidth = UNKNOWN, viewportHeight = UNKNOWN;
+
+    private static long frameIssued, frameElided;
+    private static long lastIssued, lastElided;
+
+    static
+    {
+        Arrays.fill(textures, UNKNOWN);
+    }
+
+    private GLState() {}
+
+    /**
+     * Forgets the shadowed state, e.g. after code outside the engine changed it.
+     */
+    public static void invalidate()
+    {
+        program = activeUnit = vertexArray = framebuffer = UNKNOWN;
+        Arrays.fill(textures, UNKNOWN);
+        blend = depthTest = depthMask = cullFace = UNKNOWN;
+        blendSrc = blendDst = cullMode = frontFace = UNKNOWN;
+        viewportX = viewportY = viewportWidth = viewportHeight = UNKNOWN;
+    }
+
+    /**
+     * Binds a shader program.
+     * @param id The program ID, or 0 to unbind
+     */
+    public static void useProgram(int id)
+    {
+        if (program == id) { frameElided++; return; }
+        glUseProgram(id);
+        program = id;
+        frameIssued++;
+    }
+
+    /**
+     * Selects the active texture unit.
+     * @param unit Unit index (not GL_TEXTURE0 + index)
+     */
+    public static void activeTexture(int unit)
+    {
+        if (activeUnit == unit) { frameElided++; return; }
+        glActiveTexture(GL_TEXTURE0 + unit);
+        activeUnit = unit;
+        frameIssued++;
+    }
+
+    /**
+     * Binds a 2D texture to a unit.
+     * @param unit Unit index (not GL_TEXTURE0 + index)
+     * @param id The texture ID, or 0 to unbind
+     */
+    public static void bindTexture(int unit, int id)
+    {
+        if (unit < MAX_UNITS && textures[unit] == id) { frameElided++; return; }
+        activeTexture(unit);
+        glBindTexture(GL_TEXTURE_2D, id);
+        if (unit < MAX_UNITS) textures[unit] = id;
+        frameIssued++;
+    }
+
+    /**
+     * Binds a 2D texture to the active unit.
+     * @param id The texture ID, or 0 to unbind
+     */
+    public static void bindTexture(int id)
+    {
+        bindTexture(activeUnit == UNKNOWN ? 0 : activeUnit, id);
+    }
+
+    /**
+     * Binds a vertex array object.
+     * @param id The VAO ID, or 0 to unbind
+     */
+    public static void bindVertexArray(int id)
+    {
+        if (vertexArray == id) { frameElided++; return; }
+        glBindVertexArray(id);
+        vertexArray = id;
+        frameIssued++;
+    }
+
+    /**
+     * Binds a framebuffer for reading and drawing.
+     * @param id The framebuffer ID, or 0 for the default framebuffer
+     */
+    public static void bindFramebuffer(int id)
+    {
+        if (framebuffer == id) { frameElided++; return; }
+        glBindFramebuffer(GL_FRAMEBUFFER, id);
+        framebuffer = id;
+        frameIssued++;
+    }
+
+    /**
+     * Enables or disables blending.
+     * @param enabled The new state
+     */
+    public static void setBlend(boolean enabled)
+    {
+        blend = setCapability(GL_BLEND, blend, enabled);
+    }
+
+    /**
+     * Sets the blend function.
+     * @param src Source factor
+     * @param dst Destination factor
+     */
+    public static void blendFunc(int src, int dst)
+    {
+        if (blendSrc == src && blendDst == dst) { frameElided++; return; }
+        glBlendFunc(src, dst);
+        blendSrc = src;
+        blendDst = dst;
+        frameIssued++;
+    }
+
+    /**
+     * Enables or disables the depth test.
+     * @param enabled The new state
+     */
+    public static void setDepthTest(boolean enabled)
+    {
+        depthTest = setCapability(GL_DEPTH_TEST, depthTest, enabled);
+    }
+
+    /**
+     * Enables or disables depth writes.
+     * @param enabled The new state
+     */
+    public static void depthMask(boolean enabled)
+    {
+        int value = enabled ? 1 : 0;
+        if (depthMask == value) { frameElided++; return; }
+        glDepthMask(enabled);
+        depthMask = value;
+        frameIssued++;
+    }
+
+    /**
+     * Enables or disables face culling.
+     * @param enabled The new state
+     */
+    public static void setCullFace(boolean enabled)
+    {
+        cullFace = setCapability(GL_CULL_FACE, cullFace, enabled);
+    }
+
+    /**
+     * Selects which faces are culled.
+     * @param mode GL_BACK, GL_FRONT or GL_FRONT_AND_BACK
+     */
+    public static void cullFace(int mode)
+    {
+        if (cullMode == mode) { frameElided++; return; }
+        glCullFace(mode);
+        cullMode = mode;
+        frameIssued++;
+    }
+
+    /**
+     * Sets the winding of front faces.
+     * @param mode GL_CCW or GL_CW
+     */
+    public static void frontFace(int mode)
+    {
+        if (frontFace == mode) { frameElided++; return; }
+        glFrontFace(mode);
+        frontFace = mode;
+        frameIssued++;
+    }
+
+    /**
+     * Sets the viewport.
+     * @param x Left edge
+     * @param y Bottom edge
+     * @param width Width in pixels
+     * @param height Height in pixels
+     */
+    public static void viewport(int x, int y, int width, int height)
+    {
+        if (viewportX == x && viewportY == y && viewportWidth == width && viewportHeight == height)
+        {
+            frameElided++;
+            return;
+        }
+        glViewport(x, y, width, height);
+        viewportX = x;
+        viewportY = y;
+        viewportWidth = width;
+        viewportHeight = height;
+        frameIssued++;
+    }
+
+    /**
+     * Forgets a program that is being deleted, so a new one with the same ID gets bound.
+     * @param id The program ID
+     */
+    public static void onProgramDeleted(int id)
+    {
+        if (program == id) program = UNKNOWN;
+    }
+
+    /**
+     * Forgets a texture that is being deleted, so a new one with the same ID gets bound.
+     * @param id The texture ID
+     */
+    public static void onTextureDeleted(int id)
+    {
+        for (int i = 0; i < MAX_UNITS; i++)
+        {
+            if (textures[i] == id) textures[i] = UNKNOWN;
+        }
+    }
+
+    /**
+     * Forgets a vertex array object that is being deleted.
+     * @param id The VAO ID
+     */
+    public static void onVertexArrayDeleted(int id)
+    {
+        if (vertexArray == id) vertexArray = UNKNOWN;
+    }
+
+    /**
+     * Forgets a framebuffer that is being deleted.
+     * @param id The framebuffer ID
+     */
+    public static void onFramebufferDeleted(int id)
+    {
+        if (framebuffer == id) framebuffer = UNKNOWN;
+    }
+
+    private static int setCapability(int capability, int current, boolean enabled)
+    {
+        int value = enabled ? 1 : 0;
+        if (current == value)
+        {
+            frameElided++;
+            return current;
+        }
+        if (enabled) glEnable(capability);
+        else glDisable(capability);
+        frameIssued++;
+        return value;
+    }
+
+    /**
+     * Closes the statistics of the current frame. Call once per frame.
+     */
+    public static void endFrame()
+    {
+        lastIssued = frameIssued;
+        lastElided = frameElided;
+        frameIssued = frameElided = 0;
+    }
+
+    /**
+     * Returns the number of state calls passed to OpenGL in the last frame.
+     * @return Issued call count
+     */
+    public static long getIssuedCalls()
+    {
+        return lastIssued;
+    }
+
+    /**
+     * Returns the number of redundant state calls skipped in the last frame.
+     * @return Elided call count
+     */
+    public static long getElidedCalls()
+    {
+        return lastElided;
+    }
+}
@@ -20,7 +20,7 @@ public class Mesh
         vertexCount = vertices.length / 5; // 3 for position, 2 for UV
 
         vao = glGenVertexArrays();
-        glBindVertexArray(vao);
+        GLState.bindVertexArray(vao);
 
         vbo = glGenBuffers();
         glBindBuffer(GL_ARRAY_BUFFER, vbo);
@@ -36,19 +36,22 @@ public class Mesh
 
         // Unbind
         glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
+        GLState.bindVertexArray(0);
     }
 
     /**
      * Updates the mesh's vertex data.
+     * The old storage is orphaned, so the update never waits for draws that still read it.
+     * Geometry that changes every frame should use a StreamingBuffer instead.
      * @param newVertices The new vertex data
      */
     public void updateVertices(float[] newVertices)
     {
         this.vertices = newVertices;
+        vertexCount = vertices.length / 5;
 
         glBindBuffer(GL_ARRAY_BUFFER, vbo);
-        glBufferSubData(GL_ARRAY_BUFFER, 0, vertices);
+        glBufferData(GL_ARRAY_BUFFER, vertices, GL_DYNAMIC_DRAW);
         glBindBuffer(GL_ARRAY_BUFFER, 0);
     }
     
@@ -57,9 +60,8 @@ public class Mesh
      */
     public void render()
     {        
-        glBindVertexArray(vao);
+        GLState.bindVertexArray(vao);
         glDrawArrays(GL_TRIANGLES, 0, vertexCount);
-        glBindVertexArray(0);
     }
 
     /**
@@ -68,6 +70,7 @@ public class Mesh
     public void dispose()
     {
         glDeleteBuffers(vbo);
+        GLState.onVertexArrayDeleted(vao);
         glDeleteVertexArrays(vao);
     }
 }
@@ -0,0 +1,224 @@
+package org.PiEngine.Render;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Measures how long a render pass takes, on the CPU with System.nanoTime and on the GPU with
+ * GL_TIME_ELAPSED queries.
+ * <p>
+ * The GPU queries form a ring of QUERIES: each frame reuses the query issued QUERIES frames
+ * earlier and reads its result only if it is already available, so measuring never waits for
+ * the GPU. A result that is not ready in time is dropped. The ring is one longer than the
+ * StreamingBuffer ring, which already keeps the CPU at most that many frames ahead, so results
+ * are normally ready. GPU timings therefore lag QUERIES frames behind.
+ * <p>
+ * Both timings keep a rolling window of the last HISTORY frames, in milliseconds.
+ */
+public class PassTimer
+{
+    /** Number of frames kept for the rolling statistics */
+    public static final int HISTORY = 120;
+
+    /** Number of GPU queries in flight per timer */
+    public static final int QUERIES = StreamingBuffer.REGIONS + 1;
+
+    /**
+     * Rolling statistics over the last HISTORY samples.
+     */
+    public static class Stats
+    {
+        private final float[] samples = new float[HISTORY];
+        private int next = 0;
+        private int count = 0;
+
+        void add(float value)
+        {
+            samples[next] = value;
+            next = (next + 1) % HISTORY;
+            count = Math.min(count + 1, HISTORY);
+        }
+
+        /**
+         * Returns the number of samples in the window.
+         * @return Sample count
+         */
+        public int getCount()
+        {
+            return count;
+        }
+
+        /**
+         * Returns the most recent sample.
+         * @return Milliseconds, or 0 without samples
+         */
+        public float getLast()
+        {
+            return count == 0 ? 0 : samples[(next + HISTORY - 1) % HISTORY];
+        }
+
+        /**
+         * Returns the mean of the window.
+         * @return Milliseconds, or 0 without samples
+         */
+        public float getAverage()
+        {
+            if (count == 0) return 0;
+            float total = 0;
+            for (int i = 0; i < count; i++) total += samples[i];
+            return total / count;
+        }
+
+        /**
+         * Returns the largest sample of the window.
+         * @return Milliseconds, or 0 without samples
+         */
+        public float getMax()
+        {
+            float max = 0;
+            for (int i = 0; i < count; i++) max = Math.max(max, samples[i]);
+            return max;
+        }
+
+        /**
+         * Returns a percentile of the window (nearest rank).
+         * @param percent Percentile between 0 and 100, e.g. 95
+         * @return Milliseconds, or 0 without samples
+         */
+        public float getPercentile(float percent)
+        {
+            if (count == 0) return 0;
+            float[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percent / 100f * count) - 1;
+            return sorted[Math.max(0, Math.min(rank, count - 1))];
+        }
+
+        /**
+         * Returns the window in chronological order, e.g. for ImGui.plotLines.
+         * @return A new array of getCount() samples
+         */
+        public float[] getHistory()
+        {
+            float[] ordered = new float[count];
+            int start = (next + HISTORY - count) % HISTORY;
+            for (int i = 0; i < count; i++) ordered[i] = samples[(start + i) % HISTORY];
+            return ordered;
+        }
+
+        /**
+         * Drops all samples.
+         */
+        public void clear()
+        {
+            next = 0;
+            count = 0;
+        }
+    }
+
+    private final Stats cpu = new Stats();
+    private final Stats gpu = new Stats();
+
+    private final int[] queries = new int[QUERIES];
+    private final boolean[] pending = new boolean[QUERIES];
+    private int slot = 0;
+    private long cpuStart;
+    private boolean running = false;
+    private long droppedResults = 0;
+
+    /**
+     * Starts timing. Must be paired with end() on the GL thread; GL_TIME_ELAPSED queries
+     * cannot be nested, so timed scopes must not overlap.
+     */
+    public void begin()
+    {
+        if (queries[0] == 0)
+        {
+            glGenQueries(queries);
+        }
+
+        // This query was issued QUERIES frames ago; read it only if the GPU is done with it
+        int query = queries[slot];
+        if (pending[slot])
+        {
+            if (glGetQueryObjecti(query, GL_QUERY_RESULT_AVAILABLE) == GL_TRUE)
+            {
+                gpu.add(glGetQueryObjecti64(query, GL_QUERY_RESULT) / 1_000_000f);
+            }
+            else
+            {
+                droppedResults++;
+            }
+            pending[slot] = false;
+        }
+
+        glBeginQuery(GL_TIME_ELAPSED, query);
+        running = true;
+        cpuStart = System.nanoTime();
+    }
+
+    /**
+     * Stops timing and records the CPU time. The GPU time is collected QUERIES frames later.
+     */
+    public void end()
+    {
+        if (!running) return;
+        cpu.add((System.nanoTime() - cpuStart) / 1_000_000f);
+        glEndQuery(GL_TIME_ELAPSED);
+        pending[slot] = true;
+        slot = (slot + 1) % QUERIES;
+        running = false;
+    }
+
+    /**
+     * Gets the CPU time statistics: time spent issuing the pass.
+     * @return CPU statistics in milliseconds
+     */
+    public Stats getCpu()
+    {
+        return cpu;
+    }
+
+    /**
+     * Gets the GPU time statistics: time the GPU spent executing the pass.
+     * @return GPU statistics in milliseconds
+     */
+    public Stats getGpu()
+    {
+        return gpu;
+    }
+
+    /**
+     * Returns how many GPU results were discarded because they were not ready in time.
+     * @return Dropped result count
+     */
+    public long getDroppedResults()
+    {
+        return droppedResults;
+    }
+
+    /**
+     * Drops all collected statistics, e.g. before a benchmark run.
+     */
+    public void reset()
+    {
+        cpu.clear();
+        gpu.clear();
+        droppedResults = 0;
+    }
+
+    /**
+     * Deletes the GL queries.
+     */
+    public void dispose()
+    {
+        if (queries[0] != 0)
+        {
+            glDeleteQueries(queries);
+            Arrays.fill(queries, 0);
+        }
+        Arrays.fill(pending, false);
+        slot = 0;
+    }
+}
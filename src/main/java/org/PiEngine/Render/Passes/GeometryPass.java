@@ -1,15 +1,43 @@
 package org.PiEngine.Render.Passes;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
 import org.PiEngine.Main;
+import org.PiEngine.Component.Component;
+import org.PiEngine.Component.ComponentMetadata;
 import org.PiEngine.Core.Camera;
 import org.PiEngine.GameObjects.GameObject;
+import org.PiEngine.GameObjects.GameObjectIndex;
+import org.PiEngine.GameObjects.SceneSpatialIndex;
+import org.PiEngine.Math.Frustum;
+import org.PiEngine.Math.Matrix4;
+import org.PiEngine.Manager.ShaderManager;
+import org.PiEngine.Render.GLState;
 import org.PiEngine.Render.RenderPass;
 import org.PiEngine.Render.Shader;
+import org.PiEngine.Render.SpriteBatch;
 
 import static org.lwjgl.opengl.GL30.*;
 
 public class GeometryPass extends RenderPass
 {
+    private SpriteBatch spriteBatch;
+
+    private boolean culling = true;
+    private final Frustum frustum = new Frustum();
+    private final Matrix4 viewProj = new Matrix4();
+    private int lastTested = 0;
+    private int lastCulled = 0;
+    private int lastCandidates = 0;
+
+    // State of the current render, read by drawComponent and drawObject
+    private final List<GameObject> visible = new ArrayList<>();
+    private final Consumer<Component> drawComponent = this::drawComponent;
+    private Camera drawCamera;
+    private Frustum drawFrustum;
+
     /**
      * Creates a geometry pass with custom parameters.
      * @param name The pass name
@@ -27,7 +55,8 @@ public class GeometryPass extends RenderPass
      */
     public GeometryPass()
     {
-        super("Default GeometryPass", new Shader( Main.ResourceFolder + "Shaders/Camera/Default.vert", Main.ResourceFolder + "Shaders/Camera/Default.frag", null), 1600, 900, 0);
+        super("Default GeometryPass", ShaderManager.get().acquire( Main.ResourceFolder + "Shaders/Camera/Default.vert", Main.ResourceFolder + "Shaders/Camera/Default.frag", null), 1600, 900, 0);
+        ShaderManager.get().release(shader);    // The pass retained its own reference
     }
 
     /**
@@ -40,12 +69,154 @@ public class GeometryPass extends RenderPass
         // Prepare framebuffer and OpenGL state for geometry rendering
         bindAndPrepare();
         // Disable writing to the depth buffer for transparent objects
-        glDepthMask(false);
-        // Render the scene with layer masking
-        scene.render(camera, layerMask);
+        GLState.depthMask(false);
+        // Collect sprites from the scene with layer masking, then draw them in batches
+        if (spriteBatch == null) spriteBatch = new SpriteBatch();
+        spriteBatch.begin();
+        if (culling)
+        {
+            // Components outside the camera cost one box test instead of a draw
+            Matrix4.multiply(camera.getProjectionMatrix(), camera.getViewMatrix(), viewProj);
+            frustum.set(viewProj).resetCounters();
+        }
+        drawCamera = camera;
+        drawFrustum = culling ? frustum : null;
+
+        GameObjectIndex index = scene.getIndex();
+        lastCandidates = 0;
+        if (index != null && index.getRoot() == scene && culling)
+        {
+            // Only the objects the spatial index finds in the frustum are looked at
+            drawVisible(index.getSpatialIndex(), scene);
+        }
+        else if (index != null && index.getRoot() == scene)
+        {
+            // Visit only the components that draw something instead of walking the whole hierarchy,
+            // in the same hierarchy order as scene.render()
+            index.getComponentRegistry().forEachRenderer(layerMask, drawComponent);
+        }
+        else
+        {
+            scene.render(camera, layerMask, drawFrustum);
+        }
+
+        lastTested = culling ? frustum.getTested() : 0;
+        lastCulled = culling ? frustum.getCulled() : 0;
+        drawCamera = null;
+        drawFrustum = null;
+        spriteBatch.end();
         // Re-enable writing to the depth buffer
-        glDepthMask(true);
+        GLState.depthMask(true);
         // Unbind the framebuffer to complete the render pass
         framebuffer.unbind();
     }
+
+    /**
+     * Draws the root and the objects the spatial index returns for the frustum.
+     * Each component is still tested against the frustum planes by safeRender().
+     */
+    private void drawVisible(SceneSpatialIndex spatial, GameObject root)
+    {
+        spatial.queryFrustum(drawFrustum, visible);
+        lastCandidates = visible.size();
+
+        drawObject(root);       // The root is not in the spatial index
+        for (int i = 0; i < visible.size(); i++)
+        {
+            drawObject(visible.get(i));
+        }
+        visible.clear();
+    }
+
+    /**
+     * Draws the rendering components of one object, with the same layer checks as GameObject.render().
+     */
+    private void drawObject(GameObject obj)
+    {
+        int layer = obj.getLayerBit();
+        if ((layer & layerMask) == 0 || !drawCamera.canRenderLayer(layer)) return;
+        for (Component c : obj.getComponents())
+        {
+            if (ComponentMetadata.of(c.getClass()).rendersItself()) c.safeRender(drawCamera, drawFrustum);
+        }
+    }
+
+    /**
+     * Draws one component found through the component registry, with the same layer and
+     * frustum checks as GameObject.render().
+     */
+    private void drawComponent(Component c)
+    {
+        if (!drawCamera.canRenderLayer(c.gameObject.getLayerBit())) return;
+        c.safeRender(drawCamera, drawFrustum);
+    }
+
+    /**
+     * Deletes the sprite batch and releases the shader.
+     */
+    @Override
+    public void dispose()
+    {
+        if (spriteBatch != null)
+        {
+            spriteBatch.dispose();
+            spriteBatch = null;
+        }
+        super.dispose();
+    }
+
+    /**
+     * Enables or disables frustum culling.
+     * @param culling The new state
+     */
+    public void setCulling(boolean culling)
+    {
+        this.culling = culling;
+    }
+
+    /**
+     * Whether components outside the camera are skipped.
+     * @return True if frustum culling is enabled
+     */
+    public boolean isCulling()
+    {
+        return culling;
+    }
+
+    /**
+     * Returns how many components with bounds were tested in the last render.
+     * @return Tested count
+     */
+    public int getTestedCount()
+    {
+        return lastTested;
+    }
+
+    /**
+     * Returns how many tested components were skipped as off screen in the last render.
+     * Objects the spatial index already left out are not tested and not counted.
+     * @return Culled count
+     */
+    public int getCulledCount()
+    {
+        return lastCulled;
+    }
+
+    /**
+     * Returns how many objects the spatial index returned for the frustum in the last render.
+     * @return Candidate count, or 0 when the index was not used
+     */
+    public int getCandidateCount()
+    {
+        return lastCandidates;
+    }
+
+    /**
+     * Returns the sprite batch of this pass.
+     * @return The SpriteBatch, or null before the first render
+     */
+    public SpriteBatch getSpriteBatch()
+    {
+        return spriteBatch;
+    }
 }
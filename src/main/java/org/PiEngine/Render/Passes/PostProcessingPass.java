@@ -4,8 +4,11 @@ package org.PiEngine.Render.Passes;
 import static org.lwjgl.opengl.GL30.*;
 
 
+import org.PiEngine.Main;
 import org.PiEngine.Core.Camera;
 import org.PiEngine.GameObjects.GameObject;
+import org.PiEngine.Manager.ShaderManager;
+import org.PiEngine.Render.GLState;
 import org.PiEngine.Render.RenderPass;
 import org.PiEngine.Render.Shader;
 
@@ -19,7 +22,8 @@ public class PostProcessingPass extends RenderPass
      */
     public PostProcessingPass()
     {
-        super("Default Postprocessing", new Shader( "src\\main\\resources\\Shaders\\PostProcess\\SCREEN.vert", "src\\main\\resources\\Shaders\\PostProcess\\CRT.frag", null), 800, 600, 2);
+        super("Default Postprocessing", ShaderManager.get().acquire( Main.ResourceFolder + "Shaders/PostProcess/SCREEN.vert", Main.ResourceFolder + "Shaders/PostProcess/CRT.frag", null), 800, 600, 2);
+        ShaderManager.get().release(shader);    // The pass retained its own reference
     }
 
     /**
@@ -36,6 +40,16 @@ public class PostProcessingPass extends RenderPass
         setupFullscreenTriangle();
     }
 
+    /**
+     * Screen-space passes never test against depth.
+     * @return False
+     */
+    @Override
+    public boolean needsDepth()
+    {
+        return false;
+    }
+
     /**
      * Sets up the VAO/VBO for the fullscreen triangle.
      */
@@ -50,14 +64,14 @@ public class PostProcessingPass extends RenderPass
         fullscreenVAO = glGenVertexArrays();
         fullscreenVBO = glGenBuffers();
 
-        glBindVertexArray(fullscreenVAO);
+        GLState.bindVertexArray(fullscreenVAO);
         glBindBuffer(GL_ARRAY_BUFFER, fullscreenVBO);
         glBufferData(GL_ARRAY_BUFFER, triangleVertices, GL_STATIC_DRAW);
 
         glEnableVertexAttribArray(0);
         glVertexAttribPointer(0, 2, GL_FLOAT, false, 0, 0);
 
-        glBindVertexArray(0);
+        GLState.bindVertexArray(0);
     }
 
     /**
@@ -71,19 +85,29 @@ public class PostProcessingPass extends RenderPass
         // Prepare framebuffer and OpenGL state for post-processing
         bindAndPrepare();
         // Draw fullscreen triangle for screen-space effect
-        glBindVertexArray(fullscreenVAO);
+        GLState.bindVertexArray(fullscreenVAO);
         glDrawArrays(GL_TRIANGLES, 0, 3);
-        glBindVertexArray(0);
         // Unbind framebuffer
         framebuffer.unbind();
     }
 
     /**
-     * Cleans up OpenGL resources.
+     * Cleans up OpenGL resources and releases the shader.
      */
+    @Override
     public void dispose()
     {
-        if (fullscreenVAO != -1) glDeleteVertexArrays(fullscreenVAO);
-        if (fullscreenVBO != -1) glDeleteBuffers(fullscreenVBO);
+        if (fullscreenVAO != -1)
+        {
+            GLState.onVertexArrayDeleted(fullscreenVAO);
+            glDeleteVertexArrays(fullscreenVAO);
+            fullscreenVAO = -1;
+        }
+        if (fullscreenVBO != -1)
+        {
+            glDeleteBuffers(fullscreenVBO);
+            fullscreenVBO = -1;
+        }
+        super.dispose();
     }
 }
@@ -4,15 +4,14 @@ package org.PiEngine.Render;
 import static org.lwjgl.opengl.GL30.*;
 
 import org.PiEngine.Core.Camera;
-import org.PiEngine.Core.Time;
 import org.PiEngine.GameObjects.GameObject;
-import org.PiEngine.Math.Vector;
-import org.lwjgl.opengl.GL11;
+import org.PiEngine.Manager.ShaderManager;
 
 public abstract class RenderPass
 {
     protected String name;
     protected Shader shader;
+    /** Output target, assigned by the Renderer from its pool; null while the pass is culled */
     public Framebuffer framebuffer;
 
     protected int[] inputTextures;
@@ -21,10 +20,20 @@ public abstract class RenderPass
     protected int width, height;
     protected int layerMask = 0xFFFFFFFF;
 
+    /** Names of the input samplers, u_Texture0 .. u_Texture15 */
+    private static final String[] TEXTURE_UNIFORMS = new String[16];
+    static
+    {
+        for (int i = 0; i < TEXTURE_UNIFORMS.length; i++) TEXTURE_UNIFORMS[i] = "u_Texture" + i;
+    }
+
+    /** Program whose sampler uniforms were last assigned (changes when the shader is reloaded) */
+    private int samplerProgram = 0;
+
     /**
      * Constructor for RenderPass.
      * @param name The name of the render pass
-     * @param shader The shader program to use
+     * @param shader The shader program to use; the pass retains its own reference until dispose()
      * @param width The width of the render target
      * @param height The height of the render target
      * @param inputCount The number of input textures
@@ -32,7 +41,7 @@ public abstract class RenderPass
     public RenderPass(String name, Shader shader, int width, int height, int inputCount)
     {
         this.name = name;
-        this.shader = shader;
+        this.shader = ShaderManager.get().retain(shader);
         this.width = width;
         this.height = height;
         this.inputCount = inputCount;
@@ -43,8 +52,16 @@ public abstract class RenderPass
         {
             inputTextures[i] = 0;
         }
+    }
 
-        this.framebuffer = new Framebuffer(width, height);
+    /**
+     * Releases the resources of this pass, including its shader reference.
+     * Called by the Renderer when the pass is removed; the pass must not be rendered afterwards.
+     */
+    public void dispose()
+    {
+        ShaderManager.get().release(shader);
+        shader = null;
     }
 
     /**
@@ -96,7 +113,7 @@ public abstract class RenderPass
     }
 
     /**
-     * Resizes the render target and framebuffer.
+     * Resizes the render target. The Renderer picks a matching target before the next frame.
      * @param width The new width
      * @param height The new height
      */
@@ -104,7 +121,33 @@ public abstract class RenderPass
     {
         this.width = width;
         this.height = height;
-        framebuffer.resize(width, height);
+    }
+
+    /**
+     * Gets the render target width.
+     * @return The width
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Gets the render target height.
+     * @return The height
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Whether the output target needs a depth buffer. Screen-space passes can return false.
+     * @return True if a depth renderbuffer should be attached
+     */
+    public boolean needsDepth()
+    {
+        return true;
     }
 
     /**
@@ -114,24 +157,28 @@ public abstract class RenderPass
     public void bindAndPrepare()
     {
         framebuffer.bind();
-        glViewport(0, 0, width, height);
+        GLState.viewport(0, 0, width, height);
         glClearColor(0.0f, 0.0f, 0.0f, 0f);
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-        GL11.glEnable(GL11.GL_BLEND);
-        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
-
-        glEnable(GL_DEPTH_TEST);
-        
+        GLState.setBlend(true);
+        GLState.blendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        GLState.setDepthTest(true);
 
+        // u_ViewProj, u_Time and u_Resolution come from the camera uniform buffer (see Shader.use())
         shader.use();
-        shader.setUniformVec2("u_Resolution", new Vector(framebuffer.getWidth(), framebuffer.getHeight(), 0));
-        shader.setUniform1f("u_Time", Time.Time);
+        if (shader.getId() != samplerProgram)
+        {
+            // Sampler units are program state, so they only need setting once per program
+            for (int i = 0; i < inputCount; i++)
+            {
+                shader.setUniform1i(shader.getUniformLocation(TEXTURE_UNIFORMS[i]), i);
+            }
+            samplerProgram = shader.getId();
+        }
 
         for (int i = 0; i < inputCount; i++)
         {
-            glActiveTexture(GL_TEXTURE0 + i);
-            glBindTexture(GL_TEXTURE_2D, inputTextures[i]);
-            shader.setUniform1i("u_Texture" + i, i);
+            GLState.bindTexture(i, inputTextures[i]);
             //System.out.println(name + " Input[" + i +"] :" +  inputTextures[i]);
 
         }
@@ -163,12 +210,12 @@ public abstract class RenderPass
      */
     public int getOutputTexture()
     {
-        return framebuffer.getTextureId();
+        return framebuffer != null ? framebuffer.getTextureId() : 0;
     }
 
     /**
      * Gets the framebuffer object.
-     * @return The Framebuffer
+     * @return The Framebuffer, or null if the pass has no target assigned
      */
     public Framebuffer getFramebuffer()
     {
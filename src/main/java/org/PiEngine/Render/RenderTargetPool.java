@@ -0,0 +1,122 @@
+package org.PiEngine.Render;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Framebuffers shared by the passes of a Renderer.
+ * Targets are matched by size and attachments. A target handed out with acquire() can be handed
+ * out again after release(), so passes whose outputs are never needed at the same time alias
+ * the same memory.
+ */
+public class RenderTargetPool
+{
+    private static final class Target
+    {
+        final Framebuffer framebuffer;
+        boolean inUse;
+
+        Target(Framebuffer framebuffer)
+        {
+            this.framebuffer = framebuffer;
+        }
+    }
+
+    private final List<Target> targets = new ArrayList<>();
+
+    /**
+     * Marks every target as free, before the lifetimes are assigned again.
+     */
+    public void releaseAll()
+    {
+        for (Target target : targets) target.inUse = false;
+    }
+
+    /**
+     * Hands out a free target with the given size and attachments, creating one if none is free.
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @param depth Whether a depth buffer is needed
+     * @return The framebuffer
+     */
+    public Framebuffer acquire(int width, int height, boolean depth)
+    {
+        for (Target target : targets)
+        {
+            Framebuffer fb = target.framebuffer;
+            if (!target.inUse && fb.getWidth() == width && fb.getHeight() == height && fb.hasDepth() == depth)
+            {
+                target.inUse = true;
+                return fb;
+            }
+        }
+
+        Target target = new Target(new Framebuffer(width, height, depth));
+        target.inUse = true;
+        targets.add(target);
+        return target.framebuffer;
+    }
+
+    /**
+     * Returns a target to the pool.
+     * @param framebuffer A framebuffer handed out by acquire()
+     */
+    public void release(Framebuffer framebuffer)
+    {
+        for (Target target : targets)
+        {
+            if (target.framebuffer == framebuffer)
+            {
+                target.inUse = false;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deletes the targets that are currently free.
+     */
+    public void trim()
+    {
+        Iterator<Target> it = targets.iterator();
+        while (it.hasNext())
+        {
+            Target target = it.next();
+            if (!target.inUse)
+            {
+                target.framebuffer.dispose();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of allocated targets.
+     * @return Target count
+     */
+    public int getTargetCount()
+    {
+        return targets.size();
+    }
+
+    /**
+     * Estimates the GPU memory used by all allocated targets.
+     * @return Size in bytes
+     */
+    public long getMemoryBytes()
+    {
+        long bytes = 0;
+        for (Target target : targets) bytes += target.framebuffer.getMemoryBytes();
+        return bytes;
+    }
+
+    /**
+     * Deletes every target.
+     */
+    public void dispose()
+    {
+        for (Target target : targets) target.framebuffer.dispose();
+        targets.clear();
+    }
+}
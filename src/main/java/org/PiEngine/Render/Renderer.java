@@ -3,14 +3,47 @@ package org.PiEngine.Render;
 import java.util.*;
 
 import org.PiEngine.Core.Camera;
+import org.PiEngine.Core.Profiler;
+import org.PiEngine.Core.Time;
+import org.PiEngine.Engine.Console;
 import org.PiEngine.GameObjects.GameObject;
 
+/**
+ * A graph of render passes connected output to input.
+ * Before rendering, the graph is compiled into an execution schedule: starting from the final pass,
+ * inputs are followed depth first, so every pass runs after the passes it reads from, and passes that
+ * do not feed the final pass are culled. Without a final pass every pass runs, still in dependency
+ * order. The schedule is cached and rebuilt only after the graph changes. A connection that closes a
+ * cycle is reported and ignored; that input keeps the output of the previous frame.
+ * <p>
+ * Output targets come from a RenderTargetPool. Each scheduled pass holds its target from the step
+ * that writes it to the last step that reads it; after that, the target can be handed to a later
+ * pass with the same size and attachments. The final pass and the sources of cyclic inputs keep
+ * their targets for the whole frame. Culled passes have no target. While a preview is open
+ * (beginPreview(), e.g. the render graph editor), no target is shared, so the output of every
+ * scheduled pass is still intact after the frame.
+ * <p>
+ * Every scheduled pass is timed on the CPU and the GPU by a PassTimer (see getPassTimings()).
+ */
 public class Renderer
 {
-    private final Map<String, RenderPass> passes = new HashMap<>();
+    private final Map<String, RenderPass> passes = new LinkedHashMap<>();
     private final Map<String, Map<Integer, String>> connections = new HashMap<>();
     private String finalPassName = null;
 
+    /** Compiled execution order, rebuilt when dirty */
+    private final List<RenderPass> schedule = new ArrayList<>();
+    private boolean dirty = true;
+
+    /** Passes read through an ignored cyclic connection; their outputs must survive the frame */
+    private final Set<String> persistent = new HashSet<>();
+    private final RenderTargetPool targetPool = new RenderTargetPool();
+    /** Number of open previews of the pass outputs; targets are not aliased while non-zero */
+    private int previews = 0;
+
+    /** CPU and GPU timing per pass; keyed by the pass so it survives renames */
+    private final Map<RenderPass, PassTimer> timers = new HashMap<>();
+
     /**
      * Adds a new render pass to the pipeline.
      * @param pass The RenderPass to add
@@ -18,6 +51,7 @@ public class Renderer
     public void addPass(RenderPass pass)
     {
         passes.put(pass.getName(), pass);
+        dirty = true;
     }
 
     /**
@@ -27,22 +61,31 @@ public class Renderer
     public void removePass(String passName)
     {
         // Remove the pass itself
-        passes.remove(passName);
+        RenderPass removed = passes.remove(passName);
+        if (removed != null)
+        {
+            removed.framebuffer = null;
+            PassTimer timer = timers.remove(removed);
+            if (timer != null) timer.dispose();
+            removed.dispose();
+        }
         
         // Remove all connections to this pass from other passes
-        for (Map.Entry<String, Map<Integer, String>> entry : connections.entrySet())
+        Iterator<Map.Entry<String, Map<Integer, String>>> it = connections.entrySet().iterator();
+        while (it.hasNext())
         {
-            Map<Integer, String> inputMap = entry.getValue();
+            Map<Integer, String> inputMap = it.next().getValue();
             inputMap.entrySet().removeIf(input -> input.getValue().equals(passName));
 
             // If no more connections exist for this pass, remove the entry
             if (inputMap.isEmpty())
             {
-                connections.remove(entry.getKey());
+                it.remove();
             }
         }
 
         connections.remove(passName);
+        dirty = true;
 
         // If the removed pass was the final pass, reset it
         if (passName.equals(finalPassName))
@@ -75,6 +118,17 @@ public class Renderer
                 // Reassign the connections to the new name
                 connections.put(newName, inputMap);
             }
+
+            // Inputs of other passes that read from the renamed pass
+            for (Map<Integer, String> inputMap : connections.values())
+            {
+                inputMap.replaceAll((index, from) -> from.equals(oldName) ? newName : from);
+            }
+            if (oldName.equals(finalPassName))
+            {
+                finalPassName = newName;
+            }
+            dirty = true;
         }
     }
 
@@ -90,7 +144,7 @@ public class Renderer
         connections
             .computeIfAbsent(toPassName, k -> new HashMap<>())
             .put(inputIndex, fromPassName);
-
+        dirty = true;
     }
 
     /**
@@ -110,6 +164,7 @@ public class Renderer
             {
                 connections.remove(toPassName);
             }
+            dirty = true;
         }
     }
 
@@ -120,6 +175,24 @@ public class Renderer
     public void setFinalPass(String name)
     {
         finalPassName = name;
+        dirty = true;
+    }
+
+    /**
+     * Keeps the output of every scheduled pass in its own target until endPreview(),
+     * so all outputs can be shown after the frame. Calls nest.
+     */
+    public void beginPreview()
+    {
+        if (previews++ == 0) dirty = true;
+    }
+
+    /**
+     * Ends a preview started with beginPreview(). Targets are aliased again once none is open.
+     */
+    public void endPreview()
+    {
+        if (previews > 0 && --previews == 0) dirty = true;
     }
 
     /**
@@ -130,8 +203,27 @@ public class Renderer
      */
     public void renderPipeline(Camera camera, GameObject scene)
     {
-        // For each pass, set up input textures from connected passes
-        for (RenderPass pass : passes.values())
+        if (dirty) compile();
+        for (RenderPass pass : schedule)
+        {
+            Framebuffer fb = pass.getFramebuffer();
+            if (fb == null || fb.getWidth() != pass.getWidth() || fb.getHeight() != pass.getHeight())
+            {
+                // A pass was resized
+                allocateTargets();
+                break;
+            }
+        }
+
+        // Camera-wide uniforms, shared by every pass of this camera
+        if (!schedule.isEmpty())
+        {
+            RenderPass last = schedule.get(schedule.size() - 1);
+            CameraUniforms.get().update(camera, last.getWidth(), last.getHeight(), Time.Time);
+        }
+
+        // For each scheduled pass, set up input textures from connected passes
+        for (RenderPass pass : schedule)
         {
             int inputCount = pass.getInputCount();
             Map<Integer, String> inputMap = connections.getOrDefault(pass.getName(), Collections.emptyMap());
@@ -150,14 +242,199 @@ public class Renderer
             }
         }
 
-        // For each pass, perform rendering and unbind framebuffer
-        for (RenderPass pass : passes.values())
+        // Perform rendering in dependency order and unbind framebuffer
+        for (RenderPass pass : schedule)
         {
+            PassTimer timer = timers.computeIfAbsent(pass, p -> new PassTimer());
+            Profiler.begin(pass.getName());
+            timer.begin();
             pass.render(camera, scene);
             pass.unbindFramebuffer();
+            timer.end();
+            Profiler.end();
         }
     }
 
+    /**
+     * Rebuilds the execution schedule from the current passes and connections.
+     */
+    private void compile()
+    {
+        schedule.clear();
+        persistent.clear();
+        Set<String> visiting = new HashSet<>();
+        Set<String> done = new HashSet<>();
+
+        RenderPass finalPass = finalPassName != null ? passes.get(finalPassName) : null;
+        if (finalPass != null)
+        {
+            visit(finalPassName, visiting, done);
+        }
+        else
+        {
+            for (String name : passes.keySet())
+            {
+                visit(name, visiting, done);
+            }
+        }
+        dirty = false;
+        allocateTargets();
+    }
+
+    /**
+     * Assigns pooled output targets to the scheduled passes based on their lifetimes.
+     */
+    private void allocateTargets()
+    {
+        int n = schedule.size();
+        Map<String, Integer> step = new HashMap<>();
+        for (int i = 0; i < n; i++) step.put(schedule.get(i).getName(), i);
+
+        // Last step that reads each output
+        // Without a final pass, or while previewed, every output may be looked at
+        boolean keepAll = previews > 0 || finalPassName == null || !passes.containsKey(finalPassName);
+        int[] lastUse = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            RenderPass pass = schedule.get(i);
+            boolean keep = keepAll || pass.getName().equals(finalPassName) || persistent.contains(pass.getName());
+            lastUse[i] = keep ? n : i;
+        }
+        for (int i = 0; i < n; i++)
+        {
+            Map<Integer, String> inputMap = connections.get(schedule.get(i).getName());
+            if (inputMap == null) continue;
+            for (String from : inputMap.values())
+            {
+                Integer producer = step.get(from);
+                if (producer != null) lastUse[producer] = Math.max(lastUse[producer], i);
+            }
+        }
+
+        for (RenderPass pass : passes.values()) pass.framebuffer = null;
+        targetPool.releaseAll();
+
+        for (int i = 0; i < n; i++)
+        {
+            // Outputs whose last reader ran before this step are free again
+            for (int j = 0; j < i; j++)
+            {
+                if (lastUse[j] == i - 1) targetPool.release(schedule.get(j).framebuffer);
+            }
+
+            RenderPass pass = schedule.get(i);
+            pass.framebuffer = targetPool.acquire(pass.getWidth(), pass.getHeight(), pass.needsDepth());
+        }
+        targetPool.trim();
+    }
+
+    /**
+     * Schedules the inputs of a pass, in input order, and then the pass itself.
+     */
+    private void visit(String name, Set<String> visiting, Set<String> done)
+    {
+        if (done.contains(name)) return;
+        RenderPass pass = passes.get(name);
+        if (pass == null) return;
+
+        visiting.add(name);
+        Map<Integer, String> inputMap = connections.get(name);
+        if (inputMap != null)
+        {
+            for (String from : new TreeMap<>(inputMap).values())
+            {
+                if (visiting.contains(from))
+                {
+                    Console.warning("Render graph cycle: " + from + " -> " + name + " is ignored");
+                    persistent.add(from);
+                    continue;
+                }
+                visit(from, visiting, done);
+            }
+        }
+        visiting.remove(name);
+
+        done.add(name);
+        schedule.add(pass);
+    }
+
+    /**
+     * Gets the compiled execution order, compiling the graph if it changed.
+     * @return Unmodifiable list of the passes that run, in order
+     */
+    public List<RenderPass> getSchedule()
+    {
+        if (dirty) compile();
+        return Collections.unmodifiableList(schedule);
+    }
+
+    /**
+     * Gets the timer of a pass.
+     * @param passName The name of the pass
+     * @return The timer, or null if the pass has not run yet
+     */
+    public PassTimer getPassTimer(String passName)
+    {
+        RenderPass pass = passes.get(passName);
+        return pass != null ? timers.get(pass) : null;
+    }
+
+    /**
+     * Gets the timers of the scheduled passes, e.g. for benchmarks.
+     * @return Map of pass names to timers, in execution order
+     */
+    public Map<String, PassTimer> getPassTimings()
+    {
+        Map<String, PassTimer> timings = new LinkedHashMap<>();
+        for (RenderPass pass : getSchedule())
+        {
+            PassTimer timer = timers.get(pass);
+            if (timer != null) timings.put(pass.getName(), timer);
+        }
+        return timings;
+    }
+
+    /**
+     * Drops the collected statistics of every pass.
+     */
+    public void resetTimings()
+    {
+        for (PassTimer timer : timers.values()) timer.reset();
+    }
+
+    /**
+     * Estimates the GPU memory of the pooled render targets.
+     * @return Size in bytes
+     */
+    public long getTargetMemory()
+    {
+        if (dirty) compile();
+        return targetPool.getMemoryBytes();
+    }
+
+    /**
+     * Estimates the GPU memory the passes would need with a private color and depth target each.
+     * @return Size in bytes
+     */
+    public long getUnpooledTargetMemory()
+    {
+        long bytes = 0;
+        for (RenderPass pass : passes.values())
+        {
+            bytes += (long) pass.getWidth() * pass.getHeight() * 8;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the number of pooled render targets.
+     * @return Target count
+     */
+    public int getTargetCount()
+    {
+        return targetPool.getTargetCount();
+    }
+
     /**
      * Gets the texture ID of the final pass output.
      * @return The texture ID
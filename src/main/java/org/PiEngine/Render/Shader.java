@@ -1,16 +1,59 @@
 package org.PiEngine.Render;
 
+import java.nio.FloatBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.lwjgl.opengl.GL32.*;
 
+import org.PiEngine.Engine.Console;
 import org.PiEngine.Math.*;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.KHRParallelShaderCompile;
 
+/**
+ * A linked GLSL program built from vertex, fragment and optional geometry shader files.
+ * Programs are normally shared through ShaderManager rather than created directly.
+ * <p>
+ * When the driver exposes KHR_parallel_shader_compile, compiling and linking are only queued
+ * by the constructor and run on driver threads; the status is checked on first use, so a
+ * failure then surfaces from use() instead of the constructor.
+ * <p>
+ * u_ViewProj, u_Time and u_Resolution normally come from the CameraData uniform block. Programs
+ * that declare them as plain uniforms instead are reported once at link time and have the values
+ * of CameraUniforms copied in by use() whenever the camera data changed.
+ */
 public class Shader
 {
+    /** GL_COMPLETION_STATUS_KHR from KHR_parallel_shader_compile */
+    private static final int GL_COMPLETION_STATUS_KHR = 0x91B1;
+
     private int programId;
+    private final String vertexPath;
+    private final String fragmentPath;
+    private final String geometryPath;
+
+    /** Shader objects of a program whose compile/link status has not been checked yet */
+    private int[] pendingStages;
+
+    /** Uniform locations by name, reflected after linking; -1 for names that are not active */
+    private final Map<String, Integer> uniformLocations = new HashMap<>();
+
+    /** Locations of plain camera uniforms outside the CameraData block, -1 if not declared */
+    private int plainViewProj = -1;
+    private int plainTime = -1;
+    private int plainResolution = -1;
+    private int plainCameraVersion = -1;    // CameraUniforms version last copied into them
+
+    /** Direct buffer reused for every matrix upload (GL thread only) */
+    private static final FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
+
+    /** Whether KHR_parallel_shader_compile is available, resolved on first use */
+    private static Boolean parallelCompile;
 
     /**
      * Creates a shader program from vertex, fragment, and optional geometry shader files.
@@ -20,55 +63,280 @@ public class Shader
      */
     public Shader(String vertexPath, String fragmentPath, String geometryPath)
     {
+        this.vertexPath = vertexPath;
+        this.fragmentPath = fragmentPath;
+        this.geometryPath = geometryPath;
+
         try
         {
-            int vertexId = -1;
-            int fragmentId = -1;
-            int geometryId = -1;
-
-            programId = glCreateProgram();
+            programId = createProgram(isParallelCompileSupported());
+            if (pendingStages == null) reflect();
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to load shader");
+        }
+    }
 
-            if (vertexPath != null && !vertexPath.isEmpty())
+    /**
+     * Checks for KHR_parallel_shader_compile and lets the driver pick the thread count.
+     * @return True if compiles can run in the background
+     */
+    private static boolean isParallelCompileSupported()
+    {
+        if (parallelCompile == null)
+        {
+            parallelCompile = GL.getCapabilities().GL_KHR_parallel_shader_compile;
+            if (parallelCompile)
             {
-                String vertexSource = new String(Files.readAllBytes(Paths.get(vertexPath)), StandardCharsets.UTF_8);
-                vertexId = compileShader(vertexSource, GL_VERTEX_SHADER);
-                glAttachShader(programId, vertexId);
+                KHRParallelShaderCompile.glMaxShaderCompilerThreadsKHR(0xFFFFFFFF);
             }
+        }
+        return parallelCompile;
+    }
 
-            if (fragmentPath != null && !fragmentPath.isEmpty())
+    /**
+     * Compiles the source files and links them into a new program.
+     * @param deferred Leave the status checks to finishCompile() instead of blocking here
+     * @return The program ID
+     */
+    private int createProgram(boolean deferred) throws Exception
+    {
+        int program = glCreateProgram();
+        int[] stages = { -1, -1, -1 };
+        try
+        {
+            stages[0] = compileStage(program, vertexPath, GL_VERTEX_SHADER, deferred);
+            stages[1] = compileStage(program, fragmentPath, GL_FRAGMENT_SHADER, deferred);
+            stages[2] = compileStage(program, geometryPath, GL_GEOMETRY_SHADER, deferred);
+
+            glLinkProgram(program);
+
+            if (deferred)
             {
-                String fragmentSource = new String(Files.readAllBytes(Paths.get(fragmentPath)), StandardCharsets.UTF_8);
-                fragmentId = compileShader(fragmentSource, GL_FRAGMENT_SHADER);
-                glAttachShader(programId, fragmentId);
+                pendingStages = stages;
+                return program;
             }
+            checkLinkStatus(program);
+        }
+        catch (Exception e)
+        {
+            deleteStages(stages);
+            glDeleteProgram(program);
+            throw e;
+        }
 
-            if (geometryPath != null && !geometryPath.isEmpty())
+        deleteStages(stages);
+        return program;
+    }
+
+    private int compileStage(int program, String path, int type, boolean deferred) throws Exception
+    {
+        if (path == null || path.isEmpty()) return -1;
+
+        String source = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        int shaderId = deferred ? submitShader(source, type) : compileShader(source, type);
+        glAttachShader(program, shaderId);
+        return shaderId;
+    }
+
+    /**
+     * Checks the status of a program created with deferred checks. Blocks if the driver
+     * is still compiling.
+     */
+    private void finishCompile()
+    {
+        int[] stages = pendingStages;
+        pendingStages = null;
+        try
+        {
+            for (int stage : stages)
             {
-                String geometrySource = new String(Files.readAllBytes(Paths.get(geometryPath)), StandardCharsets.UTF_8);
-                geometryId = compileShader(geometrySource, GL_GEOMETRY_SHADER);
-                glAttachShader(programId, geometryId);
+                if (stage != -1) checkCompileStatus(stage);
             }
+            checkLinkStatus(programId);
+        }
+        catch (RuntimeException e)
+        {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to load shader");
+        }
+        finally
+        {
+            deleteStages(stages);
+        }
+        reflect();
+    }
 
-            glLinkProgram(programId);
+    /**
+     * Caches the locations of the active uniforms and binds the camera uniform block.
+     */
+    private void reflect()
+    {
+        uniformLocations.clear();
+        int count = glGetProgrami(programId, GL_ACTIVE_UNIFORMS);
+        for (int i = 0; i < count; i++)
+        {
+            String name = glGetActiveUniformName(programId, i);
+            int location = glGetUniformLocation(programId, name);
+            if (location == -1) continue;           // Member of a uniform block
 
-            if (glGetProgrami(programId, GL_LINK_STATUS) == GL_FALSE)
+            uniformLocations.put(name, location);
+            if (name.endsWith("[0]"))
             {
-                String log = glGetProgramInfoLog(programId);
-                throw new RuntimeException("Shader linking failed:\n" + log);
+                uniformLocations.put(name.substring(0, name.length() - 3), location);
             }
+        }
+
+        int block = glGetUniformBlockIndex(programId, CameraUniforms.BLOCK_NAME);
+        if (block != GL_INVALID_INDEX)
+        {
+            glUniformBlockBinding(programId, block, CameraUniforms.BINDING);
+        }
+
+        plainViewProj = uniformLocations.getOrDefault("u_ViewProj", -1);
+        plainTime = uniformLocations.getOrDefault("u_Time", -1);
+        plainResolution = uniformLocations.getOrDefault("u_Resolution", -1);
+        plainCameraVersion = -1;
+        if (hasPlainCameraUniforms())
+        {
+            Console.warning("Shader " + vertexPath + " / " + fragmentPath + " declares camera uniforms outside the "
+                + CameraUniforms.BLOCK_NAME + " block; they are set on use(), declare the block instead");
+        }
+    }
+
+    private boolean hasPlainCameraUniforms()
+    {
+        return plainViewProj != -1 || plainTime != -1 || plainResolution != -1;
+    }
 
-            if (vertexId != -1) glDeleteShader(vertexId);
-            if (fragmentId != -1) glDeleteShader(fragmentId);
-            if (geometryId != -1) glDeleteShader(geometryId);
+    /**
+     * Copies the current camera data into the plain camera uniforms of this program.
+     * The program must be in use.
+     */
+    private void uploadPlainCameraUniforms()
+    {
+        CameraUniforms camera = CameraUniforms.current();
+        if (camera == null || camera.getVersion() == plainCameraVersion) return;
+        plainCameraVersion = camera.getVersion();
+
+        if (plainViewProj != -1) setUniformMat4(plainViewProj, camera.getViewProj(), false);
+        if (plainTime != -1) setUniform1f(plainTime, camera.getTime());
+        if (plainResolution != -1) glUniform2f(plainResolution, camera.getWidth(), camera.getHeight());
+    }
+
+    /**
+     * Gets the location of a uniform from the cache built after linking.
+     * @param name The uniform name
+     * @return The location, or -1 if the program has no such active uniform
+     */
+    public int getUniformLocation(String name)
+    {
+        if (pendingStages != null) finishCompile();
+
+        Integer location = uniformLocations.get(name);
+        if (location == null)
+        {
+            // Not reflected (e.g. a later array element); look it up once
+            location = glGetUniformLocation(programId, name);
+            uniformLocations.put(name, location);
+        }
+        return location;
+    }
+
+    private static void checkLinkStatus(int program)
+    {
+        if (glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE)
+        {
+            String log = glGetProgramInfoLog(program);
+            throw new RuntimeException("Shader linking failed:\n" + log);
+        }
+    }
+
+    private static void checkCompileStatus(int shaderId)
+    {
+        if (glGetShaderi(shaderId, GL_COMPILE_STATUS) == GL_FALSE)
+        {
+            String log = glGetShaderInfoLog(shaderId);
+            throw new RuntimeException("Shader compilation failed:\n" + log);
+        }
+    }
+
+    private static void deleteStages(int[] stages)
+    {
+        for (int stage : stages)
+        {
+            if (stage != -1) glDeleteShader(stage);
+        }
+    }
+
+    /**
+     * Returns whether the program can be used without stalling on the driver.
+     * Always true unless a background compile is still running.
+     * @return True if the program is compiled and linked
+     */
+    public boolean isReady()
+    {
+        return pendingStages == null || glGetProgrami(programId, GL_COMPLETION_STATUS_KHR) == GL_TRUE;
+    }
+
+    /**
+     * Rebuilds the program from its source files, e.g. after they changed on disk.
+     * The new program is compiled synchronously; if it fails the old program stays in use.
+     * @return True if the program was replaced
+     */
+    public boolean reload()
+    {
+        int newProgram;
+        try
+        {
+            newProgram = createProgram(false);
         }
         catch (Exception e)
         {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to load shader");
+            Console.error("Shader reload failed (" + fragmentPath + "): " + e.getMessage());
+            return false;
         }
+
+        if (pendingStages != null)
+        {
+            deleteStages(pendingStages);
+            pendingStages = null;
+        }
+        GLState.onProgramDeleted(programId);
+        glDeleteProgram(programId);
+        programId = newProgram;
+        reflect();
+        return true;
     }
 
+    /**
+     * Gets the vertex shader path.
+     * @return The path, as passed to the constructor
+     */
+    public String getVertexPath()
+    {
+        return vertexPath;
+    }
+
+    /**
+     * Gets the fragment shader path.
+     * @return The path, as passed to the constructor
+     */
+    public String getFragmentPath()
+    {
+        return fragmentPath;
+    }
 
+    /**
+     * Gets the geometry shader path.
+     * @return The path, or null if the program has no geometry stage
+     */
+    public String getGeometryPath()
+    {
+        return geometryPath;
+    }
 
     /**
      * Compiles a shader from source code.
@@ -85,6 +353,7 @@ public class Shader
         if (glGetShaderi(shaderId, GL_COMPILE_STATUS) == GL_FALSE)
         {
             String log = glGetShaderInfoLog(shaderId);
+            glDeleteShader(shaderId);
             throw new RuntimeException("Shader compilation failed:\n" + log);
 
         }
@@ -92,12 +361,28 @@ public class Shader
         return shaderId;
     }
 
+    /**
+     * Starts compiling a shader without waiting for the result.
+     * @param source The shader source code
+     * @param type The shader type (GL_VERTEX_SHADER, etc.)
+     * @return The shader ID
+     */
+    private int submitShader(String source, int type)
+    {
+        int shaderId = glCreateShader(type);
+        glShaderSource(shaderId, source);
+        glCompileShader(shaderId);
+        return shaderId;
+    }
+
     /**
      * Activates the shader program.
      */
     public void use()
     {
-        glUseProgram(programId);
+        if (pendingStages != null) finishCompile();
+        GLState.useProgram(programId);
+        if (hasPlainCameraUniforms()) uploadPlainCameraUniforms();
     }
 
     /**
@@ -105,7 +390,7 @@ public class Shader
      */
     public void stop()
     {
-        glUseProgram(0);
+        GLState.useProgram(0);
     }
 
     /**
@@ -113,6 +398,12 @@ public class Shader
      */
     public void delete()
     {
+        if (pendingStages != null)
+        {
+            deleteStages(pendingStages);
+            pendingStages = null;
+        }
+        GLState.onProgramDeleted(programId);
         glDeleteProgram(programId);
     }
 
@@ -132,7 +423,7 @@ public class Shader
      */
     public void setUniform1i(String name, int value)
     {
-        int location = glGetUniformLocation(programId, name);
+        int location = getUniformLocation(name);
         glUniform1i(location, value);
     }
 
@@ -143,7 +434,7 @@ public class Shader
      */
     public void setUniform1f(String name, float value)
     {
-        int location = glGetUniformLocation(programId, name);
+        int location = getUniformLocation(name);
         glUniform1f(location, value);
     }
 
@@ -155,8 +446,8 @@ public class Shader
      */
     public void setUniformMat4(String name, Matrix4 mat, boolean transpose)
     {
-        int location = glGetUniformLocation(programId, name);
-        glUniformMatrix4fv(location, transpose, mat.toFloatBuffer());
+        int location = getUniformLocation(name);
+        glUniformMatrix4fv(location, transpose, mat.storeColumnMajor(matrixBuffer));
     }
 
     /**
@@ -166,7 +457,7 @@ public class Shader
      */
     public void setUniformVec2(String name, Vector vec2)
     {
-        int location = glGetUniformLocation(programId, name);
+        int location = getUniformLocation(name);
         glUniform2f(location, vec2.x, vec2.y);
     }
 
@@ -177,7 +468,7 @@ public class Shader
      */
     public void setUniformVec3(String name, Vector vec3)
     {
-        int location = glGetUniformLocation(programId, name);
+        int location = getUniformLocation(name);
         glUniform3f(location, vec3.x, vec3.y, vec3.z);
     }
 
@@ -191,7 +482,7 @@ public class Shader
      */
     public void setUniformVec4(String name, float x, float y, float z, float w)
     {
-        int location = glGetUniformLocation(programId, name);
+        int location = getUniformLocation(name);
         glUniform4f(location, x, y, z, w);
     }
 
@@ -202,9 +493,48 @@ public class Shader
      */
     public void setUniformBool(String name, boolean value)
     {
-        int location = glGetUniformLocation(programId, name);
+        int location = getUniformLocation(name);
         glUniform1i(location, value ? 1 : 0);
     }
 
+    /**
+     * Sets an integer uniform by location.
+     * @param location Location from getUniformLocation()
+     * @param value The integer value
+     */
+    public void setUniform1i(int location, int value)
+    {
+        glUniform1i(location, value);
+    }
+
+    /**
+     * Sets a float uniform by location.
+     * @param location Location from getUniformLocation()
+     * @param value The float value
+     */
+    public void setUniform1f(int location, float value)
+    {
+        glUniform1f(location, value);
+    }
 
-}
\ No newline at end of file
+    /**
+     * Sets a 4x4 matrix uniform by location.
+     * @param location Location from getUniformLocation()
+     * @param mat The matrix value
+     * @param transpose Whether to transpose the matrix
+     */
+    public void setUniformMat4(int location, Matrix4 mat, boolean transpose)
+    {
+        glUniformMatrix4fv(location, transpose, mat.storeColumnMajor(matrixBuffer));
+    }
+
+    /**
+     * Sets a vec3 uniform by location.
+     * @param location Location from getUniformLocation()
+     * @param vec3 The vector value
+     */
+    public void setUniformVec3(int location, Vector vec3)
+    {
+        glUniform3f(location, vec3.x, vec3.y, vec3.z);
+    }
+}
@@ -0,0 +1,359 @@
+package org.PiEngine.Render;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.PiEngine.Main;
+import org.PiEngine.Manager.ShaderManager;
+import org.PiEngine.Math.Matrix4;
+import org.PiEngine.Math.Vector;
+import org.lwjgl.BufferUtils;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Collects textured quads between begin() and end() and draws them with as few draw calls as possible.
+ * All sprites share one unit quad and are drawn instanced: each sprite only adds a per-instance record
+ * (model matrix, color, UV rect, size and flip flags) to one streaming buffer, and a
+ * glDrawArraysInstanced call is issued only when the texture, shader or blend mode changes or the
+ * buffer is full.
+ * By default sprites are drawn in submission order, which is the order that decides overlap for
+ * alpha-blended sprites at the same depth (geometry is drawn without depth writes).
+ * With sortByTexture enabled, sprites are ordered back to front by world Z first and then grouped by
+ * shader, blend mode and texture, keeping submission order for ties. Sprites with the same Z and
+ * different textures may therefore overlap in a different order than they were submitted, so only
+ * enable it when overlapping sprites are separated in Z.
+ * <p>
+ * While a batch is between begin() and end() it is the active batch, so components can submit
+ * sprites through SpriteBatch.getActive() without knowing which pass is rendering.
+ */
+public class SpriteBatch
+{
+    /** How sprites are blended with what is already in the framebuffer */
+    public enum BlendMode
+    {
+        ALPHA, ADDITIVE
+    }
+
+    /** Maximum number of sprites per draw call (size of the instance buffer) */
+    public static final int MAX_SPRITES = 8192;
+
+    // Per-instance record: color (4), UV rect (4), size + flip flags (4), model matrix (16, column-major)
+    private static final int FLOATS_PER_SPRITE = 28;
+    private static final int FIRST_INSTANCE_ATTRIBUTE = 2;
+    private static final int INSTANCE_ATTRIBUTES = FLOATS_PER_SPRITE / 4;
+
+    private static SpriteBatch active;
+    private static SpriteBatch shared;
+
+    /** Sort by depth and state to maximize batch size; off by default (see class comment) */
+    public boolean sortByTexture = false;
+
+    private final Shader defaultShader;
+    private final int vao;
+    private final int quadVbo;
+    private final StreamingBuffer instances;
+    private final FloatBuffer upload = BufferUtils.createFloatBuffer(MAX_SPRITES * FLOATS_PER_SPRITE);
+
+    // Submitted sprites
+    private float[] instanceData = new float[256 * FLOATS_PER_SPRITE];
+    private float[] depth = new float[256];
+    private Texture[] textures = new Texture[256];
+    private Shader[] shaders = new Shader[256];
+    private BlendMode[] blends = new BlendMode[256];
+    private int count = 0;
+
+    private Integer[] indices = new Integer[0];     // Cached boxed 0..n-1
+    private Integer[] order = new Integer[0];
+    private final Comparator<Integer> stateOrder = this::compareSprites;
+
+    private int drawCalls = 0;
+    private int spritesDrawn = 0;
+
+    /**
+     * Creates a sprite batch with the default sprite shader. Requires a current GL context.
+     */
+    public SpriteBatch()
+    {
+        this(ShaderManager.get().acquire(
+            Main.ResourceFolder + "Shaders/Camera/SpriteBatch.vert",
+            Main.ResourceFolder + "Shaders/Camera/SpriteBatch.frag",
+            null
+        ));
+        ShaderManager.get().release(defaultShader);     // The batch retained its own reference
+    }
+
+    /**
+     * Creates a sprite batch.
+     * @param defaultShader Shader used for sprites submitted without one; expects the unit quad corner
+     *                      a_Corner (0), the instance attributes i_Color (2), i_UVRect (3), i_SizeFlip (4)
+     *                      and i_Model (5-8), the CameraData block and u_Texture.
+     *                      The batch retains its own reference until dispose().
+     */
+    public SpriteBatch(Shader defaultShader)
+    {
+        this.defaultShader = ShaderManager.get().retain(defaultShader);
+
+        vao = glGenVertexArrays();
+        GLState.bindVertexArray(vao);
+
+        // Unit quad shared by every sprite, two triangles
+        float[] quad = {
+            -0.5f, -0.5f,   0.5f, -0.5f,   0.5f,  0.5f,
+            -0.5f, -0.5f,   0.5f,  0.5f,  -0.5f,  0.5f
+        };
+        quadVbo = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, quadVbo);
+        glBufferData(GL_ARRAY_BUFFER, quad, GL_STATIC_DRAW);
+        glEnableVertexAttribArray(0);
+        glVertexAttribPointer(0, 2, GL_FLOAT, false, 2 * Float.BYTES, 0);
+
+        // i_Color, i_UVRect, i_SizeFlip and the four columns of i_Model; pointers are set per draw
+        instances = new StreamingBuffer(GL_ARRAY_BUFFER, (long) MAX_SPRITES * FLOATS_PER_SPRITE * Float.BYTES);
+        for (int i = 0; i < INSTANCE_ATTRIBUTES; i++)
+        {
+            glEnableVertexAttribArray(FIRST_INSTANCE_ATTRIBUTE + i);
+            glVertexAttribDivisor(FIRST_INSTANCE_ATTRIBUTE + i, 1);
+        }
+
+        GLState.bindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Returns the batch currently between begin() and end().
+     * @return The active batch, or null if no batch is collecting sprites
+     */
+    public static SpriteBatch getActive()
+    {
+        return active;
+    }
+
+    /**
+     * Returns a batch for drawing outside of a batching pass, created on first use.
+     * Requires a current GL context.
+     * @return The shared batch
+     */
+    public static SpriteBatch getShared()
+    {
+        if (shared == null)
+        {
+            shared = new SpriteBatch();
+        }
+        return shared;
+    }
+
+    /**
+     * Starts collecting sprites and makes this the active batch.
+     * The view-projection matrix is read from CameraUniforms, which must hold the rendering camera.
+     */
+    public void begin()
+    {
+        count = 0;
+        drawCalls = 0;
+        spritesDrawn = 0;
+        active = this;
+    }
+
+    /**
+     * Adds a square sprite centered on the model origin.
+     * @param texture The texture
+     * @param model World matrix of the sprite
+     * @param size Edge length in local units
+     * @param flipX Mirror the texture horizontally
+     * @param flipY Mirror the texture vertically
+     * @param color Tint color (RGB), or null for white
+     * @param shader Custom shader, or null for the default sprite shader
+     * @param blend Blend mode
+     */
+    public void draw(Texture texture, Matrix4 model, float size, boolean flipX, boolean flipY,
+                     Vector color, Shader shader, BlendMode blend)
+    {
+        if (texture == null) return;
+        ensureCapacity(count + 1);
+
+        float[] d = instanceData;
+        int o = count * FLOATS_PER_SPRITE;
+        d[o++] = color != null ? color.x : 1f;
+        d[o++] = color != null ? color.y : 1f;
+        d[o++] = color != null ? color.z : 1f;
+        d[o++] = 1f;
+
+        // Atlas regions only cover part of their page
+        d[o++] = texture.getU0();
+        d[o++] = texture.getV0();
+        d[o++] = texture.getU1();
+        d[o++] = texture.getV1();
+
+        d[o++] = size;
+        d[o++] = flipX ? 1f : 0f;
+        d[o++] = flipY ? 1f : 0f;
+        d[o++] = 0f;
+
+        float[] m = model.elements;
+        for (int col = 0; col < 4; col++)
+        {
+            for (int row = 0; row < 4; row++)
+            {
+                d[o++] = m[row * 4 + col];
+            }
+        }
+
+        depth[count] = m[3 + 2 * 4];
+        textures[count] = texture;
+        shaders[count] = shader != null ? shader : defaultShader;
+        blends[count] = blend != null ? blend : BlendMode.ALPHA;
+        count++;
+    }
+
+    /**
+     * Draws every collected sprite and deactivates the batch.
+     */
+    public void end()
+    {
+        active = null;
+        if (count == 0) return;
+
+        if (order.length < count)
+        {
+            int capacity = Math.max(count, order.length * 2);
+            indices = new Integer[capacity];
+            for (int i = 0; i < capacity; i++) indices[i] = i;
+            order = new Integer[capacity];
+        }
+        System.arraycopy(indices, 0, order, 0, count);
+        if (sortByTexture)
+        {
+            Arrays.sort(order, 0, count, stateOrder);
+        }
+
+        GLState.bindVertexArray(vao);
+        GLState.activeTexture(0);
+
+        int start = 0;
+        while (start < count)
+        {
+            int first = order[start];
+            int end = start + 1;
+            while (end < count && end - start < MAX_SPRITES && sameState(first, order[end])) end++;
+            flush(start, end);
+            start = end;
+        }
+
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        setBlend(BlendMode.ALPHA);
+
+        // Drop references so textures and shaders of removed sprites can be collected
+        Arrays.fill(textures, 0, count, null);
+        Arrays.fill(shaders, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * Uploads and draws the sorted sprites in [start, end), which all share one state.
+     */
+    private void flush(int start, int end)
+    {
+        int first = order[start];
+        upload.clear();
+        for (int i = start; i < end; i++)
+        {
+            upload.put(instanceData, order[i] * FLOATS_PER_SPRITE, FLOATS_PER_SPRITE);
+        }
+        upload.flip();
+
+        // Append to the ring without waiting for draws that still read earlier instances
+        long offset = instances.upload(upload);
+        int stride = FLOATS_PER_SPRITE * Float.BYTES;
+        for (int i = 0; i < INSTANCE_ATTRIBUTES; i++)
+        {
+            glVertexAttribPointer(FIRST_INSTANCE_ATTRIBUTE + i, 4, GL_FLOAT, false, stride, offset + (long) i * 4 * Float.BYTES);
+        }
+
+        Shader shader = shaders[first];
+        shader.use();
+        shader.setUniform1i("u_Texture", 0);
+        textures[first].bind();
+        setBlend(blends[first]);
+
+        glDrawArraysInstanced(GL_TRIANGLES, 0, 6, end - start);
+        drawCalls++;
+        spritesDrawn += end - start;
+    }
+
+    private static void setBlend(BlendMode mode)
+    {
+        if (mode == BlendMode.ADDITIVE)
+        {
+            GLState.blendFunc(GL_SRC_ALPHA, GL_ONE);
+        }
+        else
+        {
+            GLState.blendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        }
+    }
+
+    private boolean sameState(int a, int b)
+    {
+        // Regions of the same atlas page share one GL texture
+        return textures[a].getTextureID() == textures[b].getTextureID() && shaders[a] == shaders[b] && blends[a] == blends[b];
+    }
+
+    private int compareSprites(Integer ia, Integer ib)
+    {
+        int a = ia, b = ib;
+        int c = Float.compare(depth[a], depth[b]);      // Farther (lower Z) first
+        if (c != 0) return c;
+        c = Integer.compare(shaders[a].getId(), shaders[b].getId());
+        if (c != 0) return c;
+        c = blends[a].compareTo(blends[b]);
+        if (c != 0) return c;
+        c = Integer.compare(textures[a].getTextureID(), textures[b].getTextureID());
+        if (c != 0) return c;
+        return Integer.compare(a, b);
+    }
+
+    private void ensureCapacity(int needed)
+    {
+        if (needed <= depth.length) return;
+        int capacity = Math.max(needed, depth.length * 2);
+        instanceData = Arrays.copyOf(instanceData, capacity * FLOATS_PER_SPRITE);
+        depth = Arrays.copyOf(depth, capacity);
+        textures = Arrays.copyOf(textures, capacity);
+        shaders = Arrays.copyOf(shaders, capacity);
+        blends = Arrays.copyOf(blends, capacity);
+    }
+
+    /**
+     * Returns the number of draw calls issued by the last end().
+     * @return Draw call count
+     */
+    public int getDrawCalls()
+    {
+        return drawCalls;
+    }
+
+    /**
+     * Returns the number of sprites drawn by the last end().
+     * @return Sprite count
+     */
+    public int getSpritesDrawn()
+    {
+        return spritesDrawn;
+    }
+
+    /**
+     * Deletes the GPU buffers and releases the default shader.
+     */
+    public void dispose()
+    {
+        if (active == this) active = null;
+        if (shared == this) shared = null;
+        ShaderManager.get().release(defaultShader);
+        instances.dispose();
+        glDeleteBuffers(quadVbo);
+        GLState.onVertexArrayDeleted(vao);
+        glDeleteVertexArrays(vao);
+    }
+}
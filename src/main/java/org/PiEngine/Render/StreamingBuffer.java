@@ -0,0 +1,213 @@
+package org.PiEngine.Render;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import org.lwjgl.system.MemoryUtil;
+
+import static org.lwjgl.opengl.GL32.*;
+
+/**
+ * A GPU buffer for data that is rewritten every frame (batched sprites, debug lines, particles, UI).
+ * <p>
+ * The buffer is split into REGIONS parts used as a ring. Uploads are appended to the current
+ * region through an unsynchronized mapping, so the driver never waits for draws that still
+ * read older data. When a region is full, a fence is inserted behind the draws that used it
+ * and writing moves on to the next region. That region is only reused once its fence has
+ * signaled. If the GPU is still reading it, the whole buffer is orphaned instead of waiting.
+ * <p>
+ * Upload statistics are summed over all streaming buffers per frame (see endFrame()).
+ */
+public class StreamingBuffer
+{
+    /** Number of ring regions; three lets the CPU run up to two frames ahead */
+    public static final int REGIONS = 3;
+
+    private static final int MAP_ACCESS = GL_MAP_WRITE_BIT | GL_MAP_UNSYNCHRONIZED_BIT | GL_MAP_INVALIDATE_RANGE_BIT;
+
+    // Statistics of the frame in progress and of the last finished frame
+    private static long frameBytes, frameUploads, frameStallsAvoided, frameOrphans;
+    private static long lastBytes, lastUploads, lastStallsAvoided, lastOrphans;
+
+    private final int target;
+    private final int id;
+    private final long regionSize;
+    private final long[] fences = new long[REGIONS];
+
+    private int region = 0;
+    private long head = 0;                 // Next free byte in the current region
+    private ByteBuffer mapped;
+
+    /**
+     * Creates a streaming buffer.
+     * @param target Buffer target, e.g. GL_ARRAY_BUFFER
+     * @param regionSize Bytes per ring region; the largest single upload
+     */
+    public StreamingBuffer(int target, long regionSize)
+    {
+        this.target = target;
+        this.regionSize = regionSize;
+        this.id = glGenBuffers();
+        glBindBuffer(target, id);
+        glBufferData(target, regionSize * REGIONS, GL_STREAM_DRAW);
+        glBindBuffer(target, 0);
+    }
+
+    /**
+     * Gets the OpenGL buffer ID.
+     * @return The buffer ID
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * Copies the remaining floats of a buffer into the ring and leaves this buffer bound to its target.
+     * The position of data is not changed.
+     * @param data The data to upload
+     * @return Byte offset of the data in the buffer, for attribute pointers or draw offsets
+     */
+    public long upload(FloatBuffer data)
+    {
+        long bytes = (long) data.remaining() * Float.BYTES;
+        if (bytes > regionSize)
+        {
+            throw new IllegalArgumentException("Upload of " + bytes + " bytes exceeds the region size " + regionSize);
+        }
+
+        glBindBuffer(target, id);
+        if (head + bytes > regionSize)
+        {
+            nextRegion();
+        }
+        else if (isBusy(previousFence()))
+        {
+            // A glBufferSubData here would have waited for the GPU to finish with the buffer
+            frameStallsAvoided++;
+        }
+
+        long offset = region * regionSize + head;
+        mapped = glMapBufferRange(target, offset, bytes, MAP_ACCESS, mapped);
+        if (mapped != null)
+        {
+            MemoryUtil.memCopy(MemoryUtil.memAddress(data), MemoryUtil.memAddress(mapped), bytes);
+            glUnmapBuffer(target);
+        }
+        else
+        {
+            glBufferSubData(target, offset, data);
+        }
+
+        head += bytes;
+        frameBytes += bytes;
+        frameUploads++;
+        return offset;
+    }
+
+    /**
+     * Fences the current region and moves to the next one, orphaning the buffer if it is still in use.
+     */
+    private void nextRegion()
+    {
+        if (fences[region] != 0) glDeleteSync(fences[region]);
+        fences[region] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+
+        region = (region + 1) % REGIONS;
+        head = 0;
+
+        long fence = fences[region];
+        if (fence == 0) return;
+
+        if (isBusy(fence))
+        {
+            // The GPU is more than REGIONS regions behind: take fresh storage instead of waiting
+            glBufferData(target, regionSize * REGIONS, GL_STREAM_DRAW);
+            for (int i = 0; i < REGIONS; i++)
+            {
+                if (fences[i] != 0) glDeleteSync(fences[i]);
+                fences[i] = 0;
+            }
+            frameOrphans++;
+            frameStallsAvoided++;
+            return;
+        }
+
+        glDeleteSync(fence);
+        fences[region] = 0;
+    }
+
+    private long previousFence()
+    {
+        return fences[(region + REGIONS - 1) % REGIONS];
+    }
+
+    private static boolean isBusy(long fence)
+    {
+        if (fence == 0) return false;
+        int status = glClientWaitSync(fence, 0, 0);
+        return status != GL_ALREADY_SIGNALED && status != GL_CONDITION_SATISFIED;
+    }
+
+    /**
+     * Deletes the buffer and its fences.
+     */
+    public void dispose()
+    {
+        for (int i = 0; i < REGIONS; i++)
+        {
+            if (fences[i] != 0) glDeleteSync(fences[i]);
+            fences[i] = 0;
+        }
+        glDeleteBuffers(id);
+    }
+
+    /**
+     * Closes the statistics of the current frame. Call once per frame.
+     */
+    public static void endFrame()
+    {
+        lastBytes = frameBytes;
+        lastUploads = frameUploads;
+        lastStallsAvoided = frameStallsAvoided;
+        lastOrphans = frameOrphans;
+        frameBytes = frameUploads = frameStallsAvoided = frameOrphans = 0;
+    }
+
+    /**
+     * Returns the bytes uploaded through streaming buffers in the last frame.
+     * @return Byte count
+     */
+    public static long getBytesUploaded()
+    {
+        return lastBytes;
+    }
+
+    /**
+     * Returns the number of uploads in the last frame.
+     * @return Upload count
+     */
+    public static long getUploads()
+    {
+        return lastUploads;
+    }
+
+    /**
+     * Returns how many uploads in the last frame went ahead while the GPU was still reading
+     * the buffer, where a synchronous update would have waited.
+     * @return Stalls avoided
+     */
+    public static long getStallsAvoided()
+    {
+        return lastStallsAvoided;
+    }
+
+    /**
+     * Returns how often a buffer had to be orphaned in the last frame because the GPU fell behind.
+     * @return Orphan count
+     */
+    public static long getOrphans()
+    {
+        return lastOrphans;
+    }
+}
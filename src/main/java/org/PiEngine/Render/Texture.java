@@ -8,12 +8,23 @@ import org.lwjgl.BufferUtils;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
+/**
+ * An OpenGL 2D texture, or a rectangular region of one.
+ * Regions share the GL texture of their page (see TextureAtlas) and only differ in their
+ * UV rectangle, so renderers that use getU0()..getV1() draw them like standalone textures
+ * while batching everything on the same page together.
+ */
 public class Texture implements GUIDProvider
 {
     private int textureID;
     private int width;
     private int height;
 
+    /** UV rectangle of the texture on its GL texture */
+    private float u0 = 0f, v0 = 0f, u1 = 1f, v1 = 1f;
+    /** The texture this is a region of, or null for a standalone texture */
+    private Texture page;
+
     private int minFilter;
     private int magFilter;
 
@@ -36,6 +47,29 @@ public class Texture implements GUIDProvider
         this.textureID = createTexture(imageData);
     }
 
+    /**
+     * Creates a region of another texture. The region shares the GL texture and is not disposed with it.
+     * @param page The texture holding the pixels
+     * @param x Left edge of the region in pixels
+     * @param y Bottom edge of the region in pixels
+     * @param width The region width
+     * @param height The region height
+     */
+    public Texture(Texture page, int x, int y, int width, int height)
+    {
+        this.page = page;
+        this.textureID = page.textureID;
+        this.width = width;
+        this.height = height;
+        this.minFilter = page.minFilter;
+        this.magFilter = page.magFilter;
+
+        this.u0 = (float) x / page.width;
+        this.v0 = (float) y / page.height;
+        this.u1 = (float) (x + width) / page.width;
+        this.v1 = (float) (y + height) / page.height;
+    }
+
     /**
      * Creates an OpenGL texture from pixel data.
      * @param imageData The RGBA pixel data
@@ -47,7 +81,7 @@ public class Texture implements GUIDProvider
         GL11.glGenTextures(buffer);
         int textureID = buffer.get(0);
 
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureID);
+        GLState.bindTexture(textureID);
 
         GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, minFilter);
         GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, magFilter);
@@ -70,7 +104,7 @@ public class Texture implements GUIDProvider
         GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, width, height, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, imageBuffer);
         GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
 
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        GLState.bindTexture(0);
 
         return textureID;
     }
@@ -84,12 +118,66 @@ public class Texture implements GUIDProvider
         return textureID;
     }
 
+    /**
+     * Gets the left U coordinate of the texture on its GL texture.
+     * @return 0 for a standalone texture
+     */
+    public float getU0()
+    {
+        return u0;
+    }
+
+    /**
+     * Gets the bottom V coordinate of the texture on its GL texture.
+     * @return 0 for a standalone texture
+     */
+    public float getV0()
+    {
+        return v0;
+    }
+
+    /**
+     * Gets the right U coordinate of the texture on its GL texture.
+     * @return 1 for a standalone texture
+     */
+    public float getU1()
+    {
+        return u1;
+    }
+
+    /**
+     * Gets the top V coordinate of the texture on its GL texture.
+     * @return 1 for a standalone texture
+     */
+    public float getV1()
+    {
+        return v1;
+    }
+
+    /**
+     * Checks whether this texture is a region of an atlas page.
+     * @return True if the GL texture is shared with other regions
+     */
+    public boolean isRegion()
+    {
+        return page != null;
+    }
+
+    /**
+     * Gets the texture this is a region of.
+     * @return The page, or null for a standalone texture
+     */
+    public Texture getPage()
+    {
+        return page;
+    }
+
     /**
      * Binds the texture for rendering.
      */
     public void bind()
     {
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureID);
+        GLState.bindTexture(textureID);
     }
 
     /**
@@ -97,7 +185,7 @@ public class Texture implements GUIDProvider
      */
     public void unbind()
     {
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        GLState.bindTexture(0);
     }
 
     /**
@@ -119,12 +207,19 @@ public class Texture implements GUIDProvider
     }
 
     /**
-     * Deletes the texture and frees GPU memory.
+     * Deletes the texture and frees GPU memory. Regions only drop their reference to the page.
      */
     public void dispose()
     {
+        if (page != null)
+        {
+            // The pixels belong to the page
+            textureID = 0;
+            return;
+        }
         if (textureID != 0)
         {
+            GLState.onTextureDeleted(textureID);
             GL11.glDeleteTextures(textureID);
             textureID = 0;
         }
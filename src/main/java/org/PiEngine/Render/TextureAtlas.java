@@ -0,0 +1,86 @@
+package org.PiEngine.Render;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of atlas pages and the regions packed into them, mapped by the GUID of each
+ * source image. Built by TextureAtlasBuilder; TextureManager hands out the regions
+ * in place of standalone textures.
+ */
+public class TextureAtlas
+{
+    private final List<Texture> pages = new ArrayList<>();
+    private final Map<String, Texture> regions = new HashMap<>();
+
+    /**
+     * Adds a page.
+     * @param page The page texture
+     * @return Index of the page
+     */
+    public int addPage(Texture page)
+    {
+        pages.add(page);
+        return pages.size() - 1;
+    }
+
+    /**
+     * Adds the region of a source image.
+     * @param guid GUID of the source image
+     * @param page Index of the page holding it
+     * @param x Left edge in pixels
+     * @param y Bottom edge in pixels
+     * @param width Width in pixels
+     * @param height Height in pixels
+     */
+    public void addRegion(String guid, int page, int x, int y, int width, int height)
+    {
+        Texture region = new Texture(pages.get(page), x, y, width, height);
+        region.setGUID(guid);
+        regions.put(guid, region);
+    }
+
+    /**
+     * Gets the region of a source image.
+     * @param guid GUID of the source image
+     * @return The region, or null if the image is not in the atlas
+     */
+    public Texture getRegion(String guid)
+    {
+        return regions.get(guid);
+    }
+
+    /**
+     * Gets the atlas pages.
+     * @return Unmodifiable list of pages
+     */
+    public List<Texture> getPages()
+    {
+        return Collections.unmodifiableList(pages);
+    }
+
+    /**
+     * Returns the number of packed images.
+     * @return Region count
+     */
+    public int getRegionCount()
+    {
+        return regions.size();
+    }
+
+    /**
+     * Deletes the page textures. Regions become unusable.
+     */
+    public void dispose()
+    {
+        for (Texture page : pages)
+        {
+            page.dispose();
+        }
+        pages.clear();
+        regions.clear();
+    }
+}
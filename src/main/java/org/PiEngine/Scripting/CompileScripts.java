@@ -84,12 +84,18 @@ public class CompileScripts
         }
     }
 
-    public void compileScript(File scriptFile) throws Exception
+    /**
+     * Compiles a single script into the output folder.
+     * @param scriptFile The .java file
+     * @return True if the script compiled without errors
+     * @throws Exception If no compiler is available
+     */
+    public boolean compileScript(File scriptFile) throws Exception
     {
         if (scriptFile == null || !scriptFile.exists() || !scriptFile.getName().endsWith(".java"))
         {
             Console.error("Invalid script file: " + scriptFile);
-            return;
+            return false;
         }
 
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
@@ -124,10 +130,24 @@ public class CompileScripts
             }
             Console.warning(scriptFile.getName() + ": script compilation had errors.");
         }
+        return success;
     }
 
-    public void compileSystems()
+    /**
+     * Returns the folder compiled classes are written to, with one sub-folder per package.
+     * @return The output folder
+     */
+    public File getOutputFolder()
     {
-        // Placeholder for compiling system classes later
+        return outputFolder;
+    }
+
+    /**
+     * Returns the folder compiled system scripts (package Scripts.Systems) end up in.
+     * @return The systems output folder
+     */
+    public File getSystemsOutputFolder()
+    {
+        return new File(outputFolder, ScriptLoader.SYSTEMS_PACKAGE.replace('.', File.separatorChar));
     }
 }
@@ -5,7 +5,11 @@ import java.net.URL;
 import java.net.URLClassLoader;
 
 import org.PiEngine.Component.Component;
+import org.PiEngine.Component.ComponentMetadata;
+import org.PiEngine.ECS.EntitySystem;
+import org.PiEngine.Engine.Scene;
 import org.PiEngine.Engine.Console;
+import org.PiEngine.GameObjects.UpdateScheduler;
 import org.PiEngine.Utils.ComponentFactory;
 
 /**
@@ -17,6 +21,11 @@ public class ScriptLoader
     /** Singleton instance */
     private static ScriptLoader instance;
 
+    /** Sub-folder of the script folders that holds system scripts */
+    public static final String SYSTEMS_FOLDER = "Systems";
+    /** Package of system scripts */
+    public static final String SYSTEMS_PACKAGE = "Scripts.Systems";
+
     /** Root directory for compiled scripts */
     private File rootDirectory;
     /** ClassLoader for dynamically loading compiled scripts */
@@ -50,7 +59,8 @@ public class ScriptLoader
         {
             try 
             {
-                instance = new ScriptLoader("Compiled");
+                // Load from where CompileScripts writes, so freshly compiled classes are picked up
+                instance = new ScriptLoader(CompileScripts.getInstance().getOutputFolder().getPath());
             } 
             catch (Exception e) 
             {
@@ -69,6 +79,9 @@ public class ScriptLoader
         if (instance != null) 
         {
             ComponentFactory.Clear();  
+            ComponentMetadata.clear();
+            UpdateScheduler scheduler = Scene.getInstance().getUpdateScheduler();
+            if (scheduler != null) scheduler.clearCache();
             instance.close();
             instance.urlClassLoader = null;
             instance = null;
@@ -102,7 +115,7 @@ public class ScriptLoader
     }
 
     /**
-     * Loads and registers a class as a Component if applicable.
+     * Loads and registers a class as a Component, or installs it as a System, if applicable.
      * @param fullClassName The full class name to load
      */
     private void loadClassAndRegister(String fullClassName)
@@ -124,9 +137,16 @@ public class ScriptLoader
 
                 Console.log("Loaded & registered component: " + fullClassName);
             } 
+            else if (EntitySystem.class.isAssignableFrom(scriptClass))
+            {
+                // Replaces an older version of the same system if one is installed
+                EntitySystem system = (EntitySystem) scriptClass.getDeclaredConstructor().newInstance();
+                Scene.getInstance().getEntityWorld().addSystem(system);
+                Console.log("Loaded & installed system: " + fullClassName);
+            }
             else 
             {
-                Console.warning("Skipped (not a Component): " + fullClassName);
+                Console.warning("Skipped (not a Component or System): " + fullClassName);
             }
         } 
         catch (Exception e) 
@@ -143,8 +163,9 @@ public class ScriptLoader
     public void loadComponentScript(File scriptFile) 
     {
         String className = scriptFile.getName().replace(".class", "");
-        String fullClassName = "Scripts." + className;
-        loadClassAndRegister(fullClassName);
+        File parent = scriptFile.getParentFile();
+        String packageName = (parent != null && parent.getName().equals(SYSTEMS_FOLDER)) ? SYSTEMS_PACKAGE : "Scripts";
+        loadClassAndRegister(packageName + "." + className);
     }
 
     /**
@@ -167,8 +188,24 @@ public class ScriptLoader
         }
     }
 
-    /** Loads system scripts from a folder (reserved for future use) */
-    public void loadSystemScripts(String folderPath) { }
+    /**
+     * Loads and installs all compiled system scripts (package Scripts.Systems) from a folder.
+     * @param folderPath Path to the folder containing the system .class files
+     */
+    public void loadSystemScripts(String folderPath)
+    {
+        File systemDir = new File(folderPath);
+        if (!systemDir.exists() || !systemDir.isDirectory()) return;
+
+        File[] classFiles = systemDir.listFiles((dir, name) -> name.endsWith(".class") && !name.contains("$"));
+        if (classFiles == null) return;
+
+        for (File file : classFiles)
+        {
+            String className = file.getName().replace(".class", "");
+            loadClassAndRegister(SYSTEMS_PACKAGE + "." + className);
+        }
+    }
 
     /** Loads behavior scripts from a folder (reserved for future use) */
     public void loadBehaviorScripts(String folderPath) { }
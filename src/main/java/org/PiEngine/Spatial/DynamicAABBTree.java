@@ -0,0 +1,514 @@
+package org.PiEngine.Spatial;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.PiEngine.Math.Bounds;
+import org.PiEngine.Math.Vector;
+
+/**
+ * An incrementally updated bounding volume hierarchy. Every item is a leaf whose box is the
+ * item box grown by a margin ("fat" box); branches enclose their two children.
+ * <p>
+ * An item that moves only slightly stays inside its fat box, and update() just stores the new
+ * exact box. The tree changes only when an item leaves its fat box: the leaf is then removed and
+ * reinserted next to the sibling that grows the tree least, and the path to the root is
+ * rebalanced with rotations, so queries stay logarithmic.
+ * @param <T> Item type
+ */
+public class DynamicAABBTree<T> implements SpatialIndex<T>
+{
+    /** Default margin added around each item box, in world units */
+    public static final float DEFAULT_MARGIN = 0.5f;
+
+    private static final int NULL = -1;
+
+    private static final class Node
+    {
+        final Bounds box = new Bounds();      // Fat box of a leaf, or union of the children
+        final Bounds tight = new Bounds();    // Exact item box, leaves only
+        Object item;
+        int parent = NULL;                    // Next free node while on the free list
+        int child1 = NULL;
+        int child2 = NULL;
+        int height = 0;                       // 0 for leaves, -1 while free
+
+        boolean isLeaf()
+        {
+            return child1 == NULL;
+        }
+    }
+
+    private final float margin;
+    private Node[] nodes = new Node[16];
+    private int nodeCount = 0;
+    private int freeList = NULL;
+    private int root = NULL;
+    private int proxyCount = 0;
+
+    // Query scratch
+    private int[] stack = new int[64];
+    private final Bounds scratch = new Bounds();
+    private final RankedList ranked = new RankedList();
+
+    /**
+     * Creates a tree with the default margin.
+     */
+    public DynamicAABBTree()
+    {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * Creates a tree.
+     * @param margin Distance an item can move before its leaf is reinserted
+     */
+    public DynamicAABBTree(float margin)
+    {
+        if (margin < 0)
+        {
+            throw new IllegalArgumentException("Margin must not be negative: " + margin);
+        }
+        this.margin = margin;
+    }
+
+    @Override
+    public int insert(Bounds bounds, T item)
+    {
+        int leaf = allocateNode();
+        Node node = nodes[leaf];
+        node.tight.set(bounds);
+        node.box.set(bounds).expand(margin);
+        node.item = item;
+        node.height = 0;
+        insertLeaf(leaf);
+        proxyCount++;
+        return leaf;
+    }
+
+    @Override
+    public void remove(int proxy)
+    {
+        checkProxy(proxy);
+        removeLeaf(proxy);
+        freeNode(proxy);
+        proxyCount--;
+    }
+
+    @Override
+    public boolean update(int proxy, Bounds bounds)
+    {
+        checkProxy(proxy);
+        Node node = nodes[proxy];
+        node.tight.set(bounds);
+        if (node.box.contains(bounds)) return false;
+
+        removeLeaf(proxy);
+        node.box.set(bounds).expand(margin);
+        insertLeaf(proxy);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getItem(int proxy)
+    {
+        checkProxy(proxy);
+        return (T) nodes[proxy].item;
+    }
+
+    @Override
+    public int size()
+    {
+        return proxyCount;
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(nodes, 0, nodeCount, null);
+        nodeCount = 0;
+        freeList = NULL;
+        root = NULL;
+        proxyCount = 0;
+    }
+
+    /**
+     * Returns the height of the tree, for diagnostics. A balanced tree has a height close to log2(size).
+     * @return Height of the root, or 0 when empty
+     */
+    public int getHeight()
+    {
+        return root == NULL ? 0 : nodes[root].height;
+    }
+
+    // ----------------------------
+    // Queries
+    // ----------------------------
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void queryBox(Bounds box, List<T> out)
+    {
+        int top = push(0, root);
+        while (top > 0)
+        {
+            int id = stack[--top];
+            Node node = nodes[id];
+            if (!node.box.intersects(box)) continue;
+            if (node.isLeaf())
+            {
+                if (node.tight.intersects(box)) out.add((T) node.item);
+            }
+            else
+            {
+                top = push(top, node.child1);
+                top = push(top, node.child2);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void queryRadius(Vector center, float radius, List<T> out)
+    {
+        float radiusSquared = radius * radius;
+        int top = push(0, root);
+        while (top > 0)
+        {
+            int id = stack[--top];
+            Node node = nodes[id];
+            if (node.box.distanceSquared(center.x, center.y, center.z) > radiusSquared) continue;
+            if (node.isLeaf())
+            {
+                if (node.tight.distanceSquared(center.x, center.y, center.z) <= radiusSquared) out.add((T) node.item);
+            }
+            else
+            {
+                top = push(top, node.child1);
+                top = push(top, node.child2);
+            }
+        }
+    }
+
+    @Override
+    public void queryRay(Vector origin, Vector direction, float maxDistance, List<T> out)
+    {
+        float length = (float) Math.sqrt(direction.x * direction.x + direction.y * direction.y + direction.z * direction.z);
+        if (length == 0) return;
+        float dx = direction.x / length, dy = direction.y / length, dz = direction.z / length;
+
+        ranked.reset(Integer.MAX_VALUE);
+        int top = push(0, root);
+        while (top > 0)
+        {
+            int id = stack[--top];
+            Node node = nodes[id];
+            if (node.box.intersectRay(origin.x, origin.y, origin.z, dx, dy, dz, maxDistance) < 0) continue;
+            if (node.isLeaf())
+            {
+                float t = node.tight.intersectRay(origin.x, origin.y, origin.z, dx, dy, dz, maxDistance);
+                if (t >= 0) ranked.offer(t, node.item);
+            }
+            else
+            {
+                top = push(top, node.child1);
+                top = push(top, node.child2);
+            }
+        }
+        ranked.drainTo(out);
+    }
+
+    @Override
+    public void queryNearest(Vector point, int k, List<T> out)
+    {
+        if (k <= 0) return;
+        ranked.reset(k);
+        int top = push(0, root);
+        while (top > 0)
+        {
+            int id = stack[--top];
+            Node node = nodes[id];
+            if (node.box.distanceSquared(point.x, point.y, point.z) >= ranked.worstKey()) continue;
+            if (node.isLeaf())
+            {
+                ranked.offer(node.tight.distanceSquared(point.x, point.y, point.z), node.item);
+                continue;
+            }
+
+            // Visit the nearer child first so the bound tightens early
+            float d1 = nodes[node.child1].box.distanceSquared(point.x, point.y, point.z);
+            float d2 = nodes[node.child2].box.distanceSquared(point.x, point.y, point.z);
+            if (d1 < d2)
+            {
+                top = push(top, node.child2);
+                top = push(top, node.child1);
+            }
+            else
+            {
+                top = push(top, node.child1);
+                top = push(top, node.child2);
+            }
+        }
+        ranked.drainTo(out);
+    }
+
+    private int push(int top, int id)
+    {
+        if (id == NULL) return top;
+        if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+        stack[top] = id;
+        return top + 1;
+    }
+
+    // ----------------------------
+    // Structure
+    // ----------------------------
+
+    private void checkProxy(int proxy)
+    {
+        if (proxy < 0 || proxy >= nodeCount || nodes[proxy].height != 0 || nodes[proxy].child1 != NULL)
+        {
+            throw new IllegalArgumentException("Invalid proxy: " + proxy);
+        }
+    }
+
+    private int allocateNode()
+    {
+        int id;
+        if (freeList != NULL)
+        {
+            id = freeList;
+            freeList = nodes[id].parent;
+        }
+        else
+        {
+            if (nodeCount == nodes.length) nodes = Arrays.copyOf(nodes, nodeCount * 2);
+            id = nodeCount++;
+            nodes[id] = new Node();
+        }
+        Node node = nodes[id];
+        node.parent = node.child1 = node.child2 = NULL;
+        node.height = 0;
+        node.item = null;
+        return id;
+    }
+
+    private void freeNode(int id)
+    {
+        Node node = nodes[id];
+        node.item = null;
+        node.child1 = node.child2 = NULL;
+        node.height = -1;
+        node.parent = freeList;
+        freeList = id;
+    }
+
+    private void insertLeaf(int leaf)
+    {
+        if (root == NULL)
+        {
+            root = leaf;
+            nodes[leaf].parent = NULL;
+            return;
+        }
+
+        // Descend towards the sibling whose pairing adds the least total box size
+        Bounds leafBox = nodes[leaf].box;
+        int index = root;
+        while (!nodes[index].isLeaf())
+        {
+            Node node = nodes[index];
+            float size = node.box.getExtentSum();
+            float combined = scratch.setUnion(node.box, leafBox).getExtentSum();
+
+            // Cost of making a new parent for this node and the leaf
+            float cost = 2 * combined;
+            // Minimum cost pushed down to the children
+            float inheritance = 2 * (combined - size);
+
+            float cost1 = descendCost(node.child1, leafBox) + inheritance;
+            float cost2 = descendCost(node.child2, leafBox) + inheritance;
+            if (cost < cost1 && cost < cost2) break;
+            index = cost1 < cost2 ? node.child1 : node.child2;
+        }
+
+        int sibling = index;
+        int oldParent = nodes[sibling].parent;
+        int newParent = allocateNode();
+        Node parent = nodes[newParent];
+        parent.parent = oldParent;
+        parent.box.setUnion(leafBox, nodes[sibling].box);
+        parent.height = nodes[sibling].height + 1;
+        parent.child1 = sibling;
+        parent.child2 = leaf;
+        nodes[sibling].parent = newParent;
+        nodes[leaf].parent = newParent;
+
+        if (oldParent != NULL)
+        {
+            if (nodes[oldParent].child1 == sibling) nodes[oldParent].child1 = newParent;
+            else nodes[oldParent].child2 = newParent;
+        }
+        else
+        {
+            root = newParent;
+        }
+
+        refit(nodes[leaf].parent);
+    }
+
+    private float descendCost(int child, Bounds leafBox)
+    {
+        Node node = nodes[child];
+        float combined = scratch.setUnion(leafBox, node.box).getExtentSum();
+        return node.isLeaf() ? combined : combined - node.box.getExtentSum();
+    }
+
+    private void removeLeaf(int leaf)
+    {
+        if (leaf == root)
+        {
+            root = NULL;
+            return;
+        }
+
+        int parent = nodes[leaf].parent;
+        int grandParent = nodes[parent].parent;
+        int sibling = nodes[parent].child1 == leaf ? nodes[parent].child2 : nodes[parent].child1;
+
+        if (grandParent != NULL)
+        {
+            if (nodes[grandParent].child1 == parent) nodes[grandParent].child1 = sibling;
+            else nodes[grandParent].child2 = sibling;
+            nodes[sibling].parent = grandParent;
+            freeNode(parent);
+            refit(grandParent);
+        }
+        else
+        {
+            root = sibling;
+            nodes[sibling].parent = NULL;
+            freeNode(parent);
+        }
+        nodes[leaf].parent = NULL;
+    }
+
+    /**
+     * Rebalances and recomputes the boxes and heights from a node up to the root.
+     */
+    private void refit(int index)
+    {
+        while (index != NULL)
+        {
+            index = balance(index);
+            Node node = nodes[index];
+            Node child1 = nodes[node.child1];
+            Node child2 = nodes[node.child2];
+            node.height = 1 + Math.max(child1.height, child2.height);
+            node.box.setUnion(child1.box, child2.box);
+            index = node.parent;
+        }
+    }
+
+    /**
+     * Rotates the taller grandchild up if the children of a node differ in height by more than one.
+     * @return Index of the node that now takes the place of the given one
+     */
+    private int balance(int iA)
+    {
+        Node a = nodes[iA];
+        if (a.isLeaf() || a.height < 2) return iA;
+
+        int iB = a.child1;
+        int iC = a.child2;
+        Node b = nodes[iB];
+        Node c = nodes[iC];
+        int balance = c.height - b.height;
+
+        if (balance > 1)
+        {
+            rotateUp(iA, iC);
+            int iF = c.child1;
+            int iG = c.child2;
+            Node f = nodes[iF];
+            Node g = nodes[iG];
+            c.child1 = iA;
+            if (f.height > g.height)
+            {
+                c.child2 = iF;
+                a.child2 = iG;
+                g.parent = iA;
+                refitNode(a);
+                refitNode(c);
+            }
+            else
+            {
+                c.child2 = iG;
+                a.child2 = iF;
+                f.parent = iA;
+                refitNode(a);
+                refitNode(c);
+            }
+            return iC;
+        }
+
+        if (balance < -1)
+        {
+            rotateUp(iA, iB);
+            int iD = b.child1;
+            int iE = b.child2;
+            Node d = nodes[iD];
+            Node e = nodes[iE];
+            b.child1 = iA;
+            if (d.height > e.height)
+            {
+                b.child2 = iD;
+                a.child1 = iE;
+                e.parent = iA;
+                refitNode(a);
+                refitNode(b);
+            }
+            else
+            {
+                b.child2 = iE;
+                a.child1 = iD;
+                d.parent = iA;
+                refitNode(a);
+                refitNode(b);
+            }
+            return iB;
+        }
+
+        return iA;
+    }
+
+    /**
+     * Puts child in the place of its parent a, and makes a a child of it.
+     */
+    private void rotateUp(int iA, int iChild)
+    {
+        Node a = nodes[iA];
+        Node child = nodes[iChild];
+        child.parent = a.parent;
+        a.parent = iChild;
+        if (child.parent != NULL)
+        {
+            Node grand = nodes[child.parent];
+            if (grand.child1 == iA) grand.child1 = iChild;
+            else grand.child2 = iChild;
+        }
+        else
+        {
+            root = iChild;
+        }
+    }
+
+    private void refitNode(Node node)
+    {
+        Node child1 = nodes[node.child1];
+        Node child2 = nodes[node.child2];
+        node.height = 1 + Math.max(child1.height, child2.height);
+        node.box.setUnion(child1.box, child2.box);
+    }
+}
@@ -0,0 +1,70 @@
+package org.PiEngine.Spatial;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the items with the smallest keys, sorted, up to a limit. Used to order ray hits and
+ * to collect nearest neighbors. Reused between queries, so it does not allocate once grown.
+ */
+final class RankedList
+{
+    private float[] keys = new float[16];
+    private Object[] items = new Object[16];
+    private int size = 0;
+    private int limit = Integer.MAX_VALUE;
+
+    /**
+     * Empties the list and sets how many items it keeps.
+     */
+    void reset(int limit)
+    {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+        this.limit = limit;
+    }
+
+    /**
+     * Inserts an item if its key is among the smallest seen so far.
+     */
+    void offer(float key, Object item)
+    {
+        if (limit <= 0 || (size == limit && key >= keys[size - 1])) return;
+
+        if (size == keys.length)
+        {
+            keys = Arrays.copyOf(keys, size * 2);
+            items = Arrays.copyOf(items, size * 2);
+        }
+
+        int i = size < limit ? size++ : size - 1;
+        while (i > 0 && keys[i - 1] > key)
+        {
+            keys[i] = keys[i - 1];
+            items[i] = items[i - 1];
+            i--;
+        }
+        keys[i] = key;
+        items[i] = item;
+    }
+
+    /**
+     * Key an item must beat to be kept: the largest kept key once the list is full.
+     */
+    float worstKey()
+    {
+        return size < limit ? Float.POSITIVE_INFINITY : keys[size - 1];
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> void drainTo(List<T> out)
+    {
+        for (int i = 0; i < size; i++) out.add((T) items[i]);
+        reset(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,470 @@
+package org.PiEngine.Spatial;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.PiEngine.Math.Bounds;
+import org.PiEngine.Math.Vector;
+
+/**
+ * A uniform grid over the XY plane, suited to dense 2D levels where most items have a similar size.
+ * Every item is listed in each cell its box covers; z is ignored for bucketing but still checked
+ * against the exact boxes. Items covering more than MAX_CELLS_PER_ITEM cells are kept in a
+ * separate list that every query checks.
+ * <p>
+ * update() only touches the cell lists when an item covers a different set of cells afterwards.
+ * Each query visits every item at most once, using a per-item query stamp.
+ * @param <T> Item type
+ */
+public class SpatialGrid<T> implements SpatialIndex<T>
+{
+    /** Items covering more cells than this are not bucketed */
+    public static final int MAX_CELLS_PER_ITEM = 64;
+
+    /** Proxies listed in one cell */
+    private static final class Cell
+    {
+        int[] proxies = new int[4];
+        int count = 0;
+
+        void add(int proxy)
+        {
+            if (count == proxies.length) proxies = Arrays.copyOf(proxies, count * 2);
+            proxies[count++] = proxy;
+        }
+
+        void remove(int proxy)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                if (proxies[i] == proxy)
+                {
+                    proxies[i] = proxies[--count];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final float cellSize;
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    // Per proxy
+    private Bounds[] bounds = new Bounds[16];
+    private Object[] items = new Object[16];
+    private int[] cellRange = new int[16 * 4];      // minX, minY, maxX, maxY; minX > maxX while oversized
+    private int[] stamps = new int[16];
+    private boolean[] used = new boolean[16];
+    private int proxyCapacity = 0;
+    private int[] freeProxies = new int[16];
+    private int freeCount = 0;
+    private int proxyCount = 0;
+
+    private final Cell oversized = new Cell();
+
+    // Cells that have ever been occupied; bounds ray and nearest searches
+    private int occupiedMinX = Integer.MAX_VALUE, occupiedMinY = Integer.MAX_VALUE;
+    private int occupiedMaxX = Integer.MIN_VALUE, occupiedMaxY = Integer.MIN_VALUE;
+
+    private int stamp = 0;
+    private final int[] range = new int[4];
+    private final Bounds scratch = new Bounds();
+    private final RankedList ranked = new RankedList();
+
+    /**
+     * Creates a grid.
+     * @param cellSize Edge length of a cell in world units; about the size of a typical item
+     */
+    public SpatialGrid(float cellSize)
+    {
+        if (!(cellSize > 0))
+        {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Gets the edge length of a cell.
+     * @return Cell size in world units
+     */
+    public float getCellSize()
+    {
+        return cellSize;
+    }
+
+    @Override
+    public int insert(Bounds box, T item)
+    {
+        int proxy = allocateProxy();
+        bounds[proxy].set(box);
+        items[proxy] = item;
+        used[proxy] = true;
+        stamps[proxy] = stamp;
+        link(proxy);
+        proxyCount++;
+        return proxy;
+    }
+
+    @Override
+    public void remove(int proxy)
+    {
+        checkProxy(proxy);
+        unlink(proxy);
+        items[proxy] = null;
+        used[proxy] = false;
+        if (freeCount == freeProxies.length) freeProxies = Arrays.copyOf(freeProxies, freeCount * 2);
+        freeProxies[freeCount++] = proxy;
+        proxyCount--;
+    }
+
+    @Override
+    public boolean update(int proxy, Bounds box)
+    {
+        checkProxy(proxy);
+        bounds[proxy].set(box);
+        cellRangeOf(box, range);
+        int o = proxy * 4;
+        if (range[0] == cellRange[o] && range[1] == cellRange[o + 1] && range[2] == cellRange[o + 2] && range[3] == cellRange[o + 3])
+        {
+            return false;
+        }
+        unlink(proxy);
+        link(proxy);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getItem(int proxy)
+    {
+        checkProxy(proxy);
+        return (T) items[proxy];
+    }
+
+    @Override
+    public int size()
+    {
+        return proxyCount;
+    }
+
+    @Override
+    public void clear()
+    {
+        cells.clear();
+        oversized.count = 0;
+        Arrays.fill(items, 0, proxyCapacity, null);
+        Arrays.fill(used, 0, proxyCapacity, false);
+        proxyCapacity = 0;
+        freeCount = 0;
+        proxyCount = 0;
+        occupiedMinX = occupiedMinY = Integer.MAX_VALUE;
+        occupiedMaxX = occupiedMaxY = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns the number of non-empty cells, for diagnostics.
+     * @return Cell count
+     */
+    public int getCellCount()
+    {
+        return cells.size();
+    }
+
+    // ----------------------------
+    // Queries
+    // ----------------------------
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void queryBox(Bounds box, List<T> out)
+    {
+        int current = nextStamp();
+        visitCells(box);
+        for (int i = 0; i < oversized.count; i++) offerBox(oversized.proxies[i], box, current, out);
+        for (int cy = range[1]; cy <= range[3]; cy++)
+        {
+            for (int cx = range[0]; cx <= range[2]; cx++)
+            {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell == null) continue;
+                for (int i = 0; i < cell.count; i++) offerBox(cell.proxies[i], box, current, out);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void offerBox(int proxy, Bounds box, int current, List<T> out)
+    {
+        if (stamps[proxy] == current) return;
+        stamps[proxy] = current;
+        if (bounds[proxy].intersects(box)) out.add((T) items[proxy]);
+    }
+
+    @Override
+    public void queryRadius(Vector center, float radius, List<T> out)
+    {
+        collectWithin(center, radius, out);
+    }
+
+    @Override
+    public void queryNearest(Vector point, int k, List<T> out)
+    {
+        if (k <= 0 || proxyCount == 0) return;
+
+        // Grow the search radius until k items are found within it or every cell is covered
+        float radius = cellSize;
+        while (true)
+        {
+            ranked.reset(k);
+            collectWithin(point, radius, null);
+            if (ranked.size() == k || coversOccupied(point, radius)) break;
+            radius *= 2;
+        }
+        ranked.drainTo(out);
+    }
+
+    /**
+     * Adds every item within a distance of a point to out, or offers it to the ranked list keyed
+     * by squared distance if out is null.
+     */
+    private void collectWithin(Vector center, float radius, List<T> out)
+    {
+        float radiusSquared = radius * radius;
+        int current = nextStamp();
+        visitCells(scratch.set(center.x, center.y, center.z, radius, radius, radius));
+        for (int i = 0; i < oversized.count; i++) offerDistance(oversized.proxies[i], center, radiusSquared, current, out);
+        for (int cy = range[1]; cy <= range[3]; cy++)
+        {
+            for (int cx = range[0]; cx <= range[2]; cx++)
+            {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell == null) continue;
+                for (int i = 0; i < cell.count; i++) offerDistance(cell.proxies[i], center, radiusSquared, current, out);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void offerDistance(int proxy, Vector center, float radiusSquared, int current, List<T> out)
+    {
+        if (stamps[proxy] == current) return;
+        stamps[proxy] = current;
+        float distance = bounds[proxy].distanceSquared(center.x, center.y, center.z);
+        if (distance > radiusSquared) return;
+        if (out != null) out.add((T) items[proxy]);
+        else ranked.offer(distance, items[proxy]);
+    }
+
+    private boolean coversOccupied(Vector point, float radius)
+    {
+        if (occupiedMinX > occupiedMaxX) return true;
+        return point.x - radius <= occupiedMinX * cellSize && point.x + radius >= (occupiedMaxX + 1) * cellSize
+            && point.y - radius <= occupiedMinY * cellSize && point.y + radius >= (occupiedMaxY + 1) * cellSize;
+    }
+
+    @Override
+    public void queryRay(Vector origin, Vector direction, float maxDistance, List<T> out)
+    {
+        float length = (float) Math.sqrt(direction.x * direction.x + direction.y * direction.y + direction.z * direction.z);
+        if (length == 0) return;
+        float dx = direction.x / length, dy = direction.y / length, dz = direction.z / length;
+
+        int current = nextStamp();
+        ranked.reset(Integer.MAX_VALUE);
+        for (int i = 0; i < oversized.count; i++) offerRay(oversized.proxies[i], origin, dx, dy, dz, maxDistance, current);
+
+        if (occupiedMinX <= occupiedMaxX)
+        {
+            // Clip the ray to the occupied cells, then walk the cells it crosses in the XY plane
+            scratch.setMinMax(occupiedMinX * cellSize, occupiedMinY * cellSize, -Float.MAX_VALUE,
+                (occupiedMaxX + 1) * cellSize, (occupiedMaxY + 1) * cellSize, Float.MAX_VALUE);
+            float enter = scratch.intersectRay(origin.x, origin.y, 0, dx, dy, 0, maxDistance);
+            if (enter >= 0)
+            {
+                walkRay(origin, dx, dy, dz, enter, maxDistance, current);
+            }
+        }
+        ranked.drainTo(out);
+    }
+
+    private void walkRay(Vector origin, float dx, float dy, float dz, float enter, float maxDistance, int current)
+    {
+        float x = origin.x + dx * enter;
+        float y = origin.y + dy * enter;
+        int cx = cellOf(x);
+        int cy = cellOf(y);
+        if (dx == 0 && dy == 0)
+        {
+            // A ray along z stays in one cell
+            Cell cell = cells.get(key(cx, cy));
+            if (cell != null)
+            {
+                for (int j = 0; j < cell.count; j++) offerRay(cell.proxies[j], origin, dx, dy, dz, maxDistance, current);
+            }
+            return;
+        }
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        float tDeltaX = dx != 0 ? Math.abs(cellSize / dx) : Float.POSITIVE_INFINITY;
+        float tDeltaY = dy != 0 ? Math.abs(cellSize / dy) : Float.POSITIVE_INFINITY;
+        float tMaxX = dx != 0 ? enter + ((cx + (stepX > 0 ? 1 : 0)) * cellSize - x) / dx : Float.POSITIVE_INFINITY;
+        float tMaxY = dy != 0 ? enter + ((cy + (stepY > 0 ? 1 : 0)) * cellSize - y) / dy : Float.POSITIVE_INFINITY;
+
+        int steps = (occupiedMaxX - occupiedMinX) + (occupiedMaxY - occupiedMinY) + 2;
+        for (int i = 0; i <= steps; i++)
+        {
+            if (cx < occupiedMinX - 1 || cx > occupiedMaxX + 1 || cy < occupiedMinY - 1 || cy > occupiedMaxY + 1) break;
+
+            Cell cell = cells.get(key(cx, cy));
+            if (cell != null)
+            {
+                for (int j = 0; j < cell.count; j++) offerRay(cell.proxies[j], origin, dx, dy, dz, maxDistance, current);
+            }
+
+            if (tMaxX < tMaxY)
+            {
+                if (tMaxX > maxDistance) break;
+                tMaxX += tDeltaX;
+                cx += stepX;
+            }
+            else
+            {
+                if (tMaxY > maxDistance) break;
+                tMaxY += tDeltaY;
+                cy += stepY;
+            }
+        }
+    }
+
+    private void offerRay(int proxy, Vector origin, float dx, float dy, float dz, float maxDistance, int current)
+    {
+        if (stamps[proxy] == current) return;
+        stamps[proxy] = current;
+        float t = bounds[proxy].intersectRay(origin.x, origin.y, origin.z, dx, dy, dz, maxDistance);
+        if (t >= 0) ranked.offer(t, items[proxy]);
+    }
+
+    // ----------------------------
+    // Cells
+    // ----------------------------
+
+    private void link(int proxy)
+    {
+        cellRangeOf(bounds[proxy], range);
+        int o = proxy * 4;
+        System.arraycopy(range, 0, cellRange, o, 4);
+
+        long count = (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1);
+        if (count > MAX_CELLS_PER_ITEM)
+        {
+            oversized.add(proxy);
+            return;
+        }
+        for (int cy = range[1]; cy <= range[3]; cy++)
+        {
+            for (int cx = range[0]; cx <= range[2]; cx++)
+            {
+                cells.computeIfAbsent(key(cx, cy), k -> new Cell()).add(proxy);
+            }
+        }
+        occupiedMinX = Math.min(occupiedMinX, range[0]);
+        occupiedMinY = Math.min(occupiedMinY, range[1]);
+        occupiedMaxX = Math.max(occupiedMaxX, range[2]);
+        occupiedMaxY = Math.max(occupiedMaxY, range[3]);
+    }
+
+    private void unlink(int proxy)
+    {
+        int o = proxy * 4;
+        long count = (long) (cellRange[o + 2] - cellRange[o] + 1) * (cellRange[o + 3] - cellRange[o + 1] + 1);
+        if (count > MAX_CELLS_PER_ITEM)
+        {
+            oversized.remove(proxy);
+            return;
+        }
+        for (int cy = cellRange[o + 1]; cy <= cellRange[o + 3]; cy++)
+        {
+            for (int cx = cellRange[o]; cx <= cellRange[o + 2]; cx++)
+            {
+                Long key = key(cx, cy);
+                Cell cell = cells.get(key);
+                if (cell == null) continue;
+                cell.remove(proxy);
+                if (cell.count == 0) cells.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Sets range to the cells a box covers, clamped to the occupied cells.
+     */
+    private void visitCells(Bounds box)
+    {
+        cellRangeOf(box, range);
+        range[0] = Math.max(range[0], occupiedMinX);
+        range[1] = Math.max(range[1], occupiedMinY);
+        range[2] = Math.min(range[2], occupiedMaxX);
+        range[3] = Math.min(range[3], occupiedMaxY);
+    }
+
+    private void cellRangeOf(Bounds box, int[] out)
+    {
+        out[0] = cellOf(box.getMinX());
+        out[1] = cellOf(box.getMinY());
+        out[2] = cellOf(box.getMaxX());
+        out[3] = cellOf(box.getMaxY());
+    }
+
+    private int cellOf(float coordinate)
+    {
+        float cell = (float) Math.floor(coordinate / cellSize);
+        return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, cell));
+    }
+
+    private static long key(int cx, int cy)
+    {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    // ----------------------------
+    // Proxies
+    // ----------------------------
+
+    private int nextStamp()
+    {
+        if (++stamp == 0)
+        {
+            // Wrapped around: forget old stamps so no proxy looks visited
+            Arrays.fill(stamps, 0, proxyCapacity, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    private void checkProxy(int proxy)
+    {
+        if (proxy < 0 || proxy >= proxyCapacity || !used[proxy])
+        {
+            throw new IllegalArgumentException("Invalid proxy: " + proxy);
+        }
+    }
+
+    private int allocateProxy()
+    {
+        if (freeCount > 0) return freeProxies[--freeCount];
+        if (proxyCapacity == items.length)
+        {
+            int capacity = proxyCapacity * 2;
+            bounds = Arrays.copyOf(bounds, capacity);
+            items = Arrays.copyOf(items, capacity);
+            cellRange = Arrays.copyOf(cellRange, capacity * 4);
+            stamps = Arrays.copyOf(stamps, capacity);
+            used = Arrays.copyOf(used, capacity);
+        }
+        if (bounds[proxyCapacity] == null) bounds[proxyCapacity] = new Bounds();
+        return proxyCapacity++;
+    }
+}
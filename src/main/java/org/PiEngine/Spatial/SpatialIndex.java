@@ -0,0 +1,88 @@
+package org.PiEngine.Spatial;
+
+import java.util.List;
+
+import org.PiEngine.Math.Bounds;
+import org.PiEngine.Math.Vector;
+
+/**
+ * A structure that finds items by their world-space boxes without visiting every item.
+ * Items are inserted with a box and identified by the returned proxy ID afterwards.
+ * Queries append their results to the given list and test the exact boxes last passed in.
+ * Implementations are not thread safe.
+ * @param <T> Item type
+ */
+public interface SpatialIndex<T>
+{
+    /**
+     * Adds an item.
+     * @param bounds World-space box of the item
+     * @param item The item
+     * @return Proxy ID of the item
+     */
+    int insert(Bounds bounds, T item);
+
+    /**
+     * Removes an item.
+     * @param proxy Proxy ID returned by insert()
+     */
+    void remove(int proxy);
+
+    /**
+     * Moves an item to a new box.
+     * @param proxy Proxy ID returned by insert()
+     * @param bounds The new box
+     * @return True if the structure had to change; false if only the stored box was updated
+     */
+    boolean update(int proxy, Bounds bounds);
+
+    /**
+     * Gets the item of a proxy.
+     * @param proxy Proxy ID
+     * @return The item
+     */
+    T getItem(int proxy);
+
+    /**
+     * Returns the number of items.
+     * @return Item count
+     */
+    int size();
+
+    /**
+     * Removes every item.
+     */
+    void clear();
+
+    /**
+     * Finds the items whose boxes overlap a box.
+     * @param box The query box
+     * @param out List receiving the items
+     */
+    void queryBox(Bounds box, List<T> out);
+
+    /**
+     * Finds the items whose boxes are within a distance of a point.
+     * @param center The point
+     * @param radius The distance
+     * @param out List receiving the items
+     */
+    void queryRadius(Vector center, float radius, List<T> out);
+
+    /**
+     * Finds the items whose boxes a ray passes through.
+     * @param origin Start of the ray
+     * @param direction Direction of the ray; does not need to be normalized
+     * @param maxDistance Length of the ray, or Float.POSITIVE_INFINITY
+     * @param out List receiving the items, nearest entry point first
+     */
+    void queryRay(Vector origin, Vector direction, float maxDistance, List<T> out);
+
+    /**
+     * Finds the items whose boxes are closest to a point.
+     * @param point The point
+     * @param k Maximum number of items
+     * @param out List receiving up to k items, nearest first
+     */
+    void queryNearest(Vector point, int k, List<T> out);
+}
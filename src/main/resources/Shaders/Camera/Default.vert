@@ -4,7 +4,13 @@ layout (location = 1) in vec2 a_UV;
 
 out vec2 vUV;
 
-uniform mat4 u_ViewProj;
+layout(std140) uniform CameraData
+{
+    mat4 u_ViewProj;
+    vec2 u_Resolution;
+    float u_Time;
+};
+
 uniform mat4 u_ModelMatrix;
 
 
@@ -3,7 +3,13 @@
 in vec2 vUV;
 
 uniform sampler2D u_Texture;
-uniform float u_Time;
+layout(std140) uniform CameraData
+{
+    mat4 u_ViewProj;
+    vec2 u_Resolution;
+    float u_Time;
+};
+
 uniform vec3 u_Color;
 
 out vec4 FragColor;
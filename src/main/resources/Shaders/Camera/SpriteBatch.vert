@@ -0,0 +1,28 @@
+#version 330
+layout (location = 0) in vec2 a_Corner;
+layout (location = 2) in vec4 i_Color;
+layout (location = 3) in vec4 i_UVRect;
+layout (location = 4) in vec4 i_SizeFlip;
+layout (location = 5) in mat4 i_Model;
+
+out vec2 vUV;
+out vec4 vColor;
+
+layout(std140) uniform CameraData
+{
+    mat4 u_ViewProj;
+    vec2 u_Resolution;
+    float u_Time;
+};
+
+
+void main()
+{
+    vec2 t = a_Corner + 0.5;
+    if (i_SizeFlip.y > 0.5) t.x = 1.0 - t.x;
+    if (i_SizeFlip.z > 0.5) t.y = 1.0 - t.y;
+
+    vUV = mix(i_UVRect.xy, i_UVRect.zw, t);
+    vColor = i_Color;
+    gl_Position = u_ViewProj * i_Model * vec4(a_Corner * i_SizeFlip.x, 0.0, 1.0);
+}
@@ -4,7 +4,12 @@ out vec4 FragColor;
 uniform sampler2D u_Texture0;
 uniform sampler2D u_Texture1;
 
-uniform vec2 u_Resolution;
+layout(std140) uniform CameraData
+{
+    mat4 u_ViewProj;
+    vec2 u_Resolution;
+    float u_Time;
+};
 
 in vec2 v_UV;
 